@@ -0,0 +1,45 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * This class runs the benchmarks. It accepts the JMH command line options
+ * and by default writes the results as JSON to {@code jmh-result.json} and
+ * profiles the allocation rate, so that the allocation per operation is
+ * included in the results.
+ */
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(final String[] args) 
+            throws CommandLineOptionException, RunnerException {
+
+        final CommandLineOptions commandLineOptions =
+                new CommandLineOptions(args);
+
+        final ChainedOptionsBuilder optionsBuilder =
+                new OptionsBuilder().parent(commandLineOptions);
+
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            optionsBuilder.resultFormat(ResultFormatType.JSON);
+        }
+
+        if (!commandLineOptions.getResult().hasValue()) {
+            optionsBuilder.result(DEFAULT_RESULT_FILE);
+        }
+
+        if (commandLineOptions.getProfilers().isEmpty()) {
+            optionsBuilder.addProfiler(GCProfiler.class);
+        }
+
+        new Runner(optionsBuilder.build()).run();
+    }
+}
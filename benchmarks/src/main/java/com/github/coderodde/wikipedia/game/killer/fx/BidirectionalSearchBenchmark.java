@@ -0,0 +1,80 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks full bidirectional searches of the
+ * {@link IntBidirectionalBFSPathFinder} on random graphs. Each invocation
+ * searches for a shortest path between the next pair of a fixed list of
+ * random node pairs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms6g", "-Xmx6g" })
+public class BidirectionalSearchBenchmark {
+
+    private static final int OUT_DEGREE = 8;
+    private static final int NUMBER_OF_QUERIES = 256;
+    private static final long SEED = 13L;
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int nodes;
+
+    /**
+     * The number of expansion threads; one expands on the searching thread.
+     */
+    @Param({ "1", "4" })
+    public int threads;
+
+    private SyntheticGraph graph;
+    private IntNodeExpander forwardExpander;
+    private IntNodeExpander backwardExpander;
+    private IntBidirectionalBFSPathFinder finder;
+    private int[] sources;
+    private int[] targets;
+    private int queryIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = new SyntheticGraph(nodes, OUT_DEGREE, SEED);
+        forwardExpander = graph.getForwardExpander();
+        backwardExpander = graph.getBackwardExpander();
+        finder = new IntBidirectionalBFSPathFinder(threads);
+
+        final Random random = new Random(SEED);
+        sources = new int[NUMBER_OF_QUERIES];
+        targets = new int[NUMBER_OF_QUERIES];
+
+        for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+            sources[i] = random.nextInt(nodes);
+            targets[i] = random.nextInt(nodes);
+        }
+    }
+
+    @Benchmark
+    public int[] search() {
+        final int i = queryIndex;
+        queryIndex = (i + 1) % NUMBER_OF_QUERIES;
+
+        return finder.search(sources[i],
+                             targets[i],
+                             forwardExpander,
+                             backwardExpander);
+    }
+}
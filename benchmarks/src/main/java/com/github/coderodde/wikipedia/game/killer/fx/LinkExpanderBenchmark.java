@@ -0,0 +1,123 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the {@link ForwardLinkExpander} and the
+ * {@link BackwardLinkExpander} against a canned link graph. The neighbor
+ * lists of all the articles are loaded into the session link cache up front,
+ * so that the expanders never reach the network and the benchmarks measure
+ * the per-node cost of the expansion path itself: the cache lookup, the
+ * title keys and the interning into the primitive identifiers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkExpanderBenchmark {
+
+    private static final String LANGUAGE_CODE = "en";
+    private static final long CACHE_SIZE_BYTES = 1024L * 1024L * 1024L;
+    private static final long SEED = 17L;
+
+    @Param({ "10000", "100000" })
+    public int articles;
+
+    @Param({ "8", "64" })
+    public int outDegree;
+
+    private AbstractLinkExpander forwardExpander;
+    private AbstractLinkExpander backwardExpander;
+    private InterningNodeExpander interningExpander;
+    private TitleDictionary dictionary;
+    private int article;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final SyntheticGraph graph = 
+                new SyntheticGraph(articles, outDegree, SEED);
+
+        final SessionLinkCache sessionLinkCache =
+                new SessionLinkCache(CACHE_SIZE_BYTES,
+                                     CacheAdmissionPolicy.LRU);
+
+        for (int node = 0; node < articles; node++) {
+            final String title = SyntheticGraph.getTitle(node);
+
+            sessionLinkCache.put(
+                    LANGUAGE_CODE,
+                    LinkDirection.FORWARD,
+                    title,
+                    SyntheticGraph.getTitles(graph.getChildren(node)));
+
+            sessionLinkCache.put(
+                    LANGUAGE_CODE,
+                    LinkDirection.BACKWARD,
+                    title,
+                    SyntheticGraph.getTitles(graph.getParents(node)));
+        }
+
+        forwardExpander = new ForwardLinkExpander(LANGUAGE_CODE,
+                                                  sessionLinkCache,
+                                                  null,
+                                                  null,
+                                                  null);
+
+        backwardExpander = new BackwardLinkExpander(LANGUAGE_CODE,
+                                                    sessionLinkCache,
+                                                    null,
+                                                    null,
+                                                    null);
+
+        dictionary = new TitleDictionary();
+        interningExpander = new InterningNodeExpander(forwardExpander,
+                                                      dictionary);
+
+        for (int node = 0; node < articles; node++) {
+            dictionary.intern(SyntheticGraph.getTitle(node));
+        }
+    }
+
+    @Benchmark
+    public List<String> expandForward() {
+        return forwardExpander.generateSuccessors(nextTitle());
+    }
+
+    @Benchmark
+    public List<String> expandBackward() {
+        return backwardExpander.generateSuccessors(nextTitle());
+    }
+
+    @Benchmark
+    public List<String> expandForwardAsync() {
+        return forwardExpander.generateSuccessorsAsync(nextTitle()).join();
+    }
+
+    @Benchmark
+    public int[] expandForwardInterned() {
+        final int node = article;
+        article = (node + 1) % articles;
+        return interningExpander.generateSuccessors(node);
+    }
+
+    private String nextTitle() {
+        final int node = article;
+        article = (node + 1) % articles;
+        return SyntheticGraph.getTitle(node);
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the {@link WikipediaApiClient} against a
+ * {@link ReplayServer}, so that the network path (the request encoding, the
+ * HTTP client and the response parsing) is measured reproducibly under a
+ * controlled latency.
+ * <p>
+ * By default, an embedded stand-in replays a synthetic link graph, or the
+ * archive named by the system property {@value #ARCHIVE_PROPERTY}. If the
+ * system property {@code wikigamekiller.apiBaseUrl} names an external
+ * stand-in, the requests go there instead; the archive property must then
+ * name the archive it replays, since the requested titles are taken from it.
+ * The properties given to the benchmark runner are passed to the forked
+ * virtual machines. The request rate is not limited unless the system 
+ * property {@code wikigamekiller.requestRate} is given, since the benchmark
+ * measures the network path rather than the request scheduler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ReplayedApiBenchmark {
+
+    /**
+     * The system property naming the archive to replay.
+     */
+    static final String ARCHIVE_PROPERTY = "benchmark.archive";
+
+    private static final String LANGUAGE_CODE = "en";
+    private static final int ARTICLES = 10_000;
+    private static final int OUT_DEGREE = 32;
+    private static final long SEED = 19L;
+
+    @Param({ "1", "50" })
+    public int batchSize;
+
+    /**
+     * The latency of the embedded stand-in in milliseconds; its jitter is a
+     * fifth of that.
+     */
+    @Param({ "0", "50" })
+    public int latency;
+
+    private ReplayServer replayServer;
+    private boolean embedded;
+    private WikipediaApiClient apiClient;
+    private List<String> titles;
+    private int titleIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final String archive = System.getProperty(ARCHIVE_PROPERTY);
+        final String baseUrl =
+                System.getProperty(WikipediaApiClient.API_BASE_URL_PROPERTY);
+
+        final boolean external = baseUrl != null && !baseUrl.isBlank();
+
+        if (external && archive == null) {
+            throw new IllegalStateException(
+                    String.format("An external stand-in requires %s.",
+                                  ARCHIVE_PROPERTY));
+        }
+
+        replayServer = new ReplayServer(0, latency, latency / 5, 0.0);
+
+        if (archive != null) {
+            replayServer.load(Paths.get(archive));
+        } else {
+            final SyntheticGraph graph =
+                    new SyntheticGraph(ARTICLES, OUT_DEGREE, SEED);
+
+            for (int node = 0; node < ARTICLES; node++) {
+                replayServer.putLinks(
+                        LANGUAGE_CODE,
+                        LinkDirection.FORWARD,
+                        SyntheticGraph.getTitle(node),
+                        SyntheticGraph.getTitles(graph.getChildren(node)));
+            }
+        }
+
+        titles = replayServer.getTitles(LANGUAGE_CODE);
+
+        if (titles.size() < batchSize) {
+            throw new IllegalStateException(
+                    String.format("Too few replayed articles: %d.",
+                                  titles.size()));
+        }
+
+        if (!external) {
+            final int port = replayServer.start();
+            embedded = true;
+
+            System.setProperty(WikipediaApiClient.API_BASE_URL_PROPERTY,
+                               "http://localhost:" + port);
+        }
+
+        if (System.getProperty(
+                RequestScheduler.REQUEST_RATE_PROPERTY) == null) {
+            System.setProperty(RequestScheduler.REQUEST_RATE_PROPERTY, "0");
+        }
+
+        apiClient = new WikipediaApiClient(LANGUAGE_CODE,
+                                           LinkDirection.FORWARD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (embedded) {
+            replayServer.stop();
+            System.clearProperty(WikipediaApiClient.API_BASE_URL_PROPERTY);
+        }
+    }
+
+    @Benchmark
+    public Map<String, List<String>> fetchLinks() throws IOException {
+        return apiClient.fetchLinks(nextBatch());
+    }
+
+    @Benchmark
+    public Map<String, List<String>> fetchLinksAsync() {
+        return apiClient.fetchLinksAsync(nextBatch()).join();
+    }
+
+    private synchronized List<String> nextBatch() {
+        if (titleIndex + batchSize > titles.size()) {
+            titleIndex = 0;
+        }
+
+        final List<String> batch =
+                titles.subList(titleIndex, titleIndex + batchSize);
+
+        titleIndex += batchSize;
+        return batch;
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class implements a random directed graph held in compressed sparse
+ * row arrays for the benchmarks. Each node {@code i} links to {@code i + 1}
+ * (modulo the number of nodes), so that every node is reachable from every
+ * other, and to {@code outDegree - 1} uniformly random nodes.
+ */
+final class SyntheticGraph {
+
+    private final int numberOfNodes;
+    private final int[] forwardOffsets;
+    private final int[] forwardTargets;
+    private final int[] backwardOffsets;
+    private final int[] backwardTargets;
+
+    /**
+     * Generates a graph.
+     *
+     * @param numberOfNodes the number of nodes.
+     * @param outDegree     the out-degree of each node.
+     * @param seed          the seed of the random number generator.
+     */
+    SyntheticGraph(final int numberOfNodes,
+                   final int outDegree,
+                   final long seed) {
+
+        final Random random = new Random(seed);
+        final int numberOfArcs = numberOfNodes * outDegree;
+
+        this.numberOfNodes = numberOfNodes;
+        this.forwardOffsets = new int[numberOfNodes + 1];
+        this.forwardTargets = new int[numberOfArcs];
+        this.backwardOffsets = new int[numberOfNodes + 1];
+        this.backwardTargets = new int[numberOfArcs];
+
+        for (int node = 0; node < numberOfNodes; node++) {
+            final int offset = node * outDegree;
+            forwardOffsets[node] = offset;
+            forwardTargets[offset] = (node + 1) % numberOfNodes;
+
+            for (int i = 1; i < outDegree; i++) {
+                forwardTargets[offset + i] = random.nextInt(numberOfNodes);
+            }
+        }
+
+        forwardOffsets[numberOfNodes] = numberOfArcs;
+
+        // Count the in-degrees, turn them into offsets and scatter:
+        for (final int target : forwardTargets) {
+            backwardOffsets[target + 1]++;
+        }
+
+        for (int node = 0; node < numberOfNodes; node++) {
+            backwardOffsets[node + 1] += backwardOffsets[node];
+        }
+
+        final int[] cursors = Arrays.copyOf(backwardOffsets, numberOfNodes);
+
+        for (int node = 0; node < numberOfNodes; node++) {
+            for (int i = forwardOffsets[node];
+                     i < forwardOffsets[node + 1];
+                     i++) {
+                backwardTargets[cursors[forwardTargets[i]]++] = node;
+            }
+        }
+    }
+
+    int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    int[] getChildren(final int node) {
+        return Arrays.copyOfRange(forwardTargets,
+                                  forwardOffsets[node],
+                                  forwardOffsets[node + 1]);
+    }
+
+    int[] getParents(final int node) {
+        return Arrays.copyOfRange(backwardTargets,
+                                  backwardOffsets[node],
+                                  backwardOffsets[node + 1]);
+    }
+
+    IntNodeExpander getForwardExpander() {
+        return new IntNodeExpander() {
+            @Override
+            int[] generateSuccessors(final int node) {
+                return getChildren(node);
+            }
+
+            @Override
+            boolean isValidNode(final int node) {
+                return node >= 0 && node < numberOfNodes;
+            }
+        };
+    }
+
+    IntNodeExpander getBackwardExpander() {
+        return new IntNodeExpander() {
+            @Override
+            int[] generateSuccessors(final int node) {
+                return getParents(node);
+            }
+
+            @Override
+            boolean isValidNode(final int node) {
+                return node >= 0 && node < numberOfNodes;
+            }
+        };
+    }
+
+    /**
+     * Returns the title of {@code node} in the URL form. The titles contain
+     * percent-encoded characters like the real ones often do.
+     *
+     * @param node the node.
+     *
+     * @return the title of the node.
+     */
+    static String getTitle(final int node) {
+        return "Art%C3%ADculo_" + node;
+    }
+
+    /**
+     * Returns the titles of {@code nodes}.
+     *
+     * @param nodes the nodes.
+     *
+     * @return the list of the titles.
+     */
+    static List<String> getTitles(final int[] nodes) {
+        final List<String> titles = new ArrayList<>(nodes.length);
+
+        for (final int node : nodes) {
+            titles.add(getTitle(node));
+        }
+
+        return titles;
+    }
+}
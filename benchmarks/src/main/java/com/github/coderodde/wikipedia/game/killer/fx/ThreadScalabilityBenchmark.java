@@ -0,0 +1,128 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures how the throughput of the
+ * {@link IntBidirectionalBFSPathFinder} grows with the number of threads
+ * expanding the layers. The expansions may be given a latency standing in
+ * for the round trip of an API request; with none, the benchmark measures
+ * the merging on the searching thread alone.
+ * <p>
+ * Besides the searches per second, the number of expanded nodes per second
+ * is reported as {@code expansions}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ThreadScalabilityBenchmark {
+
+    private static final int NUMBER_OF_QUERIES = 256;
+    private static final long SEED = 19L;
+
+    @Param({ "2000000" })
+    public int nodes;
+
+    @Param({ "3" })
+    public int outDegree;
+
+    @Param({ "1", "2", "4", "8", "16", "32", "64", "128", "256" })
+    public int threads;
+
+    /**
+     * The latency of an expansion in microseconds.
+     */
+    @Param({ "0", "1000" })
+    public int latencyMicros;
+
+    private IntNodeExpander forwardExpander;
+    private IntNodeExpander backwardExpander;
+    private IntBidirectionalBFSPathFinder finder;
+    private int[] sources;
+    private int[] targets;
+    private int queryIndex;
+
+    /**
+     * This class counts the expanded nodes.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long expansions;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final SyntheticGraph graph =
+                new SyntheticGraph(nodes, outDegree, SEED);
+
+        final long latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+
+        forwardExpander = delay(graph.getForwardExpander(), latencyNanos);
+        backwardExpander = delay(graph.getBackwardExpander(), latencyNanos);
+
+        finder = new IntBidirectionalBFSPathFinder(threads);
+
+        final Random random = new Random(SEED);
+        sources = new int[NUMBER_OF_QUERIES];
+        targets = new int[NUMBER_OF_QUERIES];
+
+        for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+            sources[i] = random.nextInt(nodes);
+            targets[i] = random.nextInt(nodes);
+        }
+    }
+
+    @Benchmark
+    public int[] search(final Counters counters) {
+        final int i = queryIndex;
+        queryIndex = (i + 1) % NUMBER_OF_QUERIES;
+
+        final int[] path = finder.search(sources[i],
+                                         targets[i],
+                                         forwardExpander,
+                                         backwardExpander);
+
+        counters.expansions += finder.getNumberOfExpandedNodes();
+        return path;
+    }
+
+    private static IntNodeExpander delay(final IntNodeExpander expander,
+                                         final long latencyNanos) {
+        if (latencyNanos == 0L) {
+            return expander;
+        }
+
+        return new IntNodeExpander() {
+            @Override
+            int[] generateSuccessors(final int node) {
+                LockSupport.parkNanos(latencyNanos);
+                return expander.generateSuccessors(node);
+            }
+
+            @Override
+            boolean isValidNode(final int node) {
+                return expander.isValidNode(node);
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the title processing: stripping the hosts off the
+ * neighbor URLs returned by the library expanders, adding the hosts back to
+ * a path, and rendering a path as the HTML result table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TitleProcessingBenchmark {
+
+    private static final String LANGUAGE_CODE = "en";
+
+    /**
+     * The number of neighbor URLs of an expanded article.
+     */
+    @Param({ "10", "500" })
+    public int neighbors;
+
+    /**
+     * The number of articles in a path.
+     */
+    @Param({ "4", "8" })
+    public int pathLength;
+
+    private List<String> neighborUrls;
+    private List<String> pathTitles;
+    private List<String> pathUrls;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        neighborUrls = new ArrayList<>(neighbors);
+
+        for (int i = 0; i < neighbors; i++) {
+            neighborUrls.add(
+                    String.format("https://%s.wikipedia.org/wiki/%s",
+                                  LANGUAGE_CODE,
+                                  SyntheticGraph.getTitle(i)));
+        }
+
+        pathTitles = new ArrayList<>(pathLength);
+
+        for (int i = 0; i < pathLength; i++) {
+            pathTitles.add(SyntheticGraph.getTitle(i));
+        }
+
+        pathUrls = WikiGameKillerFX.addHosts(pathTitles, LANGUAGE_CODE);
+    }
+
+    @Benchmark
+    public List<String> stripHostAddress() {
+        return AbstractLinkExpander.stripHostAddress(neighborUrls);
+    }
+
+    @Benchmark
+    public String stripHostFromURL() {
+        return WikiGameKillerFX.stripHostFromURL(neighborUrls.get(0));
+    }
+
+    @Benchmark
+    public List<String> addHosts() {
+        return WikiGameKillerFX.addHosts(pathTitles, LANGUAGE_CODE);
+    }
+
+    @Benchmark
+    public String getPathTableHtml() {
+        return WikiGameKillerFX.getPathTableHtml(pathUrls);
+    }
+}
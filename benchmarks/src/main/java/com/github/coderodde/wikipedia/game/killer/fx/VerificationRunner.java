@@ -0,0 +1,476 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class checks the {@link ShortestPathEnumerator} and the
+ * {@link CompressedTitleList} against simple reference implementations on
+ * random inputs, and the admission and eviction of the 
+ * {@link SessionLinkCache}. It is run from the benchmark jar:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar \
+ *      com.github.coderodde.wikipedia.game.killer.fx.VerificationRunner
+ * </pre>
+ * A failed check ends the run with an {@link IllegalStateException}
+ * describing the first mismatch.
+ */
+public final class VerificationRunner {
+
+    private static final long SEED = 23L;
+
+    /**
+     * The number of nodes in the graphs of the path checks.
+     */
+    private static final int NODES = 3000;
+
+    private static final int NUMBER_OF_QUERIES = 200;
+
+    /**
+     * The maximum number of shortest paths asked of the path finders. The
+     * queries with more shortest paths check only that many.
+     */
+    private static final int MAXIMUM_NUMBER_OF_PATHS = 2000;
+
+    private static final int NUMBER_OF_TITLE_LISTS = 2000;
+
+    public static void main(final String[] args) {
+        verifyShortestPaths();
+        verifyCompressedTitleLists();
+        verifySessionLinkCache();
+    }
+
+    /**
+     * Checks that the paths enumerated after a search are distinct shortest
+     * paths, the returned one first, and as many as a breadth-first search 
+     * over the whole graph counts, for a single-threaded and a concurrent
+     * path finder.
+     */
+    private static void verifyShortestPaths() {
+        final Random random = new Random(SEED);
+        long numberOfPaths = 0L;
+
+        for (final int outDegree : new int[]{ 2, 3, 5 }) {
+            final SyntheticGraph graph =
+                    new SyntheticGraph(NODES, outDegree, SEED + outDegree);
+
+            final List<IntBidirectionalBFSPathFinder> finders = List.of(
+                    new IntBidirectionalBFSPathFinder(1),
+                    new IntBidirectionalBFSPathFinder(4));
+
+            for (final IntBidirectionalBFSPathFinder finder : finders) {
+                finder.setMaximumNumberOfPaths(MAXIMUM_NUMBER_OF_PATHS);
+            }
+
+            for (int query = 0; query < NUMBER_OF_QUERIES; query++) {
+                final int source = random.nextInt(NODES);
+                final int target = random.nextInt(NODES);
+                final int[] distances = getDistances(graph, target);
+                final long expectedNumberOfPaths =
+                        countShortestPaths(graph, distances, source);
+
+                for (final IntBidirectionalBFSPathFinder finder : finders) {
+                    numberOfPaths += verifyShortestPaths(
+                            graph,
+                            finder,
+                            source,
+                            target,
+                            distances,
+                            expectedNumberOfPaths);
+                }
+            }
+        }
+
+        System.out.printf("ShortestPathEnumerator: OK, %d paths checked.\n",
+                          numberOfPaths);
+    }
+
+    private static int verifyShortestPaths(
+            final SyntheticGraph graph,
+            final IntBidirectionalBFSPathFinder finder,
+            final int source,
+            final int target,
+            final int[] distances,
+            final long expectedNumberOfPaths) {
+
+        final int[] path = finder.search(source,
+                                         target,
+                                         graph.getForwardExpander(),
+                                         graph.getBackwardExpander());
+
+        final ShortestPathEnumerator enumerator = finder.getShortestPaths();
+        final Set<List<Integer>> paths = new HashSet<>();
+        boolean first = true;
+
+        while (enumerator.hasNext()) {
+            final int[] nextPath = enumerator.next();
+
+            if (first && !Arrays.equals(nextPath, path)) {
+                throw new IllegalStateException(
+                        String.format(
+                                "The first enumerated path %s is not the " +
+                                "returned path %s.",
+                                Arrays.toString(nextPath),
+                                Arrays.toString(path)));
+            }
+
+            first = false;
+
+            final List<Integer> nextPathList = toList(nextPath);
+
+            if (!isShortestPath(graph, distances, source, target, nextPath)) {
+                throw new IllegalStateException(
+                        String.format(
+                                "Not a shortest path from %d to %d: %s.",
+                                source,
+                                target,
+                                nextPathList));
+            }
+
+            if (!paths.add(nextPathList)) {
+                throw new IllegalStateException(
+                        String.format("Path enumerated twice: %s.",
+                                      nextPathList));
+            }
+        }
+
+        if (paths.size() != 
+                Math.min(expectedNumberOfPaths, MAXIMUM_NUMBER_OF_PATHS)) {
+            throw new IllegalStateException(
+                    String.format(
+                            "Enumerated %d shortest paths from %d to %d " +
+                            "instead of %d.",
+                            paths.size(),
+                            source,
+                            target,
+                            Math.min(expectedNumberOfPaths, 
+                                     MAXIMUM_NUMBER_OF_PATHS)));
+        }
+
+        return paths.size();
+    }
+
+    /**
+     * Returns the distances of all the nodes to {@code target}, or -1 for 
+     * the nodes not reaching it.
+     */
+    private static int[] getDistances(final SyntheticGraph graph,
+                                      final int target) {
+        final int[] distances = new int[graph.getNumberOfNodes()];
+        Arrays.fill(distances, -1);
+        distances[target] = 0;
+
+        final Deque<Integer> queue = new ArrayDeque<>();
+        queue.addLast(target);
+
+        while (!queue.isEmpty()) {
+            final int node = queue.removeFirst();
+
+            for (final int parent : graph.getParents(node)) {
+                if (distances[parent] == -1) {
+                    distances[parent] = distances[node] + 1;
+                    queue.addLast(parent);
+                }
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * Counts the shortest paths from {@code source} to the target of 
+     * {@code distances}, up to one more than the maximum number of paths.
+     */
+    private static long countShortestPaths(final SyntheticGraph graph,
+                                           final int[] distances,
+                                           final int source) {
+        if (distances[source] == -1) {
+            return 0L;
+        }
+
+        // The number of shortest paths from each node, in the order of the
+        // distances:
+        final long[] counts = new long[graph.getNumberOfNodes()];
+        final Integer[] nodes = new Integer[graph.getNumberOfNodes()];
+
+        for (int node = 0; node < nodes.length; node++) {
+            nodes[node] = node;
+        }
+
+        Arrays.sort(nodes, (a, b) -> Integer.compare(distances[a], 
+                                                     distances[b]));
+
+        for (final int node : nodes) {
+            if (distances[node] == 0) {
+                counts[node] = 1L;
+                continue;
+            }
+
+            if (distances[node] == -1) {
+                continue;
+            }
+
+            // The random arcs may repeat a child:
+            final Set<Integer> children = new HashSet<>();
+
+            for (final int child : graph.getChildren(node)) {
+                if (distances[child] == distances[node] - 1 &&
+                        children.add(child)) {
+                    counts[node] = Math.min(counts[node] + counts[child],
+                                            MAXIMUM_NUMBER_OF_PATHS + 1);
+                }
+            }
+        }
+
+        return counts[source];
+    }
+
+    private static boolean isShortestPath(final SyntheticGraph graph,
+                                          final int[] distances,
+                                          final int source,
+                                          final int target,
+                                          final int[] path) {
+        if (path.length != distances[source] + 1 ||
+                path[0] != source ||
+                path[path.length - 1] != target) {
+            return false;
+        }
+
+        for (int i = 0; i < path.length - 1; i++) {
+            final int child = path[i + 1];
+
+            if (Arrays.stream(graph.getChildren(path[i]))
+                      .noneMatch((c) -> c == child)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks that the compressed title lists read back as their originals in
+     * both the random and the sequential access and intern to the same
+     * identifiers as the titles themselves.
+     */
+    private static void verifyCompressedTitleLists() {
+        final Random random = new Random(SEED);
+        final TitleDictionary dictionary = new TitleDictionary();
+        final TitleDictionary referenceDictionary = new TitleDictionary();
+        long numberOfTitles = 0L;
+
+        for (int i = 0; i < NUMBER_OF_TITLE_LISTS; i++) {
+            final List<String> titles = createTitles(random);
+            final CompressedTitleList compressedTitles =
+                    CompressedTitleList.of(titles);
+
+            if (compressedTitles.size() != titles.size()) {
+                throw new IllegalStateException(
+                        String.format(
+                                "Compressed %d titles into a list of %d.",
+                                titles.size(),
+                                compressedTitles.size()));
+            }
+
+            if (!new ArrayList<>(compressedTitles).equals(titles)) {
+                throw new IllegalStateException(
+                        String.format("The titles %s iterate as %s.",
+                                      titles,
+                                      new ArrayList<>(compressedTitles)));
+            }
+
+            for (int index = titles.size() - 1; index >= 0; index--) {
+                if (!compressedTitles.get(index).equals(titles.get(index))) {
+                    throw new IllegalStateException(
+                            String.format(
+                                    "Title %d is \"%s\" instead of \"%s\".",
+                                    index,
+                                    compressedTitles.get(index),
+                                    titles.get(index)));
+                }
+            }
+
+            final int[] ids = compressedTitles.intern(dictionary);
+
+            for (int index = 0; index < titles.size(); index++) {
+                final int expectedId =
+                        referenceDictionary.intern(titles.get(index));
+
+                if (ids[index] != expectedId ||
+                        !dictionary.getTitle(ids[index])
+                                   .equals(titles.get(index))) {
+                    throw new IllegalStateException(
+                            String.format(
+                                    "\"%s\" was interned as %d instead " +
+                                    "of %d.",
+                                    titles.get(index),
+                                    ids[index],
+                                    expectedId));
+                }
+            }
+
+            numberOfTitles += titles.size();
+        }
+
+        System.out.printf("CompressedTitleList: OK, %d titles checked.\n",
+                          numberOfTitles);
+    }
+
+    /**
+     * Checks that a TinyLFU candidate needing two victims is admitted only if
+     * it is accessed more often than both, and that a rejected candidate 
+     * evicts none of them.
+     */
+    private static void verifySessionLinkCache() {
+        final long entryWeight = getEntryWeight("A");
+
+        // The main area holds two entries of the weight of "A", but not an
+        // entry of twice that weight besides one of them:
+        final long maximumWeight = (long) Math.ceil(2.5 * entryWeight / 0.99);
+        final String heavyTitle = "C" + "x".repeat((int) entryWeight);
+
+        // "C" beats "A" but loses to "B":
+        final SessionLinkCache cache = 
+                createCache(maximumWeight, 1, 3, 2, heavyTitle);
+
+        checkCached(cache, "A", true);
+        checkCached(cache, "B", true);
+        checkCached(cache, heavyTitle, false);
+        checkEvictions(cache, 1L);
+
+        // "C" beats both:
+        final SessionLinkCache nextCache = 
+                createCache(maximumWeight, 1, 3, 4, heavyTitle);
+
+        checkCached(nextCache, "A", false);
+        checkCached(nextCache, "B", false);
+        checkCached(nextCache, heavyTitle, true);
+        checkEvictions(nextCache, 2L);
+
+        System.out.println("SessionLinkCache: OK, admissions checked.");
+    }
+
+    /**
+     * Returns the weight of an entry of no neighbors in the cache.
+     */
+    private static long getEntryWeight(final String title) {
+        final SessionLinkCache cache = 
+                new SessionLinkCache(Long.MAX_VALUE, CacheAdmissionPolicy.LRU);
+
+        cache.put("en", LinkDirection.FORWARD, title, List.of());
+        return cache.getWeight();
+    }
+
+    /**
+     * Creates a TinyLFU cache holding "A" and "B" in the main area, in this
+     * order, and offers {@code heavyTitle} to it after accessing the three 
+     * titles the given numbers of times.
+     */
+    private static SessionLinkCache createCache(final long maximumWeight,
+                                                final int accessesOfA,
+                                                final int accessesOfB,
+                                                final int accessesOfHeavy,
+                                                final String heavyTitle) {
+        final SessionLinkCache cache = 
+                new SessionLinkCache(maximumWeight, 
+                                     CacheAdmissionPolicy.TINY_LFU);
+
+        access(cache, "A", accessesOfA);
+        access(cache, "B", accessesOfB);
+        access(cache, heavyTitle, accessesOfHeavy);
+
+        // Each entry outweighs the window, so it is offered to the main area
+        // right away:
+        cache.put("en", LinkDirection.FORWARD, "A", List.of());
+        cache.put("en", LinkDirection.FORWARD, "B", List.of());
+        checkCached(cache, "A", true);
+        checkCached(cache, "B", true);
+        checkEvictions(cache, 0L);
+
+        cache.put("en", LinkDirection.FORWARD, heavyTitle, List.of());
+        return cache;
+    }
+
+    private static void access(final SessionLinkCache cache,
+                               final String title,
+                               final int times) {
+        for (int i = 0; i < times; i++) {
+            cache.get("en", LinkDirection.FORWARD, title);
+        }
+    }
+
+    private static void checkCached(final SessionLinkCache cache,
+                                    final String title,
+                                    final boolean expected) {
+        final boolean cached = 
+                cache.peek("en", LinkDirection.FORWARD, title) != null;
+
+        if (cached != expected) {
+            throw new IllegalStateException(
+                    String.format("\"%s\" is %s.",
+                                  title,
+                                  cached ? "cached" : "not cached"));
+        }
+    }
+
+    private static void checkEvictions(final SessionLinkCache cache,
+                                       final long expected) {
+        if (cache.getEvictions() != expected) {
+            throw new IllegalStateException(
+                    String.format("%d evictions instead of %d.",
+                                  cache.getEvictions(),
+                                  expected));
+        }
+    }
+
+    /**
+     * Creates a sorted list of titles sharing prefixes of various lengths,
+     * some of them empty or with non-ASCII characters, like the neighbor
+     * lists of the API.
+     */
+    private static List<String> createTitles(final Random random) {
+        final String[] prefixes = {
+            "", "A", "Art", "Art%C3%ADculo_", "Helsinki", "Helsingin_",
+            "Äänekoski", "東京", "Ελλάδα_", "Zürich_(canton)"
+        };
+
+        final int size =
+                random.nextInt(3 * CompressedTitleList.RESTART_INTERVAL);
+        final List<String> titles = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            final StringBuilder title =
+                    new StringBuilder(
+                            prefixes[random.nextInt(prefixes.length)]);
+
+            final int suffixLength = random.nextInt(6);
+
+            for (int j = 0; j < suffixLength; j++) {
+                title.append(random.nextInt(20) == 0 ?
+                             (char) ('α' + random.nextInt(24)) :
+                             (char) ('a' + random.nextInt(26)));
+            }
+
+            titles.add(title.toString());
+        }
+
+        titles.sort(null);
+        return titles;
+    }
+
+    private static List<Integer> toList(final int[] path) {
+        final List<Integer> list = new ArrayList<>(path.length);
+
+        for (final int node : path) {
+            list.add(node);
+        }
+
+        return list;
+    }
+}
@@ -0,0 +1,404 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.github.coderodde.graph.pathfinding.delayed.AbstractNodeExpander;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class implements the caching logic shared by both the link 
+ * expanders. The in-memory session cache is consulted first, then the
+ * persistent link cache, and only if both miss, the network. Each 
+ * successful download is recorded in both the caches.
+ * <p>
+ * The downloads go through the batching link fetcher if one is given, 
+ * and through {@link #downloadSuccessors(java.lang.String)} otherwise. 
+ * The asynchronous expansions go through the asynchronous link fetcher.
+ * <p>
+ * The streamed expansions hand the downloaded links to a page listener as
+ * the result pages arrive, if a link fetcher is given. Only the complete
+ * neighbor lists are cached. A streamed expansion stopped by its listener 
+ * is cut short, not failed.
+ * <p>
+ * An expansion whose download fails for good yields no successors. The 
+ * empty list returned then is told apart by {@link #isFailed(List)}, so 
+ * that a search can report its result as incomplete.
+ */
+abstract class AbstractLinkExpander 
+        extends AbstractNodeExpander<String> 
+        implements AsyncNodeExpander, StreamingNodeExpander {
+    
+    /**
+     * The successors of a failed expansion. Equal to any empty list, but a
+     * distinct instance.
+     */
+    private static final List<String> FAILED_SUCCESSORS = 
+            Collections.unmodifiableList(new ArrayList<>(0));
+    
+    private final String languageCode;
+    private final LinkDirection direction;
+    private final SessionLinkCache sessionLinkCache;
+    private final PersistentLinkCache persistentLinkCache;
+    private final BatchingLinkFetcher linkFetcher;
+    private final AsyncLinkFetcher asyncLinkFetcher;
+    
+    AbstractLinkExpander(final String languageCode,
+                         final LinkDirection direction,
+                         final SessionLinkCache sessionLinkCache,
+                         final PersistentLinkCache persistentLinkCache,
+                         final BatchingLinkFetcher linkFetcher,
+                         final AsyncLinkFetcher asyncLinkFetcher) {
+        this.languageCode = languageCode;
+        this.direction = direction;
+        this.sessionLinkCache = sessionLinkCache;
+        this.persistentLinkCache = persistentLinkCache;
+        this.linkFetcher = linkFetcher;
+        this.asyncLinkFetcher = asyncLinkFetcher;
+    }
+    
+    /**
+     * Returns {@code true} if {@code successors} are the result of an 
+     * expansion whose download failed.
+     * 
+     * @param successors the successors returned by an expansion.
+     * 
+     * @return {@code true} if the expansion failed.
+     */
+    static boolean isFailed(final List<String> successors) {
+        return successors == FAILED_SUCCESSORS;
+    }
+    
+    /**
+     * Downloads the neighbor titles of {@code article}.
+     * 
+     * @param article the article to expand.
+     * 
+     * @return the neighbor titles of {@code article}.
+     * 
+     * @throws Exception if something fails.
+     */
+    abstract List<String> downloadSuccessors(final String article) 
+            throws Exception;
+    
+    @Override
+    public List<String> generateSuccessors(final String article) {
+        final ExpansionEvent event = new ExpansionEvent();
+        event.begin();
+        
+        final long startTime = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+        List<String> successors = getCachedSuccessors(article);
+        
+        if (successors != null) {
+            return recordExpansion(event, startTime, article, successors, true);
+        }
+        
+        try {
+            successors = linkFetcher != null ? 
+                         linkFetcher.fetch(article) :
+                         downloadSuccessors(article);
+            
+            AdaptiveConcurrencyLimit.recordRoundTrip();
+        } catch (Exception ex) {
+            return recordFailure(event, startTime, article);
+        }
+        
+        return recordExpansion(event, 
+                               startTime, 
+                               article, 
+                               cacheSuccessors(article, successors), 
+                               false);
+    }
+    
+    @Override
+    public CompletableFuture<List<String>> 
+        generateSuccessorsAsync(final String article) {
+            
+        final ExpansionEvent event = new ExpansionEvent();
+        event.begin();
+        
+        final long startTime = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+        final List<String> successors = getCachedSuccessors(article);
+        
+        if (successors != null) {
+            return CompletableFuture.completedFuture(
+                    recordExpansion(event, 
+                                    startTime, 
+                                    article, 
+                                    successors, 
+                                    true));
+        }
+        
+        return asyncLinkFetcher
+                .fetch(article)
+                .handle((downloadedSuccessors, throwable) -> {
+                    if (throwable != null) {
+                        return recordFailure(event, startTime, article);
+                    }
+
+                    return recordExpansion(
+                            event, 
+                            startTime, 
+                            article, 
+                            cacheSuccessors(article, downloadedSuccessors), 
+                            false);
+                });
+    }
+    
+    @Override
+    public boolean isAsynchronous() {
+        return asyncLinkFetcher != null;
+    }
+    
+    @Override
+    public CompletableFuture<List<String>> generateSuccessorsStreaming(
+            final String article,
+            final LinkPageListener pageListener) {
+        
+        if (!isStreaming()) {
+            // The library expanders give all the links at once:
+            final List<String> successors = generateSuccessors(article);
+            pageListener.onLinks(article, successors);
+            return CompletableFuture.completedFuture(successors);
+        }
+        
+        final ExpansionEvent event = new ExpansionEvent();
+        event.begin();
+        
+        final long startTime = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+        final List<String> successors = getCachedSuccessors(article);
+        
+        if (successors != null) {
+            pageListener.onLinks(article, successors);
+            
+            return CompletableFuture.completedFuture(
+                    recordExpansion(event, 
+                                    startTime, 
+                                    article, 
+                                    successors, 
+                                    true));
+        }
+        
+        // A request already in flight is joined without its pages; the 
+        // links not passed to the listener are passed at the end:
+        final CountingPageListener countingPageListener = 
+                new CountingPageListener(pageListener);
+        
+        CompletableFuture<List<String>> download;
+        
+        if (asyncLinkFetcher != null) {
+            download = asyncLinkFetcher.fetch(article, countingPageListener);
+        } else {
+            try {
+                download = CompletableFuture.completedFuture(
+                        linkFetcher.fetch(article, countingPageListener));
+                
+                AdaptiveConcurrencyLimit.recordRoundTrip();
+            } catch (final Exception ex) {
+                // A stopped batch fails with the cancellation as the cause:
+                download = CompletableFuture.failedFuture(
+                        ex.getCause() instanceof CancellationException ?
+                        ex.getCause() :
+                        ex);
+            }
+        }
+        
+        return download.handle((downloadedSuccessors, throwable) -> {
+            if (throwable != null && AsyncLinkFetcher.isStopped(throwable)) {
+                // The listener has the pages it wanted; the partial list is
+                // neither cached nor a failure:
+                return recordExpansion(event, 
+                                       startTime, 
+                                       article, 
+                                       Collections.<String>emptyList(), 
+                                       false);
+            }
+            
+            if (throwable != null) {
+                return recordFailure(event, startTime, article);
+            }
+            
+            final int numberOfPassedLinks = 
+                    countingPageListener.numberOfLinks;
+            
+            if (numberOfPassedLinks < downloadedSuccessors.size()) {
+                pageListener.onLinks(
+                        article,
+                        downloadedSuccessors.subList(
+                                numberOfPassedLinks,
+                                downloadedSuccessors.size()));
+            }
+            
+            return recordExpansion(
+                    event, 
+                    startTime, 
+                    article, 
+                    cacheSuccessors(article, downloadedSuccessors), 
+                    false);
+        });
+    }
+    
+    @Override
+    public boolean isStreaming() {
+        return asyncLinkFetcher != null || linkFetcher != null;
+    }
+    
+    /**
+     * Returns the number of the neighbors of {@code article} if they are in
+     * the session cache, and {@code -1} otherwise. The persistent cache is
+     * not consulted, since this is only a hint for the search.
+     * 
+     * @param article the article.
+     * 
+     * @return the number of the cached neighbors, or {@code -1}.
+     */
+    int getCachedDegree(final String article) {
+        return sessionLinkCache.getSize(languageCode, direction, article);
+    }
+    
+    /**
+     * Commits the expansion event if it is enabled, and records the 
+     * expansion in the metrics if they are enabled.
+     * 
+     * @return {@code successors}.
+     */
+    private List<String> recordExpansion(final ExpansionEvent event,
+                                         final long startTime,
+                                         final String article,
+                                         final List<String> successors,
+                                         final boolean cacheHit) {
+        if (event.shouldCommit()) {
+            event.title = article;
+            event.direction = direction.getName();
+            event.neighbors = successors.size();
+            event.cacheHit = cacheHit;
+            event.commit();
+        }
+        
+        if (SearchMetrics.ENABLED) {
+            SearchMetrics.recordExpansion(direction,
+                                          cacheHit,
+                                          successors.size(),
+                                          System.nanoTime() - startTime);
+        }
+        
+        return successors;
+    }
+    
+    /**
+     * Records a failed expansion like {@link #recordExpansion}, and in the 
+     * failure metrics.
+     * 
+     * @return the successors of a failed expansion.
+     */
+    private List<String> recordFailure(final ExpansionEvent event,
+                                       final long startTime,
+                                       final String article) {
+        event.failed = true;
+        
+        if (SearchMetrics.ENABLED) {
+            SearchMetrics.recordFailedExpansion(direction);
+        }
+        
+        return recordExpansion(event, 
+                               startTime, 
+                               article, 
+                               FAILED_SUCCESSORS, 
+                               false);
+    }
+    
+    /**
+     * Returns the neighbors of {@code article} from the session cache or 
+     * the persistent cache, or {@code null} if neither holds them.
+     */
+    private List<String> getCachedSuccessors(final String article) {
+        final List<String> successors = 
+                sessionLinkCache.get(languageCode, direction, article);
+        
+        if (successors != null || persistentLinkCache == null) {
+            return successors;
+        }
+        
+        final List<String> persistentSuccessors = 
+                persistentLinkCache.get(article);
+        
+        if (persistentSuccessors == null) {
+            return null;
+        }
+        
+        final List<String> unmodifiableSuccessors = 
+                Collections.unmodifiableList(persistentSuccessors);
+        
+        sessionLinkCache.put(languageCode,
+                             direction, 
+                             article, 
+                             unmodifiableSuccessors);
+        
+        return unmodifiableSuccessors;
+    }
+    
+    /**
+     * Records the downloaded neighbors of {@code article} in both the 
+     * caches.
+     */
+    private List<String> cacheSuccessors(final String article,
+                                         final List<String> successors) {
+        final List<String> unmodifiableSuccessors = 
+                Collections.unmodifiableList(successors);
+        
+        sessionLinkCache.put(languageCode, 
+                             direction, 
+                             article, 
+                             unmodifiableSuccessors);
+        
+        if (persistentLinkCache != null) {
+            persistentLinkCache.put(article, unmodifiableSuccessors);
+        }
+        
+        return unmodifiableSuccessors;
+    }
+
+    /**
+     * This class counts the links passed to a page listener.
+     */
+    private static final class CountingPageListener 
+            implements LinkPageListener {
+        
+        private final LinkPageListener pageListener;
+        
+        /**
+         * The number of links passed so far. The pages of a download are 
+         * passed one at a time.
+         */
+        private volatile int numberOfLinks;
+        
+        CountingPageListener(final LinkPageListener pageListener) {
+            this.pageListener = pageListener;
+        }
+
+        @Override
+        public boolean onLinks(final String title, final List<String> links) {
+            numberOfLinks += links.size();
+            return pageListener.onLinks(title, links);
+        }
+    }
+
+    /**
+     * Strips the protocol, host name and {@code wiki} path from each URL in
+     * the {@code urlList}. For example, 
+     * {@code https://en.wikipedia.org/en/Hiisi} becomes simply {@code Hiisi}.
+     * 
+     * @param urlList the list of URLs.
+     * @return the list of article titles.
+     */
+    static List<String> stripHostAddress(final List<String> urlList) {
+        final List<String> result = new ArrayList<>(urlList.size());
+        
+        for (final String url : urlList) {
+            result.add(url.substring(url.lastIndexOf("/") + 1));
+        }
+        
+        return result;
+    }
+}
@@ -0,0 +1,287 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class implements an adaptive limit on the number of concurrent
+ * expansions, in the spirit of the AIMD limit of the Netflix
+ * concurrency-limits library. The limit is adjusted at runtime from two
+ * signals:
+ * <ul>
+ *   <li>Latency. Each expansion that made a round trip to the API reports
+ *       its latency; the cache hits and the failures report none, since 
+ *       their latencies say nothing about the load of the server. A 
+ *       short-term average is compared against the minimum latency 
+ *       observed within the recent samples, which approximates the latency
+ *       without load. While the short-term average stays within a 
+ *       tolerance of the baseline and the limit is actually in use, the 
+ *       limit grows by one per round trip, that is, by {@code 1 / limit} 
+ *       per completed expansion; until the first decrease, it grows by one
+ *       per completed expansion, doubling per round trip like a TCP slow 
+ *       start. Once the short-term average exceeds the tolerance, the 
+ *       requests are queueing somewhere, and the limit is decreased 
+ *       multiplicatively.</li>
+ *   <li>Drops. Failed or throttled requests decrease the limit by a larger
+ *       factor.</li>
+ * </ul>
+ * At most one decrease is applied per short-term latency interval, so a
+ * burst of failures caused by a single congestion event backs off once
+ * instead of collapsing the limit to the minimum.
+ * <p>
+ * The waiting is done on a {@link ReentrantLock} rather than on a monitor,
+ * since a virtual thread waiting on a monitor pins its carrier thread.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    static final int DEFAULT_INITIAL_LIMIT = 16;
+    static final int DEFAULT_MAXIMUM_LIMIT = 1024;
+
+    private static final int MINIMUM_LIMIT = 1;
+
+    /**
+     * The short-term latency is considered too high once it exceeds the
+     * baseline by this factor.
+     */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    /**
+     * The factor applied to the limit on excessive latency.
+     */
+    private static final double LATENCY_BACKOFF_RATIO = 0.9;
+
+    /**
+     * The factor applied to the limit on a drop.
+     */
+    private static final double DROP_BACKOFF_RATIO = 0.5;
+
+    /**
+     * The number of samples after which the minimum latency is measured
+     * anew, so that the baseline follows a lasting change in the latency.
+     */
+    private static final int BASELINE_WINDOW = 1000;
+
+    /**
+     * The factor by which the baseline may grow per window at most. Under a
+     * lasting overload, the minimum latency of a window is inflated by the
+     * queueing, and the baseline must not follow it at once.
+     */
+    private static final double BASELINE_GROWTH_RATIO = 1.1;
+
+    /**
+     * The number of samples the short-term latency average approximately
+     * spans.
+     */
+    private static final int SHORT_WINDOW = 10;
+
+    /**
+     * Set in the thread of an expansion once the expansion has made a 
+     * successful round trip to the API.
+     */
+    private static final ThreadLocal<Boolean> ROUND_TRIP = new ThreadLocal<>();
+
+    private final int maximumLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotReleased = lock.newCondition();
+
+    private double limit;
+    private int peakLimit;
+    private int inFlight;
+    private long baselineLatencyNanos = Long.MAX_VALUE;
+    private long windowMinimumLatencyNanos = Long.MAX_VALUE;
+    private int numberOfWindowSamples;
+    private double shortLatencyNanos;
+    private long lastDecreaseNanos;
+    private long numberOfDrops;
+    private boolean slowStart = true;
+
+    /**
+     * Constructs an adaptive limit.
+     *
+     * @param initialLimit the initial limit.
+     * @param maximumLimit the maximum limit.
+     */
+    AdaptiveConcurrencyLimit(final int initialLimit,
+                             final int maximumLimit) {
+        if (initialLimit < MINIMUM_LIMIT || initialLimit > maximumLimit) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The initial limit is out of range [%d, %d]: %d.",
+                            MINIMUM_LIMIT,
+                            maximumLimit,
+                            initialLimit));
+        }
+
+        this.limit = initialLimit;
+        this.peakLimit = initialLimit;
+        this.maximumLimit = maximumLimit;
+    }
+
+    /**
+     * Blocks until the number of concurrent expansions is below the limit
+     * and takes a slot.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    void acquire() throws InterruptedException {
+        lock.lock();
+
+        try {
+            while (inFlight >= (int) limit) {
+                slotReleased.await();
+            }
+
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the expansion running in the current thread as one that made a
+     * successful round trip to the API, so that its latency is sampled.
+     */
+    static void recordRoundTrip() {
+        ROUND_TRIP.set(Boolean.TRUE);
+    }
+
+    /**
+     * Returns {@code true} if the expansion running in the current thread 
+     * made a round trip to the API since the last call, and clears the 
+     * mark.
+     *
+     * @return {@code true} if the latency should be sampled.
+     */
+    static boolean takeRoundTrip() {
+        final boolean roundTrip = ROUND_TRIP.get() != null;
+        ROUND_TRIP.remove();
+        return roundTrip;
+    }
+
+    /**
+     * Releases a slot without adjusting the limit. Used for the expansions
+     * served from the caches and for the failed ones.
+     */
+    void release() {
+        lock.lock();
+
+        try {
+            inFlight--;
+            slotReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a slot taken by a successful expansion and adjusts the limit
+     * by its latency.
+     *
+     * @param latencyNanos the latency of the expansion in nanoseconds.
+     */
+    void release(final long latencyNanos) {
+        lock.lock();
+
+        try {
+            inFlight--;
+
+            if (shortLatencyNanos == 0.0) {
+                shortLatencyNanos = latencyNanos;
+            } else {
+                shortLatencyNanos +=
+                        (latencyNanos - shortLatencyNanos) / SHORT_WINDOW;
+            }
+
+            baselineLatencyNanos = Math.min(baselineLatencyNanos, 
+                                            latencyNanos);
+            
+            windowMinimumLatencyNanos = Math.min(windowMinimumLatencyNanos,
+                                                 latencyNanos);
+
+            if (++numberOfWindowSamples == BASELINE_WINDOW) {
+                baselineLatencyNanos = 
+                        Math.min(windowMinimumLatencyNanos,
+                                 (long) (BASELINE_GROWTH_RATIO * 
+                                         baselineLatencyNanos));
+
+                windowMinimumLatencyNanos = Long.MAX_VALUE;
+                numberOfWindowSamples = 0;
+            }
+
+            if (shortLatencyNanos > 
+                    LATENCY_TOLERANCE * baselineLatencyNanos) {
+                decrease(LATENCY_BACKOFF_RATIO);
+            } else if (2 * (inFlight + 1) >= (int) limit) {
+                // Grow only while the limit is actually in use:
+                limit = Math.min(maximumLimit, 
+                                 limit + (slowStart ? 1.0 : 1.0 / limit));
+                peakLimit = Math.max(peakLimit, (int) limit);
+            }
+
+            // The limit may have grown past the next integer:
+            slotReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Signals a failed or throttled request.
+     */
+    void onDrop() {
+        lock.lock();
+
+        try {
+            numberOfDrops++;
+            decrease(DROP_BACKOFF_RATIO);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        lock.lock();
+
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getPeakLimit() {
+        lock.lock();
+
+        try {
+            return peakLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getNumberOfDrops() {
+        lock.lock();
+
+        try {
+            return numberOfDrops;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Decreases the limit unless it was decreased within the short-term 
+     * latency interval. Must be called while holding the lock.
+     */
+    private void decrease(final double backoffRatio) {
+        final long now = System.nanoTime();
+
+        if (now - lastDecreaseNanos < (long) shortLatencyNanos) {
+            return;
+        }
+
+        lastDecreaseNanos = now;
+        slowStart = false;
+        limit = Math.max(MINIMUM_LIMIT, limit * backoffRatio);
+    }
+}
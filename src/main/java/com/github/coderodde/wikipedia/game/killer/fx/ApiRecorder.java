@@ -0,0 +1,321 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class records the responses of the Wikipedia API into an archive
+ * replayed later by the {@link ReplayServer}. Recording is enabled by naming
+ * the archive file in the system property {@value #RECORD_FILE_PROPERTY}; the
+ * archive is compressed if the file name ends with {@code .gz}.
+ * <p>
+ * The archive is a JSON Lines file. The links are recorded per article
+ * rather than per request, so that the replay does not depend on how the
+ * titles were batched:
+ * <pre>
+ * {"type":"links","language":"fi","direction":"forward","title":"Turun_linna","links":["Turku", ...]}
+ * {"type":"random","language":"en","response":"{\"batchcomplete\": ...}"}
+ * </pre>
+ * The titles are in the decoded form with underscores, and the links in the
+ * URL form used throughout this application. A recording appends to an
+ * existing archive.
+ * <p>
+ * The entry points open the archive via {@link #open()} and report a failure
+ * to open it. Once a record cannot be written, or once the archive has been 
+ * closed, the recorder reports it once and drops the further records.
+ */
+final class ApiRecorder implements Closeable {
+
+    /**
+     * The system property naming the archive file to record into.
+     */
+    static final String RECORD_FILE_PROPERTY = "wikigamekiller.recordFile";
+
+    static final String TYPE_LINKS = "links";
+    static final String TYPE_RANDOM = "random";
+
+    private static ApiRecorder instance;
+    private static boolean initialized;
+
+    private final Gson gson = new Gson();
+    private final Path file;
+    private final Writer writer;
+    private long numberOfRecords;
+
+    /**
+     * Set once the archive has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Set once the recording has been stopped by a write failure or by 
+     * closing the archive.
+     */
+    private boolean stopped;
+
+    private ApiRecorder(final Path file, final Writer writer) {
+        this.file = file;
+        this.writer = writer;
+    }
+
+    /**
+     * Returns the recorder of this process, opening the archive on first
+     * use as {@link #open()} does. A failure to open the archive here is
+     * reported on the standard error stream, since the caller has no way 
+     * to report it.
+     *
+     * @return the recorder, or {@code null} if recording is not enabled or
+     *         the archive cannot be opened.
+     */
+    static synchronized ApiRecorder getInstance() {
+        if (initialized) {
+            return instance;
+        }
+
+        try {
+            return open();
+        } catch (final IOException ex) {
+            System.err.println(ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the archive named by the system property 
+     * {@value #RECORD_FILE_PROPERTY} unless it is already open or has failed
+     * to open. The archive is closed at the shutdown of the virtual machine.
+     *
+     * @return the recorder, or {@code null} if recording is not enabled or
+     *         the archive could not be opened before.
+     *
+     * @throws IOException if the archive cannot be opened. Only the first 
+     *                     call throws; the recording stays disabled.
+     */
+    static synchronized ApiRecorder open() throws IOException {
+        if (initialized) {
+            return instance;
+        }
+
+        initialized = true;
+
+        final String fileName = System.getProperty(RECORD_FILE_PROPERTY);
+
+        if (fileName == null || fileName.isBlank()) {
+            return null;
+        }
+
+        final Path file = Paths.get(fileName);
+
+        try {
+            instance = new ApiRecorder(file, openWriter(file));
+        } catch (final IOException ex) {
+            throw new IOException(
+                    String.format("Could not open the record file \"%s\": %s",
+                                  fileName,
+                                  ex.getMessage()),
+                    ex);
+        }
+
+        final ApiRecorder recorder = instance;
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                recorder.close();
+            } catch (final IOException ex) {
+
+            }
+        }));
+
+        return instance;
+    }
+
+    /**
+     * Records the links of a single article.
+     *
+     * @param languageCode the language code of the Wikipedia edition.
+     * @param direction    the link direction.
+     * @param title        the title of the article.
+     * @param links        the neighbor titles of the article.
+     */
+    void recordLinks(final String languageCode,
+                     final LinkDirection direction,
+                     final String title,
+                     final List<String> links) {
+
+        final JsonObject record = new JsonObject();
+        final JsonArray linkArray = new JsonArray(links.size());
+
+        for (final String link : links) {
+            linkArray.add(link);
+        }
+
+        record.addProperty("type", TYPE_LINKS);
+        record.addProperty("language", languageCode);
+        record.addProperty("direction", direction.getName());
+        record.addProperty("title", CsrLinkGraph.normalizeTitle(title));
+        record.add("links", linkArray);
+
+        write(record);
+    }
+
+    /**
+     * Records a raw response to a random article query.
+     *
+     * @param languageCode the language code of the Wikipedia edition.
+     * @param response     the response body.
+     */
+    void recordRandomArticles(final String languageCode,
+                              final String response) {
+
+        final JsonObject record = new JsonObject();
+
+        record.addProperty("type", TYPE_RANDOM);
+        record.addProperty("language", languageCode);
+        record.addProperty("response", response);
+
+        write(record);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        writer.close();
+    }
+
+    /**
+     * Reads all the records of an archive.
+     *
+     * @param file     the archive file.
+     * @param consumer the consumer of the records.
+     *
+     * @return the number of records read.
+     *
+     * @throws IOException if the archive cannot be read.
+     */
+    static long read(final Path file, final Consumer<JsonObject> consumer)
+            throws IOException {
+
+        final Gson gson = new Gson();
+        long records = 0L;
+
+        try (final BufferedReader reader = openReader(file)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                consumer.accept(gson.fromJson(line, JsonObject.class));
+                records++;
+            }
+        }
+
+        return records;
+    }
+
+    private synchronized void write(final JsonObject record) {
+        if (stopped) {
+            return;
+        }
+
+        if (closed) {
+            stop("the record file is closed.");
+            return;
+        }
+
+        try {
+            writer.write(gson.toJson(record));
+            writer.write('\n');
+
+            // The random articles are rare; make them survive a crash:
+            if (++numberOfRecords % 1000L == 0L ||
+                    record.get("type").getAsString().equals(TYPE_RANDOM)) {
+                writer.flush();
+            }
+        } catch (final IOException ex) {
+            stop(String.format("could not write a record: %s",
+                               ex.getMessage()));
+
+            try {
+                close();
+            } catch (final IOException closeException) {
+
+            }
+        }
+    }
+
+    /**
+     * Stops the recording and reports the {@code reason} once. Must be 
+     * called while synchronized.
+     */
+    private void stop(final String reason) {
+        stopped = true;
+
+        System.err.printf("Stopped recording into \"%s\": %s\n",
+                          file,
+                          reason);
+    }
+
+    private static Writer openWriter(final Path file) throws IOException {
+        final Path directory = file.toAbsolutePath().getParent();
+
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+
+        OutputStream outputStream =
+                Files.newOutputStream(file,
+                                      StandardOpenOption.CREATE,
+                                      StandardOpenOption.APPEND);
+
+        // Appending to a compressed archive adds a new gzip member, which
+        // the reader handles transparently:
+        if (isCompressed(file)) {
+            outputStream = new GZIPOutputStream(outputStream, true);
+        }
+
+        return new BufferedWriter(
+                new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    private static BufferedReader openReader(final Path file)
+            throws IOException {
+
+        InputStream inputStream = Files.newInputStream(file);
+
+        if (isCompressed(file)) {
+            inputStream = new GZIPInputStream(inputStream);
+        }
+
+        return new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    private static boolean isCompressed(final Path file) {
+        return file.getFileName().toString().endsWith(".gz");
+    }
+}
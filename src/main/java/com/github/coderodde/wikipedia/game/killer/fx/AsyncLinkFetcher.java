@@ -0,0 +1,366 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is the non-blocking counterpart of {@link BatchingLinkFetcher}.
+ * A link request returns a future at once; the pending titles are sent in a
+ * multi-title API request as soon as {@code maximumBatchSize} of them are
+ * pending or {@code lingerMillis} milliseconds have passed since the first of
+ * them was requested. At most {@code maximumConcurrentRequests} batches are in
+ * flight at a time; the rest wait in the queue and are sent as the running
+ * batches complete.
+ * <p>
+ * No thread is blocked while a batch is in flight: the results are handed to
+ * the futures by the threads of the HTTP client. As in the
+ * {@link BatchingLinkFetcher}, the {@link LinkPageListener}s of the pending 
+ * titles receive the links page by page, and a batch stops once no title in
+ * it wants more pages. A request joining a batch in flight wants all the 
+ * pages, and if the batch was stopped before it joined, its title is fetched
+ * anew.
+ */
+final class AsyncLinkFetcher {
+
+    private final WikipediaApiClient client;
+    private final int maximumBatchSize;
+    private final int maximumConcurrentRequests;
+    private final Executor lingerExecutor;
+
+    /**
+     * The titles not yet taken into a batch.
+     */
+    private final Deque<String> pendingTitles = new ArrayDeque<>();
+
+    /**
+     * Maps the titles to the pending and in-flight requests.
+     */
+    private final Map<String, LinkRequest> requestMap = new HashMap<>();
+
+    /**
+     * The number of batches in flight.
+     */
+    private int numberOfRunningBatches;
+
+    /**
+     * Set while a flush of the pending titles is scheduled.
+     */
+    private boolean flushScheduled;
+
+    /**
+     * Constructs an asynchronous link fetcher.
+     *
+     * @param client                    the API client.
+     * @param maximumBatchSize          the maximum number of titles per
+     *                                  batch.
+     * @param lingerMillis              the maximum time to wait for a batch
+     *                                  to fill.
+     * @param maximumConcurrentRequests the maximum number of batches in
+     *                                  flight.
+     */
+    AsyncLinkFetcher(final WikipediaApiClient client,
+                     final int maximumBatchSize,
+                     final long lingerMillis,
+                     final int maximumConcurrentRequests) {
+
+        if (maximumBatchSize < 1 ||
+            maximumBatchSize > WikipediaApiClient.MAXIMUM_TITLES_PER_REQUEST) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The batch size is out of range [1, %d]: %d.",
+                            WikipediaApiClient.MAXIMUM_TITLES_PER_REQUEST,
+                            maximumBatchSize));
+        }
+
+        if (lingerMillis < 0L) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The linger duration is negative: %d.",
+                            lingerMillis));
+        }
+
+        if (maximumConcurrentRequests < 1) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The number of concurrent requests is too " +
+                            "small: %d.",
+                            maximumConcurrentRequests));
+        }
+
+        this.client = client;
+        this.maximumBatchSize = maximumBatchSize;
+        this.maximumConcurrentRequests = maximumConcurrentRequests;
+        this.lingerExecutor =
+                CompletableFuture.delayedExecutor(lingerMillis,
+                                                  TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Requests the neighbor titles of {@code title}. The returned future
+     * completes exceptionally if the batch request fails.
+     *
+     * @param title the title of the article to expand.
+     *
+     * @return the future neighbor titles.
+     */
+    CompletableFuture<List<String>> fetch(final String title) {
+        return fetch(title, null);
+    }
+
+    /**
+     * Requests the neighbor titles of {@code title} as
+     * {@link #fetch(String)} does. If the title is still pending, 
+     * {@code pageListener} receives the links page by page; otherwise, it 
+     * receives none.
+     *
+     * @param title        the title of the article to expand.
+     * @param pageListener the listener of the link pages, or {@code null}.
+     *
+     * @return the future neighbor titles.
+     */
+    CompletableFuture<List<String>> fetch(
+            final String title,
+            final LinkPageListener pageListener) {
+
+        final CompletableFuture<List<String>> future;
+        final List<List<String>> batches;
+
+        synchronized (this) {
+            final LinkRequest existingRequest = requestMap.get(title);
+
+            if (existingRequest != null && existingRequest.pending) {
+                existingRequest.addPageListener(pageListener);
+                return existingRequest.future;
+            }
+
+            if (existingRequest != null) {
+                // The batch is in flight: the listener receives no pages and
+                // so cannot ask for the rest of them:
+                existingRequest.allPagesWanted = true;
+                future = existingRequest.future;
+                batches = null;
+            } else {
+                final LinkRequest request = new LinkRequest();
+                request.addPageListener(pageListener);
+                future = request.future;
+                requestMap.put(title, request);
+                pendingTitles.addLast(title);
+
+                if (pendingTitles.size() >= maximumBatchSize) {
+                    batches = takeBatches(false);
+                } else {
+                    batches = Collections.<List<String>>emptyList();
+
+                    if (!flushScheduled) {
+                        flushScheduled = true;
+                        lingerExecutor.execute(this::flush);
+                    }
+                }
+            }
+        }
+
+        if (batches == null) {
+            // The other requests may have stopped the batch before this one 
+            // joined it:
+            return future.exceptionallyCompose(
+                    (throwable) -> isStopped(throwable) ?
+                                   fetch(title, pageListener) :
+                                   CompletableFuture.failedFuture(throwable));
+        }
+
+        sendBatches(batches);
+        return future;
+    }
+
+    /**
+     * Tells whether {@code throwable} reports a batch stopped by its page 
+     * listeners.
+     *
+     * @param throwable the failure of a link request.
+     *
+     * @return {@code true} if the batch was stopped on purpose.
+     */
+    static boolean isStopped(final Throwable throwable) {
+        return throwable instanceof CancellationException ||
+               throwable instanceof CompletionException &&
+               throwable.getCause() instanceof CancellationException;
+    }
+
+    /**
+     * Sends the pending titles once the linger window has closed.
+     */
+    private void flush() {
+        final List<List<String>> batches;
+
+        synchronized (this) {
+            flushScheduled = false;
+            batches = takeBatches(true);
+        }
+
+        sendBatches(batches);
+    }
+
+    /**
+     * Takes as many batches as may be sent without exceeding the maximum
+     * number of concurrent requests. Must be called while synchronized.
+     *
+     * @param takePartial whether to take a batch smaller than the maximum
+     *                    batch size.
+     *
+     * @return the list of batches to send.
+     */
+    private List<List<String>> takeBatches(final boolean takePartial) {
+        final List<List<String>> batches = new ArrayList<>();
+
+        while (numberOfRunningBatches < maximumConcurrentRequests &&
+               !pendingTitles.isEmpty() &&
+               (takePartial || pendingTitles.size() >= maximumBatchSize)) {
+
+            final List<String> batch =
+                    new ArrayList<>(Math.min(pendingTitles.size(),
+                                             maximumBatchSize));
+
+            while (batch.size() < maximumBatchSize &&
+                   !pendingTitles.isEmpty()) {
+                final String title = pendingTitles.removeFirst();
+                requestMap.get(title).pending = false;
+                batch.add(title);
+            }
+
+            batches.add(batch);
+            numberOfRunningBatches++;
+        }
+
+        return batches;
+    }
+
+    private void sendBatches(final List<List<String>> batches) {
+        for (final List<String> batch : batches) {
+            final Map<String, LinkRequest> batchMap = new HashMap<>();
+
+            synchronized (this) {
+                for (final String title : batch) {
+                    batchMap.put(title, requestMap.get(title));
+                }
+            }
+
+            try {
+                client.fetchLinksAsync(
+                              batch,
+                              (title, links) -> {
+                                  return batchMap.get(title).onLinks(title,
+                                                                     links);
+                              })
+                      .whenComplete((linkMap, throwable) -> {
+                          completeBatch(batch, linkMap, throwable);
+                      });
+            } catch (final RuntimeException ex) {
+                completeBatch(batch, null, ex);
+            }
+        }
+    }
+
+    private void completeBatch(final List<String> batch,
+                               final Map<String, List<String>> linkMap,
+                               final Throwable throwable) {
+
+        final List<CompletableFuture<List<String>>> futures =
+                new ArrayList<>(batch.size());
+
+        final List<List<String>> nextBatches;
+
+        synchronized (this) {
+            for (final String title : batch) {
+                futures.add(requestMap.remove(title).future);
+            }
+
+            numberOfRunningBatches--;
+
+            // The titles queued while all the slots were taken have waited
+            // long enough; send them even if the batch is not full:
+            nextBatches = takeBatches(true);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (throwable != null) {
+                futures.get(i).completeExceptionally(throwable);
+            } else {
+                final List<String> links = linkMap.get(batch.get(i));
+
+                futures.get(i).complete(
+                        links == null ?
+                        Collections.<String>emptyList() :
+                        links);
+            }
+        }
+
+        sendBatches(nextBatches);
+    }
+
+    /**
+     * A request for the links of a single title. The page listeners are
+     * fixed once the request is taken into a batch.
+     */
+    private static final class LinkRequest {
+        final CompletableFuture<List<String>> future =
+                new CompletableFuture<>();
+
+        boolean pending = true;
+
+        /**
+         * The listeners of the link pages, or {@code null} if none.
+         */
+        List<LinkPageListener> pageListeners;
+
+        /**
+         * Set if a requester without a page listener, or one joining the 
+         * batch in flight, waits for all the links. Read by the threads of
+         * the HTTP client.
+         */
+        volatile boolean allPagesWanted;
+
+        void addPageListener(final LinkPageListener pageListener) {
+            if (pageListener == null) {
+                allPagesWanted = true;
+                return;
+            }
+
+            if (pageListeners == null) {
+                pageListeners = new ArrayList<>(1);
+            }
+
+            pageListeners.add(pageListener);
+        }
+
+        /**
+         * Hands a link page to the listeners.
+         *
+         * @return {@code false} if no more pages are wanted.
+         */
+        boolean onLinks(final String title, final List<String> links) {
+            if (pageListeners == null) {
+                return true;
+            }
+
+            boolean wanted = allPagesWanted;
+
+            for (final LinkPageListener pageListener : pageListeners) {
+                if (pageListener.onLinks(title, links)) {
+                    wanted = true;
+                }
+            }
+
+            return wanted;
+        }
+    }
+}
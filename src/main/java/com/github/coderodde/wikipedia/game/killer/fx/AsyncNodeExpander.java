@@ -0,0 +1,32 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This interface is implemented by the title-based node expanders that can
+ * generate successors without blocking a thread.
+ */
+interface AsyncNodeExpander {
+
+    /**
+     * Starts generating the successors of {@code node}. The returned future
+     * never completes exceptionally; on failure, it completes with an empty
+     * list.
+     *
+     * @param node the node to expand.
+     *
+     * @return the future successors of {@code node}.
+     */
+    CompletableFuture<List<String>> generateSuccessorsAsync(final String node);
+
+    /**
+     * Returns {@code true} if {@link #generateSuccessorsAsync(String)}
+     * runs without blocking a thread. Otherwise, it serves only the cached
+     * successors, and the callers must run the blocking expansions in 
+     * executors of their own.
+     *
+     * @return {@code true} if the expansions are non-blocking.
+     */
+    boolean isAsynchronous();
+}
@@ -0,0 +1,68 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.github.coderodde.wikipedia.graph.expansion.BackwardWikipediaGraphNodeExpander;
+import java.util.List;
+
+/**
+ * This class implements the backward link expander. 
+ */
+final class BackwardLinkExpander extends AbstractLinkExpander {
+
+    private final BackwardWikipediaGraphNodeExpander expander;
+    
+    /**
+     * The scheduler of the requests the library expander sends.
+     */
+    private final RequestScheduler scheduler;
+    
+    BackwardLinkExpander(
+            final String languageCode,
+            final SessionLinkCache sessionLinkCache,
+            final PersistentLinkCache persistentLinkCache,
+            final BatchingLinkFetcher linkFetcher,
+            final AsyncLinkFetcher asyncLinkFetcher) {
+        
+        super(languageCode,
+              LinkDirection.BACKWARD,
+              sessionLinkCache,
+              persistentLinkCache,
+              linkFetcher,
+              asyncLinkFetcher);
+        
+        this.expander = 
+                new BackwardWikipediaGraphNodeExpander(languageCode);
+        
+        this.scheduler = 
+                RequestScheduler.getInstance(
+                        WikipediaApiClient.getApiUri(languageCode)
+                                          .getAuthority());
+    }
+    
+    /**
+     * Generate all the links pointing to the article {@code article}.
+     * 
+     * @param article the target article of each link.
+     * 
+     * @return all the article titles linking to {@code article}.
+     * 
+     * @throws java.lang.Exception if something fails.
+     */
+    @Override
+    List<String> downloadSuccessors(final String article) 
+            throws Exception {
+        return stripHostAddress(
+                scheduler.call(() -> expander.getNeighbors(article)));
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isValidNode(final String article) {
+        try {
+            return scheduler.call(() -> expander.isValidNode(article));
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+}
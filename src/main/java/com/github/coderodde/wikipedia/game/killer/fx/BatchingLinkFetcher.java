@@ -0,0 +1,346 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class coalesces the link requests issued concurrently by the
+ * expansion threads into multi-title API requests.
+ * <p>
+ * A thread requesting the links of a title enqueues the title and, if no
+ * batch is being collected at the moment, becomes the leader of the next
+ * batch: it lingers for at most {@code lingerMillis} milliseconds or until
+ * {@code maximumBatchSize} titles are pending, takes the pending titles, runs
+ * the API request on its own thread and hands the results to the waiting
+ * threads. The other threads wait for their results, or take over the
+ * leadership if their title is still pending once the previous leader has
+ * left. Thus, there is no dispatcher thread, and several batches may be in
+ * flight at the same time.
+ * <p>
+ * Concurrent requests for the same title share a single fetch.
+ * <p>
+ * A request may come with a {@link LinkPageListener} receiving the links page
+ * by page. The listeners are attached only while the title is pending, so a
+ * listener never misses a page; they are fixed once the batch is in flight.
+ * A batch stops following the continuation once no request in it wants more
+ * pages. A requester joining a batch in flight wants all the pages, and if
+ * the batch was stopped before it joined, its title is fetched anew.
+ */
+final class BatchingLinkFetcher {
+
+    private final WikipediaApiClient client;
+    private final int maximumBatchSize;
+    private final long lingerNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when the pending queue becomes full.
+     */
+    private final Condition batchFull = lock.newCondition();
+
+    /**
+     * Signalled when a batch completes or the leadership becomes vacant.
+     */
+    private final Condition batchCompleted = lock.newCondition();
+
+    /**
+     * The requests not yet taken into a batch.
+     */
+    private final Deque<LinkRequest> pendingRequests = new ArrayDeque<>();
+
+    /**
+     * Maps the titles to the pending and in-flight requests.
+     */
+    private final Map<String, LinkRequest> requestMap = new HashMap<>();
+
+    /**
+     * Set while a leader is collecting the next batch.
+     */
+    private boolean collecting;
+
+    /**
+     * Constructs a batching fetcher.
+     *
+     * @param client           the API client to run the batches with.
+     * @param maximumBatchSize the maximum number of titles per batch.
+     * @param lingerMillis     the maximum time to wait for a batch to fill.
+     */
+    BatchingLinkFetcher(final WikipediaApiClient client,
+                        final int maximumBatchSize,
+                        final long lingerMillis) {
+
+        if (maximumBatchSize < 1 ||
+            maximumBatchSize > WikipediaApiClient.MAXIMUM_TITLES_PER_REQUEST) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The batch size is out of range [1, %d]: %d.",
+                            WikipediaApiClient.MAXIMUM_TITLES_PER_REQUEST,
+                            maximumBatchSize));
+        }
+
+        if (lingerMillis < 0L) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The linger duration is negative: %d.",
+                            lingerMillis));
+        }
+
+        this.client = client;
+        this.maximumBatchSize = maximumBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+    }
+
+    /**
+     * Fetches the neighbor titles of {@code title}, blocking until the batch
+     * containing it completes.
+     *
+     * @param title the title of the article to expand.
+     *
+     * @return the neighbor titles.
+     *
+     * @throws IOException if the batch request fails.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    List<String> fetch(final String title)
+            throws IOException, InterruptedException {
+        return fetch(title, null);
+    }
+
+    /**
+     * Fetches the neighbor titles of {@code title} as
+     * {@link #fetch(String)} does. If the title is still pending, 
+     * {@code pageListener} receives the links page by page; otherwise, it 
+     * receives none.
+     *
+     * @param title        the title of the article to expand.
+     * @param pageListener the listener of the link pages, or {@code null}.
+     *
+     * @return the neighbor titles.
+     *
+     * @throws IOException if the batch request fails or is stopped.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    List<String> fetch(final String title,
+                       final LinkPageListener pageListener)
+            throws IOException, InterruptedException {
+
+        final LinkRequest request;
+        boolean joinedLate = false;
+
+        lock.lock();
+
+        try {
+            LinkRequest existingRequest = requestMap.get(title);
+
+            if (existingRequest == null) {
+                existingRequest = new LinkRequest(title);
+                requestMap.put(title, existingRequest);
+                pendingRequests.addLast(existingRequest);
+
+                if (pendingRequests.size() >= maximumBatchSize) {
+                    batchFull.signal();
+                }
+            }
+
+            request = existingRequest;
+
+            if (request.pending) {
+                request.addPageListener(pageListener);
+            } else {
+                // The batch is in flight: the listener receives no pages and
+                // so cannot ask for the rest of them:
+                joinedLate = true;
+                request.allPagesWanted = true;
+            }
+
+            while (!request.done) {
+                if (!collecting && request.pending) {
+                    final List<LinkRequest> batch = collectBatch();
+
+                    lock.unlock();
+
+                    try {
+                        runBatch(batch);
+                    } finally {
+                        lock.lock();
+                    }
+                } else {
+                    batchCompleted.await();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (request.failure != null) {
+            if (joinedLate && 
+                request.failure.getCause() instanceof CancellationException) {
+                // The other requests stopped the batch before this one 
+                // joined it:
+                return fetch(title, pageListener);
+            }
+            
+            throw new IOException(request.failure.getMessage(),
+                                  request.failure);
+        }
+
+        return request.links;
+    }
+
+    /**
+     * Lingers until the batch is full or the linger window closes and takes
+     * the pending requests into a batch. Must be called with the lock held.
+     */
+    private List<LinkRequest> collectBatch() throws InterruptedException {
+        collecting = true;
+
+        try {
+            long remainingNanos = lingerNanos;
+
+            while (pendingRequests.size() < maximumBatchSize &&
+                   remainingNanos > 0L) {
+                remainingNanos = batchFull.awaitNanos(remainingNanos);
+            }
+        } finally {
+            collecting = false;
+
+            // Let a waiting thread lead the requests left over:
+            batchCompleted.signalAll();
+        }
+
+        final List<LinkRequest> batch =
+                new ArrayList<>(Math.min(pendingRequests.size(),
+                                         maximumBatchSize));
+
+        while (batch.size() < maximumBatchSize &&
+               !pendingRequests.isEmpty()) {
+            final LinkRequest request = pendingRequests.removeFirst();
+            request.pending = false;
+            batch.add(request);
+        }
+
+        return batch;
+    }
+
+    /**
+     * Runs the batch request and completes its requests. Must be called
+     * without the lock held.
+     */
+    private void runBatch(final List<LinkRequest> batch) {
+        final List<String> titles = new ArrayList<>(batch.size());
+        final Map<String, LinkRequest> batchMap = new HashMap<>();
+
+        for (final LinkRequest request : batch) {
+            titles.add(request.title);
+            batchMap.put(request.title, request);
+        }
+
+        Map<String, List<String>> linkMap = null;
+        IOException failure = null;
+
+        try {
+            linkMap = client.fetchLinks(
+                    titles,
+                    (title, links) -> batchMap.get(title).onLinks(links));
+        } catch (final IOException | RuntimeException ex) {
+            failure = ex instanceof IOException ?
+                      (IOException) ex :
+                      new IOException(ex);
+        }
+
+        lock.lock();
+
+        try {
+            for (final LinkRequest request : batch) {
+                if (failure == null) {
+                    final List<String> links = linkMap.get(request.title);
+
+                    request.links = links == null ?
+                                    Collections.<String>emptyList() :
+                                    links;
+                } else {
+                    request.failure = failure;
+                }
+
+                request.done = true;
+                requestMap.remove(request.title);
+            }
+
+            batchCompleted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A request for the links of a single title.
+     */
+    private static final class LinkRequest {
+        final String title;
+        boolean pending = true;
+        boolean done;
+        List<String> links;
+        IOException failure;
+
+        /**
+         * The listeners of the link pages, or {@code null} if none.
+         */
+        List<LinkPageListener> pageListeners;
+
+        /**
+         * Set if a requester without a page listener, or one joining the 
+         * batch in flight, waits for all the links. Read by the leader 
+         * without the lock.
+         */
+        volatile boolean allPagesWanted;
+
+        LinkRequest(final String title) {
+            this.title = title;
+        }
+
+        void addPageListener(final LinkPageListener pageListener) {
+            if (pageListener == null) {
+                allPagesWanted = true;
+                return;
+            }
+
+            if (pageListeners == null) {
+                pageListeners = new ArrayList<>(1);
+            }
+
+            pageListeners.add(pageListener);
+        }
+
+        /**
+         * Hands a link page to the listeners.
+         *
+         * @return {@code false} if no more pages are wanted.
+         */
+        boolean onLinks(final List<String> links) {
+            if (pageListeners == null) {
+                return true;
+            }
+
+            boolean wanted = allPagesWanted;
+
+            for (final LinkPageListener pageListener : pageListeners) {
+                if (pageListener.onLinks(title, links)) {
+                    wanted = true;
+                }
+            }
+
+            return wanted;
+        }
+    }
+}
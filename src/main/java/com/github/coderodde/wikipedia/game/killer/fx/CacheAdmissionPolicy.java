@@ -0,0 +1,35 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+/**
+ * This enumeration lists the admission policies of the session link cache.
+ */
+enum CacheAdmissionPolicy {
+
+    /**
+     * Admit every new entry and evict the least recently used ones. Good for
+     * small budgets and for sessions running the same query over and over.
+     */
+    LRU("LRU"),
+
+    /**
+     * Put every new entry in a small admission window first and let it into
+     * the main area only if it is estimated to be accessed more frequently 
+     * than the entry it would evict. Protects hub articles from being flushed
+     * by the long tail of articles expanded just once.
+     */
+    TINY_LFU("W-TinyLFU");
+
+    /**
+     * The human-readable name of this policy.
+     */
+    private final String displayName;
+
+    private CacheAdmissionPolicy(final String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,260 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements an immutable list of titles front-coded in a single
+ * byte array. Each title is stored as the length of the prefix it shares
+ * with the previous title, the length of the rest of it, and the rest of it
+ * in UTF-8, the lengths as variable-length integers. Every
+ * {@value #RESTART_INTERVAL}th title is stored whole, so that a title is
+ * found without decoding the list from its beginning.
+ * <p>
+ * The titles keep their order. The neighbor lists of the API are sorted, so
+ * consecutive titles often share long prefixes, and a list takes a fraction
+ * of the heap of the equivalent list of strings. The iterator decodes the
+ * titles one after another; {@link #intern(TitleDictionary)} feeds them to a
+ * title dictionary without creating strings of the titles already in it.
+ */
+final class CompressedTitleList extends AbstractList<String> {
+
+    /**
+     * The number of titles between two titles stored whole.
+     */
+    static final int RESTART_INTERVAL = 16;
+
+    /**
+     * The estimated number of bytes occupied by the objects of a list
+     * exclusive of the contents of its arrays.
+     */
+    private static final long OBJECT_OVERHEAD_BYTES = 64L;
+
+    private final byte[] data;
+
+    /**
+     * The offsets of the titles stored whole.
+     */
+    private final int[] restartOffsets;
+    private final int size;
+
+    private CompressedTitleList(final byte[] data,
+                                final int[] restartOffsets,
+                                final int size) {
+        this.data = data;
+        this.restartOffsets = restartOffsets;
+        this.size = size;
+    }
+
+    /**
+     * Returns a compressed copy of {@code titles}, or {@code titles} itself
+     * if it is already compressed.
+     *
+     * @param titles the titles.
+     *
+     * @return the compressed list of titles.
+     */
+    static CompressedTitleList of(final List<String> titles) {
+        if (titles instanceof CompressedTitleList compressedTitles) {
+            return compressedTitles;
+        }
+
+        final int size = titles.size();
+        final int[] restartOffsets =
+                new int[(size + RESTART_INTERVAL - 1) / RESTART_INTERVAL];
+
+        byte[] data = new byte[Math.max(16, size * 8)];
+        byte[] previousTitle = new byte[0];
+        int offset = 0;
+        int index = 0;
+
+        for (final String title : titles) {
+            final byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+            int sharedLength = 0;
+
+            if (index % RESTART_INTERVAL == 0) {
+                restartOffsets[index / RESTART_INTERVAL] = offset;
+            } else {
+                final int maximumSharedLength =
+                        Math.min(bytes.length, previousTitle.length);
+
+                while (sharedLength < maximumSharedLength &&
+                       bytes[sharedLength] == previousTitle[sharedLength]) {
+                    sharedLength++;
+                }
+            }
+
+            final int suffixLength = bytes.length - sharedLength;
+
+            // Two variable-length integers take at most ten bytes:
+            if (offset + suffixLength + 10 > data.length) {
+                data = Arrays.copyOf(
+                        data,
+                        Math.max(data.length * 2,
+                                 offset + suffixLength + 10));
+            }
+
+            offset = writeVarint(data, offset, sharedLength);
+            offset = writeVarint(data, offset, suffixLength);
+            System.arraycopy(bytes, sharedLength, data, offset, suffixLength);
+            offset += suffixLength;
+
+            previousTitle = bytes;
+            index++;
+        }
+
+        return new CompressedTitleList(Arrays.copyOf(data, offset),
+                                       restartOffsets,
+                                       size);
+    }
+
+    @Override
+    public String get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Index %d out of bounds for size %d.",
+                                  index,
+                                  size));
+        }
+
+        final Decoder decoder =
+                new Decoder(restartOffsets[index / RESTART_INTERVAL]);
+
+        for (int i = index / RESTART_INTERVAL * RESTART_INTERVAL;
+                i <= index;
+                i++) {
+            decoder.next();
+        }
+
+        return decoder.getTitle();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+
+            private final Decoder decoder = new Decoder(0);
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException(
+                            "No more titles in the list.");
+                }
+
+                index++;
+                decoder.next();
+                return decoder.getTitle();
+            }
+        };
+    }
+
+    /**
+     * Interns all the titles of this list in the dictionary.
+     *
+     * @param dictionary the title dictionary.
+     *
+     * @return the identifiers of the titles in the list order.
+     */
+    int[] intern(final TitleDictionary dictionary) {
+        final int[] ids = new int[size];
+        final Decoder decoder = new Decoder(0);
+
+        for (int i = 0; i < size; i++) {
+            decoder.next();
+            ids[i] = dictionary.intern(decoder.title, 0, decoder.titleLength);
+        }
+
+        return ids;
+    }
+
+    /**
+     * Returns an estimate of the heap bytes occupied by this list.
+     *
+     * @return the size of this list in bytes.
+     */
+    long getSizeInBytes() {
+        return OBJECT_OVERHEAD_BYTES +
+               data.length +
+               (long) restartOffsets.length * Integer.BYTES;
+    }
+
+    private static int writeVarint(final byte[] data,
+                                   int offset,
+                                   int value) {
+        while ((value & ~0x7f) != 0) {
+            data[offset++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+
+        data[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * This class decodes the titles one after another into a buffer of its
+     * own.
+     */
+    private final class Decoder {
+
+        private byte[] title = new byte[64];
+        private int titleLength;
+        private int offset;
+
+        Decoder(final int offset) {
+            this.offset = offset;
+        }
+
+        /**
+         * Decodes the next title.
+         */
+        void next() {
+            final int sharedLength = readVarint();
+            final int suffixLength = readVarint();
+
+            titleLength = sharedLength + suffixLength;
+
+            if (titleLength > title.length) {
+                title = Arrays.copyOf(title,
+                                      Math.max(title.length * 2,
+                                               titleLength));
+            }
+
+            System.arraycopy(data, offset, title, sharedLength, suffixLength);
+            offset += suffixLength;
+        }
+
+        String getTitle() {
+            return new String(title, 0, titleLength, StandardCharsets.UTF_8);
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+
+            do {
+                b = data[offset++];
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            return value;
+        }
+    }
+}
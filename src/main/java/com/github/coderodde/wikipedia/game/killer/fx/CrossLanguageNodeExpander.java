@@ -0,0 +1,194 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.github.coderodde.graph.pathfinding.delayed.AbstractNodeExpander;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class implements the node expander of the cross-language searches.
+ * A node is an article in a given language edition, written as
+ * {@code LANGUAGE:TITLE}, for example, {@code fi:Turun_linna}. The
+ * successors of a node are the articles it links to (or that link to it) in
+ * its own edition, followed by its interlanguage links to the other
+ * editions of the search. Thus, a path from a Finnish article to a German
+ * one crosses the language border wherever that is the shortest way.
+ * <p>
+ * Each language has link expanders of its own, with their own API clients,
+ * batching and caches, so the single-language searches running alongside
+ * are not slowed down by the multilingual ones. The interlanguage links are
+ * symmetric in practice, as they are maintained in Wikidata, so the same
+ * links serve both the directions.
+ */
+final class CrossLanguageNodeExpander
+        extends AbstractNodeExpander<String>
+        implements AsyncNodeExpander {
+
+    /**
+     * Separates the language code from the title in a node.
+     */
+    private static final char LANGUAGE_SEPARATOR = ':';
+
+    /**
+     * Maps the language codes of the search to their link expanders.
+     */
+    private final Map<String, AbstractLinkExpander> linkExpanders;
+
+    /**
+     * Maps the language codes of the search to their interlanguage link
+     * expanders.
+     */
+    private final Map<String, AbstractLinkExpander> languageLinkExpanders;
+
+    /**
+     * Constructs a cross-language expander. The languages of the search are
+     * the keys of {@code linkExpanders}; the interlanguage links to the
+     * other editions are dropped.
+     *
+     * @param linkExpanders         the link expanders by language code.
+     * @param languageLinkExpanders the interlanguage link expanders by
+     *                              language code.
+     */
+    CrossLanguageNodeExpander(
+            final Map<String, AbstractLinkExpander> linkExpanders,
+            final Map<String, AbstractLinkExpander> languageLinkExpanders) {
+        this.linkExpanders = linkExpanders;
+        this.languageLinkExpanders = languageLinkExpanders;
+    }
+
+    /**
+     * Returns the node of the article {@code title} in the language edition
+     * {@code languageCode}.
+     *
+     * @param languageCode the language code.
+     * @param title        the title in the URL form.
+     *
+     * @return the node.
+     */
+    static String toNode(final String languageCode, final String title) {
+        return languageCode + LANGUAGE_SEPARATOR + title;
+    }
+
+    /**
+     * Returns the language code of {@code node}.
+     *
+     * @param node the node.
+     *
+     * @return the language code.
+     */
+    static String getLanguageCode(final String node) {
+        return node.substring(0, node.indexOf(LANGUAGE_SEPARATOR));
+    }
+
+    /**
+     * Returns the title of {@code node}.
+     *
+     * @param node the node.
+     *
+     * @return the title in the URL form.
+     */
+    static String getTitle(final String node) {
+        return node.substring(node.indexOf(LANGUAGE_SEPARATOR) + 1);
+    }
+
+    @Override
+    public List<String> generateSuccessors(final String node) {
+        final AbstractLinkExpander linkExpander = getLinkExpander(node);
+
+        if (linkExpander == null) {
+            return Collections.<String>emptyList();
+        }
+
+        final String title = getTitle(node);
+
+        return merge(getLanguageCode(node),
+                     linkExpander.generateSuccessors(title),
+                     languageLinkExpanders.get(getLanguageCode(node))
+                                          .generateSuccessors(title));
+    }
+
+    @Override
+    public CompletableFuture<List<String>>
+        generateSuccessorsAsync(final String node) {
+
+        final AbstractLinkExpander linkExpander = getLinkExpander(node);
+
+        if (linkExpander == null) {
+            return CompletableFuture.completedFuture(
+                    Collections.<String>emptyList());
+        }
+
+        final String languageCode = getLanguageCode(node);
+        final String title = getTitle(node);
+
+        return linkExpander
+                .generateSuccessorsAsync(title)
+                .thenCombine(
+                        languageLinkExpanders.get(languageCode)
+                                             .generateSuccessorsAsync(title),
+                        (links, languageLinks) -> {
+                            return merge(languageCode, links, languageLinks);
+                        });
+    }
+
+    @Override
+    public boolean isAsynchronous() {
+        for (final AbstractLinkExpander linkExpander :
+                linkExpanders.values()) {
+            if (!linkExpander.isAsynchronous()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isValidNode(final String node) {
+        final AbstractLinkExpander linkExpander = getLinkExpander(node);
+        return linkExpander != null && linkExpander.isValidNode(getTitle(node));
+    }
+
+    private AbstractLinkExpander getLinkExpander(final String node) {
+        if (node.indexOf(LANGUAGE_SEPARATOR) < 0) {
+            return null;
+        }
+
+        return linkExpanders.get(getLanguageCode(node));
+    }
+
+    /**
+     * Returns the nodes of the {@code links} in {@code languageCode},
+     * followed by the {@code languageLinks} to the editions of the search.
+     * If either expansion failed, the failed result is returned instead, so
+     * that the failure is not hidden in a partial list.
+     */
+    private List<String> merge(final String languageCode,
+                               final List<String> links,
+                               final List<String> languageLinks) {
+        if (AbstractLinkExpander.isFailed(links)) {
+            return links;
+        }
+
+        if (AbstractLinkExpander.isFailed(languageLinks)) {
+            return languageLinks;
+        }
+
+        final List<String> successors =
+                new ArrayList<>(links.size() + languageLinks.size());
+
+        for (final String link : links) {
+            successors.add(toNode(languageCode, link));
+        }
+
+        for (final String languageLink : languageLinks) {
+            if (linkExpanders.containsKey(getLanguageCode(languageLink))) {
+                successors.add(languageLink);
+            }
+        }
+
+        return successors;
+    }
+}
@@ -0,0 +1,332 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * This class implements a read-only, memory-mapped link graph of a Wikipedia
+ * language edition stored in the compressed sparse row (CSR) format. The
+ * graph is produced by {@link OfflineGraphImporter} and consists of the
+ * following files in a single directory:
+ * <ul>
+ *   <li>{@code graph.properties}: the language code and the graph size,</li>
+ *   <li>{@code titles.offsets} and {@code titles.bytes}: the UTF-8 title of
+ *       each node,</li>
+ *   <li>{@code titles.hash}: an open-addressing hash table from titles to
+ *       node identifiers,</li>
+ *   <li>{@code forward.offsets} and {@code forward.targets}: the out-links of
+ *       each node,</li>
+ *   <li>{@code backward.offsets} and {@code backward.targets}: the in-links
+ *       of each node,</li>
+ *   <li>optionally, the {@link LandmarkTable} built by
+ *       {@link LandmarkBuilder}.</li>
+ * </ul>
+ * The nodes are identified by dense {@code int} identifiers. The titles are
+ * stored in the dump form, with underscores instead of spaces.
+ */
+final class CsrLinkGraph implements Closeable {
+
+    static final String PROPERTIES_FILE_NAME = "graph.properties";
+    static final String TITLE_OFFSETS_FILE_NAME = "titles.offsets";
+    static final String TITLE_BYTES_FILE_NAME = "titles.bytes";
+    static final String TITLE_HASH_FILE_NAME = "titles.hash";
+
+    static final String LANGUAGE_CODE_PROPERTY = "languageCode";
+    static final String NUMBER_OF_NODES_PROPERTY = "numberOfNodes";
+    static final String NUMBER_OF_EDGES_PROPERTY = "numberOfEdges";
+
+    /**
+     * Marks an empty slot in the title hash table.
+     */
+    static final int EMPTY_SLOT = -1;
+
+    private final Path directory;
+    private final String languageCode;
+    private final int numberOfNodes;
+    private final long numberOfEdges;
+    private final MappedFile titleOffsets;
+    private final MappedFile titleBytes;
+    private final MappedFile titleHashTable;
+    private final int titleHashMask;
+    private final MappedFile forwardOffsets;
+    private final MappedFile forwardTargets;
+    private final MappedFile backwardOffsets;
+    private final MappedFile backwardTargets;
+    private final LandmarkTable landmarkTable;
+
+    private CsrLinkGraph(final Path directory) throws IOException {
+        final Properties properties = new Properties();
+
+        try (Reader reader =
+                Files.newBufferedReader(
+                        directory.resolve(PROPERTIES_FILE_NAME))) {
+            properties.load(reader);
+        }
+
+        this.directory = directory;
+        this.languageCode = properties.getProperty(LANGUAGE_CODE_PROPERTY);
+        this.numberOfNodes =
+                Integer.parseInt(
+                        properties.getProperty(NUMBER_OF_NODES_PROPERTY));
+
+        this.numberOfEdges =
+                Long.parseLong(
+                        properties.getProperty(NUMBER_OF_EDGES_PROPERTY));
+
+        this.titleOffsets =
+                MappedFile.openForReading(
+                        directory.resolve(TITLE_OFFSETS_FILE_NAME));
+
+        this.titleBytes =
+                MappedFile.openForReading(
+                        directory.resolve(TITLE_BYTES_FILE_NAME));
+
+        this.titleHashTable =
+                MappedFile.openForReading(
+                        directory.resolve(TITLE_HASH_FILE_NAME));
+
+        this.titleHashMask = (int)(titleHashTable.size() / Integer.BYTES) - 1;
+
+        this.forwardOffsets =
+                MappedFile.openForReading(
+                        directory.resolve(
+                                getOffsetsFileName(LinkDirection.FORWARD)));
+
+        this.forwardTargets =
+                MappedFile.openForReading(
+                        directory.resolve(
+                                getTargetsFileName(LinkDirection.FORWARD)));
+
+        this.backwardOffsets =
+                MappedFile.openForReading(
+                        directory.resolve(
+                                getOffsetsFileName(LinkDirection.BACKWARD)));
+
+        this.backwardTargets =
+                MappedFile.openForReading(
+                        directory.resolve(
+                                getTargetsFileName(LinkDirection.BACKWARD)));
+
+        this.landmarkTable = LandmarkTable.open(directory, numberOfNodes);
+    }
+
+    /**
+     * Opens the link graph stored in {@code directory}.
+     *
+     * @param directory the graph directory.
+     *
+     * @return the opened graph.
+     *
+     * @throws IOException if the graph files cannot be read.
+     */
+    static CsrLinkGraph open(final Path directory) throws IOException {
+        return new CsrLinkGraph(directory);
+    }
+
+    static String getOffsetsFileName(final LinkDirection direction) {
+        return direction.getName() + ".offsets";
+    }
+
+    static String getTargetsFileName(final LinkDirection direction) {
+        return direction.getName() + ".targets";
+    }
+
+    /**
+     * Converts a title as it appears in a Wikipedia URL to the dump form. For
+     * example, {@code Turun%20linna} becomes {@code Turun_linna}.
+     *
+     * @param title the title in the URL form.
+     *
+     * @return the title in the dump form.
+     */
+    static String normalizeTitle(final String title) {
+        return URLDecoder.decode(title.replace("+", "%2B"),
+                                 StandardCharsets.UTF_8)
+                         .replace(' ', '_');
+    }
+
+    /**
+     * Computes the FNV-1a hash of {@code length} bytes of {@code bytes}
+     * starting at {@code offset}.
+     *
+     * @param bytes  the UTF-8 title bytes.
+     * @param offset the index of the first byte to hash.
+     * @param length the number of bytes to hash.
+     *
+     * @return the hash of the title.
+     */
+    static int hashTitle(final byte[] bytes, 
+                         final int offset, 
+                         final int length) {
+        int hash = 0x811c9dc5;
+
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x01000193;
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    String getLanguageCode() {
+        return languageCode;
+    }
+
+    int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    long getNumberOfEdges() {
+        return numberOfEdges;
+    }
+
+    /**
+     * Returns the landmark tables of this graph, or {@code null} if none are
+     * built.
+     *
+     * @return the landmark tables or {@code null}.
+     */
+    LandmarkTable getLandmarkTable() {
+        return landmarkTable;
+    }
+
+    /**
+     * Returns the identifier of the node with the title {@code title} in the
+     * dump form, or -1 if there is no such node.
+     *
+     * @param title the title of the node.
+     *
+     * @return the node identifier or -1.
+     */
+    int getId(final String title) {
+        final byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+        final byte[] candidateBytes = new byte[bytes.length];
+        int slot = hashTitle(bytes, 0, bytes.length) & titleHashMask;
+
+        while (true) {
+            final int id = titleHashTable.getInt((long) slot * Integer.BYTES);
+
+            if (id == EMPTY_SLOT) {
+                return -1;
+            }
+
+            final long start = getTitleStart(id);
+            final long end = getTitleStart(id + 1);
+
+            if (end - start == bytes.length) {
+                titleBytes.getBytes(start, candidateBytes, bytes.length);
+
+                if (Arrays.equals(bytes, candidateBytes)) {
+                    return id;
+                }
+            }
+
+            slot = (slot + 1) & titleHashMask;
+        }
+    }
+
+    /**
+     * Returns the title of the node {@code id} in the dump form.
+     *
+     * @param id the node identifier.
+     *
+     * @return the title of the node.
+     */
+    String getTitle(final int id) {
+        checkId(id);
+
+        final long start = getTitleStart(id);
+        final byte[] bytes = new byte[(int)(getTitleStart(id + 1) - start)];
+
+        titleBytes.getBytes(start, bytes, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of neighbors of the node {@code id}.
+     *
+     * @param id        the node identifier.
+     * @param direction the link direction.
+     *
+     * @return the number of neighbors.
+     */
+    int getDegree(final int id, final LinkDirection direction) {
+        checkId(id);
+
+        final MappedFile offsets = getOffsets(direction);
+
+        return (int)(offsets.getLong((long)(id + 1) * Long.BYTES)
+                   - offsets.getLong((long) id * Long.BYTES));
+    }
+
+    /**
+     * Returns the neighbors of the node {@code id}.
+     *
+     * @param id        the node identifier.
+     * @param direction the link direction.
+     *
+     * @return the neighbor identifiers.
+     */
+    int[] getNeighbors(final int id, final LinkDirection direction) {
+        checkId(id);
+
+        final MappedFile offsets = getOffsets(direction);
+        final MappedFile targets = direction == LinkDirection.FORWARD ?
+                                   forwardTargets :
+                                   backwardTargets;
+
+        final long start = offsets.getLong((long) id * Long.BYTES);
+        final long end = offsets.getLong((long)(id + 1) * Long.BYTES);
+        final int[] neighbors = new int[(int)(end - start)];
+
+        for (int i = 0; i < neighbors.length; i++) {
+            neighbors[i] = targets.getInt((start + i) * Integer.BYTES);
+        }
+
+        return neighbors;
+    }
+
+    @Override
+    public void close() throws IOException {
+        titleOffsets.close();
+        titleBytes.close();
+        titleHashTable.close();
+        forwardOffsets.close();
+        forwardTargets.close();
+        backwardOffsets.close();
+        backwardTargets.close();
+
+        if (landmarkTable != null) {
+            landmarkTable.close();
+        }
+    }
+
+    private MappedFile getOffsets(final LinkDirection direction) {
+        return direction == LinkDirection.FORWARD ? forwardOffsets :
+                                                    backwardOffsets;
+    }
+
+    private long getTitleStart(final int id) {
+        return titleOffsets.getLong((long) id * Long.BYTES);
+    }
+
+    private void checkId(final int id) {
+        if (id < 0 || id >= numberOfNodes) {
+            throw new IndexOutOfBoundsException(
+                    String.format(
+                            "Node %d is out of range [0, %d).",
+                            id,
+                            numberOfNodes));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This class implements the JFR event spanning the expansion of a single
+ * article by an online link expander. The duration of the event is the
+ * expansion latency. It is committed only while a recording enables it, so
+ * it costs next to nothing otherwise.
+ */
+@Name("com.github.coderodde.wikipedia.game.killer.fx.Expansion")
+@Label("Expansion")
+@Category({ "WikiGameKillerFX" })
+@Description("The expansion of an article into its linked articles.")
+final class ExpansionEvent extends Event {
+
+    @Label("Title")
+    String title;
+
+    @Label("Direction")
+    String direction;
+
+    @Label("Neighbors")
+    int neighbors;
+
+    @Label("Cache Hit")
+    @Description("Whether the links came from the session or the " +
+                 "persistent cache.")
+    boolean cacheHit;
+
+    @Label("Failed")
+    @Description("Whether the links could not be downloaded.")
+    boolean failed;
+}
@@ -0,0 +1,35 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+/**
+ * This enumeration lists the orders in which the
+ * {@link IntBidirectionalBFSPathFinder} expands the nodes of a layer.
+ */
+enum ExpansionOrder {
+
+    /**
+     * Expand the nodes in the order they were discovered, and always the
+     * whole layer.
+     */
+    DISCOVERY("As discovered"),
+
+    /**
+     * Expand the nodes of known high degree first, and stop the layer at the
+     * first meeting of the frontiers. The hub articles are the likeliest to
+     * connect the two frontiers, so the rest of the layer is often skipped.
+     */
+    DEGREE("Hubs first");
+
+    /**
+     * The human-readable name of this order.
+     */
+    private final String displayName;
+
+    private ExpansionOrder(final String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.github.coderodde.wikipedia.graph.expansion.ForwardWikipediaGraphNodeExpander;
+import java.util.List;
+
+/**
+ * This class implements the forward link expander.
+ */
+final class ForwardLinkExpander extends AbstractLinkExpander {
+
+    private final ForwardWikipediaGraphNodeExpander expander;
+    
+    /**
+     * The scheduler of the requests the library expander sends.
+     */
+    private final RequestScheduler scheduler;
+    
+    ForwardLinkExpander(
+            final String languageCode,
+            final SessionLinkCache sessionLinkCache,
+            final PersistentLinkCache persistentLinkCache,
+            final BatchingLinkFetcher linkFetcher,
+            final AsyncLinkFetcher asyncLinkFetcher) {
+        
+        super(languageCode,
+              LinkDirection.FORWARD, 
+              sessionLinkCache,
+              persistentLinkCache,
+              linkFetcher,
+              asyncLinkFetcher);
+        
+        this.expander = new ForwardWikipediaGraphNodeExpander(languageCode);
+        
+        this.scheduler = 
+                RequestScheduler.getInstance(
+                        WikipediaApiClient.getApiUri(languageCode)
+                                          .getAuthority());
+    }
+    
+    /**
+     * Generate all the links that this article links to.
+     * 
+     * @param article the source article of each link.
+     * 
+     * @return all the article titles that {@code article} links to.
+     */
+    @Override
+    List<String> downloadSuccessors(final String article) 
+            throws Exception {
+        return stripHostAddress(
+                scheduler.call(() -> expander.getNeighbors(article)));
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isValidNode(final String article) {
+        try {
+            return scheduler.call(() -> expander.isValidNode(article));
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+/**
+ * This class implements a Count-Min sketch of 4-bit counters used for 
+ * estimating the access frequencies of cache keys. The counters are halved 
+ * periodically so that the estimates favour the recent history.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class FrequencySketch {
+
+    /**
+     * The largest value of a 4-bit counter.
+     */
+    private static final int MAXIMUM_FREQUENCY = 15;
+
+    /**
+     * The mask used for halving all the sixteen counters in a {@code long} at
+     * once.
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * The seeds of the four hash functions.
+     */
+    private static final int[] SEEDS = { 
+        0x97cb3127, 0xb3e8b4ad, 0xe5a4c4d1, 0x9e3779b9 
+    };
+
+    /**
+     * Each {@code long} holds sixteen 4-bit counters.
+     */
+    private long[] table;
+
+    /**
+     * The number of counter increments after which all the counters are 
+     * halved.
+     */
+    private int sampleSize;
+
+    /**
+     * The number of counter increments since the last halving.
+     */
+    private int size;
+
+    /**
+     * Constructs a sketch for tracking about {@code expectedNumberOfKeys}
+     * distinct keys.
+     * 
+     * @param expectedNumberOfKeys the expected number of distinct keys.
+     */
+    FrequencySketch(final int expectedNumberOfKeys) {
+        ensureCapacity(expectedNumberOfKeys);
+    }
+
+    /**
+     * Resizes the sketch if it is too small for {@code expectedNumberOfKeys}
+     * distinct keys. Resizing forgets all the previous counts.
+     * 
+     * @param expectedNumberOfKeys the expected number of distinct keys.
+     */
+    void ensureCapacity(final int expectedNumberOfKeys) {
+        final int capacity = 
+                Integer.highestOneBit(
+                        Math.max(64, 
+                                 Math.min(expectedNumberOfKeys, 1 << 26)) 
+                        - 1) << 1;
+
+        if (table != null && table.length >= capacity) {
+            return;
+        }
+
+        table = new long[capacity];
+        sampleSize = 10 * capacity;
+        size = 0;
+    }
+
+    /**
+     * Returns the estimated access frequency of {@code key}, a value between 
+     * 0 and 15, inclusive.
+     * 
+     * @param key the key to estimate.
+     * 
+     * @return the estimated frequency.
+     */
+    int frequency(final Object key) {
+        final int hash = spread(key.hashCode());
+        int frequency = MAXIMUM_FREQUENCY;
+
+        for (int i = 0; i < SEEDS.length; i++) {
+            frequency = Math.min(frequency, getCounter(hash, i));
+        }
+
+        return frequency;
+    }
+
+    /**
+     * Records an access to {@code key}.
+     * 
+     * @param key the accessed key.
+     */
+    void increment(final Object key) {
+        final int hash = spread(key.hashCode());
+        boolean incremented = false;
+
+        for (int i = 0; i < SEEDS.length; i++) {
+            incremented |= incrementCounter(hash, i);
+        }
+
+        if (incremented && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private int getCounter(final int hash, final int functionIndex) {
+        final int h = rehash(hash, functionIndex);
+        final int shift = ((h >>> 28) & 15) << 2;
+        return (int)((table[h & (table.length - 1)] >>> shift) & 15L);
+    }
+
+    private boolean incrementCounter(final int hash, final int functionIndex) {
+        final int h = rehash(hash, functionIndex);
+        final int index = h & (table.length - 1);
+        final int shift = ((h >>> 28) & 15) << 2;
+
+        if (((table[index] >>> shift) & 15L) == MAXIMUM_FREQUENCY) {
+            return false;
+        }
+
+        table[index] += 1L << shift;
+        return true;
+    }
+
+    /**
+     * Halves all the counters.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+
+        size /= 2;
+    }
+
+    private static int rehash(final int hash, final int functionIndex) {
+        int h = (hash + SEEDS[functionIndex]) * SEEDS[functionIndex];
+        h += h >>> 16;
+        return h;
+    }
+
+    private static int spread(final int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
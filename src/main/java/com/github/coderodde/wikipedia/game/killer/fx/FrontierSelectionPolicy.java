@@ -0,0 +1,37 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+/**
+ * This enumeration lists the ways the {@link IntBidirectionalBFSPathFinder}
+ * chooses the frontier to expand next.
+ */
+enum FrontierSelectionPolicy {
+
+    /**
+     * Expand the frontier with fewer nodes. This minimizes the expansions 
+     * of the next layer only, not the size of the layer they produce.
+     */
+    SMALLER_FRONTIER("Smaller frontier"),
+
+    /**
+     * Expand the frontier with the smaller estimated cost: its size times
+     * the observed mean latency of an expansion in its direction. Keeps the
+     * search from expanding the slower direction, typically the backlinks of
+     * popular articles, when the opposite frontier takes less time, at the 
+     * price of some more expanded nodes.
+     */
+    CHEAPER_FRONTIER("Cheaper frontier");
+
+    /**
+     * The human-readable name of this policy.
+     */
+    private final String displayName;
+
+    private FrontierSelectionPolicy(final String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
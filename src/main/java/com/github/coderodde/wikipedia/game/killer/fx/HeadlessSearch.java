@@ -0,0 +1,289 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements the headless batch mode. It reads source/target
+ * pairs, one pair of article URLs per line separated by white space, from a
+ * file or from the standard input, runs the searches concurrently and
+ * streams a JSON object per search (JSON Lines) to the standard output or to
+ * a file. Empty lines and lines starting with {@code #} are skipped.
+ * <p>
+ * All the searches share a single {@link SearchService}, and thus its
+ * caches, link expanders and HTTP client.
+ * <p>
+ * Usage:
+ * <pre>
+ * java ... Main --headless [OPTIONS] [PAIRS_FILE]
+ * </pre>
+ * Run with {@code --help} for the options.
+ */
+public final class HeadlessSearch {
+
+    private static final String USAGE =
+            "Usage: Main --headless [OPTIONS] [PAIRS_FILE]\n" +
+            "Reads \"SOURCE_URL TARGET_URL\" lines from PAIRS_FILE or the " +
+            "standard input\nand writes one JSON object per search.\n\n" +
+            "Options:\n" +
+            "  --searches N           Concurrent searches (default: 4).\n" +
+            "  --output FILE          Write the results to FILE instead " +
+            "of stdout.\n" +
+            SearchService.OPTIONS_USAGE;
+
+    private final SearchService searchService = new SearchService();
+    private int numberOfSearches = 4;
+    private String inputFile;
+    private String outputFile;
+
+    private final Gson gson = new Gson();
+    private final AtomicInteger numberOfFoundPaths = new AtomicInteger();
+    private final AtomicInteger numberOfIncompleteSearches = 
+            new AtomicInteger();
+    private final AtomicLong numberOfExpandedNodes = new AtomicLong();
+    private Writer writer;
+
+    public static void main(final String[] args) throws IOException {
+        final HeadlessSearch headlessSearch = new HeadlessSearch();
+
+        try {
+            if (!headlessSearch.parseArguments(args)) {
+                System.out.println(USAGE);
+                return;
+            }
+        } catch (final IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        headlessSearch.run();
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args the command line arguments.
+     *
+     * @return {@code false} if the usage was requested.
+     */
+    private boolean parseArguments(final String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+
+            if (arg.equals("--help") || arg.equals("-h")) {
+                return false;
+            }
+
+            if (!arg.startsWith("--")) {
+                if (inputFile != null) {
+                    throw new IllegalArgumentException(
+                            "More than one input file given.");
+                }
+
+                inputFile = arg;
+                continue;
+            }
+
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException(
+                        String.format("Missing the value of %s.", arg));
+            }
+
+            final String value = args[++i];
+
+            switch (arg) {
+                case "--searches":
+                    numberOfSearches = SearchService.parseInt(arg, value, 1);
+                    break;
+
+                case "--output":
+                    outputFile = value;
+                    break;
+
+                default:
+                    if (!searchService.parseOption(arg, value)) {
+                        throw new IllegalArgumentException(
+                                String.format("Unknown option: %s.", arg));
+                    }
+            }
+        }
+
+        return true;
+    }
+
+    private void run() throws IOException {
+        searchService.open();
+
+        final ExecutorService searchExecutor =
+                searchService.usesVirtualThreads() ?
+                Executors.newVirtualThreadPerTaskExecutor() :
+                Executors.newFixedThreadPool(numberOfSearches);
+
+        // Bounds the number of searches in progress, so that the pairs are
+        // read only as fast as they are searched:
+        final Semaphore searchSemaphore = new Semaphore(numberOfSearches);
+        final long startTime = System.currentTimeMillis();
+        int numberOfQueries = 0;
+
+        try (final BufferedReader reader = openInput();
+             final Writer output = openOutput()) {
+
+            writer = output;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                final int index = numberOfQueries++;
+                final String pairLine = line;
+
+                searchSemaphore.acquire();
+
+                searchExecutor.execute(() -> {
+                    try {
+                        writeResult(search(index, pairLine));
+                    } finally {
+                        searchSemaphore.release();
+                    }
+                });
+            }
+
+            searchExecutor.shutdown();
+            searchExecutor.awaitTermination(Long.MAX_VALUE,
+                                            TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            searchExecutor.shutdownNow();
+            searchService.close();
+        }
+
+        final long duration = System.currentTimeMillis() - startTime;
+
+        System.err.printf(
+                "[STATISTICS] Searches: %d, paths found: %d, incomplete: " +
+                "%d, expanded nodes: %d, duration: %d milliseconds, " +
+                "%.2f searches/s.\n",
+                numberOfQueries,
+                numberOfFoundPaths.get(),
+                numberOfIncompleteSearches.get(),
+                numberOfExpandedNodes.get(),
+                duration,
+                duration == 0L ? 0.0 : 1000.0 * numberOfQueries / duration);
+    }
+
+    /**
+     * Runs the search of a single input line.
+     *
+     * @param index the zero-based index of the search.
+     * @param line  the input line.
+     *
+     * @return the JSON result of the search.
+     */
+    private JsonObject search(final int index, final String line) {
+        final JsonObject result = new JsonObject();
+        result.addProperty("index", index);
+        result.addProperty("engine",
+                           searchService.getSearchEngineType().name());
+
+        final String[] urls = line.split("\\s+");
+
+        if (urls.length != 2) {
+            result.addProperty("error",
+                               "Expected a source and a target URL.");
+            return result;
+        }
+
+        result.addProperty("source", urls[0]);
+        result.addProperty("target", urls[1]);
+
+        final String sourceLanguageCode;
+        final String targetLanguageCode;
+
+        try {
+            sourceLanguageCode = SearchService.getLanguageCode(urls[0]);
+            targetLanguageCode = SearchService.getLanguageCode(urls[1]);
+        } catch (final IllegalArgumentException ex) {
+            result.addProperty("error", ex.getMessage());
+            return result;
+        }
+
+        if (searchService.search(sourceLanguageCode,
+                                 targetLanguageCode,
+                                 SearchService.getTitle(urls[0]),
+                                 SearchService.getTitle(urls[1]),
+                                 result)) {
+            numberOfFoundPaths.incrementAndGet();
+        }
+
+        if (result.has("complete") && 
+                !result.get("complete").getAsBoolean()) {
+            numberOfIncompleteSearches.incrementAndGet();
+        }
+
+        if (result.has("expandedNodes")) {
+            numberOfExpandedNodes.addAndGet(
+                    result.get("expandedNodes").getAsLong());
+        }
+
+        return result;
+    }
+
+    private synchronized void writeResult(final JsonObject result) {
+        try {
+            writer.write(gson.toJson(result));
+            writer.write('\n');
+            writer.flush();
+        } catch (final IOException ex) {
+            System.err.printf("Could not write a result: %s\n",
+                              ex.getMessage());
+        }
+    }
+
+    private BufferedReader openInput() throws IOException {
+        if (inputFile == null || inputFile.equals("-")) {
+            return new BufferedReader(
+                    new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        }
+
+        return Files.newBufferedReader(Paths.get(inputFile),
+                                       StandardCharsets.UTF_8);
+    }
+
+    private Writer openOutput() throws IOException {
+        if (outputFile == null) {
+            // Do not close the standard output with the writer:
+            return new BufferedWriter(
+                    new OutputStreamWriter(System.out,
+                                           StandardCharsets.UTF_8)) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+
+        return Files.newBufferedWriter(Paths.get(outputFile),
+                                       StandardCharsets.UTF_8);
+    }
+}
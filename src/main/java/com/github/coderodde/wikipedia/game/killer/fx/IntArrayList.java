@@ -0,0 +1,58 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a growable list of primitive {@code int} values.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class IntArrayList {
+
+    private int[] elements;
+    private int size;
+
+    IntArrayList() {
+        this(16);
+    }
+
+    IntArrayList(final int initialCapacity) {
+        this.elements = new int[Math.max(1, initialCapacity)];
+    }
+
+    void add(final int element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+
+        elements[size++] = element;
+    }
+
+    int get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    String.format(
+                            "Index %d out of bounds for size %d.",
+                            index, 
+                            size));
+        }
+
+        return elements[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+}
@@ -0,0 +1,1277 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class implements a parallel bidirectional breadth-first search over
+ * {@code int} node identifiers. The search proceeds layer by layer: in each
+ * round, one of the two frontiers is expanded in full, the expansions
+ * running in parallel in a thread pool. The results are merged into the
+ * primitive parent maps by the searching thread alone, so no locking of the
+ * search state is needed.
+ * <p>
+ * The frontier to expand is chosen by the {@link FrontierSelectionPolicy}.
+ * Under {@link FrontierSelectionPolicy#CHEAPER_FRONTIER}, the size of each
+ * frontier is weighted by the observed mean latency of an expansion in its
+ * direction, so that a slower direction, typically the backlinks of popular
+ * articles, is expanded only when its frontier is accordingly smaller. When
+ * both directions are equally fast, the choice is that of 
+ * {@link FrontierSelectionPolicy#SMALLER_FRONTIER}. Neither estimate looks
+ * at the degrees of the frontier nodes, so neither bounds the size of the 
+ * next layer.
+ * <p>
+ * Since a whole layer is expanded before the frontiers are checked for a
+ * meeting, and the best meeting node of that layer is selected, the returned
+ * path is always a shortest one.
+ * <p>
+ * Under {@link ExpansionOrder#DEGREE}, the nodes of a layer are expanded in
+ * the descending order of their degrees as far as the expanders know them,
+ * and the layer is cut short at the first meeting. The path stays a 
+ * shortest one as long as the backward expander generates exactly the
+ * reverse arcs of the forward one: in the first layer with a meeting, every
+ * meeting node was reached by the opposite search in its latest layer, 
+ * since a node expanded by the opposite search earlier would have produced
+ * the meeting earlier. The hubs, being the likeliest meeting points, make
+ * the cut come early. In the thread pool and the virtual thread modes, the
+ * expansions still queued at the cut are skipped.
+ * <p>
+ * Given the {@link LandmarkTable} of an offline graph, the search returns at
+ * once when the landmarks tell the target is unreachable, and otherwise 
+ * takes the length of the shortest path through a landmark as an upper bound
+ * {@code U}. A node discovered at depth {@code g} whose lower bound of the 
+ * remaining distance {@code h} has {@code g + h > U} is not on a shortest
+ * path, so it is recorded as visited but never expanded. The nodes of a 
+ * shortest path are never pruned, so the path stays a shortest one. Under
+ * {@link ExpansionOrder#DEGREE}, the lower bounds break the ties between the
+ * nodes of equal degree, the nodes closer to the opposite root first.
+ * <p>
+ * Asked for more than one path, the search also records the other parents
+ * a node has in the layer it is discovered in, expands the meeting layer in
+ * full and keeps all its meeting nodes. The other shortest paths are then 
+ * enumerated from the explored parent maps by a 
+ * {@link ShortestPathEnumerator}, with no further expansions.
+ * <p>
+ * With a single thread, no thread pool is created at all and the nodes are 
+ * expanded on the searching thread. This is the fastest choice for expanders
+ * that do not block, such as the ones serving an offline graph.
+ * <p>
+ * In the asynchronous mode, no thread pool is created either. Instead, all 
+ * the expansions of a layer are started at once via 
+ * {@link IntNodeExpander#generateSuccessorsAsync(int, Executor)}, and the 
+ * searching thread merely waits for the resulting futures. This is meant for
+ * expanders built on non-blocking I/O.
+ * <p>
+ * In the virtual thread mode, each expansion runs in a virtual thread of its
+ * own. The number of concurrent expansions is bounded by a semaphore rather
+ * than by a pool size, so thousands of blocking expansions may be 
+ * outstanding without the memory cost of as many platform threads.
+ * <p>
+ * If the expander {@link IntNodeExpander#isStreaming() streams} and the 
+ * expansions do not run on the searching thread, the successors of a layer 
+ * are merged page by page in the order they arrive, through a 
+ * {@link SuccessorStream}, so the merging of a hub with thousands of links 
+ * starts with its first result page. When a layer is cut short, its stream
+ * is cancelled, which stops the downloads of the remaining pages.
+ * <p>
+ * Given a parent memory limit, the parent maps of a search are kept off the
+ * heap in {@link OffHeapIntIntHashMap}s sharing that many bytes, so a search
+ * visiting millions of nodes does not add to the work of the garbage
+ * collector. A search outgrowing the limit halts its expansions and fails
+ * with a {@link MemoryLimitExceededException}.
+ */
+final class IntBidirectionalBFSPathFinder {
+
+    /**
+     * The parent of the source and target nodes.
+     */
+    private static final int NO_PARENT = -1;
+
+    /**
+     * The value returned by the parent maps for unvisited nodes.
+     */
+    private static final int NOT_VISITED = -2;
+
+    /**
+     * The interval at which a waiting searching thread checks for a halt 
+     * request.
+     */
+    private static final long HALT_CHECK_INTERVAL_MILLIS = 100L;
+
+    /**
+     * Runs the tasks on the submitting thread. Used in the asynchronous mode
+     * for the expanders that do not support it.
+     */
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    /**
+     * The largest degree told apart by the frontier sort.
+     */
+    private static final int MAXIMUM_SORTED_DEGREE = (1 << 22) - 2;
+
+    /**
+     * The largest lower bound told apart by the frontier sort.
+     */
+    private static final long MAXIMUM_SORTED_LOWER_BOUND = 255L;
+
+    /**
+     * This class accumulates the expansions observed in one direction of a
+     * search. The expansions may complete in any thread.
+     */
+    private static final class ExpansionStatistics {
+
+        private final LongAdder numberOfExpansions = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+
+        void record(final long latencyNanos) {
+            this.numberOfExpansions.increment();
+            this.latencyNanos.add(latencyNanos);
+        }
+
+        /**
+         * Returns the mean latency of an expansion in nanoseconds, or 
+         * {@link Double#NaN} if nothing is observed.
+         */
+        double getNanosPerExpansion() {
+            final long expansions = numberOfExpansions.sum();
+            
+            return expansions == 0L ? 
+                   Double.NaN : 
+                   (double) Math.max(1L, latencyNanos.sum()) / expansions;
+        }
+    }
+
+    /**
+     * Returns the estimated cost of expanding a frontier: its size times the
+     * mean latency of an expansion in its direction. Until both directions 
+     * have been observed, the cost is the size alone, so that the two costs
+     * are comparable.
+     *
+     * @param frontierSize       the number of nodes in the frontier.
+     * @param statistics         the statistics of the frontier direction.
+     * @param oppositeStatistics the statistics of the other direction.
+     * @return the estimated cost.
+     */
+    private static double estimateCost(
+            final int frontierSize,
+            final ExpansionStatistics statistics,
+            final ExpansionStatistics oppositeStatistics) {
+        final double nanosPerExpansion = statistics.getNanosPerExpansion();
+
+        if (Double.isNaN(nanosPerExpansion) || 
+            Double.isNaN(oppositeStatistics.getNanosPerExpansion())) {
+            return frontierSize;
+        }
+
+        return frontierSize * nanosPerExpansion;
+    }
+
+    /**
+     * This class merges the successors of the nodes of a layer into the
+     * parent map of the expanding direction. It collects the next frontier
+     * and the nodes where the two searches meet.
+     */
+    private static final class LayerMerge {
+
+        private final IntIntMap parents;
+        private final IntIntMap oppositeParents;
+        private final ShortestPathEnumerator.AlternativeParents 
+                alternativeParents;
+        private final IntNodeExpander expander;
+        private final LandmarkTable landmarkTable;
+        private final int upperBound;
+        private final boolean forward;
+
+        /**
+         * The root of the opposite search.
+         */
+        private final int oppositeRoot;
+
+        /**
+         * The depth of the successors.
+         */
+        private final int depth;
+
+        final IntArrayList nextFrontier;
+        final IntArrayList meetingNodes = new IntArrayList();
+        int bestMeetingNode = NO_PARENT;
+        int bestMeetingDistance = Integer.MAX_VALUE;
+
+        LayerMerge(final IntIntMap parents,
+                   final IntIntMap oppositeParents,
+                   final ShortestPathEnumerator.AlternativeParents 
+                           alternativeParents,
+                   final IntNodeExpander expander,
+                   final LandmarkTable landmarkTable,
+                   final int upperBound,
+                   final boolean forward,
+                   final int oppositeRoot,
+                   final int depth,
+                   final int expectedFrontierSize) {
+            this.parents = parents;
+            this.oppositeParents = oppositeParents;
+            this.alternativeParents = alternativeParents;
+            this.expander = expander;
+            this.landmarkTable = landmarkTable;
+            this.upperBound = upperBound;
+            this.forward = forward;
+            this.oppositeRoot = oppositeRoot;
+            this.depth = depth;
+            this.nextFrontier = new IntArrayList(expectedFrontierSize);
+        }
+
+        /**
+         * Merges the successors of {@code node}, or a page of them.
+         */
+        void merge(final int node, final int[] successors) {
+            for (final int successor : successors) {
+                merge(node, successor);
+            }
+        }
+
+        private void merge(final int node, final int successor) {
+            final int parent = parents.get(successor);
+
+            if (parent != NOT_VISITED) {
+                addAlternativeParent(successor, node, parent);
+                return;
+            }
+
+            parents.put(successor, node);
+
+            if (oppositeParents.containsKey(successor)) {
+                final int distance = getDistance(oppositeParents, successor);
+
+                if (bestMeetingDistance > distance) {
+                    bestMeetingDistance = distance;
+                    bestMeetingNode = successor;
+                    meetingNodes.clear();
+                    meetingNodes.add(successor);
+                } else if (bestMeetingDistance == distance) {
+                    meetingNodes.add(successor);
+                }
+            }
+
+            if (landmarkTable != null &&
+                isPruned(landmarkTable,
+                         successor,
+                         depth,
+                         upperBound,
+                         forward,
+                         oppositeRoot)) {
+                return;
+            }
+
+            nextFrontier.add(successor);
+        }
+
+        /**
+         * Records {@code node} as another parent of the visited 
+         * {@code successor}, if it is in the layer of the successor, since 
+         * it gives other shortest paths through the successor.
+         */
+        private void addAlternativeParent(final int successor,
+                                          final int node,
+                                          final int parent) {
+            if (alternativeParents == null ||
+                parent == node ||
+                getDistance(parents, successor) != depth) {
+                return;
+            }
+
+            alternativeParents.add(successor, node);
+        }
+    }
+
+    /**
+     * The ways of running the expansions.
+     */
+    private enum ExpansionMode {
+        THREAD_POOL,
+        ASYNCHRONOUS,
+        VIRTUAL_THREADS,
+        ADAPTIVE
+    }
+
+    /**
+     * The number of expansion threads, or the maximum number of concurrent 
+     * expansions in the virtual thread mode.
+     */
+    private final int numberOfThreads;
+
+    /**
+     * The way the expansions are run.
+     */
+    private final ExpansionMode expansionMode;
+
+    /**
+     * The adaptive concurrency limit in the adaptive mode, {@code null} 
+     * otherwise.
+     */
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    /**
+     * The number of nodes expanded during the most recent search.
+     */
+    private final AtomicInteger numberOfExpandedNodes = new AtomicInteger();
+
+    /**
+     * The way the frontier to expand is chosen.
+     */
+    private volatile FrontierSelectionPolicy frontierSelectionPolicy =
+            FrontierSelectionPolicy.SMALLER_FRONTIER;
+
+    /**
+     * The order of the expansions within a layer.
+     */
+    private volatile ExpansionOrder expansionOrder = ExpansionOrder.DISCOVERY;
+
+    /**
+     * The maximum number of shortest paths to enumerate.
+     */
+    private volatile int maximumNumberOfPaths = 1;
+
+    /**
+     * The shortest paths of the most recent search.
+     */
+    private volatile ShortestPathEnumerator shortestPaths = 
+            ShortestPathEnumerator.empty();
+
+    /**
+     * The landmark tables bounding the distances, or {@code null}.
+     */
+    private volatile LandmarkTable landmarkTable;
+
+    /**
+     * The number of bytes the off-heap parent maps of a search may take, or
+     * zero for the parent maps on the heap.
+     */
+    private volatile long parentMemoryLimit;
+
+    /**
+     * Receives the live progress of the searches, or {@code null}.
+     */
+    private volatile SearchTelemetry telemetry;
+
+    /**
+     * Set when the search is requested to halt, even before it starts. 
+     * Cleared once the search returns.
+     */
+    private volatile boolean halted;
+
+    /**
+     * The duration of the most recent search in milliseconds.
+     */
+    private volatile long duration;
+
+    /**
+     * Constructs a path finder.
+     *
+     * @param numberOfThreads the number of expansion threads.
+     */
+    IntBidirectionalBFSPathFinder(final int numberOfThreads) {
+        this(numberOfThreads, ExpansionMode.THREAD_POOL, null);
+    }
+
+    private IntBidirectionalBFSPathFinder(
+            final int numberOfThreads,
+            final ExpansionMode expansionMode,
+            final AdaptiveConcurrencyLimit concurrencyLimit) {
+
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The number of threads is too small: %d.",
+                            numberOfThreads));
+        }
+
+        this.numberOfThreads = numberOfThreads;
+        this.expansionMode = expansionMode;
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    /**
+     * Constructs a path finder that expands all the nodes of a layer 
+     * asynchronously without a thread pool of its own.
+     *
+     * @return an asynchronous path finder.
+     */
+    static IntBidirectionalBFSPathFinder createAsynchronous() {
+        return new IntBidirectionalBFSPathFinder(1, 
+                                                 ExpansionMode.ASYNCHRONOUS,
+                                                 null);
+    }
+
+    /**
+     * Constructs a path finder that runs each expansion in a virtual thread 
+     * of its own.
+     *
+     * @param maximumConcurrentExpansions the maximum number of expansions 
+     *                                    running at a time.
+     *
+     * @return a virtual thread path finder.
+     */
+    static IntBidirectionalBFSPathFinder createVirtual(
+            final int maximumConcurrentExpansions) {
+        return new IntBidirectionalBFSPathFinder(
+                maximumConcurrentExpansions,
+                ExpansionMode.VIRTUAL_THREADS,
+                null);
+    }
+
+    /**
+     * Constructs a path finder that runs each expansion in a virtual thread 
+     * of its own and bounds the number of concurrent expansions by an 
+     * adaptive limit. The limit is fed with the latency of every expansion.
+     *
+     * @param concurrencyLimit the adaptive concurrency limit.
+     *
+     * @return an adaptive path finder.
+     */
+    static IntBidirectionalBFSPathFinder createAdaptive(
+            final AdaptiveConcurrencyLimit concurrencyLimit) {
+        return new IntBidirectionalBFSPathFinder(
+                1,
+                ExpansionMode.ADAPTIVE,
+                Objects.requireNonNull(concurrencyLimit, 
+                                       "The concurrency limit is null."));
+    }
+
+    /**
+     * Searches for a shortest path from {@code source} to {@code target}.
+     *
+     * @param source            the source node.
+     * @param target            the target node.
+     * @param forwardExpander   the expander generating the child nodes.
+     * @param backwardExpander  the expander generating the parent nodes.
+     *
+     * @return the shortest path or an empty array if the target is not
+     *         reachable or the search was halted.
+     * 
+     * @throws MemoryLimitExceededException if the parent maps outgrow the
+     *                                      parent memory limit.
+     */
+    int[] search(final int source,
+                 final int target,
+                 final IntNodeExpander forwardExpander,
+                 final IntNodeExpander backwardExpander) {
+
+        final long startTime = System.currentTimeMillis();
+        numberOfExpandedNodes.set(0);
+        shortestPaths = ShortestPathEnumerator.empty();
+
+        final ExecutorService executorService;
+        final Executor executor;
+
+        switch (expansionMode) {
+            case ASYNCHRONOUS:
+                executorService = null;
+                executor = DIRECT_EXECUTOR;
+                break;
+
+            case VIRTUAL_THREADS:
+                executorService = Executors.newVirtualThreadPerTaskExecutor();
+                executor = createBoundedExecutor(
+                        executorService,
+                        new Semaphore(numberOfThreads));
+                break;
+
+            case ADAPTIVE:
+                executorService = Executors.newVirtualThreadPerTaskExecutor();
+                executor = createAdaptiveExecutor(executorService,
+                                                  concurrencyLimit);
+                break;
+
+            default:
+                executorService = 
+                        numberOfThreads == 1 ? 
+                        null : 
+                        Executors.newFixedThreadPool(
+                                numberOfThreads, 
+                                (runnable) -> {
+                                    final Thread thread = new Thread(runnable);
+                                    thread.setDaemon(true);
+                                    return thread;
+                                });
+
+                executor = executorService;
+        }
+
+        try {
+            if (!forwardExpander.isValidNode(source) ||
+                !backwardExpander.isValidNode(target)) {
+                return new int[0];
+            }
+
+            if (source == target) {
+                shortestPaths = 
+                        new ShortestPathEnumerator(
+                                new IntIntHashMap(NO_PARENT),
+                                new IntIntHashMap(NO_PARENT),
+                                null,
+                                null,
+                                new int[]{ source },
+                                1);
+
+                return new int[]{ source };
+            }
+
+            return search(source,
+                          target,
+                          forwardExpander,
+                          backwardExpander,
+                          executor);
+        } catch (final MemoryLimitExceededException ex) {
+            // Skip the expansions still queued:
+            halted = true;
+            throw ex;
+        } finally {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+            
+            duration = System.currentTimeMillis() - startTime;
+            
+            // Clearing the flag only now keeps a halt requested before the 
+            // search started:
+            halted = false;
+        }
+    }
+
+    /**
+     * Requests the current search to halt, or the next one if no search is 
+     * running. The request is cleared once the halted search returns, so 
+     * the finder may be reused.
+     */
+    void halt() {
+        halted = true;
+    }
+
+    /**
+     * Sets the telemetry receiving the frontier and visited set sizes and
+     * the latency of each expansion of the subsequent searches.
+     *
+     * @param telemetry the telemetry, or {@code null} for none.
+     */
+    void setTelemetry(final SearchTelemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Sets the way the subsequent searches choose the frontier to expand.
+     *
+     * @param frontierSelectionPolicy the frontier selection policy.
+     */
+    void setFrontierSelectionPolicy(
+            final FrontierSelectionPolicy frontierSelectionPolicy) {
+        this.frontierSelectionPolicy =
+                Objects.requireNonNull(
+                        frontierSelectionPolicy,
+                        "The frontier selection policy is null.");
+    }
+
+    FrontierSelectionPolicy getFrontierSelectionPolicy() {
+        return frontierSelectionPolicy;
+    }
+
+    /**
+     * Sets the order in which the subsequent searches expand the nodes of a
+     * layer.
+     *
+     * @param expansionOrder the expansion order.
+     */
+    void setExpansionOrder(final ExpansionOrder expansionOrder) {
+        this.expansionOrder =
+                Objects.requireNonNull(expansionOrder,
+                                       "The expansion order is null.");
+    }
+
+    ExpansionOrder getExpansionOrder() {
+        return expansionOrder;
+    }
+
+    /**
+     * Sets the landmark tables the subsequent searches use for pruning. The
+     * node identifiers of the searches must be the ones of the graph of the
+     * tables.
+     *
+     * @param landmarkTable the landmark tables, or {@code null} for none.
+     */
+    void setLandmarkTable(final LandmarkTable landmarkTable) {
+        this.landmarkTable = landmarkTable;
+    }
+
+    LandmarkTable getLandmarkTable() {
+        return landmarkTable;
+    }
+
+    /**
+     * Sets the number of bytes the parent maps of each subsequent search may
+     * take off the heap. With zero, the parent maps are kept on the heap 
+     * with no limit.
+     *
+     * @param parentMemoryLimit the limit in bytes, or zero.
+     */
+    void setParentMemoryLimit(final long parentMemoryLimit) {
+        if (parentMemoryLimit < 0L) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Negative parent memory limit: %d.",
+                            parentMemoryLimit));
+        }
+
+        this.parentMemoryLimit = parentMemoryLimit;
+    }
+
+    long getParentMemoryLimit() {
+        return parentMemoryLimit;
+    }
+
+    /**
+     * Sets the maximum number of shortest paths the subsequent searches 
+     * retain the parents for. With more than one, the searches keep the 
+     * other parents of the nodes and expand the meeting layer in full.
+     *
+     * @param maximumNumberOfPaths the maximum number of shortest paths.
+     */
+    void setMaximumNumberOfPaths(final int maximumNumberOfPaths) {
+        if (maximumNumberOfPaths < 1) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The maximum number of paths is too small: %d.",
+                            maximumNumberOfPaths));
+        }
+
+        this.maximumNumberOfPaths = maximumNumberOfPaths;
+    }
+
+    int getMaximumNumberOfPaths() {
+        return maximumNumberOfPaths;
+    }
+
+    /**
+     * Returns the enumerator of the shortest paths found by the most recent
+     * search, the returned path first and at most the maximum number of 
+     * paths in total. The enumerator may be consumed only once.
+     *
+     * @return the shortest path enumerator.
+     */
+    ShortestPathEnumerator getShortestPaths() {
+        return shortestPaths;
+    }
+
+    long getDuration() {
+        return duration;
+    }
+
+    int getNumberOfExpandedNodes() {
+        return numberOfExpandedNodes.get();
+    }
+
+    int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    boolean isAsynchronous() {
+        return expansionMode == ExpansionMode.ASYNCHRONOUS;
+    }
+
+    boolean isVirtual() {
+        return expansionMode == ExpansionMode.VIRTUAL_THREADS;
+    }
+
+    boolean isAdaptive() {
+        return expansionMode == ExpansionMode.ADAPTIVE;
+    }
+
+    AdaptiveConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    private int[] search(final int source,
+                         final int target,
+                         final IntNodeExpander forwardExpander,
+                         final IntNodeExpander backwardExpander,
+                         final Executor executor) {
+
+        final LandmarkTable landmarkTable = this.landmarkTable;
+        int upperBound = LandmarkTable.INFINITE;
+
+        if (landmarkTable != null) {
+            if (landmarkTable.getLowerBound(source, target) == 
+                    LandmarkTable.INFINITE) {
+                return new int[0];
+            }
+
+            upperBound = landmarkTable.getUpperBound(source, target);
+        }
+
+        final long parentMemoryLimit = this.parentMemoryLimit;
+        final IntIntMap forwardParents;
+        final IntIntMap backwardParents;
+
+        if (parentMemoryLimit == 0L) {
+            forwardParents = new IntIntHashMap(NOT_VISITED);
+            backwardParents = new IntIntHashMap(NOT_VISITED);
+        } else {
+            final OffHeapIntIntHashMap.MemoryBudget budget =
+                    new OffHeapIntIntHashMap.MemoryBudget(parentMemoryLimit);
+
+            forwardParents = new OffHeapIntIntHashMap(NOT_VISITED, budget);
+            backwardParents = new OffHeapIntIntHashMap(NOT_VISITED, budget);
+        }
+
+        forwardParents.put(source, NO_PARENT);
+        backwardParents.put(target, NO_PARENT);
+
+        IntArrayList forwardFrontier = new IntArrayList();
+        IntArrayList backwardFrontier = new IntArrayList();
+
+        forwardFrontier.add(source);
+        backwardFrontier.add(target);
+
+        final SearchTelemetry telemetry = this.telemetry;
+
+        // The cost estimates are kept only if needed:
+        final boolean balanceCosts = 
+                frontierSelectionPolicy == 
+                FrontierSelectionPolicy.CHEAPER_FRONTIER;
+
+        final ExpansionStatistics forwardStatistics =
+                balanceCosts ? new ExpansionStatistics() : null;
+
+        final ExpansionStatistics backwardStatistics =
+                balanceCosts ? new ExpansionStatistics() : null;
+
+        final boolean hubsFirst = expansionOrder == ExpansionOrder.DEGREE;
+        final int maximumNumberOfPaths = this.maximumNumberOfPaths;
+
+        // All the parents within a layer are needed only for enumerating 
+        // more than one path, which rules out cutting the meeting layer:
+        final boolean retainParents = maximumNumberOfPaths > 1;
+        final boolean cutLayers = hubsFirst && !retainParents;
+
+        final ShortestPathEnumerator.AlternativeParents 
+                forwardAlternativeParents =
+                        retainParents ? 
+                        new ShortestPathEnumerator.AlternativeParents() :
+                        null;
+
+        final ShortestPathEnumerator.AlternativeParents 
+                backwardAlternativeParents =
+                        retainParents ? 
+                        new ShortestPathEnumerator.AlternativeParents() :
+                        null;
+
+        // The number of links between the roots and the frontiers:
+        int forwardDepth = 0;
+        int backwardDepth = 0;
+
+        while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+            final boolean expandForward =
+                    balanceCosts ?
+                    estimateCost(forwardFrontier.size(), 
+                                 forwardStatistics, 
+                                 backwardStatistics) <= 
+                    estimateCost(backwardFrontier.size(),
+                                 backwardStatistics,
+                                 forwardStatistics) :
+                    forwardFrontier.size() <= backwardFrontier.size();
+
+            if (telemetry != null) {
+                telemetry.setFrontierSizes(forwardFrontier.size(),
+                                           backwardFrontier.size());
+            }
+
+            final IntNodeExpander expander = 
+                    expandForward ? forwardExpander : backwardExpander;
+
+            final IntArrayList frontier =
+                    hubsFirst ?
+                    sortFrontier(
+                            expandForward ? forwardFrontier : backwardFrontier,
+                            expander,
+                            landmarkTable,
+                            expandForward,
+                            expandForward ? target : source) :
+                    expandForward ? forwardFrontier : backwardFrontier;
+
+            final int nextDepth = 
+                    (expandForward ? forwardDepth : backwardDepth) + 1;
+
+            final ExpansionStatistics statistics =
+                    expandForward ? forwardStatistics : backwardStatistics;
+
+            final LayerMerge merge = 
+                    new LayerMerge(
+                            expandForward ? forwardParents : backwardParents,
+                            expandForward ? backwardParents : forwardParents,
+                            expandForward ? 
+                                    forwardAlternativeParents : 
+                                    backwardAlternativeParents,
+                            expander,
+                            landmarkTable,
+                            upperBound,
+                            expandForward,
+                            expandForward ? target : source,
+                            nextDepth,
+                            frontier.size() * 4);
+            
+            // Set once the layer is cut short:
+            final AtomicBoolean layerCut = new AtomicBoolean();
+            
+            final SuccessorStream stream = 
+                    executor != null && expander.isStreaming() ?
+                    new SuccessorStream(frontier.size()) :
+                    null;
+            
+            final List<CompletableFuture<int[]>> futures =
+                    executor == null ? 
+                    null : 
+                    expandLayer(frontier, 
+                                expander, 
+                                executor, 
+                                telemetry, 
+                                statistics,
+                                layerCut,
+                                stream);
+
+            if (stream == null) {
+                for (int i = 0; i < frontier.size(); i++) {
+                    final int node = frontier.get(i);
+                    final int[] successors = 
+                            futures == null ? 
+                            expand(expander, node, telemetry, statistics) :
+                            getSuccessors(futures.get(i));
+
+                    if (halted) {
+                        return new int[0];
+                    }
+
+                    merge.merge(node, successors);
+
+                    if (telemetry != null) {
+                        telemetry.setVisitedCounts(forwardParents.size(),
+                                                   backwardParents.size());
+                    }
+
+                    if (cutLayers && merge.bestMeetingNode != NO_PARENT) {
+                        layerCut.set(true);
+                        break;
+                    }
+                }
+            } else {
+                // The pages are merged as they arrive, whichever node they
+                // belong to:
+                SuccessorStream.Page page;
+
+                try {
+                    while ((page = getNextPage(stream)) != null) {
+                        merge.merge(page.node, page.successors);
+
+                        if (telemetry != null) {
+                            telemetry.setVisitedCounts(
+                                    forwardParents.size(),
+                                    backwardParents.size());
+                        }
+
+                        if (cutLayers && merge.bestMeetingNode != NO_PARENT) {
+                            layerCut.set(true);
+                            break;
+                        }
+                    }
+                } finally {
+                    // Stop the downloads of the remaining pages:
+                    stream.cancel();
+                }
+
+                if (halted) {
+                    return new int[0];
+                }
+            }
+
+            if (merge.bestMeetingNode != NO_PARENT) {
+                shortestPaths = 
+                        new ShortestPathEnumerator(
+                                forwardParents,
+                                backwardParents,
+                                forwardAlternativeParents,
+                                backwardAlternativeParents,
+                                merge.meetingNodes.toArray(),
+                                maximumNumberOfPaths);
+
+                return tracebackPath(merge.bestMeetingNode,
+                                     forwardParents,
+                                     backwardParents);
+            }
+
+            final IntArrayList nextFrontier = merge.nextFrontier;
+
+            if (expandForward) {
+                forwardFrontier = nextFrontier;
+                forwardDepth = nextDepth;
+            } else {
+                backwardFrontier = nextFrontier;
+                backwardDepth = nextDepth;
+            }
+        }
+
+        return new int[0];
+    }
+
+    /**
+     * Starts the expansions of the layer. If {@code stream} is given, the 
+     * expansions are streamed into it.
+     *
+     * @return the futures of the successors in the frontier order, or 
+     *         {@code null} if the expansions are streamed.
+     */
+    private List<CompletableFuture<int[]>> expandLayer(
+            final IntArrayList frontier,
+            final IntNodeExpander expander,
+            final Executor executor,
+            final SearchTelemetry telemetry,
+            final ExpansionStatistics statistics,
+            final AtomicBoolean layerCut,
+            final SuccessorStream stream) {
+
+        // Skip the expansions still queued once the search is halted or the
+        // layer is cut short. The skipped expansions are not counted:
+        final Executor haltingExecutor = (runnable) -> {
+            executor.execute(() -> {
+                if (!halted && !layerCut.get()) {
+                    numberOfExpandedNodes.incrementAndGet();
+                    runnable.run();
+                }
+            });
+        };
+
+        final List<CompletableFuture<int[]>> futures =
+                stream == null ? new ArrayList<>(frontier.size()) : null;
+
+        // The asynchronous expanders do not use the executor:
+        final boolean countOnSubmission = expander.isAsynchronous();
+
+        for (int i = 0; i < frontier.size(); i++) {
+            if (countOnSubmission) {
+                numberOfExpandedNodes.incrementAndGet();
+            }
+
+            // The latency includes the wait for a concurrency permit:
+            final long startTime = 
+                    telemetry != null || statistics != null ? 
+                    System.nanoTime() : 
+                    0L;
+
+            final CompletableFuture<Integer> numberOfSuccessors;
+
+            if (stream == null) {
+                final CompletableFuture<int[]> future =
+                        expander.generateSuccessorsAsync(frontier.get(i),
+                                                         haltingExecutor);
+
+                futures.add(future);
+
+                numberOfSuccessors = 
+                        telemetry != null || statistics != null ?
+                        future.thenApply((successors) -> successors.length) :
+                        null;
+            } else {
+                numberOfSuccessors = 
+                        expander.generateSuccessorsStreaming(
+                                        frontier.get(i),
+                                        haltingExecutor,
+                                        stream)
+                                .whenComplete((number, throwable) -> {
+                                    stream.completeExpansion();
+                                });
+            }
+
+            if (numberOfSuccessors != null &&
+                (telemetry != null || statistics != null)) {
+                numberOfSuccessors.whenComplete((number, throwable) -> {
+                    final long latency = System.nanoTime() - startTime;
+
+                    if (telemetry != null) {
+                        telemetry.recordExpansion(latency);
+                    }
+
+                    if (statistics != null && number != null) {
+                        statistics.record(latency);
+                    }
+                });
+            }
+        }
+
+        return futures;
+    }
+
+    /**
+     * Returns an executor running at most as many tasks of {@code executor}
+     * at a time as {@code semaphore} has permits. The permits are acquired in
+     * the task threads, which is cheap for virtual threads.
+     */
+    private static Executor createBoundedExecutor(final Executor executor,
+                                                  final Semaphore semaphore) {
+        return (runnable) -> {
+            executor.execute(() -> {
+                try {
+                    semaphore.acquire();
+                } catch (final InterruptedException ex) {
+                    return;
+                }
+
+                try {
+                    runnable.run();
+                } finally {
+                    semaphore.release();
+                }
+            });
+        };
+    }
+
+    /**
+     * Returns an executor running at most as many tasks of {@code executor}
+     * at a time as {@code concurrencyLimit} currently allows, and reporting 
+     * the duration of each task to the limit.
+     */
+    private static Executor createAdaptiveExecutor(
+            final Executor executor,
+            final AdaptiveConcurrencyLimit concurrencyLimit) {
+        return (runnable) -> {
+            executor.execute(() -> {
+                try {
+                    concurrencyLimit.acquire();
+                } catch (final InterruptedException ex) {
+                    return;
+                }
+
+                final long startTime = System.nanoTime();
+
+                try {
+                    runnable.run();
+                } finally {
+                    // Only the round trips to the API tell the load; the 
+                    // cache hits would drag the baseline latency down:
+                    if (AdaptiveConcurrencyLimit.takeRoundTrip()) {
+                        concurrencyLimit.release(
+                                System.nanoTime() - startTime);
+                    } else {
+                        concurrencyLimit.release();
+                    }
+                }
+            });
+        };
+    }
+
+    /**
+     * Returns {@code frontier} in the descending order of the degrees the 
+     * expander knows, the nodes of unknown degree last. Given the landmark
+     * tables, the nodes of equal degree are ordered by the ascending lower 
+     * bound of their distance to {@code root}, the root of the opposite 
+     * search. The sort is stable.
+     */
+    private static IntArrayList sortFrontier(
+            final IntArrayList frontier,
+            final IntNodeExpander expander,
+            final LandmarkTable landmarkTable,
+            final boolean forward,
+            final int root) {
+
+        if (frontier.size() < 2) {
+            return frontier;
+        }
+
+        // Pack the negated degree above the lower bound above the index, so
+        // that a plain sort orders by the degree, then by the lower bound and
+        // then by the discovery order:
+        final long[] keys = new long[frontier.size()];
+
+        for (int i = 0; i < keys.length; i++) {
+            final int node = frontier.get(i);
+            final int degree = 
+                    Math.min(MAXIMUM_SORTED_DEGREE, 
+                             Math.max(-1, expander.getDegree(node)));
+
+            final long lowerBound = 
+                    landmarkTable == null ?
+                    0L :
+                    Math.min(MAXIMUM_SORTED_LOWER_BOUND,
+                             getLowerBound(landmarkTable, 
+                                           node, 
+                                           forward, 
+                                           root));
+
+            keys[i] = ((long)(MAXIMUM_SORTED_DEGREE - degree) << 39) |
+                      (lowerBound << 31) | 
+                      i;
+        }
+
+        Arrays.sort(keys);
+
+        final IntArrayList sortedFrontier = new IntArrayList(keys.length);
+
+        for (final long key : keys) {
+            sortedFrontier.add(frontier.get((int)(key & Integer.MAX_VALUE)));
+        }
+
+        return sortedFrontier;
+    }
+
+    /**
+     * Returns the lower bound of the distance from {@code node} to 
+     * {@code root} in the forward search, and from {@code root} to 
+     * {@code node} in the backward one.
+     */
+    private static int getLowerBound(final LandmarkTable landmarkTable,
+                                     final int node,
+                                     final boolean forward,
+                                     final int root) {
+        return forward ? 
+               landmarkTable.getLowerBound(node, root) :
+               landmarkTable.getLowerBound(root, node);
+    }
+
+    /**
+     * Tells whether the node discovered at {@code depth} cannot be on a 
+     * shortest path according to the landmarks.
+     */
+    private static boolean isPruned(final LandmarkTable landmarkTable,
+                                    final int node,
+                                    final int depth,
+                                    final int upperBound,
+                                    final boolean forward,
+                                    final int root) {
+        final int lowerBound = 
+                getLowerBound(landmarkTable, node, forward, root);
+
+        if (lowerBound == LandmarkTable.INFINITE) {
+            return true;
+        }
+
+        return upperBound != LandmarkTable.INFINITE && 
+               (long) depth + lowerBound > upperBound;
+    }
+
+    private int[] expand(final IntNodeExpander expander, 
+                         final int node,
+                         final SearchTelemetry telemetry,
+                         final ExpansionStatistics statistics) {
+        numberOfExpandedNodes.incrementAndGet();
+
+        if (telemetry == null && statistics == null) {
+            return expander.generateSuccessors(node);
+        }
+
+        final long startTime = System.nanoTime();
+        final int[] successors = expander.generateSuccessors(node);
+        final long latency = System.nanoTime() - startTime;
+
+        if (telemetry != null) {
+            telemetry.recordExpansion(latency);
+        }
+
+        if (statistics != null) {
+            statistics.record(latency);
+        }
+
+        return successors;
+    }
+    
+    private int[] getSuccessors(final CompletableFuture<int[]> future) {
+        while (!halted) {
+            try {
+                return future.get(HALT_CHECK_INTERVAL_MILLIS,
+                                  TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException ex) {
+                // Check for a halt request and keep waiting.
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                halted = true;
+            } catch (final ExecutionException ex) {
+                return new int[0];
+            }
+        }
+
+        return new int[0];
+    }
+
+    /**
+     * Returns the next page of the stream, or {@code null} at the end of 
+     * the stream or if the search is halted.
+     */
+    private SuccessorStream.Page getNextPage(final SuccessorStream stream) {
+        while (!halted) {
+            try {
+                final SuccessorStream.Page page = 
+                        stream.poll(HALT_CHECK_INTERVAL_MILLIS,
+                                    TimeUnit.MILLISECONDS);
+
+                if (page != null) {
+                    return page.successors.length == 0 ? null : page;
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                halted = true;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the number of edges between {@code node} and the root of the
+     * search tree described by {@code parents}.
+     */
+    private static int getDistance(final IntIntMap parents, int node) {
+        int distance = 0;
+
+        while ((node = parents.get(node)) != NO_PARENT) {
+            distance++;
+        }
+
+        return distance;
+    }
+
+    private static int[] tracebackPath(final int meetingNode,
+                                       final IntIntMap forwardParents,
+                                       final IntIntMap backwardParents) {
+
+        final IntArrayList path = new IntArrayList();
+        int node = meetingNode;
+
+        while (node != NO_PARENT) {
+            path.add(node);
+            node = forwardParents.get(node);
+        }
+
+        final int[] forwardPart = path.toArray();
+        path.clear();
+
+        for (int i = forwardPart.length - 1; i >= 0; i--) {
+            path.add(forwardPart[i]);
+        }
+
+        node = backwardParents.get(meetingNode);
+
+        while (node != NO_PARENT) {
+            path.add(node);
+            node = backwardParents.get(node);
+        }
+
+        return path.toArray();
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an open-addressing hash map from non-negative 
+ * {@code int} keys to {@code int} values. Collisions are resolved by linear
+ * probing. No objects are allocated per entry.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class IntIntHashMap implements IntIntMap {
+
+    /**
+     * Marks an empty slot. Since all the keys are non-negative, no key can 
+     * collide with this marker.
+     */
+    private static final int EMPTY_KEY = -1;
+
+    /**
+     * The maximum load factor of the table.
+     */
+    private static final float MAXIMUM_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The value returned by {@link #get(int)} for absent keys.
+     */
+    private final int missingValue;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructs an empty map.
+     * 
+     * @param missingValue the value returned for absent keys.
+     */
+    IntIntHashMap(final int missingValue) {
+        this.missingValue = missingValue;
+        this.keys = new int[64];
+        this.values = new int[64];
+        Arrays.fill(keys, EMPTY_KEY);
+    }
+
+    @Override
+    public void put(final int key, final int value) {
+        if (key < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Negative key: %d.", key));
+        }
+
+        final int slot = findSlot(keys, key);
+
+        if (keys[slot] == key) {
+            values[slot] = value;
+            return;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (++size > keys.length * MAXIMUM_LOAD_FACTOR) {
+            rehash();
+        }
+    }
+
+    @Override
+    public int get(final int key) {
+        final int slot = findSlot(keys, key);
+        return keys[slot] == key ? values[slot] : missingValue;
+    }
+
+    @Override
+    public boolean containsKey(final int key) {
+        return keys[findSlot(keys, key)] == key;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY_KEY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                final int slot = findSlot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the slot holding {@code key} or the empty slot where it would 
+     * be inserted.
+     */
+    private static int findSlot(final int[] keys, final int key) {
+        final int mask = keys.length - 1;
+        int slot = spread(key) & mask;
+
+        while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private static int spread(final int key) {
+        final int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
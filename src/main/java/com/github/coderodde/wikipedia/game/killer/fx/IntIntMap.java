@@ -0,0 +1,38 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+/**
+ * This interface specifies a map from non-negative {@code int} keys to 
+ * {@code int} values, such as the parent maps of the 
+ * {@link IntBidirectionalBFSPathFinder}.
+ */
+interface IntIntMap {
+
+    /**
+     * Associates {@code value} with {@code key}.
+     * 
+     * @param key   the non-negative key.
+     * @param value the value.
+     */
+    void put(int key, int value);
+
+    /**
+     * Returns the value associated with {@code key} or the missing value if 
+     * {@code key} is not in this map.
+     * 
+     * @param key the key.
+     * 
+     * @return the value of {@code key}.
+     */
+    int get(int key);
+
+    /**
+     * Returns {@code true} if {@code key} is in this map.
+     * 
+     * @param key the key.
+     * 
+     * @return {@code true} if {@code key} is mapped.
+     */
+    boolean containsKey(int key);
+
+    int size();
+}
@@ -0,0 +1,109 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * This abstract class defines the API for node expanders working on
+ * {@code int} node identifiers. It is the primitive counterpart of 
+ * {@code AbstractNodeExpander}.
+ */
+abstract class IntNodeExpander {
+
+    /**
+     * Returns the identifiers of all the successors of {@code node}.
+     * 
+     * @param node the node to expand.
+     * 
+     * @return the successors of {@code node}.
+     */
+    abstract int[] generateSuccessors(final int node);
+
+    /**
+     * Returns {@code true} if {@code node} exists in the graph.
+     * 
+     * @param node the node to check.
+     * 
+     * @return {@code true} if {@code node} is valid.
+     */
+    abstract boolean isValidNode(final int node);
+
+    /**
+     * Returns the number of successors of {@code node} if it is known without
+     * expanding {@code node}, and {@code -1} otherwise. The default 
+     * implementation knows nothing.
+     * 
+     * @param node the node whose degree to return.
+     * 
+     * @return the number of successors of {@code node}, or {@code -1}.
+     */
+    int getDegree(final int node) {
+        return -1;
+    }
+
+    /**
+     * Returns {@code true} if {@link #generateSuccessorsAsync(int, Executor)}
+     * runs the expansions without the given executor. The default 
+     * implementation uses the executor.
+     * 
+     * @return {@code true} for the non-blocking expanders.
+     */
+    boolean isAsynchronous() {
+        return false;
+    }
+
+    /**
+     * Starts generating the successors of {@code node}. The default
+     * implementation runs {@link #generateSuccessors(int)} in
+     * {@code executor}. The expanders capable of non-blocking I/O override
+     * this method and ignore the executor.
+     *
+     * @param node     the node to expand.
+     * @param executor the executor for blocking expansions.
+     *
+     * @return the future successors of {@code node}.
+     */
+    CompletableFuture<int[]> generateSuccessorsAsync(final int node,
+                                                     final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> generateSuccessors(node),
+                                             executor);
+    }
+
+    /**
+     * Returns {@code true} if 
+     * {@link #generateSuccessorsStreaming(int, Executor, SuccessorStream)}
+     * really hands out the successors in several pages. The default 
+     * implementation does not.
+     * 
+     * @return {@code true} for the streaming expanders.
+     */
+    boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Starts generating the successors of {@code node}, offering them to
+     * {@code stream} page by page. Once the stream is cancelled, the 
+     * expansion may stop early. The default implementation offers all the 
+     * successors generated by {@link #generateSuccessorsAsync(int, Executor)}
+     * as a single page.
+     * 
+     * @param node     the node to expand.
+     * @param executor the executor for blocking expansions.
+     * @param stream   the stream of the layer to offer the successor pages
+     *                 to.
+     * 
+     * @return the future number of the successors of {@code node}, 
+     *         completing after the last page is offered.
+     */
+    CompletableFuture<Integer> generateSuccessorsStreaming(
+            final int node,
+            final Executor executor,
+            final SuccessorStream stream) {
+        return generateSuccessorsAsync(node, executor).thenApply(
+                (successors) -> {
+                    stream.offer(node, successors);
+                    return successors.length;
+                });
+    }
+}
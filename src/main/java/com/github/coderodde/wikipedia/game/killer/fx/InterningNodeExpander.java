@@ -0,0 +1,139 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.github.coderodde.graph.pathfinding.delayed.AbstractNodeExpander;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class adapts a title-based node expander to an {@link IntNodeExpander}
+ * by interning all the generated titles in a {@link TitleDictionary}. If the
+ * wrapped expander is also an {@link AsyncNodeExpander} capable of 
+ * non-blocking expansions, the asynchronous expansions are delegated to it 
+ * and never occupy a thread. Otherwise, they run in the given executor.
+ * The streamed expansions are delegated to a {@link StreamingNodeExpander}
+ * likewise, each page interned as it arrives. The cached neighbor lists, 
+ * compressed, are interned straight from their bytes. The failed 
+ * expansions of the wrapped expander are counted.
+ */
+final class InterningNodeExpander extends IntNodeExpander {
+
+    private final AbstractNodeExpander<String> expander;
+    private final TitleDictionary dictionary;
+    private final AtomicInteger numberOfFailedExpansions = new AtomicInteger();
+
+    InterningNodeExpander(final AbstractNodeExpander<String> expander,
+                          final TitleDictionary dictionary) {
+        this.expander = expander;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    int[] generateSuccessors(final int node) {
+        return intern(
+                countFailure(
+                        expander.generateSuccessors(dictionary.getTitle(node))));
+    }
+
+    @Override
+    CompletableFuture<int[]> generateSuccessorsAsync(final int node,
+                                                     final Executor executor) {
+        if (!isAsynchronous()) {
+            return super.generateSuccessorsAsync(node, executor);
+        }
+
+        return ((AsyncNodeExpander) expander)
+                .generateSuccessorsAsync(dictionary.getTitle(node))
+                .thenApply((titles) -> intern(countFailure(titles)));
+    }
+
+    @Override
+    CompletableFuture<Integer> generateSuccessorsStreaming(
+            final int node,
+            final Executor executor,
+            final SuccessorStream stream) {
+
+        if (!isStreaming()) {
+            return super.generateSuccessorsStreaming(node, executor, stream);
+        }
+
+        final StreamingNodeExpander streamingExpander =
+                (StreamingNodeExpander) expander;
+
+        final String title = dictionary.getTitle(node);
+
+        final LinkPageListener pageListener = (t, links) -> {
+            return stream.offer(node, intern(links));
+        };
+
+        if (isAsynchronous()) {
+            return streamingExpander
+                    .generateSuccessorsStreaming(title, pageListener)
+                    .thenApply((titles) -> countFailure(titles).size());
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            return countFailure(
+                    streamingExpander
+                            .generateSuccessorsStreaming(title, pageListener)
+                            .join())
+                    .size();
+        }, executor);
+    }
+
+    @Override
+    boolean isStreaming() {
+        return expander instanceof StreamingNodeExpander streamingExpander &&
+               streamingExpander.isStreaming();
+    }
+
+    @Override
+    boolean isAsynchronous() {
+        return expander instanceof AsyncNodeExpander asyncExpander &&
+               asyncExpander.isAsynchronous();
+    }
+
+    @Override
+    int getDegree(final int node) {
+        return expander instanceof AbstractLinkExpander linkExpander ?
+               linkExpander.getCachedDegree(dictionary.getTitle(node)) :
+               -1;
+    }
+
+    @Override
+    boolean isValidNode(final int node) {
+        return expander.isValidNode(dictionary.getTitle(node));
+    }
+
+    /**
+     * Returns the number of the expansions that failed so far.
+     *
+     * @return the number of the failed expansions.
+     */
+    int getNumberOfFailedExpansions() {
+        return numberOfFailedExpansions.get();
+    }
+
+    private List<String> countFailure(final List<String> titles) {
+        if (AbstractLinkExpander.isFailed(titles)) {
+            numberOfFailedExpansions.incrementAndGet();
+        }
+
+        return titles;
+    }
+
+    private int[] intern(final List<String> titles) {
+        if (titles instanceof CompressedTitleList compressedTitles) {
+            return compressedTitles.intern(dictionary);
+        }
+
+        final int[] successors = new int[titles.size()];
+
+        for (int i = 0; i < successors.length; i++) {
+            successors[i] = dictionary.intern(titles.get(i));
+        }
+
+        return successors;
+    }
+}
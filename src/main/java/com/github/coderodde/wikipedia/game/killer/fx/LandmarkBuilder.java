@@ -0,0 +1,238 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * This class implements the preprocessing step building the
+ * {@link LandmarkTable} of an offline {@link CsrLinkGraph}. The landmarks are
+ * the hub articles of the highest total degree, since most shortest paths
+ * pass close to them. For each landmark, a forward and a backward
+ * breadth-first search over the whole graph give the distances from and to
+ * the landmark, which are stored next to the graph.
+ * <p>
+ * The properties file is written last, so an interrupted build leaves no
+ * tables behind for the searches to pick up.
+ * <p>
+ * Usage:
+ * <pre>
+ * java ... LandmarkBuilder GRAPH_DIR [NUMBER_OF_LANDMARKS]
+ * </pre>
+ */
+public final class LandmarkBuilder {
+
+    /**
+     * The default number of landmarks.
+     */
+    static final int DEFAULT_NUMBER_OF_LANDMARKS = 16;
+
+    /**
+     * The maximum number of landmarks. The row of a node then takes two
+     * cache lines.
+     */
+    static final int MAXIMUM_NUMBER_OF_LANDMARKS = 64;
+
+    private final Path graphDirectory;
+    private final int numberOfLandmarks;
+
+    LandmarkBuilder(final Path graphDirectory, final int numberOfLandmarks) {
+        if (numberOfLandmarks < 1 ||
+            numberOfLandmarks > MAXIMUM_NUMBER_OF_LANDMARKS) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The number of landmarks must be within " +
+                            "[1, %d]: %d.",
+                            MAXIMUM_NUMBER_OF_LANDMARKS,
+                            numberOfLandmarks));
+        }
+
+        this.graphDirectory = graphDirectory;
+        this.numberOfLandmarks = numberOfLandmarks;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 1 && args.length != 2) {
+            System.out.println(
+                    "Usage: LandmarkBuilder GRAPH_DIR [NUMBER_OF_LANDMARKS]");
+            return;
+        }
+
+        final int numberOfLandmarks;
+
+        try {
+            numberOfLandmarks =
+                    args.length == 2 ?
+                    SearchService.parseInt("NUMBER_OF_LANDMARKS", args[1], 1) :
+                    DEFAULT_NUMBER_OF_LANDMARKS;
+
+            new LandmarkBuilder(Paths.get(args[0]), numberOfLandmarks).run();
+        } catch (final IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Runs the preprocessing.
+     *
+     * @throws IOException if the graph cannot be read or the tables cannot
+     *                     be written.
+     */
+    void run() throws IOException {
+        final long startTime = System.currentTimeMillis();
+
+        // The old tables may not match the graph anymore:
+        Files.deleteIfExists(
+                graphDirectory.resolve(LandmarkTable.PROPERTIES_FILE_NAME));
+
+        try (CsrLinkGraph graph = CsrLinkGraph.open(graphDirectory)) {
+            final int numberOfNodes = graph.getNumberOfNodes();
+            final int[] landmarks = selectLandmarks(graph);
+            final int rowSize = 2 * landmarks.length;
+
+            try (MappedFile distances =
+                    MappedFile.create(
+                            graphDirectory.resolve(
+                                    LandmarkTable.DISTANCES_FILE_NAME),
+                            (long) rowSize * numberOfNodes)) {
+
+                final int[] queue = new int[numberOfNodes];
+                final byte[] landmarkDistances = new byte[numberOfNodes];
+
+                for (int i = 0; i < landmarks.length; i++) {
+                    for (final LinkDirection direction :
+                            LinkDirection.values()) {
+
+                        computeDistances(graph,
+                                         landmarks[i],
+                                         direction,
+                                         queue,
+                                         landmarkDistances);
+
+                        // The forward search gives the distances from the
+                        // landmark, the backward one the distances to it:
+                        final int column =
+                                2 * i +
+                                (direction == LinkDirection.FORWARD ? 0 : 1);
+
+                        for (int node = 0; node < numberOfNodes; node++) {
+                            distances.putByte(
+                                    (long) node * rowSize + column,
+                                    landmarkDistances[node]);
+                        }
+                    }
+
+                    System.out.printf("Computed the distances of landmark " +
+                                      "%d/%d: %s.\n",
+                                      i + 1,
+                                      landmarks.length,
+                                      graph.getTitle(landmarks[i]));
+                }
+
+                distances.force();
+            }
+
+            writeProperties(landmarks);
+
+            System.out.printf(
+                    "Built %d landmarks in %d seconds.\n",
+                    landmarks.length,
+                    (System.currentTimeMillis() - startTime) / 1000L);
+        }
+    }
+
+    /**
+     * Returns the nodes of the highest total degree.
+     */
+    private int[] selectLandmarks(final CsrLinkGraph graph) {
+        final int numberOfNodes = graph.getNumberOfNodes();
+        final long[] keys = new long[numberOfNodes];
+
+        // Pack the negated degree above the identifier, so that a plain
+        // sort puts the hubs first:
+        for (int node = 0; node < numberOfNodes; node++) {
+            final long degree =
+                    (long) graph.getDegree(node, LinkDirection.FORWARD) +
+                    graph.getDegree(node, LinkDirection.BACKWARD);
+
+            keys[node] = (-degree << 32) | node;
+        }
+
+        Arrays.sort(keys);
+
+        final int[] landmarks =
+                new int[Math.min(numberOfLandmarks, numberOfNodes)];
+
+        for (int i = 0; i < landmarks.length; i++) {
+            landmarks[i] = (int) keys[i];
+        }
+
+        return landmarks;
+    }
+
+    /**
+     * Runs a breadth-first search from {@code landmark} in
+     * {@code direction} and stores the distance of every node in
+     * {@code distances}.
+     */
+    private static void computeDistances(final CsrLinkGraph graph,
+                                         final int landmark,
+                                         final LinkDirection direction,
+                                         final int[] queue,
+                                         final byte[] distances) {
+
+        Arrays.fill(distances, (byte) LandmarkTable.UNREACHABLE);
+        distances[landmark] = 0;
+        queue[0] = landmark;
+
+        int head = 0;
+        int tail = 1;
+
+        while (head < tail) {
+            final int node = queue[head++];
+            final int distance = distances[node] & 0xff;
+            final int neighborDistance =
+                    distance >= LandmarkTable.MAXIMUM_DISTANCE ?
+                    LandmarkTable.FAR :
+                    distance + 1;
+
+            for (final int neighbor : graph.getNeighbors(node, direction)) {
+                if ((distances[neighbor] & 0xff) ==
+                        LandmarkTable.UNREACHABLE) {
+                    distances[neighbor] = (byte) neighborDistance;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    private void writeProperties(final int[] landmarks) throws IOException {
+        final Properties properties = new Properties();
+        final StringBuilder sb = new StringBuilder();
+
+        for (final int landmark : landmarks) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+
+            sb.append(landmark);
+        }
+
+        properties.setProperty(LandmarkTable.NUMBER_OF_LANDMARKS_PROPERTY,
+                               Integer.toString(landmarks.length));
+
+        properties.setProperty(LandmarkTable.LANDMARKS_PROPERTY,
+                               sb.toString());
+
+        try (Writer writer =
+                Files.newBufferedWriter(
+                        graphDirectory.resolve(
+                                LandmarkTable.PROPERTIES_FILE_NAME))) {
+            properties.store(writer, "WikiGameKillerFX landmark tables");
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * This class implements the read-only landmark distance tables of a
+ * {@link CsrLinkGraph}, built by {@link LandmarkBuilder}. For each of a few
+ * landmark articles {@code L}, the tables hold the distance from {@code L} to
+ * every node and from every node to {@code L}, so that the triangle
+ * inequality bounds the distance between any two nodes without a search
+ * (the ALT technique):
+ * <pre>
+ * d(s, t) &gt;= d(L, t) - d(L, s)
+ * d(s, t) &gt;= d(s, L) - d(t, L)
+ * d(s, t) &lt;= d(s, L) + d(L, t)
+ * </pre>
+ * The tables consist of two files in the graph directory:
+ * <ul>
+ *   <li>{@code landmarks.properties}: the number of landmarks and their node
+ *       identifiers,</li>
+ *   <li>{@code landmarks.distances}: for each node, a row of two bytes per
+ *       landmark, the distance from the landmark and the distance to it.</li>
+ * </ul>
+ * A row fits in a cache line or two, so a bound costs a couple of memory
+ * accesses. The distances above {@value #MAXIMUM_DISTANCE} are stored as
+ * {@value #FAR} and do not take part in the bounds.
+ */
+final class LandmarkTable implements Closeable {
+
+    static final String PROPERTIES_FILE_NAME = "landmarks.properties";
+    static final String DISTANCES_FILE_NAME = "landmarks.distances";
+
+    static final String NUMBER_OF_LANDMARKS_PROPERTY = "numberOfLandmarks";
+    static final String LANDMARKS_PROPERTY = "landmarks";
+
+    /**
+     * The largest distance stored as such.
+     */
+    static final int MAXIMUM_DISTANCE = 253;
+
+    /**
+     * Marks a distance greater than {@value #MAXIMUM_DISTANCE}.
+     */
+    static final int FAR = 254;
+
+    /**
+     * Marks a node not connected to the landmark in the direction.
+     */
+    static final int UNREACHABLE = 255;
+
+    /**
+     * The bound of the distance between two nodes not connected by a path.
+     */
+    static final int INFINITE = Integer.MAX_VALUE;
+
+    private final int[] landmarks;
+    private final int rowSize;
+    private final MappedFile distances;
+
+    private LandmarkTable(final int[] landmarks,
+                          final MappedFile distances) {
+        this.landmarks = landmarks;
+        this.rowSize = 2 * landmarks.length;
+        this.distances = distances;
+    }
+
+    /**
+     * Opens the landmark tables in {@code directory}.
+     *
+     * @param directory     the graph directory.
+     * @param numberOfNodes the number of nodes of the graph.
+     *
+     * @return the landmark tables, or {@code null} if the directory has none.
+     *
+     * @throws IOException if the tables cannot be read or do not match the
+     *                     graph.
+     */
+    static LandmarkTable open(final Path directory,
+                              final int numberOfNodes) throws IOException {
+
+        final Path propertiesFile = directory.resolve(PROPERTIES_FILE_NAME);
+
+        if (!Files.exists(propertiesFile)) {
+            return null;
+        }
+
+        final Properties properties = new Properties();
+
+        try (Reader reader = Files.newBufferedReader(propertiesFile)) {
+            properties.load(reader);
+        }
+
+        final String[] landmarkIds =
+                properties.getProperty(LANDMARKS_PROPERTY).split(",");
+
+        final int[] landmarks = new int[landmarkIds.length];
+
+        for (int i = 0; i < landmarks.length; i++) {
+            landmarks[i] = Integer.parseInt(landmarkIds[i].trim());
+        }
+
+        final MappedFile distances =
+                MappedFile.openForReading(
+                        directory.resolve(DISTANCES_FILE_NAME));
+
+        if (distances.size() != 2L * landmarks.length * numberOfNodes) {
+            distances.close();
+
+            throw new IOException(
+                    String.format(
+                            "The landmark distances do not match the graph " +
+                            "of %d nodes; rebuild them.",
+                            numberOfNodes));
+        }
+
+        return new LandmarkTable(landmarks, distances);
+    }
+
+    int getNumberOfLandmarks() {
+        return landmarks.length;
+    }
+
+    int getLandmark(final int index) {
+        return landmarks[index];
+    }
+
+    /**
+     * Returns a lower bound of the number of links on a path from
+     * {@code source} to {@code target}.
+     *
+     * @param source the source node.
+     * @param target the target node.
+     *
+     * @return the lower bound, or {@link #INFINITE} if there is no path.
+     */
+    int getLowerBound(final int source, final int target) {
+        if (source == target) {
+            return 0;
+        }
+
+        final long sourceRow = (long) source * rowSize;
+        final long targetRow = (long) target * rowSize;
+        int lowerBound = 1;
+
+        for (int i = 0; i < rowSize; i += 2) {
+            final int fromLandmarkToSource = getDistance(sourceRow + i);
+            final int fromLandmarkToTarget = getDistance(targetRow + i);
+
+            // The landmark reaches the source but not the target, so the
+            // source does not reach the target either:
+            if (fromLandmarkToTarget == UNREACHABLE &&
+                fromLandmarkToSource != UNREACHABLE) {
+                return INFINITE;
+            }
+
+            if (fromLandmarkToSource <= MAXIMUM_DISTANCE &&
+                fromLandmarkToTarget <= MAXIMUM_DISTANCE) {
+                lowerBound = Math.max(lowerBound,
+                                      fromLandmarkToTarget -
+                                      fromLandmarkToSource);
+            }
+
+            final int fromSourceToLandmark = getDistance(sourceRow + i + 1);
+            final int fromTargetToLandmark = getDistance(targetRow + i + 1);
+
+            if (fromSourceToLandmark == UNREACHABLE &&
+                fromTargetToLandmark != UNREACHABLE) {
+                return INFINITE;
+            }
+
+            if (fromSourceToLandmark <= MAXIMUM_DISTANCE &&
+                fromTargetToLandmark <= MAXIMUM_DISTANCE) {
+                lowerBound = Math.max(lowerBound,
+                                      fromSourceToLandmark -
+                                      fromTargetToLandmark);
+            }
+        }
+
+        return lowerBound;
+    }
+
+    /**
+     * Returns an upper bound of the number of links on a shortest path from
+     * {@code source} to {@code target}: the length of the shortest path
+     * through a landmark.
+     *
+     * @param source the source node.
+     * @param target the target node.
+     *
+     * @return the upper bound, or {@link #INFINITE} if no path through a
+     *         landmark is known.
+     */
+    int getUpperBound(final int source, final int target) {
+        if (source == target) {
+            return 0;
+        }
+
+        final long sourceRow = (long) source * rowSize;
+        final long targetRow = (long) target * rowSize;
+        int upperBound = INFINITE;
+
+        for (int i = 0; i < rowSize; i += 2) {
+            final int fromSourceToLandmark = getDistance(sourceRow + i + 1);
+            final int fromLandmarkToTarget = getDistance(targetRow + i);
+
+            if (fromSourceToLandmark <= MAXIMUM_DISTANCE &&
+                fromLandmarkToTarget <= MAXIMUM_DISTANCE) {
+                upperBound = Math.min(upperBound,
+                                      fromSourceToLandmark +
+                                      fromLandmarkToTarget);
+            }
+        }
+
+        return upperBound;
+    }
+
+    /**
+     * Describes the bounds of the path length from {@code source} to
+     * {@code target} in a sentence, for showing before the search finishes.
+     *
+     * @param source the source node.
+     * @param target the target node.
+     *
+     * @return the description of the bounds.
+     */
+    String describeBounds(final int source, final int target) {
+        final int lowerBound = getLowerBound(source, target);
+
+        if (lowerBound == INFINITE) {
+            return "Landmarks: there is no path.";
+        }
+
+        final int upperBound = getUpperBound(source, target);
+
+        if (upperBound == INFINITE) {
+            return String.format("Landmarks: the path has at least %d links.",
+                                 lowerBound);
+        }
+
+        if (upperBound == lowerBound) {
+            return String.format("Landmarks: the path has exactly %d links.",
+                                 lowerBound);
+        }
+
+        return String.format(
+                "Landmarks: the path has %d to %d links.",
+                lowerBound,
+                upperBound);
+    }
+
+    @Override
+    public void close() throws IOException {
+        distances.close();
+    }
+
+    private int getDistance(final long position) {
+        return distances.getByte(position) & 0xff;
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class implements the expander of the interlanguage links of the
+ * articles in one language edition. The successors of an article are its
+ * counterparts in the other editions as cross-language nodes, for example,
+ * {@code de:Turku} for {@code Turku} in the Finnish edition.
+ * <p>
+ * The links are cached under a language code of their own, so they never
+ * mix with the article links of the edition in the caches.
+ */
+final class LanguageLinkExpander extends AbstractLinkExpander {
+
+    /**
+     * Appended to the language code of the edition to get the cache
+     * language code of its interlanguage links.
+     */
+    private static final String CACHE_LANGUAGE_CODE_SUFFIX = "-langlinks";
+
+    private final WikipediaApiClient apiClient;
+
+    LanguageLinkExpander(
+            final String languageCode,
+            final WikipediaApiClient apiClient,
+            final SessionLinkCache sessionLinkCache,
+            final PersistentLinkCache persistentLinkCache,
+            final BatchingLinkFetcher linkFetcher,
+            final AsyncLinkFetcher asyncLinkFetcher) {
+
+        super(getCacheLanguageCode(languageCode),
+              LinkDirection.FORWARD,
+              sessionLinkCache,
+              persistentLinkCache,
+              linkFetcher,
+              asyncLinkFetcher);
+
+        this.apiClient = apiClient;
+    }
+
+    /**
+     * Returns the language code the interlanguage links of the edition
+     * {@code languageCode} are cached under.
+     *
+     * @param languageCode the language code of the edition.
+     *
+     * @return the cache language code.
+     */
+    static String getCacheLanguageCode(final String languageCode) {
+        return languageCode + CACHE_LANGUAGE_CODE_SUFFIX;
+    }
+
+    /**
+     * Downloads the interlanguage links of {@code article} in a request of
+     * its own.
+     *
+     * @param article the article.
+     *
+     * @return the cross-language nodes of the counterparts of
+     *         {@code article}.
+     *
+     * @throws Exception if the API request fails.
+     */
+    @Override
+    List<String> downloadSuccessors(final String article) throws Exception {
+        final List<String> languageLinks =
+                apiClient.fetchLinks(Collections.singletonList(article))
+                         .get(article);
+
+        return languageLinks == null ?
+               Collections.<String>emptyList() :
+               languageLinks;
+    }
+
+    /**
+     * Accepts any article; the article expanders of the edition tell which
+     * articles exist.
+     */
+    @Override
+    public boolean isValidNode(final String article) {
+        return true;
+    }
+}
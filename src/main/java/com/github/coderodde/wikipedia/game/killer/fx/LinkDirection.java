@@ -0,0 +1,36 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+/**
+ * This enumeration lists the two directions in which the article links may be
+ * followed.
+ */
+enum LinkDirection {
+
+    /**
+     * Follow the links pointing out of an article.
+     */
+    FORWARD("forward"),
+
+    /**
+     * Follow the links pointing to an article.
+     */
+    BACKWARD("backward");
+
+    /**
+     * The name used in file names and textual reports.
+     */
+    private final String name;
+
+    private LinkDirection(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of this direction.
+     *
+     * @return the name of this direction.
+     */
+    String getName() {
+        return name;
+    }
+}
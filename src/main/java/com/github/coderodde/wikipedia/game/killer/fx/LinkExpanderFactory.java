@@ -0,0 +1,337 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class creates the online link expanders. All the expanders created by
+ * the same factory share its session link cache and its persistent link
+ * caches, which outlive single searches.
+ */
+final class LinkExpanderFactory {
+
+    /**
+     * The directory holding the persistent link cache files.
+     */
+    private static final Path LINK_CACHE_DIRECTORY =
+            Paths.get(System.getProperty("user.home"),
+                      ".WikiGameKillerFX",
+                      "link-cache");
+
+    /**
+     * The time-to-live of a persistently cached neighbor list.
+     */
+    private static final long LINK_CACHE_TIME_TO_LIVE_MILLIS =
+            TimeUnit.DAYS.toMillis(7);
+
+    /**
+     * The size cap of each persistent link cache file (one per language and
+     * link direction).
+     */
+    private static final long LINK_CACHE_MAXIMUM_SIZE_BYTES =
+            256L * 1024L * 1024L;
+
+    private final SessionLinkCache sessionLinkCache;
+
+    /**
+     * Maps a language code and a link direction to the persistent link cache.
+     */
+    private final Map<String, PersistentLinkCache> linkCacheMap =
+            new HashMap<>();
+
+    /**
+     * The keys of the persistent link caches that could not be opened. 
+     * These are not retried, so that each failure is reported once.
+     */
+    private final Set<String> failedLinkCacheKeys = new HashSet<>();
+
+    /**
+     * Constructs a factory.
+     *
+     * @param sessionLinkCache the in-memory link cache shared by all the
+     *                         expanders.
+     */
+    LinkExpanderFactory(final SessionLinkCache sessionLinkCache) {
+        this.sessionLinkCache = sessionLinkCache;
+    }
+
+    /**
+     * Creates an online link expander for the given search engine. The
+     * asynchronous engine gets an {@link AsyncLinkFetcher}, the other engines
+     * a {@link BatchingLinkFetcher} unless the batch size is one.
+     *
+     * @param languageCode     the language code of the Wikipedia edition.
+     * @param apiClient        the API client of the expansion direction.
+     * @param searchEngineType the search engine type.
+     * @param batchSize        the requested batch size.
+     * @param batchLinger      the linger window in milliseconds.
+     * @param threads          the number of threads, or the maximum number of
+     *                         concurrent requests for the asynchronous
+     *                         engine.
+     *
+     * @return the link expander.
+     */
+    AbstractLinkExpander createLinkExpander(
+            final String languageCode,
+            final WikipediaApiClient apiClient,
+            final SearchEngineType searchEngineType,
+            final int batchSize,
+            final int batchLinger,
+            final int threads) {
+
+        final BatchingLinkFetcher linkFetcher =
+                createLinkFetcher(apiClient,
+                                  searchEngineType,
+                                  batchSize,
+                                  batchLinger);
+
+        final AsyncLinkFetcher asyncLinkFetcher =
+                createAsyncLinkFetcher(apiClient,
+                                       searchEngineType,
+                                       batchSize,
+                                       batchLinger,
+                                       threads);
+
+        final PersistentLinkCache persistentLinkCache =
+                getLinkCache(languageCode, apiClient.getDirection());
+
+        if (apiClient.getDirection() == LinkDirection.FORWARD) {
+            return new ForwardLinkExpander(languageCode,
+                                           sessionLinkCache,
+                                           persistentLinkCache,
+                                           linkFetcher,
+                                           asyncLinkFetcher);
+        }
+
+        return new BackwardLinkExpander(languageCode,
+                                        sessionLinkCache,
+                                        persistentLinkCache,
+                                        linkFetcher,
+                                        asyncLinkFetcher);
+    }
+
+    /**
+     * Creates an online expander of the interlanguage links of the articles
+     * in the given language edition. The fetchers are chosen as in
+     * {@link #createLinkExpander(String, WikipediaApiClient, SearchEngineType, int, int, int)}.
+     *
+     * @param languageCode     the language code of the Wikipedia edition.
+     * @param searchEngineType the search engine type.
+     * @param batchSize        the requested batch size.
+     * @param batchLinger      the linger window in milliseconds.
+     * @param threads          the number of threads, or the maximum number of
+     *                         concurrent requests for the asynchronous
+     *                         engine.
+     *
+     * @return the interlanguage link expander.
+     */
+    AbstractLinkExpander createLanguageLinkExpander(
+            final String languageCode,
+            final SearchEngineType searchEngineType,
+            final int batchSize,
+            final int batchLinger,
+            final int threads) {
+
+        final WikipediaApiClient apiClient =
+                WikipediaApiClient.createLanguageLinkClient(languageCode);
+
+        return new LanguageLinkExpander(
+                languageCode,
+                apiClient,
+                sessionLinkCache,
+                getLinkCache(
+                        LanguageLinkExpander.getCacheLanguageCode(
+                                languageCode),
+                        LinkDirection.FORWARD),
+                createLinkFetcher(apiClient,
+                                  searchEngineType,
+                                  batchSize,
+                                  batchLinger),
+                createAsyncLinkFetcher(apiClient,
+                                       searchEngineType,
+                                       batchSize,
+                                       batchLinger,
+                                       threads));
+    }
+
+    /**
+     * Creates an online cross-language expander over the given language 
+     * editions. Each language gets link expanders and API clients of its 
+     * own.
+     *
+     * @param languageCodes    the language codes of the search.
+     * @param direction        the expansion direction.
+     * @param searchEngineType the search engine type.
+     * @param batchSize        the requested batch size.
+     * @param batchLinger      the linger window in milliseconds.
+     * @param threads          the number of threads, or the maximum number of
+     *                         concurrent requests for the asynchronous
+     *                         engine.
+     *
+     * @return the cross-language expander.
+     */
+    CrossLanguageNodeExpander createCrossLanguageExpander(
+            final List<String> languageCodes,
+            final LinkDirection direction,
+            final SearchEngineType searchEngineType,
+            final int batchSize,
+            final int batchLinger,
+            final int threads) {
+
+        final Map<String, AbstractLinkExpander> linkExpanders =
+                new HashMap<>();
+
+        final Map<String, AbstractLinkExpander> languageLinkExpanders =
+                new HashMap<>();
+
+        for (final String languageCode : languageCodes) {
+            if (linkExpanders.containsKey(languageCode)) {
+                continue;
+            }
+
+            linkExpanders.put(
+                    languageCode,
+                    createLinkExpander(
+                            languageCode,
+                            new WikipediaApiClient(languageCode, direction),
+                            searchEngineType,
+                            batchSize,
+                            batchLinger,
+                            threads));
+
+            languageLinkExpanders.put(
+                    languageCode,
+                    createLanguageLinkExpander(languageCode,
+                                               searchEngineType,
+                                               batchSize,
+                                               batchLinger,
+                                               threads));
+        }
+
+        return new CrossLanguageNodeExpander(linkExpanders,
+                                             languageLinkExpanders);
+    }
+
+    SessionLinkCache getSessionLinkCache() {
+        return sessionLinkCache;
+    }
+
+    /**
+     * Flushes and closes all the opened persistent link caches.
+     */
+    synchronized void closeLinkCaches() {
+        for (final PersistentLinkCache cache : linkCacheMap.values()) {
+            try {
+                cache.close();
+            } catch (final IOException ex) {
+
+            }
+        }
+
+        linkCacheMap.clear();
+    }
+
+    /**
+     * Returns the batching fetcher of the non-asynchronous engines, or 
+     * {@code null} if the batch size is one. A batch of one title gains 
+     * nothing; the library expanders are used then, unless the traffic is 
+     * redirected or recorded.
+     */
+    private static BatchingLinkFetcher createLinkFetcher(
+            final WikipediaApiClient apiClient,
+            final SearchEngineType searchEngineType,
+            final int batchSize,
+            final int batchLinger) {
+
+        final int maximumBatchSize = getMaximumBatchSize(batchSize);
+
+        if (searchEngineType == SearchEngineType.ASYNCHRONOUS ||
+                (maximumBatchSize == 1 &&
+                 !WikipediaApiClient.isInstrumented())) {
+            return null;
+        }
+
+        return new BatchingLinkFetcher(apiClient,
+                                       maximumBatchSize,
+                                       batchLinger);
+    }
+
+    /**
+     * Returns the fetcher of the asynchronous engine, or {@code null} for the
+     * other engines.
+     */
+    private static AsyncLinkFetcher createAsyncLinkFetcher(
+            final WikipediaApiClient apiClient,
+            final SearchEngineType searchEngineType,
+            final int batchSize,
+            final int batchLinger,
+            final int threads) {
+
+        if (searchEngineType != SearchEngineType.ASYNCHRONOUS) {
+            return null;
+        }
+
+        return new AsyncLinkFetcher(apiClient,
+                                    getMaximumBatchSize(batchSize),
+                                    batchLinger,
+                                    threads);
+    }
+
+    private static int getMaximumBatchSize(final int batchSize) {
+        return Math.max(1,
+                        Math.min(batchSize,
+                                 WikipediaApiClient
+                                         .MAXIMUM_TITLES_PER_REQUEST));
+    }
+
+    /**
+     * Returns the persistent link cache for the given language and direction,
+     * opening it on first use. Returns {@code null} if the cache file cannot
+     * be opened, in which case the search simply runs without caching. The
+     * failure is reported to the standard error once.
+     *
+     * @param languageCode the language code of the articles.
+     * @param direction    the link direction.
+     *
+     * @return the link cache or {@code null}.
+     */
+    private synchronized PersistentLinkCache getLinkCache(
+            final String languageCode,
+            final LinkDirection direction) {
+
+        final String key = languageCode + "-" + direction.getName();
+        final PersistentLinkCache cache = linkCacheMap.get(key);
+
+        if (cache != null || failedLinkCacheKeys.contains(key)) {
+            return cache;
+        }
+
+        try {
+            final PersistentLinkCache newCache =
+                    PersistentLinkCache.open(
+                            LINK_CACHE_DIRECTORY,
+                            languageCode,
+                            direction,
+                            LINK_CACHE_TIME_TO_LIVE_MILLIS,
+                            LINK_CACHE_MAXIMUM_SIZE_BYTES);
+
+            linkCacheMap.put(key, newCache);
+            return newCache;
+        } catch (final IOException ex) {
+            failedLinkCacheKeys.add(key);
+            System.err.printf(
+                    "Could not open the link cache for \"%s\": %s\n",
+                    key,
+                    ex.getMessage());
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.List;
+
+/**
+ * This interface is implemented by the receivers of the links of an article
+ * page by page, as the result pages of the API arrive. Concatenated, the
+ * pages give all the links of the article.
+ */
+interface LinkPageListener {
+
+    /**
+     * Receives the links of {@code title} found in one result page.
+     *
+     * @param title the title of the article.
+     * @param links the links of the article in the page, possibly none.
+     *
+     * @return {@code false} if no more pages of the article are wanted.
+     */
+    boolean onLinks(final String title, final List<String> links);
+}
@@ -1,8 +1,34 @@
 package com.github.coderodde.wikipedia.game.killer.fx;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 public final class Main {
     
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        SearchMetrics.startEndpoint();
+        
+        try {
+            ApiRecorder.open();
+        } catch (final IOException ex) {
+            System.err.println(ex.getMessage());
+        }
+        
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessSearch.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
+        if (args.length > 0 && args[0].equals("--server")) {
+            PathQueryServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
+        if (args.length > 0 && args[0].equals("--replay")) {
+            ReplayServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
         WikiGameKillerFX.main(args);
     }
 }
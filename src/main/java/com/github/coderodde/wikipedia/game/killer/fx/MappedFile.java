@@ -0,0 +1,158 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class maps a file of arbitrary size into memory. Since a single
+ * {@link MappedByteBuffer} cannot exceed 2 GB, the file is mapped in chunks of
+ * 1 GB. As the chunk size is a multiple of eight, an {@code int} or a
+ * {@code long} stored at a position aligned to its size never straddles two
+ * chunks.
+ */
+final class MappedFile implements Closeable {
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    private MappedFile(final FileChannel channel,
+                       final FileChannel.MapMode mapMode,
+                       final long size) throws IOException {
+        this.channel = channel;
+        this.size = size;
+        this.chunks = new MappedByteBuffer[(int)((size + CHUNK_MASK)
+                                                 >>> CHUNK_SHIFT)];
+
+        for (int i = 0; i < chunks.length; i++) {
+            final long chunkStart = (long) i << CHUNK_SHIFT;
+
+            chunks[i] = channel.map(mapMode,
+                                    chunkStart,
+                                    Math.min(CHUNK_SIZE, size - chunkStart));
+        }
+    }
+
+    /**
+     * Maps an existing file for reading.
+     *
+     * @param file the file to map.
+     *
+     * @return the mapped file.
+     *
+     * @throws IOException if the file cannot be mapped.
+     */
+    static MappedFile openForReading(final Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file,
+                                                     StandardOpenOption.READ);
+
+        return new MappedFile(channel,
+                              FileChannel.MapMode.READ_ONLY,
+                              channel.size());
+    }
+
+    /**
+     * Creates (or truncates) a file of {@code size} bytes and maps it for
+     * writing.
+     *
+     * @param file the file to create.
+     * @param size the size of the file in bytes.
+     *
+     * @return the mapped file.
+     *
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    static MappedFile create(final Path file, final long size)
+            throws IOException {
+
+        final FileChannel channel =
+                FileChannel.open(file,
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.TRUNCATE_EXISTING,
+                                 StandardOpenOption.READ,
+                                 StandardOpenOption.WRITE);
+
+        return new MappedFile(channel, FileChannel.MapMode.READ_WRITE, size);
+    }
+
+    long size() {
+        return size;
+    }
+
+    byte getByte(final long position) {
+        return chunks[(int)(position >>> CHUNK_SHIFT)]
+                .get((int)(position & CHUNK_MASK));
+    }
+
+    int getInt(final long position) {
+        return chunks[(int)(position >>> CHUNK_SHIFT)]
+                .getInt((int)(position & CHUNK_MASK));
+    }
+
+    long getLong(final long position) {
+        return chunks[(int)(position >>> CHUNK_SHIFT)]
+                .getLong((int)(position & CHUNK_MASK));
+    }
+
+    void putByte(final long position, final byte value) {
+        chunks[(int)(position >>> CHUNK_SHIFT)]
+                .put((int)(position & CHUNK_MASK), value);
+    }
+
+    void putInt(final long position, final int value) {
+        chunks[(int)(position >>> CHUNK_SHIFT)]
+                .putInt((int)(position & CHUNK_MASK), value);
+    }
+
+    void putLong(final long position, final long value) {
+        chunks[(int)(position >>> CHUNK_SHIFT)]
+                .putLong((int)(position & CHUNK_MASK), value);
+    }
+
+    /**
+     * Copies {@code length} bytes starting at {@code position} to
+     * {@code destination}. The range may straddle chunks.
+     *
+     * @param position    the position of the first byte to copy.
+     * @param destination the destination array.
+     * @param length      the number of bytes to copy.
+     */
+    void getBytes(long position, final byte[] destination, final int length) {
+        int copied = 0;
+
+        while (copied < length) {
+            final MappedByteBuffer chunk =
+                    chunks[(int)(position >>> CHUNK_SHIFT)];
+
+            final int chunkOffset = (int)(position & CHUNK_MASK);
+            final int count = Math.min(length - copied,
+                                       chunk.limit() - chunkOffset);
+
+            chunk.get(chunkOffset, destination, copied, count);
+            copied += count;
+            position += count;
+        }
+    }
+
+    /**
+     * Writes the modified chunks back to the file.
+     */
+    void force() {
+        for (final MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
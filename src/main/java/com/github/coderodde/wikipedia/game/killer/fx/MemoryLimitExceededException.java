@@ -0,0 +1,15 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+/**
+ * This exception is thrown when a data structure of a search would outgrow
+ * the memory it is given. The structure is left as it was before the 
+ * failed operation, so the search can be abandoned cleanly.
+ */
+final class MemoryLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    MemoryLimitExceededException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,252 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * This class implements a minimal metrics registry of counters, gauges and
+ * histograms, exported in the Prometheus text exposition format. The metrics
+ * are registered up front with fixed labels, so that recording a value is
+ * only an increment of a {@link LongAdder} and never looks anything up.
+ */
+final class MetricsRegistry {
+
+    /**
+     * This class implements a monotonically increasing counter.
+     */
+    static final class Counter {
+
+        private final LongAdder count = new LongAdder();
+
+        void increment() {
+            count.increment();
+        }
+
+        void add(final long amount) {
+            count.add(amount);
+        }
+
+        long get() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * This class implements a histogram of fixed buckets. The buckets are
+     * stored non-cumulatively and accumulated at export.
+     */
+    static final class Histogram {
+
+        private final double[] upperBounds;
+        private final LongAdder[] bucketCounts;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Histogram(final double[] upperBounds) {
+            this.upperBounds = upperBounds;
+            this.bucketCounts = new LongAdder[upperBounds.length + 1];
+
+            for (int i = 0; i < bucketCounts.length; i++) {
+                bucketCounts[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records a value.
+         *
+         * @param value the value to record.
+         */
+        void observe(final double value) {
+            int bucket = 0;
+
+            while (bucket < upperBounds.length &&
+                   value > upperBounds[bucket]) {
+                bucket++;
+            }
+
+            bucketCounts[bucket].increment();
+            sum.add(value);
+        }
+    }
+
+    /**
+     * A registered metric: its name, type, help text, labels and value.
+     */
+    private static final class Metric {
+
+        private final String name;
+        private final String type;
+        private final String help;
+        private final String labels;
+        private final Object value;
+
+        private Metric(final String name,
+                       final String type,
+                       final String help,
+                       final String labels,
+                       final Object value) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+            this.labels = labels;
+            this.value = value;
+        }
+    }
+
+    private final List<Metric> metrics = new ArrayList<>();
+
+    /**
+     * Registers a counter.
+     *
+     * @param name   the metric name, ending with {@code _total}.
+     * @param help   the help text.
+     * @param labels the labels as {@code key="value"} pairs separated by
+     *               commas, or an empty string.
+     *
+     * @return the counter.
+     */
+    synchronized Counter counter(final String name,
+                                 final String help,
+                                 final String labels) {
+        final Counter counter = new Counter();
+        metrics.add(new Metric(name, "counter", help, labels, counter));
+        return counter;
+    }
+
+    /**
+     * Registers a gauge reading its value on export.
+     *
+     * @param name     the metric name.
+     * @param help     the help text.
+     * @param supplier the supplier of the current value.
+     */
+    synchronized void gauge(final String name,
+                            final String help,
+                            final LongSupplier supplier) {
+        metrics.add(new Metric(name, "gauge", help, "", supplier));
+    }
+
+    /**
+     * Registers a histogram.
+     *
+     * @param name        the metric name.
+     * @param help        the help text.
+     * @param labels      the labels as {@code key="value"} pairs separated
+     *                    by commas, or an empty string.
+     * @param upperBounds the ascending upper bounds of the buckets; the
+     *                    bucket {@code +Inf} is implicit.
+     *
+     * @return the histogram.
+     */
+    synchronized Histogram histogram(final String name,
+                                     final String help,
+                                     final String labels,
+                                     final double... upperBounds) {
+        final Histogram histogram = new Histogram(upperBounds.clone());
+        metrics.add(new Metric(name, "histogram", help, labels, histogram));
+        return histogram;
+    }
+
+    /**
+     * Writes all the metrics in the Prometheus text format. The metrics of
+     * the same name are grouped under a single help and type line.
+     *
+     * @return the metrics text.
+     */
+    synchronized String toPrometheusText() {
+        final StringBuilder sb = new StringBuilder();
+        final List<String> writtenNames = new ArrayList<>();
+
+        for (final Metric metric : metrics) {
+            if (writtenNames.contains(metric.name)) {
+                continue;
+            }
+
+            writtenNames.add(metric.name);
+
+            sb.append("# HELP ")
+              .append(metric.name)
+              .append(' ')
+              .append(metric.help)
+              .append('\n')
+              .append("# TYPE ")
+              .append(metric.name)
+              .append(' ')
+              .append(metric.type)
+              .append('\n');
+
+            for (final Metric sameMetric : metrics) {
+                if (sameMetric.name.equals(metric.name)) {
+                    appendSamples(sb, sameMetric);
+                }
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static void appendSamples(final StringBuilder sb,
+                                      final Metric metric) {
+        if (metric.value instanceof Counter counter) {
+            appendSample(sb, metric.name, metric.labels, counter.get());
+        } else if (metric.value instanceof LongSupplier supplier) {
+            appendSample(sb, metric.name, metric.labels,
+                         supplier.getAsLong());
+        } else if (metric.value instanceof Histogram histogram) {
+            long cumulativeCount = 0L;
+
+            for (int i = 0; i < histogram.bucketCounts.length; i++) {
+                cumulativeCount += histogram.bucketCounts[i].sum();
+
+                final String upperBound =
+                        i < histogram.upperBounds.length ?
+                        formatDouble(histogram.upperBounds[i]) :
+                        "+Inf";
+
+                appendSample(sb,
+                             metric.name + "_bucket",
+                             joinLabels(metric.labels,
+                                        "le=\"" + upperBound + "\""),
+                             cumulativeCount);
+            }
+
+            sb.append(metric.name)
+              .append("_sum")
+              .append(formatLabels(metric.labels))
+              .append(' ')
+              .append(formatDouble(histogram.sum.sum()))
+              .append('\n');
+
+            appendSample(sb,
+                         metric.name + "_count",
+                         metric.labels,
+                         cumulativeCount);
+        }
+    }
+
+    private static void appendSample(final StringBuilder sb,
+                                     final String name,
+                                     final String labels,
+                                     final long value) {
+        sb.append(name)
+          .append(formatLabels(labels))
+          .append(' ')
+          .append(value)
+          .append('\n');
+    }
+
+    private static String joinLabels(final String labels,
+                                     final String label) {
+        return labels.isEmpty() ? label : labels + "," + label;
+    }
+
+    private static String formatLabels(final String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String formatDouble(final double value) {
+        return Double.toString(value);
+    }
+}
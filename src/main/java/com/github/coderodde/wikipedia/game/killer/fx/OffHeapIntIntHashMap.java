@@ -0,0 +1,279 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements an open-addressing hash map from non-negative 
+ * {@code int} keys to {@code int} values in a direct buffer outside the 
+ * heap. A key and its value are adjacent in the table, so a lookup touches a
+ * single cache line. Collisions are resolved by linear probing. 
+ * <p>
+ * The garbage collector sees one small buffer object per map however many 
+ * entries it holds, so a search visiting millions of nodes leaves the 
+ * collection pauses as they were. The tables of the maps of a search draw 
+ * from a shared {@link MemoryBudget}; an insertion that would grow the table
+ * beyond the budget fails with a {@link MemoryLimitExceededException} and 
+ * leaves the map as it was.
+ * <p>
+ * The budget is credited for an outgrown table at once, although its memory
+ * is returned to the operating system only once its buffer is collected.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class OffHeapIntIntHashMap implements IntIntMap {
+
+    /**
+     * This class holds the number of bytes the tables of a group of maps may
+     * still take.
+     */
+    static final class MemoryBudget {
+
+        private final long limit;
+        private final AtomicLong reservedBytes = new AtomicLong();
+
+        /**
+         * Constructs a budget.
+         * 
+         * @param limit the maximum number of bytes.
+         */
+        MemoryBudget(final long limit) {
+            if (limit < 1L) {
+                throw new IllegalArgumentException(
+                        String.format("The memory limit is too small: %d.", 
+                                      limit));
+            }
+
+            this.limit = limit;
+        }
+
+        long getLimit() {
+            return limit;
+        }
+
+        long getReservedBytes() {
+            return reservedBytes.get();
+        }
+
+        /**
+         * Reserves {@code bytes} bytes.
+         * 
+         * @throws MemoryLimitExceededException if the budget does not have
+         *                                      them.
+         */
+        private void reserve(final long bytes) {
+            long reserved;
+
+            do {
+                reserved = reservedBytes.get();
+
+                if (reserved + bytes > limit) {
+                    throw new MemoryLimitExceededException(
+                            String.format(
+                                    "The off-heap memory limit of %d bytes " + 
+                                    "is exceeded: %d bytes are taken and " + 
+                                    "%d more are needed.",
+                                    limit,
+                                    reserved,
+                                    bytes));
+                }
+            } while (!reservedBytes.compareAndSet(reserved, reserved + bytes));
+        }
+
+        private void release(final long bytes) {
+            reservedBytes.addAndGet(-bytes);
+        }
+    }
+
+    /**
+     * Marks an empty slot. Since all the keys are non-negative, no key can 
+     * collide with this marker.
+     */
+    private static final int EMPTY_KEY = -1;
+
+    /**
+     * The maximum load factor of the table.
+     */
+    private static final float MAXIMUM_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The number of bytes of a slot: the key followed by the value.
+     */
+    private static final int SLOT_BYTES = 2 * Integer.BYTES;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The largest number of slots addressable in a single direct buffer.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 27;
+
+    /**
+     * The value returned by {@link #get(int)} for absent keys.
+     */
+    private final int missingValue;
+    private final MemoryBudget budget;
+
+    private ByteBuffer table;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructs an empty map.
+     * 
+     * @param missingValue the value returned for absent keys.
+     * @param budget       the budget of the table memory.
+     * 
+     * @throws MemoryLimitExceededException if the budget cannot hold the 
+     *                                      initial table.
+     */
+    OffHeapIntIntHashMap(final int missingValue, final MemoryBudget budget) {
+        this.missingValue = missingValue;
+        this.budget = budget;
+        this.table = allocate(INITIAL_CAPACITY);
+        this.mask = INITIAL_CAPACITY - 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws MemoryLimitExceededException if the table would outgrow the 
+     *                                      budget. The map is left as it 
+     *                                      was.
+     */
+    @Override
+    public void put(final int key, final int value) {
+        if (key < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Negative key: %d.", key));
+        }
+
+        final int slot = findSlot(table, mask, key);
+        final int offset = slot * SLOT_BYTES;
+
+        if (table.getInt(offset) == key) {
+            table.putInt(offset + Integer.BYTES, value);
+            return;
+        }
+
+        // Grow before the insertion, so that a failed growth leaves the map
+        // unchanged:
+        if (size + 1 > (mask + 1) * MAXIMUM_LOAD_FACTOR) {
+            rehash();
+            put(key, value);
+            return;
+        }
+
+        table.putInt(offset, key);
+        table.putInt(offset + Integer.BYTES, value);
+        size++;
+    }
+
+    @Override
+    public int get(final int key) {
+        final int offset = findSlot(table, mask, key) * SLOT_BYTES;
+
+        return table.getInt(offset) == key ? 
+               table.getInt(offset + Integer.BYTES) : 
+               missingValue;
+    }
+
+    @Override
+    public boolean containsKey(final int key) {
+        return table.getInt(findSlot(table, mask, key) * SLOT_BYTES) == key;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        final int oldCapacity = mask + 1;
+
+        if (oldCapacity == MAXIMUM_CAPACITY) {
+            throw new MemoryLimitExceededException(
+                    String.format(
+                            "The off-heap map cannot hold more than %d " + 
+                            "entries.",
+                            size));
+        }
+
+        final ByteBuffer oldTable = table;
+        final ByteBuffer newTable = allocate(oldCapacity * 2);
+        final int newMask = oldCapacity * 2 - 1;
+
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            final int key = oldTable.getInt(slot * SLOT_BYTES);
+
+            if (key != EMPTY_KEY) {
+                final int offset = findSlot(newTable, newMask, key) * 
+                                   SLOT_BYTES;
+
+                newTable.putInt(offset, key);
+                newTable.putInt(offset + Integer.BYTES, 
+                                oldTable.getInt(slot * SLOT_BYTES + 
+                                                Integer.BYTES));
+            }
+        }
+
+        table = newTable;
+        mask = newMask;
+        budget.release((long) oldCapacity * SLOT_BYTES);
+    }
+
+    /**
+     * Allocates an empty table of {@code capacity} slots against the 
+     * budget.
+     */
+    private ByteBuffer allocate(final int capacity) {
+        final long bytes = (long) capacity * SLOT_BYTES;
+        budget.reserve(bytes);
+
+        final ByteBuffer buffer;
+
+        try {
+            buffer = ByteBuffer.allocateDirect((int) bytes)
+                               .order(ByteOrder.nativeOrder());
+        } catch (final OutOfMemoryError error) {
+            // The JVM limit of the direct memory is below the budget:
+            budget.release(bytes);
+            throw new MemoryLimitExceededException(
+                    String.format(
+                            "Could not allocate %d bytes of direct memory: %s",
+                            bytes,
+                            error.getMessage()));
+        }
+
+        // All the bits set marks all the keys empty:
+        for (int offset = 0; offset < bytes; offset += Long.BYTES) {
+            buffer.putLong(offset, -1L);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Returns the slot holding {@code key} or the empty slot where it would 
+     * be inserted.
+     */
+    private static int findSlot(final ByteBuffer table, 
+                                final int mask, 
+                                final int key) {
+        int slot = spread(key) & mask;
+        int slotKey;
+
+        while ((slotKey = table.getInt(slot * SLOT_BYTES)) != EMPTY_KEY && 
+               slotKey != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private static int spread(final int key) {
+        final int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
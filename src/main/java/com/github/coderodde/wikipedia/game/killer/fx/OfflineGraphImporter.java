@@ -0,0 +1,527 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class implements the importer building a {@link CsrLinkGraph} out of
+ * the Wikipedia SQL dumps. The dumps are streamed, so only the titles, the
+ * node degrees and a couple of lookup tables are held in memory; the links
+ * are spilled to a temporary file and then scattered directly into the
+ * memory-mapped CSR arrays.
+ * <p>
+ * Only the articles (namespace 0) and the links between them are imported.
+ * Both the legacy {@code pagelinks} schema (with {@code pl_title}) and the
+ * current one (with {@code pl_target_id} referring to the {@code linktarget}
+ * table) are supported; the latter requires the {@code linktarget} dump.
+ * <p>
+ * Usage:
+ * <pre>
+ * java -Xmx4g ... OfflineGraphImporter PAGE_DUMP PAGELINKS_DUMP OUTPUT_DIR
+ *                                      [LINKTARGET_DUMP]
+ * </pre>
+ */
+public final class OfflineGraphImporter {
+
+    /**
+     * The namespace of the encyclopedia articles.
+     */
+    private static final String ARTICLE_NAMESPACE = "0";
+
+    /**
+     * The number of rows between two progress reports.
+     */
+    private static final long PROGRESS_INTERVAL = 10_000_000L;
+
+    /**
+     * Matches the language code in the standard dump file names such as
+     * {@code enwiki-20240601-page.sql.gz}.
+     */
+    private static final Pattern DUMP_FILE_NAME_PATTERN =
+            Pattern.compile("^([a-z]{2,3})wiki-");
+
+    private final Path pageDumpFile;
+    private final Path pageLinksDumpFile;
+    private final Path linkTargetDumpFile;
+    private final Path outputDirectory;
+
+    /**
+     * Maps the page identifiers of the articles to the node identifiers.
+     */
+    private final IntIntHashMap pageIdToNodeId = new IntIntHashMap(-1);
+
+    /**
+     * The start offset of each title in {@link #titleBytes}, plus the end
+     * offset of the last title.
+     */
+    private final IntArrayList titleOffsets = new IntArrayList(1 << 20);
+
+    /**
+     * The concatenated UTF-8 titles of all the nodes.
+     */
+    private byte[] titleBytes = new byte[1 << 24];
+    private int titleBytesLength;
+
+    /**
+     * The title hash table: node identifiers in an open-addressing table.
+     */
+    private int[] titleHashTable;
+
+    private int numberOfNodes;
+    private long numberOfEdges;
+
+    OfflineGraphImporter(final Path pageDumpFile,
+                         final Path pageLinksDumpFile,
+                         final Path linkTargetDumpFile,
+                         final Path outputDirectory) {
+        this.pageDumpFile = pageDumpFile;
+        this.pageLinksDumpFile = pageLinksDumpFile;
+        this.linkTargetDumpFile = linkTargetDumpFile;
+        this.outputDirectory = outputDirectory;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 3 && args.length != 4) {
+            System.out.println(
+                    "Usage: OfflineGraphImporter PAGE_DUMP PAGELINKS_DUMP " +
+                    "OUTPUT_DIR [LINKTARGET_DUMP]");
+            return;
+        }
+
+        new OfflineGraphImporter(Paths.get(args[0]),
+                                 Paths.get(args[1]),
+                                 args.length == 4 ? Paths.get(args[3]) : null,
+                                 Paths.get(args[2])).run();
+    }
+
+    /**
+     * Runs the import.
+     *
+     * @throws IOException if a dump cannot be read or the graph cannot be
+     *                     written.
+     */
+    void run() throws IOException {
+        final long startTime = System.currentTimeMillis();
+
+        Files.createDirectories(outputDirectory);
+
+        readPages();
+        writeTitles();
+
+        final int[] outDegrees = new int[numberOfNodes];
+        final int[] inDegrees = new int[numberOfNodes];
+        final Path edgeFile = Files.createTempFile(outputDirectory,
+                                                   "edges",
+                                                   ".tmp");
+        try {
+            readLinks(edgeFile, outDegrees, inDegrees);
+
+            // The titles are not needed anymore:
+            titleBytes = null;
+            titleHashTable = null;
+
+            writeAdjacency(edgeFile, outDegrees, inDegrees);
+        } finally {
+            Files.deleteIfExists(edgeFile);
+        }
+
+        writeProperties();
+
+        System.out.printf(
+                "Imported %d articles and %d links in %d seconds.\n",
+                numberOfNodes,
+                numberOfEdges,
+                (System.currentTimeMillis() - startTime) / 1000L);
+    }
+
+    /**
+     * Reads the article titles and assigns the node identifiers in the dump
+     * order.
+     */
+    private void readPages() throws IOException {
+        try (SqlDumpReader reader = new SqlDumpReader(pageDumpFile, "page")) {
+            final List<String> row = new ArrayList<>();
+            int idColumn = -1;
+            int namespaceColumn = -1;
+            int titleColumn = -1;
+            long rows = 0L;
+
+            while (reader.nextRow(row)) {
+                if (idColumn < 0) {
+                    idColumn = getColumnIndex(reader, "page_id");
+                    namespaceColumn = getColumnIndex(reader, "page_namespace");
+                    titleColumn = getColumnIndex(reader, "page_title");
+                }
+
+                if (++rows % PROGRESS_INTERVAL == 0) {
+                    System.out.printf("Read %d pages.\n", rows);
+                }
+
+                if (!ARTICLE_NAMESPACE.equals(row.get(namespaceColumn))) {
+                    continue;
+                }
+
+                pageIdToNodeId.put(Integer.parseInt(row.get(idColumn)),
+                                   numberOfNodes++);
+
+                appendTitle(row.get(titleColumn)
+                               .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        titleOffsets.add(titleBytesLength);
+        buildTitleHashTable();
+    }
+
+    /**
+     * Reads the links between the articles, spills them to
+     * {@code edgeFile} and counts the node degrees.
+     */
+    private void readLinks(final Path edgeFile,
+                           final int[] outDegrees,
+                           final int[] inDegrees) throws IOException {
+
+        final IntIntHashMap linkTargetToNodeId =
+                linkTargetDumpFile != null ? readLinkTargets() : null;
+
+        try (SqlDumpReader reader =
+                new SqlDumpReader(pageLinksDumpFile, "pagelinks");
+             DataOutputStream edgeOutputStream =
+                new DataOutputStream(
+                        new BufferedOutputStream(
+                                Files.newOutputStream(edgeFile),
+                                1 << 20))) {
+
+            final List<String> row = new ArrayList<>();
+            int fromColumn = -1;
+            int fromNamespaceColumn = -1;
+            int namespaceColumn = -1;
+            int titleColumn = -1;
+            int targetIdColumn = -1;
+            long rows = 0L;
+
+            while (reader.nextRow(row)) {
+                if (fromColumn < 0) {
+                    fromColumn = getColumnIndex(reader, "pl_from");
+                    fromNamespaceColumn =
+                            getColumnIndex(reader, "pl_from_namespace");
+
+                    namespaceColumn = reader.getColumnIndex("pl_namespace");
+                    titleColumn = reader.getColumnIndex("pl_title");
+                    targetIdColumn = reader.getColumnIndex("pl_target_id");
+
+                    if (titleColumn < 0 && linkTargetToNodeId == null) {
+                        throw new IOException(
+                                "The pagelinks dump refers to the " +
+                                "linktarget table; pass the linktarget " +
+                                "dump as well.");
+                    }
+                }
+
+                if (++rows % PROGRESS_INTERVAL == 0) {
+                    System.out.printf(
+                            "Read %d links, kept %d.\n",
+                            rows,
+                            numberOfEdges);
+                }
+
+                if (!ARTICLE_NAMESPACE.equals(row.get(fromNamespaceColumn))) {
+                    continue;
+                }
+
+                final int from =
+                        pageIdToNodeId.get(
+                                Integer.parseInt(row.get(fromColumn)));
+
+                final int to;
+
+                if (titleColumn >= 0) {
+                    if (!ARTICLE_NAMESPACE.equals(row.get(namespaceColumn))) {
+                        continue;
+                    }
+
+                    to = getNodeId(row.get(titleColumn));
+                } else {
+                    to = linkTargetToNodeId.get(
+                            Integer.parseInt(row.get(targetIdColumn)));
+                }
+
+                if (from < 0 || to < 0) {
+                    continue;
+                }
+
+                edgeOutputStream.writeInt(from);
+                edgeOutputStream.writeInt(to);
+                outDegrees[from]++;
+                inDegrees[to]++;
+                numberOfEdges++;
+            }
+        }
+    }
+
+    /**
+     * Maps the identifiers of the article link targets to the node
+     * identifiers.
+     */
+    private IntIntHashMap readLinkTargets() throws IOException {
+        final IntIntHashMap linkTargetToNodeId = new IntIntHashMap(-1);
+
+        try (SqlDumpReader reader =
+                new SqlDumpReader(linkTargetDumpFile, "linktarget")) {
+
+            final List<String> row = new ArrayList<>();
+            int idColumn = -1;
+            int namespaceColumn = -1;
+            int titleColumn = -1;
+
+            while (reader.nextRow(row)) {
+                if (idColumn < 0) {
+                    idColumn = getColumnIndex(reader, "lt_id");
+                    namespaceColumn = getColumnIndex(reader, "lt_namespace");
+                    titleColumn = getColumnIndex(reader, "lt_title");
+                }
+
+                if (!ARTICLE_NAMESPACE.equals(row.get(namespaceColumn))) {
+                    continue;
+                }
+
+                final int nodeId = getNodeId(row.get(titleColumn));
+
+                if (nodeId >= 0) {
+                    linkTargetToNodeId.put(
+                            Integer.parseInt(row.get(idColumn)),
+                            nodeId);
+                }
+            }
+        }
+
+        return linkTargetToNodeId;
+    }
+
+    private void appendTitle(final byte[] bytes) {
+        if (titleBytesLength + bytes.length > titleBytes.length) {
+            titleBytes =
+                    Arrays.copyOf(
+                            titleBytes,
+                            Math.max(titleBytesLength + bytes.length,
+                                     titleBytes.length * 2));
+        }
+
+        titleOffsets.add(titleBytesLength);
+        System.arraycopy(bytes, 0, titleBytes, titleBytesLength, bytes.length);
+        titleBytesLength += bytes.length;
+    }
+
+    private void buildTitleHashTable() {
+        final int capacity =
+                Integer.highestOneBit(Math.max(2, numberOfNodes) * 2 - 1) << 1;
+
+        final int mask = capacity - 1;
+        titleHashTable = new int[capacity];
+        Arrays.fill(titleHashTable, CsrLinkGraph.EMPTY_SLOT);
+
+        for (int id = 0; id < numberOfNodes; id++) {
+            final int start = titleOffsets.get(id);
+            final int length = titleOffsets.get(id + 1) - start;
+            int slot = CsrLinkGraph.hashTitle(titleBytes, start, length) 
+                     & mask;
+
+            while (titleHashTable[slot] != CsrLinkGraph.EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+
+            titleHashTable[slot] = id;
+        }
+    }
+
+    private int getNodeId(final String title) {
+        final byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+        final int mask = titleHashTable.length - 1;
+        int slot = CsrLinkGraph.hashTitle(bytes, 0, bytes.length) & mask;
+
+        while (titleHashTable[slot] != CsrLinkGraph.EMPTY_SLOT) {
+            final int id = titleHashTable[slot];
+            final int start = titleOffsets.get(id);
+            final int end = titleOffsets.get(id + 1);
+
+            if (Arrays.equals(titleBytes, start, end,
+                              bytes, 0, bytes.length)) {
+                return id;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void writeTitles() throws IOException {
+        try (MappedFile offsets =
+                MappedFile.create(
+                        outputDirectory.resolve(
+                                CsrLinkGraph.TITLE_OFFSETS_FILE_NAME),
+                        (long)(numberOfNodes + 1) * Long.BYTES)) {
+
+            for (int id = 0; id <= numberOfNodes; id++) {
+                offsets.putLong((long) id * Long.BYTES, titleOffsets.get(id));
+            }
+
+            offsets.force();
+        }
+
+        Files.write(outputDirectory.resolve(CsrLinkGraph.TITLE_BYTES_FILE_NAME),
+                    Arrays.copyOf(titleBytes, titleBytesLength));
+
+        try (MappedFile hashTable =
+                MappedFile.create(
+                        outputDirectory.resolve(
+                                CsrLinkGraph.TITLE_HASH_FILE_NAME),
+                        (long) titleHashTable.length * Integer.BYTES)) {
+
+            for (int slot = 0; slot < titleHashTable.length; slot++) {
+                hashTable.putInt((long) slot * Integer.BYTES,
+                                 titleHashTable[slot]);
+            }
+
+            hashTable.force();
+        }
+    }
+
+    /**
+     * Writes the forward and the backward CSR arrays. The offsets are the
+     * prefix sums of the degrees; the targets are scattered in a single pass
+     * over the spilled links.
+     */
+    private void writeAdjacency(final Path edgeFile,
+                                final int[] outDegrees,
+                                final int[] inDegrees) throws IOException {
+
+        final long[] forwardCursors = writeOffsets(LinkDirection.FORWARD,
+                                                   outDegrees);
+
+        final long[] backwardCursors = writeOffsets(LinkDirection.BACKWARD,
+                                                    inDegrees);
+
+        try (MappedFile forwardTargets =
+                MappedFile.create(
+                        outputDirectory.resolve(
+                                CsrLinkGraph.getTargetsFileName(
+                                        LinkDirection.FORWARD)),
+                        numberOfEdges * Integer.BYTES);
+             MappedFile backwardTargets =
+                MappedFile.create(
+                        outputDirectory.resolve(
+                                CsrLinkGraph.getTargetsFileName(
+                                        LinkDirection.BACKWARD)),
+                        numberOfEdges * Integer.BYTES);
+             DataInputStream edgeInputStream =
+                new DataInputStream(
+                        new BufferedInputStream(
+                                Files.newInputStream(edgeFile),
+                                1 << 20))) {
+
+            for (long edge = 0L; edge < numberOfEdges; edge++) {
+                final int from = edgeInputStream.readInt();
+                final int to = edgeInputStream.readInt();
+
+                forwardTargets.putInt(forwardCursors[from]++ * Integer.BYTES,
+                                      to);
+
+                backwardTargets.putInt(backwardCursors[to]++ * Integer.BYTES,
+                                       from);
+            }
+
+            forwardTargets.force();
+            backwardTargets.force();
+        }
+    }
+
+    /**
+     * Writes the offsets file of the given direction.
+     *
+     * @return the start offset of each adjacency list.
+     */
+    private long[] writeOffsets(final LinkDirection direction,
+                                final int[] degrees) throws IOException {
+
+        final long[] starts = new long[numberOfNodes];
+
+        try (MappedFile offsets =
+                MappedFile.create(
+                        outputDirectory.resolve(
+                                CsrLinkGraph.getOffsetsFileName(direction)),
+                        (long)(numberOfNodes + 1) * Long.BYTES)) {
+
+            long offset = 0L;
+
+            for (int id = 0; id < numberOfNodes; id++) {
+                starts[id] = offset;
+                offsets.putLong((long) id * Long.BYTES, offset);
+                offset += degrees[id];
+            }
+
+            offsets.putLong((long) numberOfNodes * Long.BYTES, offset);
+            offsets.force();
+        }
+
+        return starts;
+    }
+
+    private void writeProperties() throws IOException {
+        final Properties properties = new Properties();
+
+        properties.setProperty(CsrLinkGraph.LANGUAGE_CODE_PROPERTY,
+                               getLanguageCode(pageDumpFile));
+
+        properties.setProperty(CsrLinkGraph.NUMBER_OF_NODES_PROPERTY,
+                               Integer.toString(numberOfNodes));
+
+        properties.setProperty(CsrLinkGraph.NUMBER_OF_EDGES_PROPERTY,
+                               Long.toString(numberOfEdges));
+
+        try (Writer writer =
+                Files.newBufferedWriter(
+                        outputDirectory.resolve(
+                                CsrLinkGraph.PROPERTIES_FILE_NAME))) {
+            properties.store(writer, "WikiGameKillerFX offline link graph");
+        }
+    }
+
+    private static String getLanguageCode(final Path dumpFile) {
+        final Matcher matcher =
+                DUMP_FILE_NAME_PATTERN.matcher(
+                        dumpFile.getFileName().toString());
+
+        return matcher.find() ? matcher.group(1) : "en";
+    }
+
+    private static int getColumnIndex(final SqlDumpReader reader,
+                                      final String columnName)
+            throws IOException {
+
+        final int index = reader.getColumnIndex(columnName);
+
+        if (index < 0) {
+            throw new IOException(
+                    String.format(
+                            "The dump has no column \"%s\".",
+                            columnName));
+        }
+
+        return index;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+/**
+ * This class implements a node expander serving the links from an offline
+ * {@link CsrLinkGraph} directly on its node identifiers. No titles are 
+ * touched during the search.
+ */
+final class OfflineIntNodeExpander extends IntNodeExpander {
+
+    private final CsrLinkGraph graph;
+    private final LinkDirection direction;
+
+    OfflineIntNodeExpander(final CsrLinkGraph graph,
+                           final LinkDirection direction) {
+        this.graph = graph;
+        this.direction = direction;
+    }
+
+    @Override
+    int[] generateSuccessors(final int node) {
+        return graph.getNeighbors(node, direction);
+    }
+
+    @Override
+    int getDegree(final int node) {
+        return graph.getDegree(node, direction);
+    }
+
+    @Override
+    boolean isValidNode(final int node) {
+        return node >= 0 && node < graph.getNumberOfNodes();
+    }
+}
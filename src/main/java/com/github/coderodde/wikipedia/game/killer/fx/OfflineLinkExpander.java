@@ -0,0 +1,45 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.github.coderodde.graph.pathfinding.delayed.AbstractNodeExpander;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class implements a title-based node expander serving the links from
+ * an offline {@link CsrLinkGraph}. The titles are expected in the dump form.
+ */
+final class OfflineLinkExpander extends AbstractNodeExpander<String> {
+
+    private final CsrLinkGraph graph;
+    private final LinkDirection direction;
+
+    OfflineLinkExpander(final CsrLinkGraph graph,
+                        final LinkDirection direction) {
+        this.graph = graph;
+        this.direction = direction;
+    }
+
+    @Override
+    public List<String> generateSuccessors(final String article) {
+        final int id = graph.getId(article);
+
+        if (id < 0) {
+            return Collections.<String>emptyList();
+        }
+
+        final int[] neighbors = graph.getNeighbors(id, direction);
+        final List<String> successors = new ArrayList<>(neighbors.length);
+
+        for (final int neighbor : neighbors) {
+            successors.add(graph.getTitle(neighbor));
+        }
+
+        return successors;
+    }
+
+    @Override
+    public boolean isValidNode(final String article) {
+        return graph.getId(article) >= 0;
+    }
+}
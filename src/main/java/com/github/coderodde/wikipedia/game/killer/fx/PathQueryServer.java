@@ -0,0 +1,386 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements an embedded HTTP service answering shortest path
+ * queries:
+ * <pre>
+ * GET /path?source=Turku&amp;target=Helsinki&amp;language=fi
+ * GET /stats
+ * </pre>
+ * The {@code source} and {@code target} are article titles; the
+ * {@code language} defaults to {@code en}. The answer is a JSON object with
+ * the path as article URLs and the search statistics.
+ * <p>
+ * At most {@code --searches} searches run at a time; up to {@code --queue}
+ * more wait in a queue, and the queries beyond that are rejected with the
+ * status 503. A query identical to one in progress does not start a search
+ * of its own but waits for the result of the running one. All the searches
+ * share a single {@link SearchService}, so the throughput improves as its
+ * caches fill.
+ * <p>
+ * Usage:
+ * <pre>
+ * java ... Main --server [OPTIONS]
+ * </pre>
+ */
+public final class PathQueryServer {
+
+    private static final String USAGE =
+            "Usage: Main --server [OPTIONS]\n" +
+            "Serves GET /path?source=TITLE&target=TITLE&language=CODE and " +
+            "GET /stats.\n\n" +
+            "Options:\n" +
+            "  --port N               The port to listen to (default: " +
+            "8080).\n" +
+            "  --searches N           Concurrent searches (default: 4).\n" +
+            "  --queue N              Queued searches before rejecting " +
+            "(default: 64).\n" +
+            SearchService.OPTIONS_USAGE;
+
+    private static final String DEFAULT_LANGUAGE_CODE = "en";
+
+    private static final int STATUS_OK = 200;
+    private static final int STATUS_BAD_REQUEST = 400;
+    private static final int STATUS_NOT_FOUND = 404;
+    private static final int STATUS_METHOD_NOT_ALLOWED = 405;
+    private static final int STATUS_INTERNAL_ERROR = 500;
+    private static final int STATUS_UNAVAILABLE = 503;
+
+    private final SearchService searchService = new SearchService();
+    private int port = 8080;
+    private int numberOfSearches = 4;
+    private int queueCapacity = 64;
+
+    private ThreadPoolExecutor searchExecutor;
+
+    /**
+     * Maps the keys of the queries in progress to the futures of their
+     * results.
+     */
+    private final Map<String, CompletableFuture<JsonObject>> inFlightMap =
+            new ConcurrentHashMap<>();
+
+    private final AtomicLong numberOfQueries = new AtomicLong();
+    private final AtomicLong numberOfDeduplicatedQueries = new AtomicLong();
+    private final AtomicLong numberOfRejectedQueries = new AtomicLong();
+    private final AtomicLong numberOfSearchesRun = new AtomicLong();
+    private final Gson gson = new Gson();
+
+    public static void main(final String[] args) throws IOException {
+        final PathQueryServer server = new PathQueryServer();
+
+        try {
+            if (!server.parseArguments(args)) {
+                System.out.println(USAGE);
+                return;
+            }
+        } catch (final IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        server.start();
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args the command line arguments.
+     *
+     * @return {@code false} if the usage was requested.
+     */
+    private boolean parseArguments(final String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+
+            if (arg.equals("--help") || arg.equals("-h")) {
+                return false;
+            }
+
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException(
+                        String.format("Missing the value of %s.", arg));
+            }
+
+            final String value = args[++i];
+
+            switch (arg) {
+                case "--port":
+                    port = SearchService.parseInt(arg, value, 1);
+                    break;
+
+                case "--searches":
+                    numberOfSearches = SearchService.parseInt(arg, value, 1);
+                    break;
+
+                case "--queue":
+                    queueCapacity = SearchService.parseInt(arg, value, 1);
+                    break;
+
+                default:
+                    if (!searchService.parseOption(arg, value)) {
+                        throw new IllegalArgumentException(
+                                String.format("Unknown option: %s.", arg));
+                    }
+            }
+        }
+
+        return true;
+    }
+
+    private void start() throws IOException {
+        searchService.open();
+
+        final ThreadFactory threadFactory =
+                searchService.usesVirtualThreads() ?
+                Thread.ofVirtual().factory() :
+                Thread.ofPlatform().daemon().factory();
+
+        searchExecutor =
+                new ThreadPoolExecutor(
+                        numberOfSearches,
+                        numberOfSearches,
+                        0L,
+                        TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity),
+                        threadFactory);
+
+        final HttpServer server =
+                HttpServer.create(new InetSocketAddress(port), 0);
+
+        // The handlers mostly wait for the searches:
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/path", this::handlePathQuery);
+        server.createContext("/stats", this::handleStatistics);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            searchExecutor.shutdownNow();
+
+            try {
+                searchService.close();
+            } catch (final IOException ex) {
+
+            }
+        }));
+
+        server.start();
+
+        System.err.printf("Listening on port %d.\n", port);
+    }
+
+    private void handlePathQuery(final HttpExchange exchange)
+            throws IOException {
+
+        if (!exchange.getRequestMethod().equals("GET")) {
+            sendError(exchange, STATUS_METHOD_NOT_ALLOWED, "Use GET.");
+            return;
+        }
+
+        if (!exchange.getRequestURI().getPath().equals("/path")) {
+            sendError(exchange, STATUS_NOT_FOUND, "No such resource.");
+            return;
+        }
+
+        final Map<String, String> parameters =
+                parseQuery(exchange.getRequestURI().getRawQuery());
+
+        final String source = parameters.get("source");
+        final String target = parameters.get("target");
+        final String languageCode =
+                parameters.getOrDefault("language", DEFAULT_LANGUAGE_CODE);
+
+        if (source == null || source.isBlank() ||
+            target == null || target.isBlank()) {
+            sendError(exchange,
+                      STATUS_BAD_REQUEST,
+                      "Both the source and the target are required.");
+            return;
+        }
+
+        if (!languageCode.matches("[a-z\\-]{2,12}")) {
+            sendError(exchange,
+                      STATUS_BAD_REQUEST,
+                      String.format("Invalid language code: %s",
+                                    languageCode));
+            return;
+        }
+
+        numberOfQueries.incrementAndGet();
+
+        final String sourceTitle = toUrlTitle(source);
+        final String targetTitle = toUrlTitle(target);
+        final String key = languageCode + "|" + sourceTitle + "|" +
+                           targetTitle;
+
+        final CompletableFuture<JsonObject> newFuture =
+                new CompletableFuture<>();
+
+        final CompletableFuture<JsonObject> existingFuture =
+                inFlightMap.putIfAbsent(key, newFuture);
+
+        final CompletableFuture<JsonObject> future;
+
+        if (existingFuture != null) {
+            numberOfDeduplicatedQueries.incrementAndGet();
+            future = existingFuture;
+        } else {
+            future = newFuture;
+
+            try {
+                searchExecutor.execute(() -> {
+                    final JsonObject result = new JsonObject();
+                    result.addProperty("language", languageCode);
+                    result.addProperty("source", sourceTitle);
+                    result.addProperty("target", targetTitle);
+                    result.addProperty(
+                            "engine",
+                            searchService.getSearchEngineType().name());
+
+                    try {
+                        searchService.search(languageCode,
+                                             sourceTitle,
+                                             targetTitle,
+                                             result);
+                    } finally {
+                        numberOfSearchesRun.incrementAndGet();
+                        inFlightMap.remove(key, newFuture);
+                        newFuture.complete(result);
+                    }
+                });
+            } catch (final RejectedExecutionException ex) {
+                inFlightMap.remove(key, newFuture);
+                newFuture.completeExceptionally(ex);
+            }
+        }
+
+        final JsonObject result;
+
+        try {
+            // Each query gets a copy, since the deduplicated queries share
+            // the result:
+            result = future.get().deepCopy();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, STATUS_UNAVAILABLE, "Interrupted.");
+            return;
+        } catch (final ExecutionException ex) {
+            numberOfRejectedQueries.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange,
+                      STATUS_UNAVAILABLE,
+                      "The search queue is full.");
+            return;
+        }
+
+        result.addProperty("deduplicated", existingFuture != null);
+
+        sendJson(exchange,
+                 result.has("error") ? STATUS_INTERNAL_ERROR : STATUS_OK,
+                 result);
+    }
+
+    private void handleStatistics(final HttpExchange exchange)
+            throws IOException {
+
+        final SessionLinkCache cache = searchService.getSessionLinkCache();
+        final JsonObject statistics = new JsonObject();
+
+        statistics.addProperty("queries", numberOfQueries.get());
+        statistics.addProperty("deduplicatedQueries",
+                               numberOfDeduplicatedQueries.get());
+        statistics.addProperty("rejectedQueries",
+                               numberOfRejectedQueries.get());
+        statistics.addProperty("searches", numberOfSearchesRun.get());
+        statistics.addProperty("runningSearches",
+                               searchExecutor.getActiveCount());
+        statistics.addProperty("queuedSearches",
+                               searchExecutor.getQueue().size());
+        statistics.addProperty("cacheHits", cache.getHits());
+        statistics.addProperty("cacheMisses", cache.getMisses());
+        statistics.addProperty("cacheEntries", cache.getNumberOfEntries());
+        statistics.addProperty("cacheWeightBytes", cache.getWeight());
+
+        sendJson(exchange, STATUS_OK, statistics);
+    }
+
+    private void sendError(final HttpExchange exchange,
+                           final int status,
+                           final String message) throws IOException {
+        final JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        sendJson(exchange, status, error);
+    }
+
+    private void sendJson(final HttpExchange exchange,
+                          final int status,
+                          final JsonObject json) throws IOException {
+        final byte[] body = gson.toJson(json)
+                                .getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type",
+                                          "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (final OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(final String rawQuery) {
+        final Map<String, String> parameters = new HashMap<>();
+
+        if (rawQuery == null) {
+            return parameters;
+        }
+
+        for (final String pair : rawQuery.split("&")) {
+            final int equalsIndex = pair.indexOf('=');
+
+            if (equalsIndex <= 0) {
+                continue;
+            }
+
+            parameters.put(
+                    URLDecoder.decode(pair.substring(0, equalsIndex),
+                                      StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equalsIndex + 1),
+                                      StandardCharsets.UTF_8));
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Converts a plain title such as {@code Turun linna} to the form used in
+     * the article URLs, {@code Turun_linna}.
+     */
+    private static String toUrlTitle(final String title) {
+        return URLEncoder.encode(title.trim(), StandardCharsets.UTF_8)
+                         .replace("+", "_");
+    }
+}
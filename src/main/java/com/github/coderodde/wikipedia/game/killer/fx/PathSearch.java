@@ -0,0 +1,371 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.github.coderodde.graph.pathfinding.delayed.AbstractDelayedGraphPathFinder;
+import com.github.coderodde.graph.pathfinding.delayed.AbstractNodeExpander;
+import com.github.coderodde.graph.pathfinding.delayed.impl.ThreadPoolBidirectionalBFSPathFinderSearchBuilder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class runs a single shortest path search with whichever path finder
+ * is given: the {@code ThreadPoolBidirectionalBFSPathFinder} on titles, or
+ * the {@link IntBidirectionalBFSPathFinder} on interned title identifiers or
+ * on the node identifiers of an offline graph. It is shared by the GUI and
+ * the headless batch mode.
+ * <p>
+ * Given a {@link ShortPathProbe}, an online search first probes for a path
+ * of one or two links, and starts the path finder only if none is found.
+ * <p>
+ * An online search counts its expansions that failed for good. If any did,
+ * the search is incomplete: the path found may not be a shortest one, and 
+ * a path may exist even if none was found.
+ */
+final class PathSearch {
+
+    private final String source;
+    private final String target;
+    private final CsrLinkGraph offlineGraph;
+    private final AbstractDelayedGraphPathFinder<String> finder;
+    private final IntBidirectionalBFSPathFinder intFinder;
+    private final AbstractNodeExpander<String> forwardExpander;
+    private final AbstractNodeExpander<String> backwardExpander;
+    private ShortPathProbe shortPathProbe;
+
+    /**
+     * Set if the most recent path was found by the probe.
+     */
+    private boolean probed;
+
+    /**
+     * The duration of the most recent probe in milliseconds.
+     */
+    private long probeDuration;
+
+    /**
+     * The title dictionary of the most recent online primitive search.
+     */
+    private TitleDictionary dictionary;
+
+    /**
+     * The number of the failed expansions of the most recent search.
+     */
+    private int numberOfFailedExpansions;
+
+    /**
+     * The path of the most recent search.
+     */
+    private List<String> titles = Collections.<String>emptyList();
+
+    /**
+     * Constructs a search. Exactly one of {@code finder} and
+     * {@code intFinder} must be given; {@code offlineGraph} requires the
+     * latter.
+     *
+     * @param source           the source title.
+     * @param target           the target title.
+     * @param offlineGraph     the offline graph, or {@code null} in the
+     *                         online mode.
+     * @param finder           the library path finder, or {@code null}.
+     * @param intFinder        the primitive path finder, or {@code null}.
+     * @param forwardExpander  the forward expander in the online mode.
+     * @param backwardExpander the backward expander in the online mode.
+     */
+    PathSearch(final String source,
+               final String target,
+               final CsrLinkGraph offlineGraph,
+               final AbstractDelayedGraphPathFinder<String> finder,
+               final IntBidirectionalBFSPathFinder intFinder,
+               final AbstractNodeExpander<String> forwardExpander,
+               final AbstractNodeExpander<String> backwardExpander) {
+        this.source = source;
+        this.target = target;
+        this.offlineGraph = offlineGraph;
+        this.finder = finder;
+        this.intFinder = intFinder;
+        this.forwardExpander = forwardExpander;
+        this.backwardExpander = backwardExpander;
+    }
+
+    /**
+     * Sets the probe for the short paths of the online searches.
+     *
+     * @param shortPathProbe the probe, or {@code null} for none.
+     */
+    void setShortPathProbe(final ShortPathProbe shortPathProbe) {
+        this.shortPathProbe = shortPathProbe;
+    }
+
+    /**
+     * Runs the search. The search is recorded as a {@link SearchEvent} and
+     * in the {@link SearchMetrics} when they are enabled.
+     *
+     * @return the list of titles in the shortest path, or an empty list if
+     *         there is no path or the search was halted.
+     */
+    List<String> run() {
+        final SearchEvent event = new SearchEvent();
+        event.begin();
+
+        final long startTime = System.nanoTime();
+        titles = search();
+
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.target = target;
+            event.pathFinder = 
+                    probed ? "probe" :
+                    offlineGraph != null ? "offline" :
+                    intFinder != null ? "primitive" : "thread-pool";
+            event.pathLength = titles.size();
+            event.expandedNodes = getNumberOfExpandedNodes();
+            event.failedExpansions = numberOfFailedExpansions;
+            event.commit();
+        }
+
+        if (SearchMetrics.ENABLED) {
+            SearchMetrics.recordSearch(!titles.isEmpty(),
+                                       isComplete(),
+                                       System.nanoTime() - startTime,
+                                       getNumberOfExpandedNodes());
+        }
+
+        return titles;
+    }
+
+    /**
+     * Returns the shortest paths found by the most recent run, the path 
+     * returned by {@link #run()} first. The primitive path finder enumerates
+     * up to its maximum number of paths from the explored parent maps; the
+     * library path finder gives its single path.
+     *
+     * @return the iterator over the lists of titles in the shortest paths.
+     */
+    Iterator<List<String>> getShortestPaths() {
+        if (intFinder == null || probed) {
+            return titles.isEmpty() ?
+                   Collections.<List<String>>emptyIterator() :
+                   List.of(titles).iterator();
+        }
+
+        final ShortestPathEnumerator shortestPaths =
+                intFinder.getShortestPaths();
+
+        return new Iterator<List<String>>() {
+            @Override
+            public boolean hasNext() {
+                return shortestPaths.hasNext();
+            }
+
+            @Override
+            public List<String> next() {
+                return toTitles(shortestPaths.next());
+            }
+        };
+    }
+
+    /**
+     * Returns the duration of the most recent search, the probe included.
+     *
+     * @return the duration in milliseconds.
+     */
+    long getDuration() {
+        if (probed) {
+            return probeDuration;
+        }
+
+        return probeDuration + (intFinder != null ? intFinder.getDuration()
+                                                  : finder.getDuration());
+    }
+
+    int getNumberOfExpandedNodes() {
+        if (probed) {
+            return 0;
+        }
+
+        return intFinder != null ? intFinder.getNumberOfExpandedNodes()
+                                 : finder.getNumberOfExpandedNodes();
+    }
+
+    /**
+     * Returns the number of the expansions of the most recent search that 
+     * failed for good.
+     *
+     * @return the number of the failed expansions.
+     */
+    int getNumberOfFailedExpansions() {
+        return numberOfFailedExpansions;
+    }
+
+    /**
+     * Returns {@code true} if no expansion of the most recent search failed,
+     * so that its result is exact.
+     *
+     * @return {@code true} if the most recent search is complete.
+     */
+    boolean isComplete() {
+        return numberOfFailedExpansions == 0;
+    }
+
+    private List<String> search() {
+        probed = false;
+        probeDuration = 0L;
+        numberOfFailedExpansions = 0;
+
+        if (shortPathProbe != null && offlineGraph == null) {
+            final long startTime = System.currentTimeMillis();
+            final List<String> path = shortPathProbe.probe(source, target);
+            probeDuration = System.currentTimeMillis() - startTime;
+
+            if (path != null) {
+                probed = true;
+                return path;
+            }
+        }
+
+        if (intFinder != null) {
+            return toTitles(offlineGraph != null ?
+                            searchOfflineGraph() :
+                            searchWithIntFinder());
+        }
+
+        final FailureCountingNodeExpander countingForwardExpander =
+                new FailureCountingNodeExpander(forwardExpander);
+
+        final FailureCountingNodeExpander countingBackwardExpander =
+                new FailureCountingNodeExpander(backwardExpander);
+
+        try {
+            return ThreadPoolBidirectionalBFSPathFinderSearchBuilder
+                    .<String>withPathFinder(finder)
+                    .withSourceNode(source)
+                    .withTargetNode(target)
+                    .withForwardNodeExpander(countingForwardExpander)
+                    .withBackwardNodeExpander(countingBackwardExpander)
+                    .search();
+        } finally {
+            numberOfFailedExpansions =
+                    countingForwardExpander.numberOfFailedExpansions.get() +
+                    countingBackwardExpander.numberOfFailedExpansions.get();
+        }
+    }
+
+    /**
+     * Translates a path of node identifiers into titles. The offline titles
+     * are in the dump form; they are encoded like the online titles.
+     *
+     * @param path the node identifiers of the path.
+     *
+     * @return the list of titles in the path.
+     */
+    private List<String> toTitles(final int[] path) {
+        final List<String> titles = new ArrayList<>(path.length);
+
+        for (final int id : path) {
+            titles.add(offlineGraph != null ?
+                       URLEncoder.encode(offlineGraph.getTitle(id),
+                                         StandardCharsets.UTF_8) :
+                       dictionary.getTitle(id));
+        }
+
+        return titles;
+    }
+
+    /**
+     * Runs the search on interned title identifiers. The identifiers are
+     * translated back to titles only for the resulting paths.
+     *
+     * @return the node identifiers of the shortest path.
+     */
+    private int[] searchWithIntFinder() {
+        dictionary = new TitleDictionary();
+        final int sourceId = dictionary.intern(source);
+        final int targetId = dictionary.intern(target);
+
+        // The landmarks know only the identifiers of an offline graph:
+        intFinder.setLandmarkTable(null);
+
+        final InterningNodeExpander interningForwardExpander =
+                new InterningNodeExpander(forwardExpander, dictionary);
+
+        final InterningNodeExpander interningBackwardExpander =
+                new InterningNodeExpander(backwardExpander, dictionary);
+
+        try {
+            return intFinder.search(sourceId,
+                                    targetId,
+                                    interningForwardExpander,
+                                    interningBackwardExpander);
+        } finally {
+            numberOfFailedExpansions =
+                    interningForwardExpander.getNumberOfFailedExpansions() +
+                    interningBackwardExpander.getNumberOfFailedExpansions();
+        }
+    }
+
+    /**
+     * Runs the search directly on the node identifiers of the offline graph.
+     *
+     * @return the node identifiers of the shortest path.
+     */
+    private int[] searchOfflineGraph() {
+        final int sourceId = offlineGraph.getId(source);
+        final int targetId = offlineGraph.getId(target);
+
+        if (sourceId < 0 || targetId < 0) {
+            return new int[0];
+        }
+
+        intFinder.setLandmarkTable(offlineGraph.getLandmarkTable());
+
+        final int[] path =
+                intFinder.search(
+                        sourceId,
+                        targetId,
+                        new OfflineIntNodeExpander(
+                                offlineGraph,
+                                LinkDirection.FORWARD),
+                        new OfflineIntNodeExpander(
+                                offlineGraph,
+                                LinkDirection.BACKWARD));
+
+        return path;
+    }
+
+    /**
+     * This class counts the failed expansions of a title-based node expander
+     * during a single search of the library path finder.
+     */
+    private static final class FailureCountingNodeExpander
+            extends AbstractNodeExpander<String> {
+
+        private final AbstractNodeExpander<String> expander;
+        private final AtomicInteger numberOfFailedExpansions =
+                new AtomicInteger();
+
+        FailureCountingNodeExpander(
+                final AbstractNodeExpander<String> expander) {
+            this.expander = expander;
+        }
+
+        @Override
+        public List<String> generateSuccessors(final String node) {
+            final List<String> successors = expander.generateSuccessors(node);
+
+            if (AbstractLinkExpander.isFailed(successors)) {
+                numberOfFailedExpansions.incrementAndGet();
+            }
+
+            return successors;
+        }
+
+        @Override
+        public boolean isValidNode(final String node) {
+            return expander.isValidNode(node);
+        }
+    }
+}
@@ -0,0 +1,615 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class implements a persistent, log-structured cache mapping article
+ * titles to the lists of their neighbor titles. Each instance serves exactly
+ * one language and one link direction, and is backed by a single append-only
+ * file. Only the in-memory index (title to file offset) is kept on the heap;
+ * the neighbor lists are read from the file on demand.
+ * <p>
+ * Each record is stamped with the time it was written. Records older than the
+ * time-to-live are treated as misses, and whenever the file grows beyond its
+ * size cap, it is compacted: the expired records are dropped along with the
+ * oldest live records until the file shrinks well below the cap. The 
+ * compaction runs in a background thread; the cache stays readable and 
+ * writable until the compacted file replaces the original one.
+ */
+final class PersistentLinkCache implements Closeable {
+
+    /**
+     * The magic number starting each record.
+     */
+    private static final int RECORD_MAGIC = 0x4C4E4B31;
+
+    /**
+     * The number of bytes in a record header: magic, payload length and the
+     * time stamp.
+     */
+    private static final int RECORD_HEADER_LENGTH = 16;
+
+    /**
+     * The compaction shrinks the file to at most this fraction of its size
+     * cap so that we do not compact again after a couple of appends.
+     */
+    private static final double COMPACTION_TARGET_RATIO = 0.75;
+
+    /**
+     * The file holding the records.
+     */
+    private final Path file;
+
+    /**
+     * The time-to-live of each record in milliseconds.
+     */
+    private final long timeToLiveMillis;
+
+    /**
+     * The size cap of the record file in bytes.
+     */
+    private final long maximumSizeBytes;
+
+    /**
+     * Maps each cached title to the most recent record of it.
+     */
+    private final Map<String, RecordEntry> index = new HashMap<>();
+
+    /**
+     * Guards the index and the channel. Reads use positional I/O and may
+     * proceed in parallel.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The channel to the record file.
+     */
+    private FileChannel channel;
+
+    /**
+     * The current size of the record file in bytes.
+     */
+    private long size;
+
+    /**
+     * Set while a compaction runs. Guarded by the write lock.
+     */
+    private boolean compacting;
+
+    private PersistentLinkCache(final Path file,
+                                final long timeToLiveMillis,
+                                final long maximumSizeBytes) {
+        this.file = file;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.maximumSizeBytes = maximumSizeBytes;
+    }
+
+    /**
+     * Opens (or creates) the link cache for the given language and direction.
+     *
+     * @param directory        the directory holding all the cache files.
+     * @param languageCode     the language code of the cached articles.
+     * @param direction        the direction of the cached links.
+     * @param timeToLiveMillis the time-to-live of each record in milliseconds.
+     * @param maximumSizeBytes the size cap of the cache file in bytes.
+     *
+     * @return the opened link cache.
+     *
+     * @throws IOException if the cache file cannot be opened.
+     */
+    static PersistentLinkCache open(final Path directory,
+                                    final String languageCode,
+                                    final LinkDirection direction,
+                                    final long timeToLiveMillis,
+                                    final long maximumSizeBytes)
+            throws IOException {
+
+        Files.createDirectories(directory);
+
+        final Path file =
+                directory.resolve(
+                        String.format(
+                                "%s-%s.log",
+                                languageCode,
+                                direction.getName()));
+
+        final PersistentLinkCache cache =
+                new PersistentLinkCache(file,
+                                        timeToLiveMillis,
+                                        maximumSizeBytes);
+        cache.load();
+        return cache;
+    }
+
+    /**
+     * Returns the cached neighbor titles of {@code title}, or {@code null} if
+     * there is no live record of {@code title}. I/O failures are reported as
+     * misses.
+     *
+     * @param title the title of the article.
+     *
+     * @return the list of neighbor titles or {@code null}.
+     */
+    List<String> get(final String title) {
+        lock.readLock().lock();
+
+        try {
+            final RecordEntry entry = index.get(title);
+
+            if (entry == null || isExpired(entry, System.currentTimeMillis())) {
+                return null;
+            }
+
+            final ByteBuffer buffer = ByteBuffer.allocate(entry.payloadLength);
+            final long payloadOffset = entry.offset + RECORD_HEADER_LENGTH;
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer,
+                                 payloadOffset + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+
+            return readNeighbors(buffer.array());
+        } catch (final IOException ex) {
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores the neighbor titles of {@code title}. I/O failures are ignored
+     * since the cache is only an optimization.
+     *
+     * @param title     the title of the article.
+     * @param neighbors the neighbor titles of {@code title}.
+     */
+    void put(final String title, final List<String> neighbors) {
+        final long timestamp = System.currentTimeMillis();
+        final byte[] record;
+
+        try {
+            record = toRecord(title, neighbors, timestamp);
+        } catch (final IOException ex) {
+            // Once here, a title is too long to be encoded:
+            return;
+        }
+
+        lock.writeLock().lock();
+
+        try {
+            final long offset = size;
+            final ByteBuffer buffer = ByteBuffer.wrap(record);
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+
+            size += record.length;
+            index.put(title,
+                      new RecordEntry(offset,
+                                      record.length - RECORD_HEADER_LENGTH,
+                                      timestamp));
+
+            if (size > maximumSizeBytes && !compacting) {
+                startCompaction();
+            }
+        } catch (final IOException ex) {
+
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of titles having a record in this cache. Expired
+     * records are counted until the next compaction.
+     *
+     * @return the number of cached titles.
+     */
+    int size() {
+        lock.readLock().lock();
+
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes and closes the underlying record file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Opens the record file and rebuilds the index by scanning it. A torn
+     * record at the end of the file (for example, due to a crash in the middle
+     * of an append) is truncated away, and so is a record whose title cannot
+     * be decoded, along with all the records after it.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    private void load() throws IOException {
+        channel = openChannel();
+        index.clear();
+
+        final long fileSize = channel.size();
+        final long now = System.currentTimeMillis();
+        final InputStream inputStream =
+                new BufferedInputStream(
+                        Channels.newInputStream(channel.position(0)));
+
+        final DataInputStream dataInputStream =
+                new DataInputStream(inputStream);
+
+        long offset = 0L;
+
+        while (offset + RECORD_HEADER_LENGTH <= fileSize) {
+            final RecordEntry entry;
+            final String title;
+
+            try {
+                if (dataInputStream.readInt() != RECORD_MAGIC) {
+                    break;
+                }
+
+                final int payloadLength = dataInputStream.readInt();
+                final long timestamp = dataInputStream.readLong();
+
+                if (payloadLength < 0 ||
+                    offset + RECORD_HEADER_LENGTH + payloadLength > fileSize) {
+                    break;
+                }
+
+                final byte[] payload = new byte[payloadLength];
+                dataInputStream.readFully(payload);
+                title = readTitle(payload);
+                entry = new RecordEntry(offset, payloadLength, timestamp);
+            } catch (final EOFException | UTFDataFormatException ex) {
+                break;
+            }
+
+            if (!isExpired(entry, now)) {
+                index.put(title, entry);
+            } else {
+                index.remove(title);
+            }
+
+            offset += RECORD_HEADER_LENGTH + entry.payloadLength;
+        }
+
+        if (offset < fileSize) {
+            channel.truncate(offset);
+        }
+
+        size = offset;
+
+        if (size > maximumSizeBytes) {
+            startCompaction();
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(file,
+                                StandardOpenOption.CREATE,
+                                StandardOpenOption.READ,
+                                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Starts compacting the record file in a background thread. Must be 
+     * called while holding the write lock or before the cache is shared.
+     */
+    private void startCompaction() {
+        compacting = true;
+        Thread.ofVirtual().start(this::compact);
+    }
+
+    /**
+     * Compacts the record file. Failures leave the original file in place,
+     * since the cache is only an optimization.
+     */
+    private void compact() {
+        final Path temporaryFile =
+                file.resolveSibling(file.getFileName() + ".compact");
+
+        try {
+            rewrite(temporaryFile);
+        } catch (final IOException ex) {
+
+        } finally {
+            lock.writeLock().lock();
+
+            try {
+                compacting = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            try {
+                Files.deleteIfExists(temporaryFile);
+            } catch (final IOException ex) {
+
+            }
+        }
+    }
+
+    /**
+     * Rewrites the record file keeping only the newest live records that fit
+     * in the compaction target size. The records are copied without holding
+     * the lock; only the records appended meanwhile are copied under the 
+     * write lock, right before the rewritten file replaces the original one.
+     *
+     * @param temporaryFile the file to rewrite the records to.
+     *
+     * @throws IOException if the file cannot be rewritten.
+     */
+    private void rewrite(final Path temporaryFile) throws IOException {
+        final long now = System.currentTimeMillis();
+        final long targetSize = (long)(maximumSizeBytes * COMPACTION_TARGET_RATIO);
+        final List<Map.Entry<String, RecordEntry>> liveEntries =
+                new ArrayList<>();
+
+        final FileChannel source;
+        final long snapshotSize;
+
+        lock.readLock().lock();
+
+        try {
+            if (!channel.isOpen()) {
+                return;
+            }
+
+            source = channel;
+            snapshotSize = size;
+
+            for (final Map.Entry<String, RecordEntry> mapEntry
+                    : index.entrySet()) {
+                if (!isExpired(mapEntry.getValue(), now)) {
+                    liveEntries.add(
+                            new AbstractMap.SimpleImmutableEntry<>(mapEntry));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Newest records first:
+        Collections.sort(
+                liveEntries,
+                (a, b) -> Long.compare(b.getValue().timestamp,
+                                       a.getValue().timestamp));
+
+        final Map<String, RecordEntry> copiedIndex = new HashMap<>();
+        long newSize = 0L;
+
+        try (FileChannel target =
+                FileChannel.open(temporaryFile,
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.TRUNCATE_EXISTING,
+                                 StandardOpenOption.WRITE)) {
+
+            for (final Map.Entry<String, RecordEntry> mapEntry : liveEntries) {
+                final RecordEntry entry = mapEntry.getValue();
+                final long recordLength =
+                        RECORD_HEADER_LENGTH + entry.payloadLength;
+
+                if (newSize + recordLength > targetSize) {
+                    break;
+                }
+
+                transfer(source, entry.offset, recordLength, target);
+                copiedIndex.put(mapEntry.getKey(),
+                                new RecordEntry(newSize,
+                                                entry.payloadLength,
+                                                entry.timestamp));
+                newSize += recordLength;
+            }
+        }
+
+        lock.writeLock().lock();
+
+        try {
+            if (!channel.isOpen()) {
+                // Closed meanwhile:
+                return;
+            }
+
+            final long appendedSize = size - snapshotSize;
+
+            try (FileChannel target =
+                    FileChannel.open(temporaryFile,
+                                     StandardOpenOption.WRITE)) {
+                target.position(newSize);
+                transfer(channel, snapshotSize, appendedSize, target);
+                target.force(false);
+            }
+
+            final Map<String, RecordEntry> newIndex = 
+                    new HashMap<>(index.size());
+
+            for (final Map.Entry<String, RecordEntry> mapEntry 
+                    : index.entrySet()) {
+                final RecordEntry entry = mapEntry.getValue();
+
+                if (entry.offset >= snapshotSize) {
+                    // Appended during the compaction:
+                    newIndex.put(mapEntry.getKey(),
+                                 new RecordEntry(
+                                         entry.offset - snapshotSize + newSize,
+                                         entry.payloadLength,
+                                         entry.timestamp));
+                } else {
+                    final RecordEntry copiedEntry = 
+                            copiedIndex.get(mapEntry.getKey());
+
+                    if (copiedEntry != null) {
+                        newIndex.put(mapEntry.getKey(), copiedEntry);
+                    }
+                }
+            }
+
+            channel.close();
+
+            try {
+                Files.move(temporaryFile,
+                           file,
+                           StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (final IOException ex) {
+                // The original file is still in place; keep serving it:
+                channel = openChannel();
+                throw ex;
+            }
+
+            channel = openChannel();
+            index.clear();
+            index.putAll(newIndex);
+            size = newSize + appendedSize;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends {@code length} bytes of {@code source} starting at 
+     * {@code position} to {@code target}. A single transfer may copy fewer 
+     * bytes than requested.
+     */
+    private static void transfer(final FileChannel source,
+                                 final long position,
+                                 final long length,
+                                 final FileChannel target) throws IOException {
+        long transferred = 0L;
+
+        while (transferred < length) {
+            final long count = source.transferTo(position + transferred,
+                                                 length - transferred,
+                                                 target);
+            if (count <= 0L) {
+                throw new EOFException(
+                        String.format(
+                                "Could not copy %d bytes at offset %d.",
+                                length - transferred,
+                                position + transferred));
+            }
+
+            transferred += count;
+        }
+    }
+
+    private boolean isExpired(final RecordEntry entry, final long now) {
+        return now - entry.timestamp > timeToLiveMillis;
+    }
+
+    private static byte[] toRecord(final String title,
+                                   final List<String> neighbors,
+                                   final long timestamp) throws IOException {
+
+        final ByteArrayOutputStream byteArrayOutputStream =
+                new ByteArrayOutputStream();
+
+        final DataOutputStream dataOutputStream =
+                new DataOutputStream(byteArrayOutputStream);
+
+        // Reserve the room for the header:
+        dataOutputStream.writeInt(RECORD_MAGIC);
+        dataOutputStream.writeInt(0);
+        dataOutputStream.writeLong(timestamp);
+
+        dataOutputStream.writeUTF(title);
+        dataOutputStream.writeInt(neighbors.size());
+
+        for (final String neighbor : neighbors) {
+            dataOutputStream.writeUTF(neighbor);
+        }
+
+        dataOutputStream.flush();
+
+        final byte[] record = byteArrayOutputStream.toByteArray();
+
+        ByteBuffer.wrap(record)
+                  .putInt(4, record.length - RECORD_HEADER_LENGTH);
+
+        return record;
+    }
+
+    private static String readTitle(final byte[] payload) throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(payload)).readUTF();
+    }
+
+    private static List<String> readNeighbors(final byte[] payload)
+            throws IOException {
+
+        final DataInputStream dataInputStream =
+                new DataInputStream(new ByteArrayInputStream(payload));
+
+        dataInputStream.readUTF(); // Skip the title.
+        final int numberOfNeighbors = dataInputStream.readInt();
+        final List<String> neighbors = new ArrayList<>(numberOfNeighbors);
+
+        for (int i = 0; i < numberOfNeighbors; i++) {
+            neighbors.add(dataInputStream.readUTF());
+        }
+
+        return neighbors;
+    }
+
+    /**
+     * Describes the location and age of a single record in the file.
+     */
+    private static final class RecordEntry {
+
+        final long offset;
+        final int payloadLength;
+        final long timestamp;
+
+        RecordEntry(final long offset,
+                    final int payloadLength,
+                    final long timestamp) {
+            this.offset = offset;
+            this.payloadLength = payloadLength;
+            this.timestamp = timestamp;
+        }
+    }
+}
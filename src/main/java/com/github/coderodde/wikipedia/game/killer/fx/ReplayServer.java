@@ -0,0 +1,785 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a local stand-in of the Wikipedia API replaying an
+ * archive recorded by the {@link ApiRecorder}. It makes the load tests
+ * reproducible: the same searches see the same link graph, and the latency,
+ * its jitter and the rate limiting are under control.
+ * <p>
+ * The API of the language {@code fi} is served at {@code /fi/w/api.php}.
+ * The link queries ({@code prop=links} and {@code prop=linkshere}) are
+ * answered from the recorded links in the format version 2 used by the
+ * {@link WikipediaApiClient}, all in a single response unless a page size
+ * is given, in which case the links are paged with continuation tokens like
+ * the real API pages them; an article missing from the archive is reported
+ * as missing. The forward links may be filtered by {@code pltitles}, and 
+ * the titles may be generated as the forward links of the given titles 
+ * ({@code generator=links}, up to {@value #GENERATOR_LIMIT} titles without 
+ * continuation). The random article queries
+ * ({@code list=random}) return the recorded responses in turn, or two random
+ * recorded articles if there are none.
+ * <p>
+ * Point the application at the stand-in with
+ * <pre>
+ * java -Dwikigamekiller.apiBaseUrl=http://localhost:8081 ... Main
+ * </pre>
+ * Usage:
+ * <pre>
+ * java ... Main --replay [OPTIONS] ARCHIVE
+ * </pre>
+ */
+public final class ReplayServer {
+
+    private static final String USAGE =
+            "Usage: Main --replay [OPTIONS] ARCHIVE\n" +
+            "Replays the Wikipedia API responses recorded in ARCHIVE.\n\n" +
+            "Options:\n" +
+            "  --port N               The port to listen to (default: " +
+            "8081).\n" +
+            "  --latency N            The latency of a response in ms " +
+            "(default: 0).\n" +
+            "  --jitter N             The maximum random extra latency in " +
+            "ms (default: 0).\n" +
+            "  --throttle-rate P      The probability of responding with " +
+            "429 Too Many\n" +
+            "                         Requests (default: 0.0).\n" +
+            "  --retry-after N        The Retry-After of a 429 response in " +
+            "seconds\n" +
+            "                         (default: 1).\n" +
+            "  --page-size N          The maximum number of links per " +
+            "response, 0 for\n" +
+            "                         all (default: 0). The API gives " +
+            "500.";
+
+    private static final String NO_DELAY_PROPERTY =
+            "sun.net.httpserver.nodelay";
+
+    private static final int STATUS_OK = 200;
+    private static final int STATUS_BAD_REQUEST = 400;
+    private static final int STATUS_NOT_FOUND = 404;
+    private static final int STATUS_METHOD_NOT_ALLOWED = 405;
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * The maximum number of the titles generated by {@code generator=links}.
+     */
+    static final int GENERATOR_LIMIT = 500;
+
+    private int port = 8081;
+    private int latency;
+    private int jitter;
+    private double throttleRate;
+    private int retryAfter = 1;
+
+    /**
+     * The maximum number of links per response, or zero for no limit.
+     */
+    private int pageSize;
+    private String archiveFile;
+
+    /**
+     * Maps a language code, a link direction and an article title to the
+     * recorded links of the article.
+     */
+    private final Map<String, List<String>> linkMap = new HashMap<>();
+
+    /**
+     * Maps a language code to the recorded random article responses.
+     */
+    private final Map<String, List<String>> randomResponseMap =
+            new HashMap<>();
+
+    /**
+     * Maps a language code to all the recorded titles of the language.
+     */
+    private final Map<String, List<String>> titleMap = new HashMap<>();
+
+    private final Map<String, AtomicLong> randomResponseIndexMap =
+            new ConcurrentHashMap<>();
+
+    private final AtomicLong numberOfRequests = new AtomicLong();
+    private final AtomicLong numberOfThrottledRequests = new AtomicLong();
+    private final AtomicLong numberOfMissingTitles = new AtomicLong();
+    private final Gson gson = new Gson();
+
+    private HttpServer server;
+
+    public static void main(final String[] args) throws IOException {
+        final ReplayServer replayServer = new ReplayServer();
+
+        try {
+            if (!replayServer.parseArguments(args)) {
+                System.out.println(USAGE);
+                return;
+            }
+        } catch (final IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        replayServer.load(Paths.get(replayServer.archiveFile));
+        replayServer.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            replayServer.stop();
+        }));
+    }
+
+    /**
+     * Constructs a stand-in server for embedding, for example, into a
+     * benchmark.
+     *
+     * @param port         the port to listen to, or zero for any free port.
+     * @param latency      the latency of a response in milliseconds.
+     * @param jitter       the maximum random extra latency in milliseconds.
+     * @param throttleRate the probability of a 429 response.
+     */
+    ReplayServer(final int port,
+                 final int latency,
+                 final int jitter,
+                 final double throttleRate) {
+        this.port = port;
+        this.latency = latency;
+        this.jitter = jitter;
+        this.throttleRate = throttleRate;
+    }
+
+    private ReplayServer() {
+
+    }
+
+    /**
+     * Sets the maximum number of links per response.
+     *
+     * @param pageSize the page size, or zero for no limit.
+     */
+    void setPageSize(final int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Adds the links of an article to replay.
+     *
+     * @param languageCode the language code of the article.
+     * @param direction    the link direction.
+     * @param title        the title of the article.
+     * @param links        the neighbor titles in the URL form.
+     */
+    void putLinks(final String languageCode,
+                  final LinkDirection direction,
+                  final String title,
+                  final List<String> links) {
+
+        final String normalizedTitle = CsrLinkGraph.normalizeTitle(title);
+
+        // Only the articles with links are offered as random articles:
+        if (linkMap.put(getKey(languageCode, direction, normalizedTitle),
+                        links) == null &&
+                direction == LinkDirection.FORWARD &&
+                !links.isEmpty()) {
+            titleMap.computeIfAbsent(languageCode, (l) -> new ArrayList<>())
+                    .add(normalizedTitle);
+        }
+    }
+
+    /**
+     * Returns the titles of the replayed articles with forward links.
+     *
+     * @param languageCode the language code of the articles.
+     *
+     * @return the list of titles.
+     */
+    List<String> getTitles(final String languageCode) {
+        return titleMap.getOrDefault(languageCode, new ArrayList<>());
+    }
+
+    /**
+     * Loads an archive. The later records of an article override the
+     * earlier ones.
+     *
+     * @param file the archive file.
+     *
+     * @throws IOException if the archive cannot be read.
+     */
+    void load(final Path file) throws IOException {
+        final long records = ApiRecorder.read(file, (record) -> {
+            final String type = record.get("type").getAsString();
+            final String languageCode = record.get("language").getAsString();
+
+            if (type.equals(ApiRecorder.TYPE_RANDOM)) {
+                randomResponseMap.computeIfAbsent(languageCode,
+                                                  (l) -> new ArrayList<>())
+                                 .add(record.get("response").getAsString());
+                return;
+            }
+
+            final List<String> links = new ArrayList<>();
+
+            for (final JsonElement link : record.getAsJsonArray("links")) {
+                links.add(link.getAsString());
+            }
+
+            putLinks(languageCode,
+                     record.get("direction").getAsString()
+                           .equals(LinkDirection.FORWARD.getName()) ?
+                             LinkDirection.FORWARD :
+                             LinkDirection.BACKWARD,
+                     record.get("title").getAsString(),
+                     links);
+        });
+
+        System.err.printf("Loaded %d records, %d link lists.\n",
+                          records,
+                          linkMap.size());
+    }
+
+    /**
+     * Starts serving.
+     *
+     * @return the port listened to.
+     *
+     * @throws IOException if the server cannot be started.
+     */
+    int start() throws IOException {
+        // Without this, the response headers and body are written in
+        // separate segments and the delayed acknowledgement of the former
+        // adds tens of milliseconds to every response:
+        System.setProperty(NO_DELAY_PROPERTY, "true");
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+
+        // The handlers mostly sleep the injected latency:
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handleRequest);
+        server.start();
+
+        port = server.getAddress().getPort();
+        System.err.printf("Replaying on port %d.\n", port);
+        return port;
+    }
+
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+
+        System.err.printf(
+                "[STATISTICS] Requests: %d, throttled: %d, missing titles: " +
+                "%d.\n",
+                numberOfRequests.get(),
+                numberOfThrottledRequests.get(),
+                numberOfMissingTitles.get());
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args the command line arguments.
+     *
+     * @return {@code false} if the usage was requested.
+     */
+    private boolean parseArguments(final String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+
+            if (arg.equals("--help") || arg.equals("-h")) {
+                return false;
+            }
+
+            if (!arg.startsWith("--")) {
+                if (archiveFile != null) {
+                    throw new IllegalArgumentException(
+                            "More than one archive given.");
+                }
+
+                archiveFile = arg;
+                continue;
+            }
+
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException(
+                        String.format("Missing the value of %s.", arg));
+            }
+
+            final String value = args[++i];
+
+            switch (arg) {
+                case "--port":
+                    port = SearchService.parseInt(arg, value, 1);
+                    break;
+
+                case "--latency":
+                    latency = SearchService.parseInt(arg, value, 0);
+                    break;
+
+                case "--jitter":
+                    jitter = SearchService.parseInt(arg, value, 0);
+                    break;
+
+                case "--throttle-rate":
+                    throttleRate = parseProbability(arg, value);
+                    break;
+
+                case "--retry-after":
+                    retryAfter = SearchService.parseInt(arg, value, 0);
+                    break;
+
+                case "--page-size":
+                    pageSize = SearchService.parseInt(arg, value, 0);
+                    break;
+
+                default:
+                    throw new IllegalArgumentException(
+                            String.format("Unknown option: %s.", arg));
+            }
+        }
+
+        if (archiveFile == null) {
+            throw new IllegalArgumentException("No archive given.");
+        }
+
+        return true;
+    }
+
+    private void handleRequest(final HttpExchange exchange)
+            throws IOException {
+
+        numberOfRequests.incrementAndGet();
+
+        final String method = exchange.getRequestMethod();
+
+        if (!method.equals("GET") && !method.equals("POST")) {
+            sendText(exchange, STATUS_METHOD_NOT_ALLOWED, "Use GET or POST.");
+            return;
+        }
+
+        final String[] pathParts =
+                exchange.getRequestURI().getPath().split("/");
+
+        // "/fi/w/api.php" splits into "", "fi", "w" and "api.php":
+        if (pathParts.length != 4 ||
+                !pathParts[2].equals("w") ||
+                !pathParts[3].equals("api.php")) {
+            sendText(exchange, STATUS_NOT_FOUND, "No such resource.");
+            return;
+        }
+
+        final String languageCode = pathParts[1];
+        final Map<String, String> parameters = new HashMap<>();
+
+        parseParameters(exchange.getRequestURI().getRawQuery(), parameters);
+
+        try (final InputStream inputStream = exchange.getRequestBody()) {
+            parseParameters(
+                    new String(inputStream.readAllBytes(),
+                               StandardCharsets.UTF_8),
+                    parameters);
+        }
+
+        sleepLatency();
+
+        if (throttleRate > 0.0 &&
+                ThreadLocalRandom.current().nextDouble() < throttleRate) {
+            numberOfThrottledRequests.incrementAndGet();
+            exchange.getResponseHeaders()
+                    .set("Retry-After", Integer.toString(retryAfter));
+            sendText(exchange,
+                     STATUS_TOO_MANY_REQUESTS,
+                     "You are making too many requests.");
+            return;
+        }
+
+        final String body;
+
+        if ("random".equals(parameters.get("list"))) {
+            body = getRandomArticles(languageCode);
+        } else if ("links".equals(parameters.get("generator"))) {
+            body = "links".equals(parameters.get("prop")) ?
+                   getLinks(languageCode,
+                            LinkDirection.FORWARD,
+                            generateTitles(languageCode,
+                                           parameters.get("titles")),
+                            parameters.get(getContinueParameterName(
+                                    LinkDirection.FORWARD)),
+                            parameters.get("pltitles"),
+                            true) :
+                   null;
+        } else if ("links".equals(parameters.get("prop"))) {
+            body = getLinks(languageCode,
+                            LinkDirection.FORWARD,
+                            parameters.get("titles"),
+                            parameters.get(getContinueParameterName(
+                                    LinkDirection.FORWARD)),
+                            parameters.get("pltitles"),
+                            false);
+        } else if ("linkshere".equals(parameters.get("prop"))) {
+            body = getLinks(languageCode,
+                            LinkDirection.BACKWARD,
+                            parameters.get("titles"),
+                            parameters.get(getContinueParameterName(
+                                    LinkDirection.BACKWARD)),
+                            null,
+                            false);
+        } else {
+            body = null;
+        }
+
+        if (body == null) {
+            sendText(exchange, STATUS_BAD_REQUEST, "Unsupported query.");
+            return;
+        }
+
+        send(exchange, STATUS_OK, "application/json; charset=utf-8", body);
+    }
+
+    /**
+     * Returns the recorded forward links of the {@code titles}, at most
+     * {@value #GENERATOR_LIMIT} of them, as a {@code titles} parameter.
+     */
+    private String generateTitles(final String languageCode,
+                                  final String titles) {
+        if (titles == null) {
+            return null;
+        }
+
+        final Set<String> generatedTitles = new LinkedHashSet<>();
+
+        for (final String title : titles.split("\\|")) {
+            final List<String> links =
+                    linkMap.get(getKey(languageCode,
+                                       LinkDirection.FORWARD,
+                                       title.replace(' ', '_')));
+
+            if (links == null) {
+                continue;
+            }
+
+            for (final String link : links) {
+                if (generatedTitles.size() == GENERATOR_LIMIT) {
+                    break;
+                }
+
+                generatedTitles.add(CsrLinkGraph.normalizeTitle(link));
+            }
+        }
+
+        return String.join("|", generatedTitles);
+    }
+
+    /**
+     * Assembles the response to a link query. The titles and links are
+     * returned in the API form, {@code Turun linna}. With a page size, the 
+     * response holds the links of the titles from the offset given by the 
+     * continuation token on, at most the page size of them. Given a link 
+     * filter, only the links to the titles in it are returned. The generated
+     * titles are never reported as missing, since only the forward links of
+     * some of them are recorded.
+     */
+    private String getLinks(final String languageCode,
+                            final LinkDirection direction,
+                            final String titles,
+                            final String continueValue,
+                            final String linkFilter,
+                            final boolean generated) {
+        if (titles == null) {
+            return null;
+        }
+
+        final Set<String> linkFilterSet;
+
+        if (linkFilter == null) {
+            linkFilterSet = null;
+        } else {
+            linkFilterSet = new HashSet<>();
+
+            for (final String title : linkFilter.split("\\|")) {
+                linkFilterSet.add(title.replace(' ', '_'));
+            }
+        }
+
+        final int offset;
+
+        try {
+            offset = continueValue == null ?
+                     0 :
+                     Integer.parseInt(continueValue);
+        } catch (final NumberFormatException ex) {
+            return null;
+        }
+
+        final int end =
+                pageSize == 0 ?
+                Integer.MAX_VALUE :
+                (int) Math.min(Integer.MAX_VALUE, (long) offset + pageSize);
+
+        // The index of the first link of the current title among the links
+        // of all the titles:
+        int linkIndex = 0;
+
+        final String linksPropertyName =
+                direction == LinkDirection.FORWARD ? "links" : "linkshere";
+
+        final JsonArray pageArray = new JsonArray();
+
+        for (final String title : titles.split("\\|")) {
+            if (title.isEmpty()) {
+                continue;
+            }
+
+            final String normalizedTitle = title.replace(' ', '_');
+            final List<String> links =
+                    filterLinks(linkMap.get(getKey(languageCode,
+                                                   direction,
+                                                   normalizedTitle)),
+                                linkFilterSet);
+
+            final JsonObject page = new JsonObject();
+            page.addProperty("ns", 0);
+            page.addProperty("title", normalizedTitle.replace('_', ' '));
+
+            if (links == null && generated) {
+                pageArray.add(page);
+                continue;
+            }
+
+            if (links == null) {
+                if (offset == 0) {
+                    numberOfMissingTitles.incrementAndGet();
+                }
+
+                page.addProperty("missing", true);
+                pageArray.add(page);
+                continue;
+            }
+
+            final int from = Math.max(0, offset - linkIndex);
+            final int to = (int) Math.max(from,
+                                          Math.min(links.size(),
+                                                   (long) end - linkIndex));
+
+            linkIndex += links.size();
+
+            if (from == to) {
+                pageArray.add(page);
+                continue;
+            }
+
+            final JsonArray linkArray = new JsonArray(to - from);
+
+            for (final String link : links.subList(from, to)) {
+                final JsonObject linkObject = new JsonObject();
+                linkObject.addProperty("ns", 0);
+                linkObject.addProperty(
+                        "title",
+                        CsrLinkGraph.normalizeTitle(link).replace('_', ' '));
+
+                linkArray.add(linkObject);
+            }
+
+            page.add(linksPropertyName, linkArray);
+            pageArray.add(page);
+        }
+
+        final JsonObject query = new JsonObject();
+        query.add("pages", pageArray);
+
+        final JsonObject root = new JsonObject();
+
+        if (linkIndex > end) {
+            final JsonObject continueObject = new JsonObject();
+            continueObject.addProperty(getContinueParameterName(direction),
+                                       Integer.toString(end));
+            continueObject.addProperty("continue", "||");
+            root.add("continue", continueObject);
+        } else {
+            root.addProperty("batchcomplete", true);
+        }
+
+        root.add("query", query);
+
+        return gson.toJson(root);
+    }
+
+    private static List<String> filterLinks(final List<String> links,
+                                            final Set<String> linkFilterSet) {
+        if (links == null || linkFilterSet == null) {
+            return links;
+        }
+
+        final List<String> filteredLinks = new ArrayList<>();
+
+        for (final String link : links) {
+            if (linkFilterSet.contains(CsrLinkGraph.normalizeTitle(link))) {
+                filteredLinks.add(link);
+            }
+        }
+
+        return filteredLinks;
+    }
+
+    /**
+     * Returns the next recorded random article response of the language,
+     * or a response naming two random recorded articles.
+     */
+    private String getRandomArticles(final String languageCode) {
+        final List<String> responses = randomResponseMap.get(languageCode);
+
+        if (responses != null) {
+            final long index =
+                    randomResponseIndexMap
+                            .computeIfAbsent(languageCode,
+                                             (l) -> new AtomicLong())
+                            .getAndIncrement();
+
+            return responses.get((int) (index % responses.size()));
+        }
+
+        final List<String> titles = titleMap.get(languageCode);
+
+        if (titles == null) {
+            return null;
+        }
+
+        final JsonArray randomArray = new JsonArray(2);
+
+        for (int i = 0; i < 2; i++) {
+            final JsonObject article = new JsonObject();
+            article.addProperty("ns", 0);
+            article.addProperty(
+                    "title",
+                    titles.get(ThreadLocalRandom.current()
+                                                .nextInt(titles.size()))
+                          .replace('_', ' '));
+
+            randomArray.add(article);
+        }
+
+        final JsonObject query = new JsonObject();
+        query.add("random", randomArray);
+
+        final JsonObject root = new JsonObject();
+        root.add("query", query);
+
+        return gson.toJson(root);
+    }
+
+    private void sleepLatency() {
+        final int delay =
+                latency +
+                (jitter == 0 ? 0 : ThreadLocalRandom.current()
+                                                    .nextInt(jitter + 1));
+
+        if (delay == 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(delay);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sendText(final HttpExchange exchange,
+                                 final int status,
+                                 final String text) throws IOException {
+        send(exchange, status, "text/plain; charset=utf-8", text);
+    }
+
+    private static void send(final HttpExchange exchange,
+                             final int status,
+                             final String contentType,
+                             final String text) throws IOException {
+
+        final byte[] body = text.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (final OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static void parseParameters(final String form,
+                                        final Map<String, String> parameters) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+
+        for (final String pair : form.split("&")) {
+            final int equalsIndex = pair.indexOf('=');
+
+            if (equalsIndex <= 0) {
+                continue;
+            }
+
+            parameters.put(
+                    URLDecoder.decode(pair.substring(0, equalsIndex),
+                                      StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equalsIndex + 1),
+                                      StandardCharsets.UTF_8));
+        }
+    }
+
+    private static double parseProbability(final String option,
+                                           final String value) {
+        final double probability;
+
+        try {
+            probability = Double.parseDouble(value);
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                    String.format("%s expects a number: %s.", option, value));
+        }
+
+        if (probability < 0.0 || probability > 1.0) {
+            throw new IllegalArgumentException(
+                    String.format("%s must be within [0, 1]: %s.",
+                                  option,
+                                  value));
+        }
+
+        return probability;
+    }
+
+    private static String getContinueParameterName(
+            final LinkDirection direction) {
+        return direction == LinkDirection.FORWARD ?
+               "plcontinue" :
+               "lhcontinue";
+    }
+
+    private static String getKey(final String languageCode,
+                                 final LinkDirection direction,
+                                 final String title) {
+        return languageCode + "|" + direction.getName() + "|" + title;
+    }
+}
@@ -0,0 +1,245 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class schedules the API requests sent to a host. All the requests to
+ * a host, whichever search or expander sends them, draw from a single token
+ * bucket, so their rate stays under a ceiling. A throttled request pauses
+ * the whole host for the time given by the server in {@code Retry-After},
+ * since the server throttles the client rather than a single request.
+ * <p>
+ * The tokens are reserved in advance: a request arriving at an empty bucket
+ * reserves the next free token and waits for it without holding a thread.
+ * The rate is {@value #DEFAULT_REQUEST_RATE} requests per second unless
+ * given in the system property {@value #REQUEST_RATE_PROPERTY}; the rate
+ * zero means no limit.
+ */
+final class RequestScheduler {
+
+    /**
+     * The system property holding the maximum number of requests per second
+     * to a host.
+     */
+    static final String REQUEST_RATE_PROPERTY = "wikigamekiller.requestRate";
+
+    static final int DEFAULT_REQUEST_RATE = 100;
+
+    /**
+     * The maximum number of attempts of a request, the first one included.
+     */
+    static final int MAXIMUM_ATTEMPTS = 6;
+
+    /**
+     * The backoff before the first retry, doubled for each further retry.
+     */
+    private static final long INITIAL_BACKOFF_MILLIS = 250L;
+
+    private static final long MAXIMUM_BACKOFF_MILLIS = 30_000L;
+
+    /**
+     * Maps the hosts to their schedulers.
+     */
+    private static final Map<String, RequestScheduler> SCHEDULERS =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The time between two tokens, or zero if the rate is not limited.
+     */
+    private final long intervalNanos;
+
+    /**
+     * The maximum number of stored tokens, that is, the maximum burst.
+     */
+    private final double maximumTokens;
+    private double storedTokens;
+
+    /**
+     * The time at which the next token is free. Later than now if tokens
+     * are reserved in advance or the host is paused.
+     */
+    private long nextFreeTokenNanos = System.nanoTime();
+
+    /**
+     * Constructs a scheduler.
+     *
+     * @param requestRate the maximum number of requests per second, or zero
+     *                    for no limit.
+     */
+    RequestScheduler(final int requestRate) {
+        if (requestRate < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Negative request rate: %d.", requestRate));
+        }
+
+        this.intervalNanos = requestRate == 0 ?
+                             0L :
+                             TimeUnit.SECONDS.toNanos(1L) / requestRate;
+
+        this.maximumTokens = Math.max(1, requestRate);
+        this.storedTokens = maximumTokens;
+    }
+
+    /**
+     * Returns the scheduler shared by all the requests to {@code host}.
+     *
+     * @param host the host, with the port if any.
+     *
+     * @return the scheduler of the host.
+     */
+    static RequestScheduler getInstance(final String host) {
+        return SCHEDULERS.computeIfAbsent(
+                host,
+                (h) -> new RequestScheduler(getRequestRate()));
+    }
+
+    private static int getRequestRate() {
+        final String requestRate = System.getProperty(REQUEST_RATE_PROPERTY);
+
+        if (requestRate == null || requestRate.isBlank()) {
+            return DEFAULT_REQUEST_RATE;
+        }
+
+        try {
+            return Math.max(0, Integer.parseInt(requestRate.trim()));
+        } catch (final NumberFormatException ex) {
+            return DEFAULT_REQUEST_RATE;
+        }
+    }
+
+    /**
+     * Returns the backoff before the given retry: exponential in the number
+     * of the retry, with a random half to spread the retries of the
+     * requests failed at the same time.
+     *
+     * @param retry the number of the retry, starting from zero.
+     *
+     * @return the backoff in milliseconds.
+     */
+    static long getBackoffMillis(final int retry) {
+        final long backoff =
+                Math.min(MAXIMUM_BACKOFF_MILLIS,
+                         INITIAL_BACKOFF_MILLIS << Math.min(retry, 20));
+
+        return backoff / 2 +
+               ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * Reserves a token for a request.
+     *
+     * @return the future completing once the request may be sent.
+     */
+    CompletableFuture<Void> acquire() {
+        final long delayNanos = reserve();
+
+        if (delayNanos == 0L) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return CompletableFuture.runAsync(
+                () -> {},
+                CompletableFuture.delayedExecutor(delayNanos,
+                                                  TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Reserves a token for a request, blocking until the request may be
+     * sent.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    void acquireBlocking() throws InterruptedException {
+        final long delayNanos = reserve();
+
+        if (delayNanos > 0L) {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        }
+    }
+
+    /**
+     * Runs a blocking request to the host, drawing a token for each attempt
+     * and retrying the failed attempts after a backoff. This is meant for
+     * the requests sent by the library expanders, whose failures cannot be
+     * told apart; the {@link WikipediaApiClient} retries only the failures
+     * worth retrying.
+     *
+     * @param <T>     the type of the result.
+     * @param request the request.
+     *
+     * @return the result of the first successful attempt.
+     *
+     * @throws Exception the failure of the last attempt, or an
+     *                   {@link InterruptedException} if interrupted.
+     */
+    <T> T call(final Callable<T> request) throws Exception {
+        for (int retry = 0; ; retry++) {
+            acquireBlocking();
+
+            try {
+                return request.call();
+            } catch (final InterruptedException ex) {
+                throw ex;
+            } catch (final Exception ex) {
+                if (retry + 1 >= MAXIMUM_ATTEMPTS) {
+                    throw ex;
+                }
+
+                Thread.sleep(getBackoffMillis(retry));
+            }
+        }
+    }
+
+    /**
+     * Holds back all the requests to the host for the given time. The
+     * stored tokens are dropped, so the requests resume at the steady rate
+     * rather than in a burst.
+     *
+     * @param millis the pause in milliseconds.
+     */
+    synchronized void pause(final long millis) {
+        final long pausedUntilNanos =
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+        if (pausedUntilNanos - nextFreeTokenNanos > 0L) {
+            nextFreeTokenNanos = pausedUntilNanos;
+            storedTokens = 0.0;
+        }
+    }
+
+    /**
+     * Reserves the next free token.
+     *
+     * @return the time to wait for the token in nanoseconds.
+     */
+    private synchronized long reserve() {
+        final long now = System.nanoTime();
+        final long delayNanos = Math.max(0L, nextFreeTokenNanos - now);
+
+        if (intervalNanos == 0L) {
+            return delayNanos;
+        }
+
+        if (delayNanos == 0L) {
+            // The tokens accumulated since the last free token:
+            storedTokens =
+                    Math.min(maximumTokens,
+                             storedTokens +
+                             (double) (now - nextFreeTokenNanos) /
+                             intervalNanos);
+
+            nextFreeTokenNanos = now;
+        }
+
+        final double spentTokens = Math.min(1.0, storedTokens);
+        storedTokens -= spentTokens;
+        nextFreeTokenNanos += (long) ((1.0 - spentTokens) * intervalNanos);
+
+        return delayNanos;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+/**
+ * This enumeration lists the search engines the user may choose from.
+ */
+enum SearchEngineType {
+
+    /**
+     * The {@code ThreadPoolBidirectionalBFSPathFinder} working on titles.
+     */
+    THREAD_POOL("Thread pool"),
+
+    /**
+     * The {@link IntBidirectionalBFSPathFinder} working on interned title 
+     * identifiers.
+     */
+    PRIMITIVE("Primitive (int IDs)"),
+
+    /**
+     * The {@link IntBidirectionalBFSPathFinder} expanding each layer 
+     * asynchronously via non-blocking HTTP requests.
+     */
+    ASYNCHRONOUS("Async HTTP/2"),
+
+    /**
+     * The {@link IntBidirectionalBFSPathFinder} running each expansion in a
+     * virtual thread of its own.
+     */
+    VIRTUAL_THREADS("Virtual threads"),
+
+    /**
+     * The {@link IntBidirectionalBFSPathFinder} running each expansion in a
+     * virtual thread of its own under an {@link AdaptiveConcurrencyLimit}.
+     */
+    ADAPTIVE("Auto (adaptive)");
+
+    /**
+     * The human-readable name of this engine.
+     */
+    private final String displayName;
+
+    private SearchEngineType(final String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This class implements the JFR event spanning a single shortest path
+ * search, from its start to its end. It is committed only while a recording
+ * enables it, so it costs next to nothing otherwise.
+ */
+@Name("com.github.coderodde.wikipedia.game.killer.fx.Search")
+@Label("Search")
+@Category({ "WikiGameKillerFX" })
+@Description("A shortest path search between two articles.")
+final class SearchEvent extends Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Target")
+    String target;
+
+    @Label("Path Finder")
+    String pathFinder;
+
+    @Label("Path Length")
+    @Description("The number of articles in the path; zero if none found.")
+    int pathLength;
+
+    @Label("Expanded Nodes")
+    int expandedNodes;
+
+    @Label("Failed Expansions")
+    @Description("The number of expansions whose links could not be " +
+                 "downloaded; if any, the result may not be a shortest path.")
+    int failedExpansions;
+}
@@ -0,0 +1,272 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class holds the metrics of the searches, the expanders and the API
+ * client, and serves them in the Prometheus text format at
+ * {@code http://localhost:PORT/metrics}. The metrics are enabled by giving
+ * the port in the system property {@value #METRICS_PORT_PROPERTY}:
+ * <pre>
+ * java -Dwikigamekiller.metricsPort=9404 ... Main
+ * </pre>
+ * The flag {@link #ENABLED} is a constant, so the recording call sites
+ * guarded by it are compiled away when the metrics are disabled.
+ */
+final class SearchMetrics {
+
+    /**
+     * The system property holding the port of the metrics endpoint.
+     */
+    static final String METRICS_PORT_PROPERTY = "wikigamekiller.metricsPort";
+
+    /**
+     * Tells whether the metrics are recorded at all.
+     */
+    static final boolean ENABLED =
+            System.getProperty(METRICS_PORT_PROPERTY) != null;
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private static final double[] SEARCH_DURATION_BUCKETS = {
+        0.1, 0.5, 1.0, 2.5, 5.0, 10.0, 30.0, 60.0, 120.0, 300.0
+    };
+
+    private static final double[] LATENCY_BUCKETS = {
+        0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0
+    };
+
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    private static final MetricsRegistry.Counter FOUND_SEARCHES =
+            REGISTRY.counter("wikigamekiller_searches_total",
+                             "The number of searches.",
+                             "result=\"found\"");
+
+    private static final MetricsRegistry.Counter NOT_FOUND_SEARCHES =
+            REGISTRY.counter("wikigamekiller_searches_total",
+                             "The number of searches.",
+                             "result=\"not_found\"");
+
+    private static final MetricsRegistry.Counter INCOMPLETE_SEARCHES =
+            REGISTRY.counter("wikigamekiller_incomplete_searches_total",
+                             "The number of searches with failed " +
+                             "expansions, whose results may not be " +
+                             "shortest paths.",
+                             "");
+
+    private static final MetricsRegistry.Histogram SEARCH_DURATION =
+            REGISTRY.histogram("wikigamekiller_search_duration_seconds",
+                               "The duration of the searches.",
+                               "",
+                               SEARCH_DURATION_BUCKETS);
+
+    private static final MetricsRegistry.Counter SEARCH_EXPANSIONS =
+            REGISTRY.counter("wikigamekiller_search_expanded_nodes_total",
+                             "The number of nodes expanded by the searches.",
+                             "");
+
+    /**
+     * The expansion counters indexed by the direction ordinal and the cache
+     * hit flag.
+     */
+    private static final MetricsRegistry.Counter[][] EXPANSIONS =
+            new MetricsRegistry.Counter[LinkDirection.values().length][2];
+
+    private static final MetricsRegistry.Counter[] FAILED_EXPANSIONS =
+            new MetricsRegistry.Counter[LinkDirection.values().length];
+
+    private static final MetricsRegistry.Counter[] NEIGHBORS =
+            new MetricsRegistry.Counter[LinkDirection.values().length];
+
+    private static final MetricsRegistry.Histogram[] EXPANSION_LATENCY =
+            new MetricsRegistry.Histogram[LinkDirection.values().length];
+
+    static {
+        for (final LinkDirection direction : LinkDirection.values()) {
+            final String directionLabel =
+                    "direction=\"" + direction.getName() + "\"";
+
+            for (int cacheHit = 0; cacheHit < 2; cacheHit++) {
+                EXPANSIONS[direction.ordinal()][cacheHit] =
+                        REGISTRY.counter(
+                                "wikigamekiller_expansions_total",
+                                "The number of online link expansions.",
+                                directionLabel + ",cache=\"" +
+                                        (cacheHit == 1 ? "hit" : "miss") +
+                                        "\"");
+            }
+
+            FAILED_EXPANSIONS[direction.ordinal()] =
+                    REGISTRY.counter(
+                            "wikigamekiller_failed_expansions_total",
+                            "The number of online link expansions whose " +
+                            "links could not be downloaded.",
+                            directionLabel);
+
+            NEIGHBORS[direction.ordinal()] =
+                    REGISTRY.counter(
+                            "wikigamekiller_expansion_neighbors_total",
+                            "The number of neighbors generated by the " +
+                            "online link expansions.",
+                            directionLabel);
+
+            EXPANSION_LATENCY[direction.ordinal()] =
+                    REGISTRY.histogram(
+                            "wikigamekiller_expansion_duration_seconds",
+                            "The latency of the online link expansions.",
+                            directionLabel,
+                            LATENCY_BUCKETS);
+        }
+    }
+
+    private static final MetricsRegistry.Counter API_REQUESTS =
+            REGISTRY.counter("wikigamekiller_api_requests_total",
+                             "The number of API requests.",
+                             "result=\"success\"");
+
+    private static final MetricsRegistry.Counter FAILED_API_REQUESTS =
+            REGISTRY.counter("wikigamekiller_api_requests_total",
+                             "The number of API requests.",
+                             "result=\"failure\"");
+
+    private static final MetricsRegistry.Counter THROTTLED_API_REQUESTS =
+            REGISTRY.counter("wikigamekiller_api_throttled_requests_total",
+                             "The number of API requests rejected with " +
+                             "the status 429.",
+                             "");
+
+    private static final MetricsRegistry.Counter RETRIED_API_REQUESTS =
+            REGISTRY.counter("wikigamekiller_api_retried_requests_total",
+                             "The number of failed API requests retried.",
+                             "");
+
+    private static final MetricsRegistry.Histogram API_REQUEST_LATENCY =
+            REGISTRY.histogram("wikigamekiller_api_request_duration_seconds",
+                               "The latency of the API requests.",
+                               "",
+                               LATENCY_BUCKETS);
+
+    static {
+        REGISTRY.gauge("wikigamekiller_api_requests_in_flight",
+                       "The number of API requests awaiting a response.",
+                       WikipediaApiClient::getNumberOfRequestsInFlight);
+    }
+
+    private SearchMetrics() {
+
+    }
+
+    /**
+     * Starts the metrics endpoint if the metrics are enabled. The endpoint
+     * listens to the loopback interface only and does not keep the virtual
+     * machine alive.
+     */
+    static void startEndpoint() {
+        if (!ENABLED) {
+            return;
+        }
+
+        final String portText = System.getProperty(METRICS_PORT_PROPERTY);
+        final int port;
+
+        try {
+            port = SearchService.parseInt(METRICS_PORT_PROPERTY, portText, 1);
+        } catch (final IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            return;
+        }
+
+        final HttpServer server;
+
+        try {
+            server = HttpServer.create(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                          port),
+                    0);
+        } catch (final IOException ex) {
+            System.err.printf("Could not start the metrics endpoint: %s\n",
+                              ex.getMessage());
+            return;
+        }
+
+        server.createContext("/metrics", SearchMetrics::handleMetrics);
+
+        // The dispatcher thread inherits the daemon status of the thread
+        // starting the server:
+        final Thread starterThread = new Thread(server::start);
+        starterThread.setDaemon(true);
+        starterThread.start();
+
+        try {
+            starterThread.join();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        System.err.printf("Serving the metrics on port %d.\n", port);
+    }
+
+    static void recordSearch(final boolean found,
+                             final boolean complete,
+                             final long durationNanos,
+                             final int expandedNodes) {
+        (found ? FOUND_SEARCHES : NOT_FOUND_SEARCHES).increment();
+
+        if (!complete) {
+            INCOMPLETE_SEARCHES.increment();
+        }
+
+        SEARCH_DURATION.observe(durationNanos / NANOS_PER_SECOND);
+        SEARCH_EXPANSIONS.add(expandedNodes);
+    }
+
+    static void recordExpansion(final LinkDirection direction,
+                                final boolean cacheHit,
+                                final int neighbors,
+                                final long latencyNanos) {
+        EXPANSIONS[direction.ordinal()][cacheHit ? 1 : 0].increment();
+        NEIGHBORS[direction.ordinal()].add(neighbors);
+        EXPANSION_LATENCY[direction.ordinal()]
+                .observe(latencyNanos / NANOS_PER_SECOND);
+    }
+
+    static void recordFailedExpansion(final LinkDirection direction) {
+        FAILED_EXPANSIONS[direction.ordinal()].increment();
+    }
+
+    static void recordApiRequest(final boolean failed,
+                                 final long latencyNanos) {
+        (failed ? FAILED_API_REQUESTS : API_REQUESTS).increment();
+        API_REQUEST_LATENCY.observe(latencyNanos / NANOS_PER_SECOND);
+    }
+
+    static void recordThrottledApiRequest() {
+        THROTTLED_API_REQUESTS.increment();
+    }
+
+    static void recordRetriedApiRequest() {
+        RETRIED_API_REQUESTS.increment();
+    }
+
+    private static void handleMetrics(final HttpExchange exchange)
+            throws IOException {
+
+        final byte[] body = REGISTRY.toPrometheusText()
+                                    .getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders()
+                .set("Content-Type", "text/plain; version=0.0.4");
+        exchange.sendResponseHeaders(200, body.length);
+
+        try (final OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
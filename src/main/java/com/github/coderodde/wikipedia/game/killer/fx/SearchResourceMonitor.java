@@ -0,0 +1,119 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class samples the resident set size (RSS) of the process and the
+ * number of live platform threads while a search is running, and records
+ * their peaks. The RSS is read from {@code /proc/self/status} and is thus
+ * only available on Linux; elsewhere, the used heap is sampled instead.
+ */
+final class SearchResourceMonitor {
+
+    private static final long SAMPLING_INTERVAL_MILLIS = 100L;
+
+    private static final Path PROC_STATUS_PATH =
+            Paths.get("/proc/self/status");
+
+    private final ThreadMXBean threadMXBean =
+            ManagementFactory.getThreadMXBean();
+
+    private ScheduledExecutorService sampler;
+    private volatile long peakResidentSetSize;
+    private volatile int peakThreadCount;
+
+    /**
+     * Starts sampling.
+     */
+    synchronized void start() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+
+        peakResidentSetSize = 0L;
+        peakThreadCount = 0;
+
+        sampler = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+            final Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        sampler.scheduleAtFixedRate(this::sample,
+                                    0L,
+                                    SAMPLING_INTERVAL_MILLIS,
+                                    TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops sampling. The peaks include a final sample.
+     */
+    synchronized void stop() {
+        if (sampler == null) {
+            return;
+        }
+
+        sampler.shutdownNow();
+        sampler = null;
+        sample();
+    }
+
+    /**
+     * Returns the peak resident set size in bytes, or the peak used heap if
+     * the RSS is not available.
+     *
+     * @return the peak memory usage in bytes.
+     */
+    long getPeakResidentSetSize() {
+        return peakResidentSetSize;
+    }
+
+    int getPeakThreadCount() {
+        return peakThreadCount;
+    }
+
+    /**
+     * Returns the current resident set size of the process in bytes, or the
+     * used heap if the RSS is not available.
+     *
+     * @return the current memory usage in bytes.
+     */
+    static long readResidentSetSize() {
+        try {
+            final List<String> lines =
+                    Files.readAllLines(PROC_STATUS_PATH,
+                                       StandardCharsets.US_ASCII);
+
+            for (final String line : lines) {
+                if (line.startsWith("VmRSS:")) {
+                    // For example, "VmRSS:     123456 kB".
+                    final String[] tokens = line.trim().split("\\s+");
+                    return Long.parseLong(tokens[1]) * 1024L;
+                }
+            }
+        } catch (final IOException | RuntimeException ex) {
+
+        }
+
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private synchronized void sample() {
+        peakResidentSetSize = Math.max(peakResidentSetSize,
+                                       readResidentSetSize());
+
+        peakThreadCount = Math.max(peakThreadCount,
+                                   threadMXBean.getThreadCount());
+    }
+}
@@ -0,0 +1,749 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.github.coderodde.graph.pathfinding.delayed.AbstractDelayedGraphPathFinder;
+import com.github.coderodde.graph.pathfinding.delayed.AbstractNodeExpander;
+import com.github.coderodde.graph.pathfinding.delayed.impl.ThreadPoolBidirectionalBFSPathFinder;
+import com.github.coderodde.graph.pathfinding.delayed.impl.ThreadPoolBidirectionalBFSPathFinderBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class runs the searches of the headless modes. All the searches of a
+ * service share a single session link cache, the persistent link caches,
+ * one link expander per language and direction (and thus the batching link
+ * fetchers), and the HTTP client of {@link WikipediaApiClient}, so the
+ * searches get faster as the caches warm up.
+ */
+final class SearchService implements Closeable {
+
+    /**
+     * Describes the options understood by
+     * {@link #parseOption(java.lang.String, java.lang.String)}.
+     */
+    static final String OPTIONS_USAGE =
+            "  --engine NAME          thread-pool, primitive, asynchronous, " +
+            "virtual-threads\n" +
+            "                         or adaptive (default: primitive).\n" +
+            "  --threads N            Threads per search, or concurrent " +
+            "expansions\n" +
+            "                         (default: 128).\n" +
+            "  --expansion-duration N Thread pool expansion duration in " +
+            "ms (default: 4000).\n" +
+            "  --batch-size N         Titles per API request (default: " +
+            "50).\n" +
+            "  --batch-linger N       Batch linger in ms (default: 5).\n" +
+            "  --cache-memory N       Session cache size in MB " +
+            "(default: 256).\n" +
+            "  --frontier NAME        Expand the smaller or the cheaper " +
+            "frontier\n" +
+            "                         (default: smaller).\n" +
+            "  --order NAME           Expand each layer in the discovery " +
+            "or the degree\n" +
+            "                         order (default: discovery).\n" +
+            "  --paths N              Enumerate up to N shortest paths " +
+            "(default: 1).\n" +
+            "  --probe on|off         Probe for a path of one or two links " +
+            "before the\n" +
+            "                         search (default: on).\n" +
+            "  --parent-memory N      Keep the parent maps of a search off " +
+            "the heap\n" +
+            "                         in N MB, or on the heap with 0 " +
+            "(default: 0).\n" +
+            "  --offline DIR          Search an offline graph instead of " +
+            "the API.";
+
+    private static final String WIKIPEDIA_URL_FORMAT =
+            "https://%s.wikipedia.org/wiki/%s";
+
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+
+    private SearchEngineType searchEngineType = SearchEngineType.PRIMITIVE;
+    private int threads = 128;
+    private int expansionDuration = 4000;
+    private int batchSize = WikipediaApiClient.MAXIMUM_TITLES_PER_REQUEST;
+    private int batchLinger = 5;
+    private long cacheMemory = 256L;
+    private FrontierSelectionPolicy frontierSelectionPolicy =
+            FrontierSelectionPolicy.SMALLER_FRONTIER;
+    private ExpansionOrder expansionOrder = ExpansionOrder.DISCOVERY;
+    private int maximumNumberOfPaths = 1;
+    private boolean probeShortPaths = true;
+    private long parentMemory = 0L;
+    private String offlineGraphDirectory;
+
+    private SessionLinkCache sessionLinkCache;
+    private LinkExpanderFactory linkExpanderFactory;
+    private CsrLinkGraph offlineGraph;
+
+    /**
+     * The adaptive concurrency limit shared by all the searches of the
+     * adaptive engine.
+     */
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+
+    /**
+     * Maps a language code and a link direction to the link expander shared
+     * by all the searches.
+     */
+    private final Map<String, AbstractLinkExpander> expanderMap =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Maps a language code to the short path probe shared by all the
+     * searches.
+     */
+    private final Map<String, ShortPathProbe> probeMap =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Applies a command line option.
+     *
+     * @param option the option name such as {@code --engine}.
+     * @param value  the option value.
+     *
+     * @return {@code false} if the option is not a search option.
+     *
+     * @throws IllegalArgumentException if the value is invalid.
+     */
+    boolean parseOption(final String option, final String value) {
+        switch (option) {
+            case "--engine":
+                searchEngineType = parseSearchEngineType(value);
+                return true;
+
+            case "--threads":
+                threads = parseInt(option, value, 1);
+                return true;
+
+            case "--expansion-duration":
+                expansionDuration = parseInt(option, value, 1);
+                return true;
+
+            case "--batch-size":
+                batchSize = parseInt(option, value, 1);
+                return true;
+
+            case "--batch-linger":
+                batchLinger = parseInt(option, value, 0);
+                return true;
+
+            case "--cache-memory":
+                cacheMemory = parseInt(option, value, 1);
+                return true;
+
+            case "--frontier":
+                frontierSelectionPolicy = 
+                        parseFrontierSelectionPolicy(value);
+                return true;
+
+            case "--order":
+                expansionOrder = parseExpansionOrder(value);
+                return true;
+
+            case "--paths":
+                maximumNumberOfPaths = parseInt(option, value, 1);
+                return true;
+
+            case "--probe":
+                probeShortPaths = parseSwitch(option, value);
+                return true;
+
+            case "--parent-memory":
+                parentMemory = parseInt(option, value, 0);
+                return true;
+
+            case "--offline":
+                offlineGraphDirectory = value;
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Opens the caches and the offline graph, if any.
+     *
+     * @throws IOException if the offline graph cannot be opened.
+     */
+    void open() throws IOException {
+        sessionLinkCache =
+                new SessionLinkCache(cacheMemory * BYTES_PER_MEGABYTE,
+                                     CacheAdmissionPolicy.TINY_LFU);
+
+        linkExpanderFactory = new LinkExpanderFactory(sessionLinkCache);
+
+        if (offlineGraphDirectory != null) {
+            offlineGraph =
+                    CsrLinkGraph.open(Paths.get(offlineGraphDirectory)
+                                           .toAbsolutePath());
+        }
+
+        if (searchEngineType == SearchEngineType.ADAPTIVE) {
+            concurrencyLimit =
+                    new AdaptiveConcurrencyLimit(
+                            AdaptiveConcurrencyLimit.DEFAULT_INITIAL_LIMIT,
+                            AdaptiveConcurrencyLimit.DEFAULT_MAXIMUM_LIMIT);
+        }
+    }
+
+    /**
+     * Flushes and closes the persistent link caches and the offline graph.
+     */
+    @Override
+    public void close() throws IOException {
+        linkExpanderFactory.closeLinkCaches();
+
+        if (offlineGraph != null) {
+            offlineGraph.close();
+        }
+    }
+
+    SearchEngineType getSearchEngineType() {
+        return searchEngineType;
+    }
+
+    SessionLinkCache getSessionLinkCache() {
+        return sessionLinkCache;
+    }
+
+    /**
+     * Returns {@code true} if the searches of the selected engine should run
+     * in virtual threads.
+     *
+     * @return {@code true} for the virtual thread engines.
+     */
+    boolean usesVirtualThreads() {
+        return searchEngineType == SearchEngineType.VIRTUAL_THREADS ||
+               searchEngineType == SearchEngineType.ADAPTIVE;
+    }
+
+    /**
+     * Searches for a shortest path and adds the outcome to {@code result}:
+     * {@code found}, {@code path} (article URLs), {@code complete} and 
+     * {@code failedExpansions}, {@code durationMillis} and 
+     * {@code expandedNodes}, or {@code error} if the search could not run. 
+     * An incomplete search had expansions that failed for good, so its path
+     * may not be a shortest one, and a path may exist if none was found.
+     * Given an offline graph with landmark tables, the finite landmark
+     * bounds of the path length are added as {@code lowerBound} and
+     * {@code upperBound}. Asked for more than one path, all the enumerated
+     * shortest paths are added as {@code shortestPaths}.
+     *
+     * @param languageCode the language code of the Wikipedia edition.
+     * @param source       the source title in the URL form.
+     * @param target       the target title in the URL form.
+     * @param result       the JSON object to add the outcome to.
+     *
+     * @return {@code true} if a path was found.
+     */
+    boolean search(final String languageCode,
+                   final String source,
+                   final String target,
+                   final JsonObject result) {
+        return search(languageCode, languageCode, source, target, result);
+    }
+
+    /**
+     * Searches for a shortest path from an article in one language edition
+     * to an article in another one, as
+     * {@link #search(String, String, String, JsonObject)} does within an
+     * edition. If the languages differ, the path may cross the language
+     * border via the interlanguage links; this needs the online expanders.
+     *
+     * @param sourceLanguageCode the language code of the source.
+     * @param targetLanguageCode the language code of the target.
+     * @param source             the source title in the URL form.
+     * @param target             the target title in the URL form.
+     * @param result             the JSON object to add the outcome to.
+     *
+     * @return {@code true} if a path was found.
+     */
+    boolean search(final String sourceLanguageCode,
+                   final String targetLanguageCode,
+                   final String source,
+                   final String target,
+                   final JsonObject result) {
+        // The cross-language nodes carry their languages:
+        final String languageCode =
+                sourceLanguageCode.equals(targetLanguageCode) ?
+                sourceLanguageCode :
+                null;
+
+        try {
+            final PathSearch pathSearch =
+                    createPathSearch(sourceLanguageCode,
+                                     targetLanguageCode,
+                                     source,
+                                     target);
+
+            final List<String> titles = pathSearch.run();
+            final JsonArray path = toUrls(languageCode, titles);
+
+            result.addProperty("found", !titles.isEmpty());
+            result.add("path", path);
+
+            // A failed expansion may hide a shorter path, or the only one:
+            result.addProperty("complete", pathSearch.isComplete());
+            result.addProperty("failedExpansions",
+                               pathSearch.getNumberOfFailedExpansions());
+            result.addProperty("durationMillis", pathSearch.getDuration());
+            result.addProperty("expandedNodes",
+                               pathSearch.getNumberOfExpandedNodes());
+
+            addLandmarkBounds(source, target, result);
+
+            if (maximumNumberOfPaths > 1) {
+                final JsonArray shortestPaths = new JsonArray();
+                final Iterator<List<String>> iterator =
+                        pathSearch.getShortestPaths();
+
+                while (iterator.hasNext()) {
+                    shortestPaths.add(toUrls(languageCode, iterator.next()));
+                }
+
+                result.add("shortestPaths", shortestPaths);
+            }
+
+            return !titles.isEmpty();
+        } catch (final RuntimeException | IOException ex) {
+            result.addProperty("error", ex.getMessage());
+            return false;
+        }
+    }
+
+    private static JsonArray toUrls(final String languageCode,
+                                    final List<String> titles) {
+        final JsonArray urls = new JsonArray();
+
+        for (final String title : titles) {
+            if (languageCode != null) {
+                urls.add(String.format(WIKIPEDIA_URL_FORMAT,
+                                       languageCode,
+                                       title));
+            } else {
+                urls.add(String.format(
+                        WIKIPEDIA_URL_FORMAT,
+                        CrossLanguageNodeExpander.getLanguageCode(title),
+                        CrossLanguageNodeExpander.getTitle(title)));
+            }
+        }
+
+        return urls;
+    }
+
+    private void addLandmarkBounds(final String source,
+                                   final String target,
+                                   final JsonObject result) {
+        if (offlineGraph == null || offlineGraph.getLandmarkTable() == null) {
+            return;
+        }
+
+        final int sourceId =
+                offlineGraph.getId(CsrLinkGraph.normalizeTitle(source));
+
+        final int targetId =
+                offlineGraph.getId(CsrLinkGraph.normalizeTitle(target));
+
+        if (sourceId < 0 || targetId < 0) {
+            return;
+        }
+
+        final LandmarkTable landmarkTable = offlineGraph.getLandmarkTable();
+        final int lowerBound = landmarkTable.getLowerBound(sourceId, targetId);
+        final int upperBound = landmarkTable.getUpperBound(sourceId, targetId);
+
+        if (lowerBound != LandmarkTable.INFINITE) {
+            result.addProperty("lowerBound", lowerBound);
+        }
+
+        if (upperBound != LandmarkTable.INFINITE) {
+            result.addProperty("upperBound", upperBound);
+        }
+    }
+
+    /**
+     * Returns the language code of a Wikipedia article URL such as
+     * {@code https://en.wikipedia.org/wiki/Audi}.
+     *
+     * @param url the article URL.
+     *
+     * @return the language code.
+     *
+     * @throws IllegalArgumentException if {@code url} is not an article URL.
+     */
+    static String getLanguageCode(final String url) {
+        String host = url;
+
+        if (host.startsWith("https://")) {
+            host = host.substring("https://".length());
+        } else if (host.startsWith("http://")) {
+            host = host.substring("http://".length());
+        }
+
+        final int dotIndex = host.indexOf('.');
+
+        if (dotIndex <= 0 ||
+            !host.startsWith(".wikipedia.org/wiki/", dotIndex)) {
+            throw new IllegalArgumentException(
+                    String.format("Not a Wikipedia article URL: %s", url));
+        }
+
+        return host.substring(0, dotIndex);
+    }
+
+    static String getTitle(final String url) {
+        return url.substring(url.lastIndexOf("/") + 1);
+    }
+
+    /**
+     * Parses an integer option value.
+     *
+     * @param option  the option name.
+     * @param value   the option value.
+     * @param minimum the smallest valid value.
+     *
+     * @return the parsed value.
+     *
+     * @throws IllegalArgumentException if the value is invalid.
+     */
+    static int parseInt(final String option,
+                        final String value,
+                        final int minimum) {
+        final int number;
+
+        try {
+            number = Integer.parseInt(value);
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                    String.format("%s expects a number: %s.", option, value));
+        }
+
+        if (number < minimum) {
+            throw new IllegalArgumentException(
+                    String.format("%s must be at least %d: %d.",
+                                  option,
+                                  minimum,
+                                  number));
+        }
+
+        return number;
+    }
+
+    /**
+     * Parses a switch option value, {@code on} or {@code off}.
+     *
+     * @param option the option name.
+     * @param value  the option value.
+     *
+     * @return {@code true} for {@code on}.
+     *
+     * @throws IllegalArgumentException if the value is invalid.
+     */
+    static boolean parseSwitch(final String option, final String value) {
+        switch (value) {
+            case "on":
+                return true;
+
+            case "off":
+                return false;
+
+            default:
+                throw new IllegalArgumentException(
+                        String.format("%s expects on or off: %s.",
+                                      option,
+                                      value));
+        }
+    }
+
+    private PathSearch createPathSearch(final String sourceLanguageCode,
+                                        final String targetLanguageCode,
+                                        final String source,
+                                        final String target)
+            throws IOException {
+
+        final boolean crossLanguage =
+                !sourceLanguageCode.equals(targetLanguageCode);
+
+        if (offlineGraph != null) {
+            if (crossLanguage) {
+                throw new IOException(
+                        String.format(
+                                "The offline graph cannot search from " +
+                                "\"%s\" to \"%s\".",
+                                sourceLanguageCode,
+                                targetLanguageCode));
+            }
+
+            if (!offlineGraph.getLanguageCode().equals(sourceLanguageCode)) {
+                throw new IOException(
+                        String.format(
+                                "The offline graph is for \"%s\", not for " +
+                                "\"%s\".",
+                                offlineGraph.getLanguageCode(),
+                                sourceLanguageCode));
+            }
+
+            final IntBidirectionalBFSPathFinder offlineFinder =
+                    new IntBidirectionalBFSPathFinder(1);
+
+            offlineFinder.setFrontierSelectionPolicy(frontierSelectionPolicy);
+            offlineFinder.setExpansionOrder(expansionOrder);
+            offlineFinder.setMaximumNumberOfPaths(maximumNumberOfPaths);
+            offlineFinder.setParentMemoryLimit(
+                    parentMemory * BYTES_PER_MEGABYTE);
+
+            return new PathSearch(CsrLinkGraph.normalizeTitle(source),
+                                  CsrLinkGraph.normalizeTitle(target),
+                                  offlineGraph,
+                                  null,
+                                  offlineFinder,
+                                  null,
+                                  null);
+        }
+
+        final AbstractNodeExpander<String> forwardExpander;
+        final AbstractNodeExpander<String> backwardExpander;
+        final String sourceNode;
+        final String targetNode;
+
+        if (crossLanguage) {
+            final List<String> languageCodes =
+                    Arrays.asList(sourceLanguageCode, targetLanguageCode);
+
+            forwardExpander =
+                    getCrossLanguageExpander(languageCodes,
+                                             LinkDirection.FORWARD);
+
+            backwardExpander =
+                    getCrossLanguageExpander(languageCodes,
+                                             LinkDirection.BACKWARD);
+
+            sourceNode = CrossLanguageNodeExpander.toNode(sourceLanguageCode,
+                                                          source);
+
+            targetNode = CrossLanguageNodeExpander.toNode(targetLanguageCode,
+                                                          target);
+        } else {
+            forwardExpander =
+                    getLinkExpander(sourceLanguageCode, LinkDirection.FORWARD);
+
+            backwardExpander =
+                    getLinkExpander(sourceLanguageCode,
+                                    LinkDirection.BACKWARD);
+
+            sourceNode = source;
+            targetNode = target;
+        }
+
+        if (searchEngineType == SearchEngineType.THREAD_POOL) {
+            final AbstractDelayedGraphPathFinder<String> finder =
+                    ThreadPoolBidirectionalBFSPathFinderBuilder
+                    .<String>begin()
+                    .withJoinDurationMillis(expansionDuration)
+                    .withLockWaitMillis(
+                            ThreadPoolBidirectionalBFSPathFinder
+                                    .DEFAULT_LOCK_WAIT_MILLIS)
+                    .withMasterThreadSleepDurationMillis(
+                            ThreadPoolBidirectionalBFSPathFinder
+                                    .DEFAULT_MASTER_THREAD_SLEEP_DURATION_MILLIS)
+                    .withNumberOfMasterTrials(
+                            ThreadPoolBidirectionalBFSPathFinder
+                                    .DEFAULT_NUMBER_OF_MASTER_TRIALS)
+                    .withNumberOfRequestedThreads(threads)
+                    .withSlaveThreadSleepDurationMillis(
+                            ThreadPoolBidirectionalBFSPathFinder
+                                    .DEFAULT_SLAVE_THREAD_SLEEP_DURATION_MILLIS)
+                    .end();
+
+            final PathSearch pathSearch =
+                    new PathSearch(sourceNode,
+                                   targetNode,
+                                   null,
+                                   finder,
+                                   null,
+                                   forwardExpander,
+                                   backwardExpander);
+
+            pathSearch.setShortPathProbe(
+                    getShortPathProbe(sourceLanguageCode, crossLanguage));
+
+            return pathSearch;
+        }
+
+        final IntBidirectionalBFSPathFinder intFinder;
+
+        switch (searchEngineType) {
+            case ASYNCHRONOUS:
+                intFinder = IntBidirectionalBFSPathFinder.createAsynchronous();
+                break;
+
+            case VIRTUAL_THREADS:
+                intFinder = IntBidirectionalBFSPathFinder.createVirtual(threads);
+                break;
+
+            case ADAPTIVE:
+                intFinder =
+                        IntBidirectionalBFSPathFinder
+                                .createAdaptive(concurrencyLimit);
+                break;
+
+            default:
+                intFinder = new IntBidirectionalBFSPathFinder(threads);
+        }
+
+        intFinder.setFrontierSelectionPolicy(frontierSelectionPolicy);
+        intFinder.setExpansionOrder(expansionOrder);
+        intFinder.setMaximumNumberOfPaths(maximumNumberOfPaths);
+        intFinder.setParentMemoryLimit(parentMemory * BYTES_PER_MEGABYTE);
+
+        final PathSearch pathSearch =
+                new PathSearch(sourceNode,
+                               targetNode,
+                               null,
+                               null,
+                               intFinder,
+                               forwardExpander,
+                               backwardExpander);
+
+        pathSearch.setShortPathProbe(
+                getShortPathProbe(sourceLanguageCode, crossLanguage));
+
+        return pathSearch;
+    }
+
+    /**
+     * Returns the short path probe of the language, creating it on first
+     * use, or {@code null} if the search should not be probed. A probe finds
+     * a single path within a single edition.
+     */
+    private ShortPathProbe getShortPathProbe(final String languageCode,
+                                             final boolean crossLanguage) {
+        if (!probeShortPaths || crossLanguage || maximumNumberOfPaths > 1) {
+            return null;
+        }
+
+        return probeMap.computeIfAbsent(
+                languageCode,
+                (key) -> {
+                    final WikipediaApiClient apiClient =
+                            new WikipediaApiClient(languageCode,
+                                                   LinkDirection.FORWARD);
+
+                    if (concurrencyLimit != null) {
+                        apiClient.setFailureListener(concurrencyLimit::onDrop);
+                    }
+
+                    return new ShortPathProbe(apiClient,
+                                              sessionLinkCache,
+                                              languageCode);
+                });
+    }
+
+    /**
+     * Returns the link expander for the given language and direction,
+     * creating it on first use.
+     */
+    private AbstractLinkExpander getLinkExpander(
+            final String languageCode,
+            final LinkDirection direction) {
+
+        return expanderMap.computeIfAbsent(
+                languageCode + "-" + direction.getName(),
+                (key) -> {
+                    final WikipediaApiClient apiClient =
+                            new WikipediaApiClient(languageCode, direction);
+
+                    if (concurrencyLimit != null) {
+                        apiClient.setFailureListener(concurrencyLimit::onDrop);
+                    }
+
+                    return linkExpanderFactory.createLinkExpander(
+                            languageCode,
+                            apiClient,
+                            searchEngineType,
+                            batchSize,
+                            batchLinger,
+                            threads);
+                });
+    }
+
+    /**
+     * Returns a cross-language expander over the given languages. The link
+     * expanders of each language are the ones of its single-language
+     * searches, so the caches and the batching are shared with them.
+     */
+    private CrossLanguageNodeExpander getCrossLanguageExpander(
+            final List<String> languageCodes,
+            final LinkDirection direction) {
+
+        final Map<String, AbstractLinkExpander> linkExpanders =
+                new HashMap<>();
+
+        final Map<String, AbstractLinkExpander> languageLinkExpanders =
+                new HashMap<>();
+
+        for (final String languageCode : languageCodes) {
+            linkExpanders.put(languageCode,
+                              getLinkExpander(languageCode, direction));
+
+            languageLinkExpanders.put(
+                    languageCode,
+                    expanderMap.computeIfAbsent(
+                            LanguageLinkExpander.getCacheLanguageCode(
+                                    languageCode),
+                            (key) -> {
+                                return linkExpanderFactory
+                                        .createLanguageLinkExpander(
+                                                languageCode,
+                                                searchEngineType,
+                                                batchSize,
+                                                batchLinger,
+                                                threads);
+                            }));
+        }
+
+        return new CrossLanguageNodeExpander(linkExpanders,
+                                             languageLinkExpanders);
+    }
+
+    private static FrontierSelectionPolicy parseFrontierSelectionPolicy(
+            final String name) {
+        try {
+            return FrontierSelectionPolicy.valueOf(
+                    name.toUpperCase(Locale.ROOT) + "_FRONTIER");
+        } catch (final IllegalArgumentException ex) {
+            throw new IllegalArgumentException(
+                    String.format("Unknown frontier policy: %s.", name));
+        }
+    }
+
+    private static ExpansionOrder parseExpansionOrder(final String name) {
+        try {
+            return ExpansionOrder.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException ex) {
+            throw new IllegalArgumentException(
+                    String.format("Unknown expansion order: %s.", name));
+        }
+    }
+
+    private static SearchEngineType parseSearchEngineType(final String name) {
+        try {
+            return SearchEngineType.valueOf(
+                    name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (final IllegalArgumentException ex) {
+            throw new IllegalArgumentException(
+                    String.format("Unknown search engine: %s.", name));
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects the live progress of a search: the sizes of the two
+ * frontiers and of the two visited sets, the expansions and their latency.
+ * The search reports into it with cheap writes only; the derived figures,
+ * such as the expansion rate and the latency percentiles, are computed when
+ * a {@link Sample} is taken, over the interval since the previous sample.
+ * <p>
+ * The latencies are counted in a histogram of logarithmic buckets with four
+ * linear sub-buckets each, so a percentile is exact to within 25 percent.
+ * Together with the number of HTTP requests in flight and the number of
+ * throttled requests, the samples tell whether a search is bound by the
+ * network, rate-limited, or stuck expanding a single huge frontier.
+ */
+final class SearchTelemetry {
+
+    /**
+     * The number of linear sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 4;
+
+    private static final int NUMBER_OF_BUCKETS = 62 * SUB_BUCKETS;
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    /**
+     * This class holds a single sample of the telemetry.
+     */
+    static final class Sample {
+
+        private final long elapsedMillis;
+        private final int forwardFrontierSize;
+        private final int backwardFrontierSize;
+        private final int forwardVisitedCount;
+        private final int backwardVisitedCount;
+        private final long numberOfExpansions;
+        private final double expansionsPerSecond;
+        private final double medianLatencyMillis;
+        private final double p99LatencyMillis;
+        private final int requestsInFlight;
+        private final long throttledRequests;
+
+        private Sample(final long elapsedMillis,
+                       final int forwardFrontierSize,
+                       final int backwardFrontierSize,
+                       final int forwardVisitedCount,
+                       final int backwardVisitedCount,
+                       final long numberOfExpansions,
+                       final double expansionsPerSecond,
+                       final double medianLatencyMillis,
+                       final double p99LatencyMillis,
+                       final int requestsInFlight,
+                       final long throttledRequests) {
+            this.elapsedMillis = elapsedMillis;
+            this.forwardFrontierSize = forwardFrontierSize;
+            this.backwardFrontierSize = backwardFrontierSize;
+            this.forwardVisitedCount = forwardVisitedCount;
+            this.backwardVisitedCount = backwardVisitedCount;
+            this.numberOfExpansions = numberOfExpansions;
+            this.expansionsPerSecond = expansionsPerSecond;
+            this.medianLatencyMillis = medianLatencyMillis;
+            this.p99LatencyMillis = p99LatencyMillis;
+            this.requestsInFlight = requestsInFlight;
+            this.throttledRequests = throttledRequests;
+        }
+
+        long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        double getExpansionsPerSecond() {
+            return expansionsPerSecond;
+        }
+
+        int getRequestsInFlight() {
+            return requestsInFlight;
+        }
+
+        /**
+         * Returns a one-line description of this sample. The frontiers are
+         * omitted if the path finder does not report them.
+         *
+         * @return the description of this sample.
+         */
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+
+            if (forwardVisitedCount > 0 || backwardVisitedCount > 0) {
+                sb.append(String.format(
+                        "Frontiers: %d / %d, visited: %d / %d, ",
+                        forwardFrontierSize,
+                        backwardFrontierSize,
+                        forwardVisitedCount,
+                        backwardVisitedCount));
+            }
+
+            sb.append(String.format(
+                    "expansions: %d (%.1f/s), latency p50: %s, p99: %s, " +
+                    "requests in flight: %d, throttled: %d.",
+                    numberOfExpansions,
+                    expansionsPerSecond,
+                    formatLatency(medianLatencyMillis),
+                    formatLatency(p99LatencyMillis),
+                    requestsInFlight,
+                    throttledRequests));
+
+            return sb.toString();
+        }
+
+        private static String formatLatency(final double latencyMillis) {
+            return Double.isNaN(latencyMillis) ?
+                   "-" :
+                   String.format("%.1f ms", latencyMillis);
+        }
+    }
+
+    private volatile int forwardFrontierSize;
+    private volatile int backwardFrontierSize;
+    private volatile int forwardVisitedCount;
+    private volatile int backwardVisitedCount;
+
+    private final LongAdder numberOfExpansions = new LongAdder();
+    private final AtomicLongArray latencyBuckets =
+            new AtomicLongArray(NUMBER_OF_BUCKETS);
+
+    /**
+     * The bucket counts and the state at the previous sample.
+     */
+    private final long[] previousLatencyBuckets = new long[NUMBER_OF_BUCKETS];
+    private long previousNumberOfExpansions;
+    private long previousSampleNanos;
+    private long startNanos = System.nanoTime();
+
+    /**
+     * Clears all the figures for a new search.
+     */
+    synchronized void reset() {
+        forwardFrontierSize = 0;
+        backwardFrontierSize = 0;
+        forwardVisitedCount = 0;
+        backwardVisitedCount = 0;
+        numberOfExpansions.reset();
+
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            latencyBuckets.set(i, 0L);
+            previousLatencyBuckets[i] = 0L;
+        }
+
+        previousNumberOfExpansions = 0L;
+        startNanos = System.nanoTime();
+        previousSampleNanos = startNanos;
+    }
+
+    void setFrontierSizes(final int forwardFrontierSize,
+                          final int backwardFrontierSize) {
+        this.forwardFrontierSize = forwardFrontierSize;
+        this.backwardFrontierSize = backwardFrontierSize;
+    }
+
+    void setVisitedCounts(final int forwardVisitedCount,
+                          final int backwardVisitedCount) {
+        this.forwardVisitedCount = forwardVisitedCount;
+        this.backwardVisitedCount = backwardVisitedCount;
+    }
+
+    /**
+     * Records a completed expansion.
+     *
+     * @param latencyNanos the latency of the expansion in nanoseconds.
+     */
+    void recordExpansion(final long latencyNanos) {
+        numberOfExpansions.increment();
+        latencyBuckets.incrementAndGet(getBucket(latencyNanos / 1000L));
+    }
+
+    /**
+     * Takes a sample. The rate and the latency percentiles cover the
+     * interval since the previous sample.
+     *
+     * @return the sample.
+     */
+    synchronized Sample sample() {
+        final long now = System.nanoTime();
+        final long expansions = numberOfExpansions.sum();
+        final long[] intervalBuckets = new long[NUMBER_OF_BUCKETS];
+        long intervalCount = 0L;
+
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            final long count = latencyBuckets.get(i);
+            intervalBuckets[i] = count - previousLatencyBuckets[i];
+            intervalCount += intervalBuckets[i];
+            previousLatencyBuckets[i] = count;
+        }
+
+        final double intervalSeconds =
+                Math.max(1L, now - previousSampleNanos) / 1e9;
+
+        final Sample sample =
+                new Sample(
+                        (now - startNanos) / 1_000_000L,
+                        forwardFrontierSize,
+                        backwardFrontierSize,
+                        forwardVisitedCount,
+                        backwardVisitedCount,
+                        expansions,
+                        (expansions - previousNumberOfExpansions) /
+                                intervalSeconds,
+                        getPercentile(intervalBuckets, intervalCount, 0.5),
+                        getPercentile(intervalBuckets, intervalCount, 0.99),
+                        WikipediaApiClient.getNumberOfRequestsInFlight(),
+                        WikipediaApiClient.getNumberOfThrottledRequests());
+
+        previousNumberOfExpansions = expansions;
+        previousSampleNanos = now;
+        return sample;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile in
+     * milliseconds, or {@link Double#NaN} if there are no counts.
+     */
+    private static double getPercentile(final long[] buckets,
+                                        final long count,
+                                        final double percentile) {
+        if (count == 0L) {
+            return Double.NaN;
+        }
+
+        final long rank = (long) Math.ceil(percentile * count);
+        long cumulativeCount = 0L;
+
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            cumulativeCount += buckets[i];
+
+            if (cumulativeCount >= rank) {
+                return getLowerBound(i + 1) / MICROS_PER_MILLI;
+            }
+        }
+
+        return Double.NaN;
+    }
+
+    /**
+     * Returns the bucket of a latency in microseconds. The latencies below
+     * {@value #SUB_BUCKETS} have a bucket each; above that, each power of two
+     * is split into {@value #SUB_BUCKETS} buckets.
+     */
+    private static int getBucket(final long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0L, micros);
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        final int subBucket = (int) (micros >>> (exponent - 2)) & 3;
+
+        return Math.min(NUMBER_OF_BUCKETS - 1,
+                        (exponent - 1) * SUB_BUCKETS + subBucket);
+    }
+
+    /**
+     * Returns the smallest latency in microseconds falling into the bucket.
+     */
+    private static long getLowerBound(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        final int exponent = bucket / SUB_BUCKETS + 1;
+        final int subBucket = bucket % SUB_BUCKETS;
+
+        return (long) (SUB_BUCKETS + subBucket) << (exponent - 2);
+    }
+}
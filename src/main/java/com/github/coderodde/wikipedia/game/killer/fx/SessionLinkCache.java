@@ -0,0 +1,465 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a bounded in-memory cache mapping article titles to
+ * their neighbor lists. A single instance is meant to live throughout the
+ * application session and serves all the languages and both link directions,
+ * both of which are part of the cache key.
+ * <p>
+ * The neighbor lists are stored front-coded as 
+ * {@link CompressedTitleList}s, which take a fraction of the heap of lists
+ * of strings, and the cache is bounded by an estimate of the heap bytes 
+ * occupied by the compressed lists. The lists are returned compressed. 
+ * <p>
+ * With the {@link CacheAdmissionPolicy#LRU} policy it is a plain
+ * least-recently-used cache. With {@link CacheAdmissionPolicy#TINY_LFU} it
+ * implements the W-TinyLFU scheme: new entries enter a small LRU window, and
+ * an entry falling out of the window is admitted to the main LRU area only if
+ * a {@link FrequencySketch} estimates it to be accessed more often than the
+ * main area victim.
+ * <p>
+ * All the operations are serialized by the monitor of the cache; they are
+ * cheap compared to the network round trips they save.
+ */
+final class SessionLinkCache {
+
+    /**
+     * The fraction of the budget given to the admission window.
+     */
+    private static final double WINDOW_RATIO = 0.01;
+
+    /**
+     * The estimated number of bytes occupied by a cache entry exclusive of
+     * the titles.
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 96L;
+
+    /**
+     * The estimated number of bytes occupied by the title of an entry 
+     * exclusive of its characters.
+     */
+    private static final long TITLE_OVERHEAD_BYTES = 48L;
+
+    /**
+     * The assumed average weight of an entry. Used only for sizing the
+     * frequency sketch.
+     */
+    private static final long AVERAGE_ENTRY_BYTES = 1024L;
+
+    /**
+     * The admission window in access order.
+     */
+    private final LinkedHashMap<CacheKey, CacheEntry> window =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The main area in access order.
+     */
+    private final LinkedHashMap<CacheKey, CacheEntry> main =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private final FrequencySketch sketch;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private CacheAdmissionPolicy admissionPolicy;
+    private long maximumWeight;
+    private long windowWeight;
+    private long mainWeight;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maximumWeight   the memory budget in bytes.
+     * @param admissionPolicy the admission policy.
+     */
+    SessionLinkCache(final long maximumWeight,
+                     final CacheAdmissionPolicy admissionPolicy) {
+        this.admissionPolicy =
+                Objects.requireNonNull(admissionPolicy,
+                                       "The admission policy is null.");
+
+        this.sketch = 
+                new FrequencySketch(
+                        getExpectedNumberOfEntries(maximumWeight));
+        this.maximumWeight = checkMaximumWeight(maximumWeight);
+    }
+
+    /**
+     * Returns the cached neighbors of {@code title} or {@code null} if not
+     * cached.
+     *
+     * @param languageCode the language code of the article.
+     * @param direction    the link direction.
+     * @param title        the title of the article.
+     *
+     * @return the cached neighbor list or {@code null}.
+     */
+    synchronized List<String> get(final String languageCode,
+                                  final LinkDirection direction,
+                                  final String title) {
+
+        final CacheKey key = new CacheKey(languageCode, direction, title);
+        sketch.increment(key);
+
+        CacheEntry entry = window.get(key);
+
+        if (entry == null) {
+            entry = main.get(key);
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry.neighbors;
+    }
+
+    /**
+     * Returns the cached neighbors of {@code title} or {@code null} if not
+     * cached. Unlike {@link #get}, this method counts neither as an access 
+     * of the frequency sketch nor as a hit or a miss.
+     *
+     * @param languageCode the language code of the article.
+     * @param direction    the link direction.
+     * @param title        the title of the article.
+     *
+     * @return the cached neighbor list or {@code null}.
+     */
+    synchronized List<String> peek(final String languageCode,
+                                   final LinkDirection direction,
+                                   final String title) {
+
+        final CacheKey key = new CacheKey(languageCode, direction, title);
+        CacheEntry entry = window.get(key);
+
+        if (entry == null) {
+            entry = main.get(key);
+        }
+
+        return entry == null ? null : entry.neighbors;
+    }
+
+    /**
+     * Returns the size of the cached neighbor list of {@code title} or 
+     * {@code -1} if not cached. Unlike {@link #get}, this method counts
+     * neither as an access of the frequency sketch nor as a hit or a miss.
+     *
+     * @param languageCode the language code of the article.
+     * @param direction    the link direction.
+     * @param title        the title of the article.
+     *
+     * @return the size of the cached neighbor list or {@code -1}.
+     */
+    synchronized int getSize(final String languageCode,
+                             final LinkDirection direction,
+                             final String title) {
+
+        final CacheKey key = new CacheKey(languageCode, direction, title);
+        CacheEntry entry = window.get(key);
+
+        if (entry == null) {
+            entry = main.get(key);
+        }
+
+        return entry == null ? -1 : entry.neighbors.size();
+    }
+
+    /**
+     * Offers the neighbor list of {@code title} to this cache. Depending on
+     * the admission policy, the list may be rejected. The list is compressed
+     * outside the monitor of the cache.
+     *
+     * @param languageCode the language code of the article.
+     * @param direction    the link direction.
+     * @param title        the title of the article.
+     * @param neighbors    the neighbors of {@code title}.
+     */
+    void put(final String languageCode,
+             final LinkDirection direction,
+             final String title,
+             final List<String> neighbors) {
+
+        final CompressedTitleList compressedNeighbors =
+                CompressedTitleList.of(neighbors);
+
+        final CacheKey key = new CacheKey(languageCode, direction, title);
+
+        put(new CacheEntry(key,
+                           compressedNeighbors,
+                           getWeight(title, compressedNeighbors)));
+    }
+
+    private synchronized void put(final CacheEntry entry) {
+        final CacheKey key = entry.key;
+
+        removeEntry(key);
+
+        if (entry.weight > maximumWeight) {
+            evictions.incrementAndGet();
+            return;
+        }
+
+        if (admissionPolicy == CacheAdmissionPolicy.LRU) {
+            main.put(key, entry);
+            mainWeight += entry.weight;
+            evictMain(maximumWeight);
+            return;
+        }
+
+        window.put(key, entry);
+        windowWeight += entry.weight;
+        drainWindow();
+    }
+
+    /**
+     * Sets a new memory budget and evicts entries until the cache fits in it.
+     *
+     * @param maximumWeight the new memory budget in bytes.
+     */
+    synchronized void setMaximumWeight(final long maximumWeight) {
+        this.maximumWeight = checkMaximumWeight(maximumWeight);
+        sketch.ensureCapacity(getExpectedNumberOfEntries(maximumWeight));
+        drainWindow();
+        evictMain(getMainMaximumWeight());
+    }
+
+    /**
+     * Sets a new admission policy. Switching to LRU moves the window contents
+     * to the main area.
+     *
+     * @param admissionPolicy the new admission policy.
+     */
+    synchronized void setAdmissionPolicy(
+            final CacheAdmissionPolicy admissionPolicy) {
+
+        this.admissionPolicy =
+                Objects.requireNonNull(admissionPolicy,
+                                       "The admission policy is null.");
+
+        if (admissionPolicy == CacheAdmissionPolicy.LRU) {
+            main.putAll(window);
+            mainWeight += windowWeight;
+            window.clear();
+            windowWeight = 0L;
+            evictMain(maximumWeight);
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    synchronized int getNumberOfEntries() {
+        return window.size() + main.size();
+    }
+
+    synchronized long getWeight() {
+        return windowWeight + mainWeight;
+    }
+
+    synchronized long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Moves the entries overflowing the admission window to the main area,
+     * or drops them if they lose to the main area victims.
+     */
+    private void drainWindow() {
+        final long windowMaximumWeight = (long)(maximumWeight * WINDOW_RATIO);
+        final Iterator<CacheEntry> iterator = window.values().iterator();
+
+        while (windowWeight > windowMaximumWeight && iterator.hasNext()) {
+            final CacheEntry candidate = iterator.next();
+            iterator.remove();
+            windowWeight -= candidate.weight;
+            admitToMain(candidate);
+        }
+    }
+
+    /**
+     * Admits {@code candidate} to the main area if it is accessed more
+     * frequently than every entry that has to be evicted to make room for it.
+     * The victims are evicted only once the candidate wins against all of 
+     * them, so a rejected candidate leaves the main area as it was.
+     *
+     * @param candidate the candidate entry.
+     */
+    private void admitToMain(final CacheEntry candidate) {
+        final long mainMaximumWeight = getMainMaximumWeight();
+        final int candidateFrequency = sketch.frequency(candidate.key);
+        final Iterator<CacheEntry> iterator = main.values().iterator();
+        long remainingWeight = mainWeight;
+        int numberOfVictims = 0;
+
+        while (remainingWeight + candidate.weight > mainMaximumWeight
+                && iterator.hasNext()) {
+            final CacheEntry victim = iterator.next();
+
+            if (candidateFrequency <= sketch.frequency(victim.key)) {
+                // The candidate loses:
+                evictions.incrementAndGet();
+                return;
+            }
+
+            remainingWeight -= victim.weight;
+            numberOfVictims++;
+        }
+
+        if (remainingWeight + candidate.weight > mainMaximumWeight) {
+            evictions.incrementAndGet();
+            return;
+        }
+
+        final Iterator<CacheEntry> victims = main.values().iterator();
+
+        for (int i = 0; i < numberOfVictims; i++) {
+            victims.next();
+            victims.remove();
+            evictions.incrementAndGet();
+        }
+
+        main.put(candidate.key, candidate);
+        mainWeight = remainingWeight + candidate.weight;
+    }
+
+    /**
+     * Evicts the least recently used entries of the main area until it weighs
+     * at most {@code mainMaximumWeight}.
+     *
+     * @param mainMaximumWeight the maximum weight of the main area.
+     */
+    private void evictMain(final long mainMaximumWeight) {
+        final Iterator<CacheEntry> iterator = main.values().iterator();
+
+        while (mainWeight > mainMaximumWeight && iterator.hasNext()) {
+            mainWeight -= iterator.next().weight;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void removeEntry(final CacheKey key) {
+        CacheEntry entry = window.remove(key);
+
+        if (entry != null) {
+            windowWeight -= entry.weight;
+        }
+
+        entry = main.remove(key);
+
+        if (entry != null) {
+            mainWeight -= entry.weight;
+        }
+    }
+
+    private long getMainMaximumWeight() {
+        if (admissionPolicy == CacheAdmissionPolicy.LRU) {
+            return maximumWeight;
+        }
+
+        return maximumWeight - (long)(maximumWeight * WINDOW_RATIO);
+    }
+
+    private static long getWeight(final String title,
+                                  final CompressedTitleList neighbors) {
+        return ENTRY_OVERHEAD_BYTES
+             + TITLE_OVERHEAD_BYTES
+             + title.length()
+             + neighbors.getSizeInBytes();
+    }
+
+    private static int getExpectedNumberOfEntries(final long maximumWeight) {
+        return (int) Math.min(Integer.MAX_VALUE,
+                              maximumWeight / AVERAGE_ENTRY_BYTES);
+    }
+
+    private static long checkMaximumWeight(final long maximumWeight) {
+        if (maximumWeight < 0L) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The maximum weight is negative: %d.",
+                            maximumWeight));
+        }
+
+        return maximumWeight;
+    }
+
+    /**
+     * The cache key: language, direction and title.
+     */
+    private static final class CacheKey {
+
+        final String languageCode;
+        final LinkDirection direction;
+        final String title;
+
+        CacheKey(final String languageCode,
+                 final LinkDirection direction,
+                 final String title) {
+            this.languageCode = languageCode;
+            this.direction = direction;
+            this.title = title;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+
+            final CacheKey other = (CacheKey) o;
+
+            return direction == other.direction
+                    && title.equals(other.title)
+                    && languageCode.equals(other.languageCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return (title.hashCode() * 31 + languageCode.hashCode()) * 31
+                    + direction.ordinal();
+        }
+    }
+
+    /**
+     * A cached neighbor list along with its key and weight.
+     */
+    private static final class CacheEntry {
+
+        final CacheKey key;
+        final List<String> neighbors;
+        final long weight;
+
+        CacheEntry(final CacheKey key,
+                   final List<String> neighbors,
+                   final long weight) {
+            this.key = key;
+            this.neighbors = neighbors;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class looks for a path of one or two links before the full search
+ * is started, since many searches end at such a depth. Two filtered link
+ * queries are sent at once, so the answer takes a single round trip:
+ * <ol>
+ *   <li>whether the source links to the target, or to any of the cached
+ *       backlinks of the target, and</li>
+ *   <li>whether any of the first 500 neighbors of the source links to the
+ *       target.</li>
+ * </ol>
+ * The first query decides whether the source links to the target, so a
+ * path of two links is returned only if there is no path of one link. The
+ * second query does not see all the neighbors of a hub; if neither query
+ * finds a path, the full search is needed.
+ * <p>
+ * A probe holds no state of its own, so the concurrent searches of an 
+ * edition may share it.
+ */
+final class ShortPathProbe {
+
+    /**
+     * The time to wait for the answers before giving up on the probe.
+     */
+    static final long TIMEOUT_MILLIS = 5000L;
+
+    private final WikipediaApiClient apiClient;
+    private final SessionLinkCache sessionLinkCache;
+    private final String languageCode;
+
+    /**
+     * Constructs a probe.
+     *
+     * @param apiClient        the forward API client of the edition.
+     * @param sessionLinkCache the session cache holding the backlinks, or
+     *                         {@code null}.
+     * @param languageCode     the language code of the edition.
+     */
+    ShortPathProbe(final WikipediaApiClient apiClient,
+                   final SessionLinkCache sessionLinkCache,
+                   final String languageCode) {
+        this.apiClient = apiClient;
+        this.sessionLinkCache = sessionLinkCache;
+        this.languageCode = languageCode;
+    }
+
+    /**
+     * Looks for a path of at most two links from {@code source} to
+     * {@code target}.
+     *
+     * @param source the source title in the URL form.
+     * @param target the target title in the URL form.
+     *
+     * @return the titles of a shortest path, or {@code null} if none was
+     *         found.
+     */
+    List<String> probe(final String source, final String target) {
+        if (CsrLinkGraph.normalizeTitle(source)
+                        .equals(CsrLinkGraph.normalizeTitle(target))) {
+            return null;
+        }
+
+        final Set<String> backlinks = getCachedBacklinks(source, target);
+        final List<String> linkTargets = new ArrayList<>(backlinks.size() + 1);
+        linkTargets.add(target);
+        linkTargets.addAll(backlinks);
+
+        final CompletableFuture<Map<String, List<String>>> sourceLinks =
+                apiClient.fetchLinksToAsync(
+                        Collections.singletonList(source),
+                        linkTargets);
+
+        final CompletableFuture<Map<String, List<String>>> neighborLinks =
+                apiClient.fetchNeighborLinksToAsync(
+                        source,
+                        Collections.singletonList(target));
+
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+        try {
+            final List<String> links =
+                    sourceLinks.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                               .get(source);
+
+            String intermediate = null;
+
+            for (final String link : links) {
+                if (!backlinks.contains(CsrLinkGraph.normalizeTitle(link))) {
+                    // The only other link target is the target itself:
+                    neighborLinks.cancel(false);
+                    return List.of(source, target);
+                }
+
+                intermediate = link;
+            }
+
+            if (intermediate == null) {
+                final Map<String, List<String>> neighborMap =
+                        neighborLinks.get(
+                                Math.max(0L,
+                                         deadline -
+                                         System.currentTimeMillis()),
+                                TimeUnit.MILLISECONDS);
+
+                for (final String neighbor : neighborMap.keySet()) {
+                    if (!isEndpoint(neighbor, source, target)) {
+                        intermediate = neighbor;
+                        break;
+                    }
+                }
+            }
+
+            return intermediate == null ?
+                   null :
+                   List.of(source, intermediate, target);
+
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (final ExecutionException | TimeoutException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns up to 49 cached backlinks of {@code target}, the endpoints
+     * excluded, normalized so that they compare equal to the returned links
+     * whichever expander cached them.
+     */
+    private Set<String> getCachedBacklinks(final String source,
+                                           final String target) {
+        final List<String> backlinks =
+                sessionLinkCache == null ?
+                null :
+                sessionLinkCache.peek(languageCode,
+                                      LinkDirection.BACKWARD,
+                                      target);
+
+        if (backlinks == null) {
+            return Collections.<String>emptySet();
+        }
+
+        final Set<String> result = new HashSet<>();
+
+        for (final String backlink : backlinks) {
+            if (result.size() ==
+                    WikipediaApiClient.MAXIMUM_TITLES_PER_REQUEST - 1) {
+                break;
+            }
+
+            if (!isEndpoint(backlink, source, target)) {
+                result.add(CsrLinkGraph.normalizeTitle(backlink));
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean isEndpoint(final String title,
+                                      final String source,
+                                      final String target) {
+        final String normalizedTitle = CsrLinkGraph.normalizeTitle(title);
+
+        return normalizedTitle.equals(CsrLinkGraph.normalizeTitle(source)) ||
+               normalizedTitle.equals(CsrLinkGraph.normalizeTitle(target));
+    }
+}
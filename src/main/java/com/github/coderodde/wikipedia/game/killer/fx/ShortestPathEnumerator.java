@@ -0,0 +1,296 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class enumerates the shortest paths of a finished
+ * {@link IntBidirectionalBFSPathFinder} search from its parent maps, without
+ * expanding any further nodes. Besides the parent recorded in the parent
+ * map, a node may have {@link AlternativeParents} in the same layer of the
+ * search, each of them giving other shortest paths through the node. The
+ * paths through each meeting node are the combinations of a chain of parents
+ * back to the source and a chain back to the target.
+ * <p>
+ * The paths are generated lazily, one combination at a time, so asking for
+ * the first few paths of a search with millions of them is cheap. The first
+ * path is the one built from the first parents of the first meeting node.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class ShortestPathEnumerator implements Iterator<int[]> {
+
+    /**
+     * The parent of the source and target nodes.
+     */
+    private static final int NO_PARENT = -1;
+
+    /**
+     * This class holds the parents of the nodes besides the ones in the
+     * parent map of a search. The parents of a node are kept in a linked
+     * list threaded through two primitive lists, so no objects are allocated
+     * per entry.
+     * <p>
+     * This class is not thread-safe.
+     */
+    static final class AlternativeParents {
+
+        /**
+         * Marks the end of the parent list of a node.
+         */
+        private static final int NO_ENTRY = -1;
+
+        private final IntIntHashMap firstEntries = new IntIntHashMap(NO_ENTRY);
+        private final IntArrayList parents = new IntArrayList();
+        private final IntArrayList nextEntries = new IntArrayList();
+
+        /**
+         * Adds {@code parent} to the alternative parents of {@code node}
+         * unless it is there already.
+         *
+         * @param node   the node.
+         * @param parent the alternative parent.
+         */
+        void add(final int node, final int parent) {
+            final int firstEntry = firstEntries.get(node);
+
+            for (int entry = firstEntry;
+                     entry != NO_ENTRY;
+                     entry = nextEntries.get(entry)) {
+                if (parents.get(entry) == parent) {
+                    return;
+                }
+            }
+
+            parents.add(parent);
+            nextEntries.add(firstEntry);
+            firstEntries.put(node, parents.size() - 1);
+        }
+
+        /**
+         * Returns the alternative parent of {@code node} at {@code index}.
+         *
+         * @param node  the node.
+         * @param index the index of the alternative parent.
+         *
+         * @return the parent, or {@code -1} if the node has no more
+         *         alternative parents.
+         */
+        int get(final int node, int index) {
+            int entry = firstEntries.get(node);
+
+            while (entry != NO_ENTRY && index-- > 0) {
+                entry = nextEntries.get(entry);
+            }
+
+            return entry == NO_ENTRY ? NO_PARENT : parents.get(entry);
+        }
+    }
+
+    /**
+     * This class enumerates the chains of parents from a node back to the
+     * root of a search tree. Since all the parents of a node lie in the same
+     * layer, all the chains have the same length.
+     */
+    private static final class ParentChain {
+
+        private final IntIntMap parents;
+        private final AlternativeParents alternativeParents;
+
+        /**
+         * The nodes of the current chain, the root last.
+         */
+        private final int[] nodes;
+
+        /**
+         * The index of the parent chosen for each node of the current chain.
+         */
+        private final int[] choices;
+
+        ParentChain(final int node,
+                    final IntIntMap parents,
+                    final AlternativeParents alternativeParents) {
+            this.parents = parents;
+            this.alternativeParents = alternativeParents;
+
+            int length = 1;
+
+            for (int n = node; (n = parents.get(n)) != NO_PARENT;) {
+                length++;
+            }
+
+            this.nodes = new int[length];
+            this.choices = new int[length];
+            this.nodes[0] = node;
+            fill(0);
+        }
+
+        int[] getNodes() {
+            return nodes;
+        }
+
+        /**
+         * Moves to the next chain, changing the parent choices nearest to
+         * the root first.
+         *
+         * @return {@code false} if there are no more chains.
+         */
+        boolean advance() {
+            for (int i = nodes.length - 2; i >= 0; i--) {
+                final int parent = getParent(nodes[i], choices[i] + 1);
+
+                if (parent != NO_PARENT) {
+                    choices[i]++;
+                    nodes[i + 1] = parent;
+                    fill(i + 1);
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Completes the chain from the node at {@code index} with the first
+         * parents.
+         */
+        private void fill(final int index) {
+            for (int i = index; i < nodes.length - 1; i++) {
+                choices[i] = 0;
+                nodes[i + 1] = parents.get(nodes[i]);
+            }
+        }
+
+        private int getParent(final int node, final int index) {
+            if (index == 0) {
+                return parents.get(node);
+            }
+
+            return alternativeParents == null ?
+                   NO_PARENT :
+                   alternativeParents.get(node, index - 1);
+        }
+    }
+
+    private final IntIntMap forwardParents;
+    private final IntIntMap backwardParents;
+    private final AlternativeParents forwardAlternativeParents;
+    private final AlternativeParents backwardAlternativeParents;
+    private final int[] meetingNodes;
+    private final int maximumNumberOfPaths;
+
+    private int numberOfPaths;
+    private int meetingNodeIndex;
+    private ParentChain forwardChain;
+    private ParentChain backwardChain;
+    private int[] nextPath;
+
+    /**
+     * Constructs an enumerator.
+     *
+     * @param forwardParents             the forward parent map.
+     * @param backwardParents            the backward parent map.
+     * @param forwardAlternativeParents  the other forward parents, or
+     *                                   {@code null}.
+     * @param backwardAlternativeParents the other backward parents, or
+     *                                   {@code null}.
+     * @param meetingNodes               the nodes where the two searches
+     *                                   met on a shortest path.
+     * @param maximumNumberOfPaths       the maximum number of paths to
+     *                                   generate.
+     */
+    ShortestPathEnumerator(
+            final IntIntMap forwardParents,
+            final IntIntMap backwardParents,
+            final AlternativeParents forwardAlternativeParents,
+            final AlternativeParents backwardAlternativeParents,
+            final int[] meetingNodes,
+            final int maximumNumberOfPaths) {
+        this.forwardParents = forwardParents;
+        this.backwardParents = backwardParents;
+        this.forwardAlternativeParents = forwardAlternativeParents;
+        this.backwardAlternativeParents = backwardAlternativeParents;
+        this.meetingNodes = meetingNodes;
+        this.maximumNumberOfPaths = maximumNumberOfPaths;
+        this.nextPath = computeNextPath();
+    }
+
+    /**
+     * Returns an enumerator generating no paths.
+     *
+     * @return an empty enumerator.
+     */
+    static ShortestPathEnumerator empty() {
+        return new ShortestPathEnumerator(null, null, null, null, new int[0], 0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextPath != null;
+    }
+
+    @Override
+    public int[] next() {
+        if (nextPath == null) {
+            throw new NoSuchElementException("No more shortest paths.");
+        }
+
+        final int[] path = nextPath;
+        nextPath = computeNextPath();
+        return path;
+    }
+
+    private int[] computeNextPath() {
+        if (numberOfPaths == maximumNumberOfPaths) {
+            return null;
+        }
+
+        if (forwardChain != null && !backwardChain.advance()) {
+            if (forwardChain.advance()) {
+                backwardChain = new ParentChain(
+                        meetingNodes[meetingNodeIndex - 1],
+                        backwardParents,
+                        backwardAlternativeParents);
+            } else {
+                forwardChain = null;
+            }
+        }
+
+        if (forwardChain == null) {
+            if (meetingNodeIndex == meetingNodes.length) {
+                return null;
+            }
+
+            final int meetingNode = meetingNodes[meetingNodeIndex++];
+
+            forwardChain = new ParentChain(meetingNode,
+                                           forwardParents,
+                                           forwardAlternativeParents);
+
+            backwardChain = new ParentChain(meetingNode,
+                                            backwardParents,
+                                            backwardAlternativeParents);
+        }
+
+        numberOfPaths++;
+
+        // The forward chain runs from the meeting node back to the source,
+        // and the backward chain from the meeting node on to the target:
+        final int[] forwardNodes = forwardChain.getNodes();
+        final int[] backwardNodes = backwardChain.getNodes();
+        final int[] path =
+                new int[forwardNodes.length + backwardNodes.length - 1];
+
+        for (int i = 0; i < forwardNodes.length; i++) {
+            path[i] = forwardNodes[forwardNodes.length - 1 - i];
+        }
+
+        System.arraycopy(backwardNodes,
+                         1,
+                         path,
+                         forwardNodes.length,
+                         backwardNodes.length - 1);
+
+        return path;
+    }
+}
@@ -0,0 +1,260 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This class implements a streaming reader of the rows in a MySQL dump file
+ * of a single table, such as the {@code page} and {@code pagelinks} dumps
+ * published by Wikimedia. Only a single {@code INSERT} statement is held in
+ * memory at a time.
+ * <p>
+ * The column names are parsed from the {@code CREATE TABLE} statement so that
+ * the rows may be addressed by column name regardless of the schema version
+ * of the dump.
+ */
+final class SqlDumpReader implements Closeable {
+
+    private final BufferedReader reader;
+    private final String insertPrefix;
+    private final String createTablePrefix;
+    private final List<String> columnNames = new ArrayList<>();
+
+    /**
+     * The current {@code INSERT} statement.
+     */
+    private String line = "";
+
+    /**
+     * The index of the next character to parse in {@link #line}.
+     */
+    private int index;
+
+    private final StringBuilder fieldBuilder = new StringBuilder();
+
+    /**
+     * Opens a reader over a gzip-compressed (if the file name ends with
+     * {@code .gz}) or plain SQL dump.
+     *
+     * @param file      the dump file.
+     * @param tableName the name of the dumped table.
+     *
+     * @throws IOException if the file cannot be opened.
+     */
+    SqlDumpReader(final Path file, final String tableName) throws IOException {
+        InputStream inputStream = Files.newInputStream(file);
+
+        if (file.getFileName().toString().endsWith(".gz")) {
+            inputStream = new GZIPInputStream(inputStream, 1 << 16);
+        }
+
+        this.reader =
+                new BufferedReader(
+                        new InputStreamReader(inputStream,
+                                              StandardCharsets.UTF_8),
+                        1 << 20);
+
+        this.insertPrefix = "INSERT INTO `" + tableName + "` VALUES ";
+        this.createTablePrefix = "CREATE TABLE `" + tableName + "`";
+    }
+
+    /**
+     * Returns the column names of the table. Populated as soon as the
+     * {@code CREATE TABLE} statement has been read, at the latest when the
+     * first row is returned.
+     *
+     * @return the column names.
+     */
+    List<String> getColumnNames() {
+        return Collections.unmodifiableList(columnNames);
+    }
+
+    /**
+     * Returns the index of the column {@code columnName}.
+     *
+     * @param columnName the name of the column.
+     *
+     * @return the index of the column, or -1 if there is no such column.
+     */
+    int getColumnIndex(final String columnName) {
+        return columnNames.indexOf(columnName);
+    }
+
+    /**
+     * Reads the next row into {@code fields}. {@code NULL} values are
+     * returned as {@code null}.
+     *
+     * @param fields the list to receive the field values.
+     *
+     * @return {@code false} if there are no more rows.
+     *
+     * @throws IOException if the dump cannot be read or is malformed.
+     */
+    boolean nextRow(final List<String> fields) throws IOException {
+        fields.clear();
+
+        while (true) {
+            skipRowSeparators();
+
+            if (index < line.length()) {
+                parseRow(fields);
+                return true;
+            }
+
+            if (!readNextInsertStatement()) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readNextInsertStatement() throws IOException {
+        String nextLine;
+
+        while ((nextLine = reader.readLine()) != null) {
+            if (nextLine.startsWith(insertPrefix)) {
+                line = nextLine;
+                index = insertPrefix.length();
+                return true;
+            }
+
+            if (nextLine.startsWith(createTablePrefix)) {
+                readColumnNames();
+            }
+        }
+
+        return false;
+    }
+
+    private void readColumnNames() throws IOException {
+        columnNames.clear();
+        String nextLine;
+
+        while ((nextLine = reader.readLine()) != null) {
+            final String trimmed = nextLine.trim();
+
+            if (trimmed.startsWith(")")) {
+                return;
+            }
+
+            if (trimmed.startsWith("`")) {
+                columnNames.add(
+                        trimmed.substring(1, trimmed.indexOf('`', 1)));
+            }
+        }
+    }
+
+    private void skipRowSeparators() {
+        while (index < line.length()) {
+            final char c = line.charAt(index);
+
+            if (c == '(') {
+                return;
+            }
+
+            if (c == ';') {
+                index = line.length();
+                return;
+            }
+
+            index++;
+        }
+    }
+
+    private void parseRow(final List<String> fields) throws IOException {
+        index++; // Skip '('.
+
+        while (index < line.length()) {
+            final char c = line.charAt(index);
+
+            if (c == '\'') {
+                fields.add(parseQuotedField());
+            } else {
+                fields.add(parseBareField());
+            }
+
+            final char separator = line.charAt(index++);
+
+            if (separator == ')') {
+                return;
+            }
+
+            if (separator != ',') {
+                throw new IOException(
+                        String.format(
+                                "Unexpected character '%c' in a row.",
+                                separator));
+            }
+        }
+
+        throw new IOException("Unterminated row.");
+    }
+
+    private String parseQuotedField() throws IOException {
+        fieldBuilder.setLength(0);
+        index++; // Skip the opening quote.
+
+        while (index < line.length()) {
+            final char c = line.charAt(index++);
+
+            if (c == '\'') {
+                return fieldBuilder.toString();
+            }
+
+            if (c != '\\') {
+                fieldBuilder.append(c);
+                continue;
+            }
+
+            final char escaped = line.charAt(index++);
+
+            switch (escaped) {
+                case 'n':
+                    fieldBuilder.append('\n');
+                    break;
+
+                case 'r':
+                    fieldBuilder.append('\r');
+                    break;
+
+                case 't':
+                    fieldBuilder.append('\t');
+                    break;
+
+                case '0':
+                    fieldBuilder.append('\0');
+                    break;
+
+                default:
+                    fieldBuilder.append(escaped);
+            }
+        }
+
+        throw new IOException("Unterminated string literal.");
+    }
+
+    private String parseBareField() {
+        final int start = index;
+
+        while (line.charAt(index) != ',' && line.charAt(index) != ')') {
+            index++;
+        }
+
+        final String field = line.substring(start, index);
+        return field.equals("NULL") ? null : field;
+    }
+}
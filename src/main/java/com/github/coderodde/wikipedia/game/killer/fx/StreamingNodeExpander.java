@@ -0,0 +1,41 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This interface is implemented by the title-based node expanders that can
+ * hand out the successors of a node page by page as they are downloaded,
+ * before the whole successor list is known.
+ */
+interface StreamingNodeExpander {
+
+    /**
+     * Generates the successors of {@code node}, passing them to
+     * {@code pageListener} page by page. Once the listener wants no more
+     * pages, the download may stop; the returned future then completes with
+     * an empty list, and the partial successors are not cached. Like
+     * {@link AsyncNodeExpander#generateSuccessorsAsync(String)}, the future
+     * never completes exceptionally.
+     * <p>
+     * The method blocks until the last page unless
+     * {@link AsyncNodeExpander#isAsynchronous()} is {@code true} for the
+     * expander.
+     *
+     * @param node         the node to expand.
+     * @param pageListener the listener of the successor pages.
+     *
+     * @return the future list of all the successors of {@code node}.
+     */
+    CompletableFuture<List<String>> generateSuccessorsStreaming(
+            final String node,
+            final LinkPageListener pageListener);
+
+    /**
+     * Returns {@code true} if the successors really arrive in several pages.
+     * Otherwise, the whole successor list is passed as a single page.
+     *
+     * @return {@code true} if the expansions are streamed.
+     */
+    boolean isStreaming();
+}
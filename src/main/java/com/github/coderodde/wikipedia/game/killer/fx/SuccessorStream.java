@@ -0,0 +1,119 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class carries the successor pages of the expansions of a layer from
+ * the threads downloading them to the searching thread, in the order they
+ * arrive. The searching thread may cancel the stream once it needs no more
+ * successors, which lets the expanders stop downloading.
+ * <p>
+ * The stream ends once all the expansions of the layer are complete.
+ */
+final class SuccessorStream {
+
+    /**
+     * A page of the successors of a node.
+     */
+    static final class Page {
+
+        final int node;
+        final int[] successors;
+
+        Page(final int node, final int[] successors) {
+            this.node = node;
+            this.successors = successors;
+        }
+    }
+
+    /**
+     * Marks the end of the stream. The other pages are never empty.
+     */
+    private static final Page END_OF_STREAM = new Page(-1, new int[0]);
+
+    private final BlockingQueue<Page> pages = new LinkedBlockingQueue<>();
+
+    /**
+     * The number of the expansions not complete yet.
+     */
+    private final AtomicInteger numberOfRunningExpansions;
+
+    /**
+     * Set once the searching thread wants no more pages.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Constructs a stream.
+     *
+     * @param numberOfExpansions the number of the expansions of the layer.
+     */
+    SuccessorStream(final int numberOfExpansions) {
+        this.numberOfRunningExpansions =
+                new AtomicInteger(numberOfExpansions);
+
+        if (numberOfExpansions == 0) {
+            pages.add(END_OF_STREAM);
+        }
+    }
+
+    /**
+     * Adds a page of the successors of {@code node} to the stream. The empty
+     * pages are dropped.
+     *
+     * @param node       the expanded node.
+     * @param successors the successor page.
+     *
+     * @return {@code false} if the stream is cancelled.
+     */
+    boolean offer(final int node, final int[] successors) {
+        if (cancelled) {
+            return false;
+        }
+
+        if (successors.length > 0) {
+            pages.add(new Page(node, successors));
+        }
+
+        return true;
+    }
+
+    /**
+     * Tells that an expansion has offered all its pages.
+     */
+    void completeExpansion() {
+        if (numberOfRunningExpansions.decrementAndGet() == 0) {
+            pages.add(END_OF_STREAM);
+        }
+    }
+
+    /**
+     * Cancels the stream. The pages offered from now on are dropped.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Takes the next page, waiting at most the given time for it.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit    the unit of {@code timeout}.
+     *
+     * @return the next page, a page of no successors at the end of the
+     *         stream, or {@code null} if the time ran out.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    Page poll(final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+        return pages.poll(timeout, unit);
+    }
+}
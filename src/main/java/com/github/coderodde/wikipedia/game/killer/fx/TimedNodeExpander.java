@@ -0,0 +1,38 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.github.coderodde.graph.pathfinding.delayed.AbstractNodeExpander;
+import java.util.List;
+
+/**
+ * This class wraps a title-based node expander and records the latency of
+ * each expansion in a {@link SearchTelemetry}. It serves the library path
+ * finder, whose search state is not observable otherwise; the
+ * {@link IntBidirectionalBFSPathFinder} reports into the telemetry itself.
+ */
+final class TimedNodeExpander extends AbstractNodeExpander<String> {
+
+    private final AbstractNodeExpander<String> expander;
+    private final SearchTelemetry telemetry;
+
+    TimedNodeExpander(final AbstractNodeExpander<String> expander,
+                      final SearchTelemetry telemetry) {
+        this.expander = expander;
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public List<String> generateSuccessors(final String article) {
+        final long startTime = System.nanoTime();
+
+        try {
+            return expander.generateSuccessors(article);
+        } finally {
+            telemetry.recordExpansion(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public boolean isValidNode(final String article) {
+        return expander.isValidNode(article);
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class implements a dictionary interning each article title to a dense
+ * non-negative {@code int} identifier. The first interned title receives the
+ * identifier 0, the second 1, and so on. Each title is stored only once no 
+ * matter how many times it is interned.
+ * <p>
+ * The titles are kept in an open-addressing hash table of identifiers so that
+ * there is no per-entry object besides the title itself. All the methods are
+ * synchronized.
+ */
+final class TitleDictionary {
+
+    /**
+     * Marks an empty slot in the hash table.
+     */
+    private static final int EMPTY_SLOT = -1;
+
+    /**
+     * The maximum load factor of the hash table.
+     */
+    private static final float MAXIMUM_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The hash table mapping the title hashes to the identifiers.
+     */
+    private int[] slots;
+
+    /**
+     * Maps each identifier to its title.
+     */
+    private String[] titles;
+
+    /**
+     * The number of interned titles.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty dictionary.
+     */
+    TitleDictionary() {
+        slots = new int[1024];
+        titles = new String[512];
+        Arrays.fill(slots, EMPTY_SLOT);
+    }
+
+    /**
+     * Returns the identifier of {@code title}, assigning a new one if 
+     * {@code title} is not yet in this dictionary.
+     * 
+     * @param title the title to intern.
+     * 
+     * @return the identifier of {@code title}.
+     */
+    synchronized int intern(final String title) {
+        final int mask = slots.length - 1;
+        int slot = spread(title.hashCode()) & mask;
+
+        while (slots[slot] != EMPTY_SLOT) {
+            final int id = slots[slot];
+
+            if (titles[id].equals(title)) {
+                return id;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return add(title, slot);
+    }
+
+    /**
+     * Returns the identifier of the title given in UTF-8 as
+     * {@link #intern(String)} does. A title of ASCII characters already in
+     * this dictionary is found without creating a string of it.
+     * 
+     * @param bytes  the array holding the title in UTF-8.
+     * @param offset the index of the first byte of the title.
+     * @param length the number of bytes in the title.
+     * 
+     * @return the identifier of the title.
+     */
+    synchronized int intern(final byte[] bytes,
+                            final int offset,
+                            final int length) {
+        // The hash code of a string of the same characters:
+        int hash = 0;
+
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] < 0) {
+                return intern(new String(bytes, 
+                                         offset, 
+                                         length, 
+                                         StandardCharsets.UTF_8));
+            }
+
+            hash = 31 * hash + bytes[i];
+        }
+
+        final int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+
+        while (slots[slot] != EMPTY_SLOT) {
+            final int id = slots[slot];
+
+            if (equals(titles[id], bytes, offset, length)) {
+                return id;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return add(new String(bytes, 
+                              offset, 
+                              length, 
+                              StandardCharsets.ISO_8859_1), 
+                   slot);
+    }
+
+    /**
+     * Assigns the next identifier to {@code title}, not in this dictionary,
+     * and stores it in the empty {@code slot}.
+     */
+    private int add(final String title, final int slot) {
+        final int id = size++;
+
+        if (id == titles.length) {
+            titles = Arrays.copyOf(titles, titles.length * 2);
+        }
+
+        titles[id] = title;
+        slots[slot] = id;
+
+        if (size > slots.length * MAXIMUM_LOAD_FACTOR) {
+            rehash();
+        }
+
+        return id;
+    }
+
+    /**
+     * Returns the identifier of {@code title} or -1 if {@code title} has not 
+     * been interned.
+     * 
+     * @param title the title to look up.
+     * 
+     * @return the identifier of {@code title} or -1.
+     */
+    synchronized int getId(final String title) {
+        final int mask = slots.length - 1;
+        int slot = spread(title.hashCode()) & mask;
+
+        while (slots[slot] != EMPTY_SLOT) {
+            final int id = slots[slot];
+
+            if (titles[id].equals(title)) {
+                return id;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the title with the identifier {@code id}.
+     * 
+     * @param id the identifier of the title.
+     * 
+     * @return the title.
+     */
+    synchronized String getTitle(final int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException(
+                    String.format(
+                            "Unknown title identifier: %d.",
+                            id));
+        }
+
+        return titles[id];
+    }
+
+    /**
+     * Returns the number of interned titles.
+     * 
+     * @return the size of this dictionary.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    private void rehash() {
+        final int[] newSlots = new int[slots.length * 2];
+        final int mask = newSlots.length - 1;
+        Arrays.fill(newSlots, EMPTY_SLOT);
+
+        for (int id = 0; id < size; id++) {
+            int slot = spread(titles[id].hashCode()) & mask;
+
+            while (newSlots[slot] != EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+
+            newSlots[slot] = id;
+        }
+
+        slots = newSlots;
+    }
+
+    /**
+     * Tells whether {@code title} consists of the ASCII characters in 
+     * {@code bytes}.
+     */
+    private static boolean equals(final String title,
+                                  final byte[] bytes,
+                                  final int offset,
+                                  final int length) {
+        if (title.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (title.charAt(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int spread(final int hash) {
+        final int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -4,9 +4,6 @@ import com.github.coderodde.graph.pathfinding.delayed.AbstractDelayedGraphPathFi
 import com.github.coderodde.graph.pathfinding.delayed.AbstractNodeExpander;
 import com.github.coderodde.graph.pathfinding.delayed.impl.ThreadPoolBidirectionalBFSPathFinder;
 import com.github.coderodde.graph.pathfinding.delayed.impl.ThreadPoolBidirectionalBFSPathFinderBuilder;
-import com.github.coderodde.graph.pathfinding.delayed.impl.ThreadPoolBidirectionalBFSPathFinderSearchBuilder;
-import com.github.coderodde.wikipedia.graph.expansion.BackwardWikipediaGraphNodeExpander;
-import com.github.coderodde.wikipedia.graph.expansion.ForwardWikipediaGraphNodeExpander;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -25,13 +22,20 @@ import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import static javafx.application.Application.launch;
 import javafx.application.Platform;
@@ -46,13 +50,18 @@ import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Hyperlink;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Separator;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.Border;
@@ -67,10 +76,12 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
+import javafx.util.Duration;
 import org.apache.commons.io.IOUtils;
 
 public final class WikiGameKillerFX extends Application {
@@ -107,16 +118,10 @@ public final class WikiGameKillerFX extends Application {
                         <table>
             %s            </table>
                     </div>
-                    <div>
+            %s        <div>
                         <h3>Search parameters:</h3>
                         <table>
-                            <tr><td><b>Number of threads:     </b></td><td>%d</td><tr>
-                            <tr><td><b>Expansion duration:    </b></td><td>%d milliseconds.</td><tr>
-                            <tr><td><b>Wait timeout:          </b></td><td>%d milliseconds.</td><tr>
-                            <tr><td><b>Master trials:         </b></td><td>%d</td><tr>
-                            <tr><td><b>Master sleep duration: </b></td><td>%d milliseconds.</td><tr>
-                            <tr><td><b>Slave sleep duration:  </b></td><td>%d milliseconds.</td><tr>
-                        </table>
+            %s            </table>
                     </div>
                 <body>
             </html>
@@ -125,16 +130,32 @@ public final class WikiGameKillerFX extends Application {
     /**
      * The Wikipedia API call for generating two random pages.
      */
-    private static final String RANDOM_PAGE_QUERY_URL = 
-            "https://en.wikipedia.org/w/api.php?" + 
+    private static final String RANDOM_PAGE_QUERY = 
             "action=query&format=json&list=random&rnnamespace=0&rnlimit=2";
     
+    private static final String RANDOM_PAGE_LANGUAGE_CODE = "en";
+    
     /**
      * The Wikipedia URL format.
      */
     private static final String WIKIPEDIA_URL_FORMAT =
             "^((http:\\/\\/)|(https:\\/\\/))?..\\.wikipedia\\.org\\/wiki\\/.+$";
     
+    /**
+     * The number of bytes in a megabyte.
+     */
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+    
+    /**
+     * The interval at which the telemetry of a running search is sampled.
+     */
+    private static final double TELEMETRY_SAMPLING_INTERVAL_MILLIS = 500.0;
+    
+    /**
+     * The number of samples shown in the throughput chart: two minutes.
+     */
+    private static final int MAXIMUM_CHART_SAMPLES = 240;
+    
     private static final String SEPARATOR_CSS = 
             ".separator {\n" + 
             "  -fx-padding: 0px;\n" +
@@ -173,16 +194,36 @@ public final class WikiGameKillerFX extends Application {
     private final TextField masterTrialsTextField       = new TextField();
     private final TextField masterSleepTextField        = new TextField();
     private final TextField slaveSleepTextField         = new TextField();
+    private final TextField cacheMemoryTextField        = new TextField();
+    private final TextField batchSizeTextField          = new TextField();
+    private final TextField batchLingerTextField        = new TextField();
+    private final TextField shortestPathsTextField      = new TextField();
+    private final TextField parentMemoryTextField       = new TextField();
+    private final TextField offlineGraphTextField       = new TextField();
+    
+    private final ComboBox<CacheAdmissionPolicy> cacheAdmissionComboBox = 
+            new ComboBox<>();
+    
+    private final ComboBox<SearchEngineType> searchEngineComboBox = 
+            new ComboBox<>();
+    
+    private final ComboBox<FrontierSelectionPolicy> frontierComboBox = 
+            new ComboBox<>();
+    
+    private final ComboBox<ExpansionOrder> expansionOrderComboBox = 
+            new ComboBox<>();
         
     private final Button searchButton          = new Button("Search");
     private final Button haltButton            = new Button("Halt");
     private final Button defaultSettingsButton = new Button("Set defaults");
     private final Button saveResultsButton     = new Button("Save");
     private final Button randomizeButton       = new Button("Randomize");
+    private final Button offlineGraphButton    = new Button("Browse");
     
     private final ProgressBar progressBar = new ProgressBar(100.0);
     
     private volatile ThreadPoolBidirectionalBFSPathFinder<String> finder;
+    private volatile IntBidirectionalBFSPathFinder intFinder;
     
     private Stage resultsStage;
     private Stage primaryStage;
@@ -201,9 +242,110 @@ public final class WikiGameKillerFX extends Application {
                                 CornerRadii.EMPTY, 
                                 BorderWidths.DEFAULT));
     
+    /**
+     * The most recently opened offline link graph, or {@code null} if no 
+     * offline graph is in use.
+     */
+    private CsrLinkGraph offlineGraph;
+    
+    /**
+     * The API clients of the current search, or {@code null} if the search 
+     * runs offline.
+     */
+    private volatile WikipediaApiClient forwardApiClient;
+    private volatile WikipediaApiClient backwardApiClient;
+    
+    /**
+     * The maximum number of concurrent requests of the asynchronous engine.
+     */
+    private volatile int maximumConcurrentRequests;
+    
+    /**
+     * The search engine of the most recent search.
+     */
+    private volatile SearchEngineType currentSearchEngineType;
+    
+    /**
+     * Samples the memory usage and the number of threads during a search.
+     */
+    private final SearchResourceMonitor resourceMonitor = 
+            new SearchResourceMonitor();
+    
+    /**
+     * Receives the live progress of the current search.
+     */
+    private final SearchTelemetry telemetry = new SearchTelemetry();
+    
+    /**
+     * Samples the telemetry into the telemetry label and the throughput 
+     * chart while a search is running.
+     */
+    private final Timeline telemetryTimeline = 
+            new Timeline(
+                    new KeyFrame(
+                            Duration.millis(
+                                    TELEMETRY_SAMPLING_INTERVAL_MILLIS), 
+                            (t) -> sampleTelemetry()));
+    
+    private final Label telemetryLabel = new Label();
+    
+    /**
+     * Shows the landmark bounds of the path length while searching an 
+     * offline graph.
+     */
+    private final Label boundsLabel = new Label();
+    
+    private final XYChart.Series<Number, Number> expansionRateSeries = 
+            new XYChart.Series<>();
+    
+    private final XYChart.Series<Number, Number> requestsInFlightSeries = 
+            new XYChart.Series<>();
+    
+    private final LineChart<Number, Number> throughputChart = 
+            new LineChart<>(new NumberAxis(), new NumberAxis());
+    
+    /**
+     * Maps each search engine to the performance summary of its most recent
+     * search, for a side-by-side comparison of the engines.
+     */
+    private final Map<SearchEngineType, String> engineComparisonMap = 
+            new EnumMap<>(SearchEngineType.class);
+    
+    /**
+     * The in-memory link cache shared by all the searches in this session.
+     */
+    private final SessionLinkCache sessionLinkCache = 
+            new SessionLinkCache(256L * BYTES_PER_MEGABYTE, 
+                                 CacheAdmissionPolicy.TINY_LFU);
+    
+    /**
+     * Creates the link expanders on top of the session link cache and the 
+     * persistent link caches.
+     */
+    private final LinkExpanderFactory linkExpanderFactory = 
+            new LinkExpanderFactory(sessionLinkCache);
+    
     private volatile List<String> resultUrls = new ArrayList<>();
+    
+    /**
+     * The other shortest paths of the most recent search, appended as they
+     * are enumerated.
+     */
+    private final List<List<String>> otherResultUrls = new ArrayList<>();
+    
+    /**
+     * The box of the results window listing the paths.
+     */
+    private VBox resultsBox;
+    
+    /**
+     * Counts the reported searches, so that the paths of a search are not
+     * appended to the results of a later one.
+     */
+    private int resultsGeneration;
     private volatile int duration;
     private volatile int numberOfExpandedNodes;
+    private volatile int numberOfFailedExpansions;
      
     public static void main(String[] args) {
         launch(args);
@@ -219,6 +361,7 @@ public final class WikiGameKillerFX extends Application {
         primaryStage.setOnCloseRequest(new EventHandler<WindowEvent>() {
             @Override
             public void handle(WindowEvent t) {
+                closeLinkCaches();
                 Platform.exit();
                 System.exit(0);
             }
@@ -228,21 +371,41 @@ public final class WikiGameKillerFX extends Application {
         
         final Label sourceLabel            = new Label("Source article:        ");
         final Label targetLabel            = new Label("Target article:        ");
+        final Label searchEngineLabel      = new Label("Search engine:         ");
+        final Label frontierLabel          = new Label("Frontier selection:    ");
+        final Label expansionOrderLabel    = new Label("Expansion order:       ");
+        final Label shortestPathsLabel     = new Label("Shortest paths:        ");
+        final Label parentMemoryLabel      = new Label("Parent memory (MB):    ");
         final Label threadsLabel           = new Label("Number of threads:     ");
         final Label expansionDurationLabel = new Label("Expansion duration:    ");
         final Label waitTimeoutLabel       = new Label("Wait timeout:          ");
         final Label masterTrialsLabel      = new Label("Master trials:         ");
         final Label masterSleepLabel       = new Label("Master sleep duration: ");
         final Label slaveSleepLabel        = new Label("Slave sleep duration:  ");
+        final Label cacheMemoryLabel       = new Label("Cache memory (MB):     ");
+        final Label cacheAdmissionLabel    = new Label("Cache admission:       ");
+        final Label batchSizeLabel         = new Label("API batch size:        ");
+        final Label batchLingerLabel       = new Label("Batch linger (ms):     ");
+        final Label offlineGraphLabel      = new Label("Offline graph:         ");
         
         sourceLabel            .setFont(FONT);
         targetLabel            .setFont(FONT);
+        searchEngineLabel      .setFont(FONT);
+        frontierLabel          .setFont(FONT);
+        expansionOrderLabel    .setFont(FONT);
+        shortestPathsLabel     .setFont(FONT);
+        parentMemoryLabel      .setFont(FONT);
         threadsLabel           .setFont(FONT);
         expansionDurationLabel .setFont(FONT);
         waitTimeoutLabel       .setFont(FONT);
         masterTrialsLabel      .setFont(FONT);
         masterSleepLabel       .setFont(FONT);
         slaveSleepLabel        .setFont(FONT);
+        cacheMemoryLabel       .setFont(FONT);
+        cacheAdmissionLabel    .setFont(FONT);
+        batchSizeLabel         .setFont(FONT);
+        batchLingerLabel       .setFont(FONT);
+        offlineGraphLabel      .setFont(FONT);
         
         sourceTextField             .setFont(FONT);
         targetTextField             .setFont(FONT);
@@ -252,6 +415,12 @@ public final class WikiGameKillerFX extends Application {
         masterTrialsTextField       .setFont(FONT);
         masterSleepTextField        .setFont(FONT);
         slaveSleepTextField         .setFont(FONT);
+        cacheMemoryTextField        .setFont(FONT);
+        batchSizeTextField          .setFont(FONT);
+        batchLingerTextField        .setFont(FONT);
+        shortestPathsTextField      .setFont(FONT);
+        parentMemoryTextField       .setFont(FONT);
+        offlineGraphTextField       .setFont(FONT);
         
         sourceTextField             .setPrefWidth(300);
         targetTextField             .setPrefWidth(300);
@@ -261,6 +430,31 @@ public final class WikiGameKillerFX extends Application {
         masterTrialsTextField       .setPrefWidth(300);
         masterSleepTextField        .setPrefWidth(300);
         slaveSleepTextField         .setPrefWidth(300);
+        cacheMemoryTextField        .setPrefWidth(300);
+        batchSizeTextField          .setPrefWidth(300);
+        batchLingerTextField        .setPrefWidth(300);
+        shortestPathsTextField      .setPrefWidth(300);
+        parentMemoryTextField       .setPrefWidth(300);
+        cacheAdmissionComboBox      .setPrefWidth(300);
+        searchEngineComboBox        .setPrefWidth(300);
+        frontierComboBox            .setPrefWidth(300);
+        expansionOrderComboBox      .setPrefWidth(300);
+        offlineGraphTextField       .setPrefWidth(230);
+        offlineGraphButton          .setPrefWidth(70);
+        
+        offlineGraphTextField.setPromptText("Directory (empty = online)");
+        
+        searchEngineComboBox.getItems().addAll(SearchEngineType.values());
+        searchEngineComboBox.valueProperty().addListener(
+                (observable, oldValue, newValue) -> {
+                    updateEngineParameterFields();
+                });
+        
+        cacheAdmissionComboBox.getItems()
+                              .addAll(CacheAdmissionPolicy.values());
+        
+        frontierComboBox.getItems().addAll(FrontierSelectionPolicy.values());
+        expansionOrderComboBox.getItems().addAll(ExpansionOrder.values());
         
         sourceTextField             .textProperty().addListener(new StringTextFieldChangeListener(sourceTextField));
         targetTextField             .textProperty().addListener(new StringTextFieldChangeListener(targetTextField));
@@ -270,40 +464,84 @@ public final class WikiGameKillerFX extends Application {
         masterTrialsTextField       .textProperty().addListener(new IntegerTextFieldChangeListener(masterTrialsTextField));
         masterSleepTextField        .textProperty().addListener(new IntegerTextFieldChangeListener(masterSleepTextField));
         slaveSleepTextField         .textProperty().addListener(new IntegerTextFieldChangeListener(slaveSleepTextField));
+        cacheMemoryTextField        .textProperty().addListener(new IntegerTextFieldChangeListener(cacheMemoryTextField));
+        batchSizeTextField          .textProperty().addListener(new IntegerTextFieldChangeListener(batchSizeTextField));
+        batchLingerTextField        .textProperty().addListener(new IntegerTextFieldChangeListener(batchLingerTextField));
+        shortestPathsTextField      .textProperty().addListener(new IntegerTextFieldChangeListener(shortestPathsTextField));
+        parentMemoryTextField       .textProperty().addListener(new IntegerTextFieldChangeListener(parentMemoryTextField));
         
         final HBox sourceRowBox            = new HBox();
         final HBox targetRowBox            = new HBox();
+        final HBox searchEngineRowBox      = new HBox();
+        final HBox frontierRowBox          = new HBox();
+        final HBox expansionOrderRowBox    = new HBox();
+        final HBox shortestPathsRowBox     = new HBox();
+        final HBox parentMemoryRowBox      = new HBox();
         final HBox threadsRowBox           = new HBox();
         final HBox expansionDurationRowBox = new HBox();
         final HBox waitTimeoutRowBox       = new HBox();
         final HBox masterTrialsRowBox      = new HBox();
         final HBox masterSleepRowBox       = new HBox();
         final HBox slaveSleepRowBox        = new HBox();
+        final HBox cacheMemoryRowBox       = new HBox();
+        final HBox cacheAdmissionRowBox    = new HBox();
+        final HBox batchSizeRowBox         = new HBox();
+        final HBox batchLingerRowBox       = new HBox();
+        final HBox offlineGraphRowBox      = new HBox();
         final HBox buttonsRowBox           = new HBox();
         
         final Insets rowBoxInsets = new Insets(3.0);
         
         sourceRowBox            .setPadding(rowBoxInsets);
         targetRowBox            .setPadding(rowBoxInsets);
+        searchEngineRowBox      .setPadding(rowBoxInsets);
+        frontierRowBox          .setPadding(rowBoxInsets);
+        expansionOrderRowBox    .setPadding(rowBoxInsets);
+        shortestPathsRowBox     .setPadding(rowBoxInsets);
+        parentMemoryRowBox      .setPadding(rowBoxInsets);
         threadsRowBox           .setPadding(rowBoxInsets);
         expansionDurationRowBox .setPadding(rowBoxInsets);
         waitTimeoutRowBox       .setPadding(rowBoxInsets);
         masterTrialsRowBox      .setPadding(rowBoxInsets);
         masterSleepRowBox       .setPadding(rowBoxInsets);
         slaveSleepRowBox        .setPadding(rowBoxInsets);
+        cacheMemoryRowBox       .setPadding(rowBoxInsets);
+        cacheAdmissionRowBox    .setPadding(rowBoxInsets);
+        batchSizeRowBox         .setPadding(rowBoxInsets);
+        batchLingerRowBox       .setPadding(rowBoxInsets);
+        offlineGraphRowBox      .setPadding(rowBoxInsets);
         buttonsRowBox           .setPadding(rowBoxInsets);
         
         sourceRowBox.setAlignment            (Pos.CENTER_LEFT);
         targetRowBox.setAlignment            (Pos.CENTER_LEFT);
+        searchEngineRowBox.setAlignment      (Pos.CENTER_LEFT);
+        frontierRowBox.setAlignment          (Pos.CENTER_LEFT);
+        expansionOrderRowBox.setAlignment    (Pos.CENTER_LEFT);
+        shortestPathsRowBox.setAlignment     (Pos.CENTER_LEFT);
+        parentMemoryRowBox.setAlignment      (Pos.CENTER_LEFT);
         threadsRowBox.setAlignment           (Pos.CENTER_LEFT);
         expansionDurationRowBox.setAlignment (Pos.CENTER_LEFT);
         waitTimeoutRowBox.setAlignment       (Pos.CENTER_LEFT);
         masterTrialsRowBox.setAlignment      (Pos.CENTER_LEFT);
         masterSleepRowBox.setAlignment       (Pos.CENTER_LEFT);
         slaveSleepRowBox.setAlignment        (Pos.CENTER_LEFT);
+        cacheMemoryRowBox.setAlignment       (Pos.CENTER_LEFT);
+        cacheAdmissionRowBox.setAlignment    (Pos.CENTER_LEFT);
+        batchSizeRowBox.setAlignment         (Pos.CENTER_LEFT);
+        batchLingerRowBox.setAlignment       (Pos.CENTER_LEFT);
+        offlineGraphRowBox.setAlignment      (Pos.CENTER_LEFT);
         
         sourceRowBox.getChildren().addAll(sourceLabel, sourceTextField);
         targetRowBox.getChildren().addAll(targetLabel, targetTextField);
+        searchEngineRowBox.getChildren().addAll(searchEngineLabel, 
+                                                searchEngineComboBox);
+        frontierRowBox.getChildren().addAll(frontierLabel, frontierComboBox);
+        expansionOrderRowBox.getChildren().addAll(expansionOrderLabel,
+                                                  expansionOrderComboBox);
+        shortestPathsRowBox.getChildren().addAll(shortestPathsLabel,
+                                                 shortestPathsTextField);
+        parentMemoryRowBox.getChildren().addAll(parentMemoryLabel,
+                                                parentMemoryTextField);
         threadsRowBox.getChildren().addAll(threadsLabel, threadsTextField);
         expansionDurationRowBox.getChildren()
                                .addAll(expansionDurationLabel,
@@ -321,6 +559,22 @@ public final class WikiGameKillerFX extends Application {
         slaveSleepRowBox.getChildren().addAll(slaveSleepLabel, 
                                               slaveSleepTextField);
         
+        cacheMemoryRowBox.getChildren().addAll(cacheMemoryLabel,
+                                               cacheMemoryTextField);
+        
+        cacheAdmissionRowBox.getChildren().addAll(cacheAdmissionLabel,
+                                                  cacheAdmissionComboBox);
+        
+        batchSizeRowBox.getChildren().addAll(batchSizeLabel,
+                                             batchSizeTextField);
+        
+        batchLingerRowBox.getChildren().addAll(batchLingerLabel,
+                                               batchLingerTextField);
+        
+        offlineGraphRowBox.getChildren().addAll(offlineGraphLabel,
+                                                offlineGraphTextField,
+                                                offlineGraphButton);
+        
         setDefaultSettings();
         
         searchButton.setDisable(true);
@@ -345,6 +599,19 @@ public final class WikiGameKillerFX extends Application {
         
         final Border statusBarBorder = new Border(borderStroke);
         
+        throughputChart.getXAxis().setLabel("Seconds");
+        throughputChart.setAnimated(false);
+        throughputChart.setCreateSymbols(false);
+        throughputChart.setPrefHeight(200.0);
+        expansionRateSeries.setName("Expansions/s");
+        requestsInFlightSeries.setName("Requests in flight");
+        throughputChart.getData().add(expansionRateSeries);
+        throughputChart.getData().add(requestsInFlightSeries);
+        
+        telemetryLabel.setFont(FONT);
+        boundsLabel.setFont(FONT);
+        telemetryTimeline.setCycleCount(Animation.INDEFINITE);
+        
         statusBarHBox.setBorder(statusBarBorder);
         statusBarHBox.getChildren().add(statusBarLabel);
         statusBarLabel.setFont(FONT);
@@ -413,6 +680,8 @@ public final class WikiGameKillerFX extends Application {
                 
                 final String sourceLanguageCode = getLanguageCode(sourceUrl);
                 final String targetLanguageCode = getLanguageCode(targetUrl);
+                final boolean crossLanguage = 
+                        !sourceLanguageCode.equals(targetLanguageCode);
                 
                 final int threads           = Integer.parseInt(threadsTextField.getText());
                 final int lockWaitDuration  = Integer.parseInt(waitTimeoutTextField.getText());
@@ -420,23 +689,216 @@ public final class WikiGameKillerFX extends Application {
                 final int masterTrials      = Integer.parseInt(masterTrialsTextField.getText());
                 final int masterSleep       = Integer.parseInt(masterSleepTextField.getText());
                 final int slaveSleep        = Integer.parseInt(slaveSleepTextField.getText());
+                final int cacheMemory       = Integer.parseInt(cacheMemoryTextField.getText());
+                final int batchSize         = Integer.parseInt(batchSizeTextField.getText());
+                final int batchLinger       = Integer.parseInt(batchLingerTextField.getText());
+                final int shortestPaths     = Integer.parseInt(shortestPathsTextField.getText());
+                final int parentMemory      = Integer.parseInt(parentMemoryTextField.getText());
                 
-                finder = 
-                        ThreadPoolBidirectionalBFSPathFinderBuilder
-                        .<String>begin()
-                        .withJoinDurationMillis(expansionDuration)
-                        .withLockWaitMillis(lockWaitDuration)
-                        .withMasterThreadSleepDurationMillis(masterSleep)
-                        .withNumberOfMasterTrials(masterTrials)
-                        .withNumberOfRequestedThreads(threads)
-                        .withSlaveThreadSleepDurationMillis(slaveSleep)
-                        .end();
+                sessionLinkCache.setMaximumWeight(
+                        cacheMemory * BYTES_PER_MEGABYTE);
                 
-                final AbstractNodeExpander<String> forwardNodeExpander = 
-                        new ForwardLinkExpander(sourceLanguageCode);
+                sessionLinkCache.setAdmissionPolicy(
+                        cacheAdmissionComboBox.getValue());
                 
-                final AbstractNodeExpander<String> backwardNodeExpander = 
-                        new BackwardLinkExpander(targetLanguageCode);
+                final CsrLinkGraph graph;
+                
+                try {
+                    graph = getOfflineGraph();
+                } catch (final IOException ex) {
+                    final Alert alert = 
+                            new Alert(
+                                    AlertType.ERROR,
+                                    String.format(
+                                            "Could not open the offline " + 
+                                            "graph: %s",
+                                            ex.getMessage()),
+                                    ButtonType.CLOSE);
+                    
+                    alert.showAndWait();
+                    searchButton.setDisable(false);
+                    haltButton.setDisable(true);
+                    return;
+                }
+                
+                if (graph != null && 
+                    !graph.getLanguageCode().equals(sourceLanguageCode)) {
+                    final Alert alert = 
+                            new Alert(
+                                    AlertType.ERROR,
+                                    String.format(
+                                            "The offline graph is for " + 
+                                            "\"%s\", not for \"%s\".",
+                                            graph.getLanguageCode(),
+                                            sourceLanguageCode),
+                                    ButtonType.CLOSE);
+                    
+                    alert.showAndWait();
+                    searchButton.setDisable(false);
+                    haltButton.setDisable(true);
+                    return;
+                }
+                
+                if (graph != null && crossLanguage) {
+                    final Alert alert = 
+                            new Alert(
+                                    AlertType.ERROR,
+                                    String.format(
+                                            "The offline graph cannot " + 
+                                            "search from \"%s\" to \"%s\".",
+                                            sourceLanguageCode,
+                                            targetLanguageCode),
+                                    ButtonType.CLOSE);
+                    
+                    alert.showAndWait();
+                    searchButton.setDisable(false);
+                    haltButton.setDisable(true);
+                    return;
+                }
+                
+                final SearchEngineType searchEngineType = 
+                        searchEngineComboBox.getValue();
+                
+                if (searchEngineType == SearchEngineType.THREAD_POOL) {
+                    finder = 
+                            ThreadPoolBidirectionalBFSPathFinderBuilder
+                            .<String>begin()
+                            .withJoinDurationMillis(expansionDuration)
+                            .withLockWaitMillis(lockWaitDuration)
+                            .withMasterThreadSleepDurationMillis(masterSleep)
+                            .withNumberOfMasterTrials(masterTrials)
+                            .withNumberOfRequestedThreads(threads)
+                            .withSlaveThreadSleepDurationMillis(slaveSleep)
+                            .end();
+                    
+                    intFinder = null;
+                } else if (graph != null) {
+                    // The offline graph is memory-mapped; expand on the
+                    // searching thread:
+                    intFinder = new IntBidirectionalBFSPathFinder(1);
+                    finder = null;
+                } else if (searchEngineType == 
+                           SearchEngineType.ASYNCHRONOUS) {
+                    intFinder = 
+                            IntBidirectionalBFSPathFinder.createAsynchronous();
+                    finder = null;
+                } else if (searchEngineType == 
+                           SearchEngineType.VIRTUAL_THREADS) {
+                    intFinder = 
+                            IntBidirectionalBFSPathFinder
+                                    .createVirtual(threads);
+                    finder = null;
+                } else if (searchEngineType == SearchEngineType.ADAPTIVE) {
+                    intFinder = 
+                            IntBidirectionalBFSPathFinder.createAdaptive(
+                                    new AdaptiveConcurrencyLimit(
+                                            AdaptiveConcurrencyLimit
+                                                    .DEFAULT_INITIAL_LIMIT,
+                                            AdaptiveConcurrencyLimit
+                                                    .DEFAULT_MAXIMUM_LIMIT));
+                    finder = null;
+                } else {
+                    intFinder = new IntBidirectionalBFSPathFinder(threads);
+                    finder = null;
+                }
+                
+                if (intFinder != null) {
+                    intFinder.setFrontierSelectionPolicy(
+                            frontierComboBox.getValue());
+                    
+                    intFinder.setExpansionOrder(
+                            expansionOrderComboBox.getValue());
+                    
+                    intFinder.setMaximumNumberOfPaths(
+                            Math.max(1, shortestPaths));
+                    
+                    intFinder.setParentMemoryLimit(
+                            parentMemory * BYTES_PER_MEGABYTE);
+                }
+                
+                maximumConcurrentRequests = threads;
+                currentSearchEngineType = searchEngineType;
+                
+                final AbstractNodeExpander<String> forwardNodeExpander;
+                final AbstractNodeExpander<String> backwardNodeExpander;
+                
+                if (graph != null) {
+                    forwardNodeExpander = 
+                            new OfflineLinkExpander(graph, 
+                                                    LinkDirection.FORWARD);
+                    
+                    backwardNodeExpander = 
+                            new OfflineLinkExpander(graph,
+                                                    LinkDirection.BACKWARD);
+                    
+                    forwardApiClient = null;
+                    backwardApiClient = null;
+                } else if (crossLanguage) {
+                    // The nodes carry their languages, and each language
+                    // has API clients of its own:
+                    final List<String> languageCodes = 
+                            Arrays.asList(sourceLanguageCode, 
+                                          targetLanguageCode);
+                    
+                    forwardNodeExpander = 
+                            linkExpanderFactory.createCrossLanguageExpander(
+                                    languageCodes,
+                                    LinkDirection.FORWARD,
+                                    searchEngineType,
+                                    batchSize,
+                                    batchLinger,
+                                    threads);
+                    
+                    backwardNodeExpander = 
+                            linkExpanderFactory.createCrossLanguageExpander(
+                                    languageCodes,
+                                    LinkDirection.BACKWARD,
+                                    searchEngineType,
+                                    batchSize,
+                                    batchLinger,
+                                    threads);
+                    
+                    forwardApiClient = null;
+                    backwardApiClient = null;
+                } else {
+                    forwardApiClient = 
+                            new WikipediaApiClient(sourceLanguageCode,
+                                                   LinkDirection.FORWARD);
+                    
+                    backwardApiClient = 
+                            new WikipediaApiClient(targetLanguageCode,
+                                                   LinkDirection.BACKWARD);
+                    
+                    forwardNodeExpander = 
+                            linkExpanderFactory.createLinkExpander(
+                                    sourceLanguageCode,
+                                    forwardApiClient,
+                                    searchEngineType,
+                                    batchSize,
+                                    batchLinger,
+                                    threads);
+                    
+                    backwardNodeExpander = 
+                            linkExpanderFactory.createLinkExpander(
+                                    targetLanguageCode,
+                                    backwardApiClient,
+                                    searchEngineType,
+                                    batchSize,
+                                    batchLinger,
+                                    threads);
+                    
+                    if (intFinder != null && intFinder.isAdaptive()) {
+                        // Failed and throttled requests shrink the limit:
+                        final AdaptiveConcurrencyLimit concurrencyLimit = 
+                                intFinder.getConcurrencyLimit();
+                        
+                        forwardApiClient.setFailureListener(
+                                concurrencyLimit::onDrop);
+                        
+                        backwardApiClient.setFailureListener(
+                                concurrencyLimit::onDrop);
+                    }
+                }
                 
                 haltButton.setDisable(false);
                 searchButton.setDisable(true);
@@ -445,28 +907,78 @@ public final class WikiGameKillerFX extends Application {
                 final SearchTask searchTask = new SearchTask();
 
                 searchTask.finder = finder;
+                searchTask.intFinder = intFinder;
+                searchTask.offlineGraph = graph;
                 searchTask.source = stripHostFromURL(sourceUrl);
                 searchTask.target = stripHostFromURL(targetUrl);
-                searchTask.forwardExpander = forwardNodeExpander;
-                searchTask.backwardExpander = backwardNodeExpander;
+                
+                if (graph != null) {
+                    searchTask.source = 
+                            CsrLinkGraph.normalizeTitle(searchTask.source);
+                    
+                    searchTask.target = 
+                            CsrLinkGraph.normalizeTitle(searchTask.target);
+                } else if (crossLanguage) {
+                    searchTask.source = 
+                            CrossLanguageNodeExpander.toNode(
+                                    sourceLanguageCode, 
+                                    searchTask.source);
+                    
+                    searchTask.target = 
+                            CrossLanguageNodeExpander.toNode(
+                                    targetLanguageCode, 
+                                    searchTask.target);
+                }
+                
+                boundsLabel.setText(
+                        describeLandmarkBounds(graph,
+                                               searchTask.source,
+                                               searchTask.target));
+                
+                // The library path finder is observable only through its 
+                // expansions:
+                if (intFinder != null) {
+                    intFinder.setTelemetry(telemetry);
+                    searchTask.forwardExpander = forwardNodeExpander;
+                    searchTask.backwardExpander = backwardNodeExpander;
+                } else {
+                    searchTask.forwardExpander = 
+                            new TimedNodeExpander(forwardNodeExpander,
+                                                  telemetry);
+                    
+                    searchTask.backwardExpander = 
+                            new TimedNodeExpander(backwardNodeExpander,
+                                                  telemetry);
+                }
+                
+                // The searches of one or two links need no path finder. The
+                // probe finds a single path:
+                if (forwardApiClient != null && shortestPaths <= 1) {
+                    searchTask.shortPathProbe = 
+                            new ShortPathProbe(forwardApiClient,
+                                               sessionLinkCache,
+                                               sourceLanguageCode);
+                }
                 
                 searchTask.setOnSucceeded(
                         (final WorkerStateEvent workerStateEvent) -> {
                     try {
+                        // The cross-language nodes carry their languages:
+                        final String resultLanguageCode = 
+                                crossLanguage ? null : sourceLanguageCode;
+                        
                         reportResults(
                                 searchTask.get(),
-                                sourceLanguageCode,
-                                (int) searchTask.finder.getDuration(),
-                                searchTask.finder
-                                        .getNumberOfExpandedNodes());
-                    } catch (final InterruptedException | ExecutionException ex) {
-                        final Alert alert =
-                                new Alert(
-                                        AlertType.ERROR, 
-                                        String.format("Search failed: %s", ex.getMessage()),
-                                        ButtonType.CLOSE);
+                                resultLanguageCode,
+                                (int) searchTask.getDuration(),
+                                searchTask.getNumberOfExpandedNodes(),
+                                searchTask.getNumberOfFailedExpansions());
                         
-                        alert.showAndWait();
+                        streamOtherShortestPaths(
+                                searchTask.getShortestPaths(),
+                                resultLanguageCode);
+                    } catch (final InterruptedException | ExecutionException ex) {
+                        reportFailure(ex);
                         return;
                     }
                     
@@ -475,8 +987,22 @@ public final class WikiGameKillerFX extends Application {
                     searchButton.setDisable(false);
                     defaultSettingsButton.setDisable(false);
                 });
+                
+                // A search that throws (for example, past the parent memory 
+                // cap) never succeeds:
+                searchTask.setOnFailed(
+                        (final WorkerStateEvent workerStateEvent) -> {
+                    reportFailure(searchTask.getException());
+                });
 
-                final Thread searchThread = new Thread(searchTask);
+                final Thread searchThread = 
+                        intFinder != null && 
+                        (intFinder.isVirtual() || intFinder.isAdaptive()) ?
+                        Thread.ofVirtual().unstarted(searchTask) :
+                        new Thread(searchTask);
+                
+                resourceMonitor.start();
+                startTelemetry();
                 searchThread.start();
                 
                 searchButton.setDisable(true);
@@ -489,21 +1015,47 @@ public final class WikiGameKillerFX extends Application {
             setRandomArticles();
         });
         
+        offlineGraphButton.setOnAction((t) -> {
+            final DirectoryChooser directoryChooser = new DirectoryChooser();
+            directoryChooser.setTitle("Choose an offline graph directory");
+            
+            final File directory = directoryChooser.showDialog(primaryStage);
+            
+            if (directory != null) {
+                offlineGraphTextField.setText(directory.getAbsolutePath());
+            }
+        });
+        
         haltButton.setOnAction((ActionEvent actionEvent) -> {
-            if (finder != null) {
-                finder.halt();
+            if (finder != null || intFinder != null) {
+                final long haltDuration;
+                final int haltNumberOfExpandedNodes;
+                
+                if (finder != null) {
+                    finder.halt();
+                    haltDuration = finder.getDuration();
+                    haltNumberOfExpandedNodes = 
+                            finder.getNumberOfExpandedNodes();
+                } else {
+                    intFinder.halt();
+                    haltDuration = intFinder.getDuration();
+                    haltNumberOfExpandedNodes = 
+                            intFinder.getNumberOfExpandedNodes();
+                }
+                
                 searchButton.setDisable(false);
                 haltButton.setDisable(true);
                
-                reportHalt(finder);
+                reportHalt(haltDuration, haltNumberOfExpandedNodes);
                 
                 System.out.printf(
                         "Search halted after %s milliseconds " + 
                         "expanding %d nodes.\n", 
-                        finder.getDuration(), 
-                        finder.getNumberOfExpandedNodes());
+                        haltDuration, 
+                        haltNumberOfExpandedNodes);
                 
                 finder = null;
+                intFinder = null;
                 
                 enableInputForm();
                 defaultSettingsButton.setDefaultButton(false);
@@ -520,14 +1072,27 @@ public final class WikiGameKillerFX extends Application {
         mainBox.getChildren()
                .addAll(sourceRowBox,
                        targetRowBox,
+                       searchEngineRowBox,
+                       frontierRowBox,
+                       expansionOrderRowBox,
+                       shortestPathsRowBox,
+                       parentMemoryRowBox,
                        threadsRowBox,
                        expansionDurationRowBox,
                        waitTimeoutRowBox,
                        masterTrialsRowBox,
                        masterSleepRowBox,
                        slaveSleepRowBox,
+                       cacheMemoryRowBox,
+                       cacheAdmissionRowBox,
+                       batchSizeRowBox,
+                       batchLingerRowBox,
+                       offlineGraphRowBox,
                        buttonsRowBox,
                        progressBar,
+                       boundsLabel,
+                       telemetryLabel,
+                       throughputChart,
                        statusBarHBox);
         
         final StackPane root = new StackPane();
@@ -536,18 +1101,78 @@ public final class WikiGameKillerFX extends Application {
         primaryStage.setScene(this.primaryScene = new Scene(root));
         primaryStage.show();
         
+        // The random articles are the first requests recorded:
+        try {
+            ApiRecorder.open();
+        } catch (final IOException ex) {
+            final Alert alert = 
+                    new Alert(
+                            AlertType.WARNING,
+                            ex.getMessage(),
+                            ButtonType.OK);
+            
+            alert.showAndWait();
+        }
+        
         setRandomArticles();
     }
     
-    private void reportHalt(
-            final AbstractDelayedGraphPathFinder<String> finder) {
+    /**
+     * Reports a search that threw instead of returning and returns the form 
+     * to its idle state.
+     * 
+     * @param throwable the cause of the failure.
+     */
+    private void reportFailure(final Throwable throwable) {
+        resourceMonitor.stop();
+        stopTelemetry();
+        
+        finder = null;
+        intFinder = null;
+        
+        enableInputForm();
+        haltButton.setDisable(true);
+        searchButton.setDisable(false);
+        defaultSettingsButton.setDisable(false);
+        
+        final Throwable cause = 
+                throwable instanceof ExecutionException && 
+                throwable.getCause() != null ? 
+                throwable.getCause() : 
+                throwable;
+        
+        final String message = 
+                cause instanceof MemoryLimitExceededException ?
+                String.format(
+                        "Search failed: the parent maps exceeded the " + 
+                        "parent memory cap of %s MB. Raise the cap or set " +
+                        "it to 0 to keep them on the heap.\n%s", 
+                        parentMemoryTextField.getText(),
+                        cause.getMessage()) :
+                String.format("Search failed: %s", 
+                              cause == null ? "unknown error." : 
+                                              cause.getMessage());
+        
+        final Alert alert =
+                new Alert(AlertType.ERROR, message, ButtonType.CLOSE);
+        
+        alert.showAndWait();
+    }
+    
+    private void reportHalt(final long duration, 
+                            final int numberOfExpandedNodes) {
          final Text statisticsText = 
                 new Text(
                     String.format(
                         "[STATISTICS] Duration: %d milliseconds.\n" +
-                        "[STATISTICS] Number of expanded nodes: %d.", 
-                        finder.getDuration(),
-                        finder.getNumberOfExpandedNodes()));
+                        "[STATISTICS] Number of expanded nodes: %d.\n%s%s%s\n%s", 
+                        duration,
+                        numberOfExpandedNodes,
+                        getCacheStatisticsText(),
+                        getBatchStatisticsText(),
+                        getConcurrencyLimitText(),
+                        getPerformanceStatisticsText(duration, 
+                                                     numberOfExpandedNodes)));
 
         statisticsText.setFont(FONT);
            
@@ -584,16 +1209,254 @@ public final class WikiGameKillerFX extends Application {
         });
     }
     
+    /**
+     * Returns the offline link graph in the directory given in the form, 
+     * opening it if it is not open yet. Returns {@code null} if no directory
+     * is given, i.e., in the online mode.
+     * 
+     * @return the offline graph or {@code null}.
+     * 
+     * @throws IOException if the graph cannot be opened.
+     */
+    private CsrLinkGraph getOfflineGraph() throws IOException {
+        final String directoryName = offlineGraphTextField.getText().trim();
+        
+        if (directoryName.isEmpty()) {
+            return null;
+        }
+        
+        final Path directory = Paths.get(directoryName).toAbsolutePath();
+        
+        if (offlineGraph != null && 
+            offlineGraph.getDirectory().equals(directory)) {
+            return offlineGraph;
+        }
+        
+        if (offlineGraph != null) {
+            offlineGraph.close();
+        }
+        
+        offlineGraph = CsrLinkGraph.open(directory);
+        return offlineGraph;
+    }
+    
+    /**
+     * Flushes and closes all the opened persistent link caches and the 
+     * offline graph.
+     */
+    private void closeLinkCaches() {
+        linkExpanderFactory.closeLinkCaches();
+        
+        if (offlineGraph != null) {
+            try {
+                offlineGraph.close();
+            } catch (final IOException ex) {
+                
+            }
+            
+            offlineGraph = null;
+        }
+    }
+    
+    /**
+     * Returns the warning about the expansions that failed for good during 
+     * the most recent search, or an empty string if none did.
+     * 
+     * @param titles                   the path found, if any.
+     * @param numberOfFailedExpansions the number of the failed expansions.
+     * 
+     * @return the warning text.
+     */
+    private static String getIncompleteSearchText(
+            final List<String> titles,
+            final int numberOfFailedExpansions) {
+        
+        if (numberOfFailedExpansions == 0) {
+            return "";
+        }
+        
+        return String.format(
+                "[WARNING] Incomplete search: %d expansions failed, so %s.\n",
+                numberOfFailedExpansions,
+                titles.isEmpty() ? 
+                        "a path may still exist" :
+                        "a shorter path may exist");
+    }
+    
+    /**
+     * Returns the text describing the current state of the session link 
+     * cache.
+     * 
+     * @return the cache statistics text.
+     */
+    private String getCacheStatisticsText() {
+        return String.format(
+                "[CACHE] Hits: %d, misses: %d, evictions: %d.\n" +
+                "[CACHE] Entries: %d, size: %d/%d KB.",
+                sessionLinkCache.getHits(),
+                sessionLinkCache.getMisses(),
+                sessionLinkCache.getEvictions(),
+                sessionLinkCache.getNumberOfEntries(),
+                sessionLinkCache.getWeight() / 1024L,
+                sessionLinkCache.getMaximumWeight() / 1024L);
+    }
+    
+    /**
+     * Returns the text describing the API requests of the most recent search,
+     * or an empty string if no requests were made by the application itself.
+     * 
+     * @return the batch statistics text.
+     */
+    private String getBatchStatisticsText() {
+        final WikipediaApiClient forwardClient = forwardApiClient;
+        final WikipediaApiClient backwardClient = backwardApiClient;
+        
+        if (forwardClient == null || backwardClient == null) {
+            return "";
+        }
+        
+        final long requests = forwardClient.getNumberOfRequests() + 
+                              backwardClient.getNumberOfRequests();
+        
+        final long titles = forwardClient.getNumberOfTitles() + 
+                            backwardClient.getNumberOfTitles();
+        
+        if (requests == 0L) {
+            return "";
+        }
+        
+        return String.format(
+                "\n[BATCH] Requests: %d, titles: %d, titles per request: " + 
+                "%.1f.",
+                requests,
+                titles,
+                (double) titles / requests);
+    }
+    
+    /**
+     * Returns the text describing the adaptive concurrency limit of the most
+     * recent search, or an empty string if the limit was not adaptive.
+     * 
+     * @return the concurrency limit statistics text.
+     */
+    private String getConcurrencyLimitText() {
+        final IntBidirectionalBFSPathFinder currentIntFinder = intFinder;
+        
+        if (currentIntFinder == null || !currentIntFinder.isAdaptive()) {
+            return "";
+        }
+        
+        final AdaptiveConcurrencyLimit concurrencyLimit = 
+                currentIntFinder.getConcurrencyLimit();
+        
+        return String.format(
+                "\n[LIMIT] Final concurrency limit: %d, peak: %d, " + 
+                "drops: %d.",
+                concurrencyLimit.getLimit(),
+                concurrencyLimit.getPeakLimit(),
+                concurrencyLimit.getNumberOfDrops());
+    }
+    
+    /**
+     * Stops the resource monitor, records the performance of the most recent
+     * search and returns the text comparing it to the most recent searches 
+     * of the other engines.
+     * 
+     * @param duration              the duration of the search in 
+     *                              milliseconds.
+     * @param numberOfExpandedNodes the number of expanded nodes.
+     * 
+     * @return the performance statistics text.
+     */
+    private String getPerformanceStatisticsText(
+            final long duration,
+            final int numberOfExpandedNodes) {
+        
+        resourceMonitor.stop();
+        stopTelemetry();
+        
+        final double nodesPerSecond = 
+                1000.0 * numberOfExpandedNodes / Math.max(1L, duration);
+        
+        final String summary = 
+                String.format(
+                        "%-20s %10.1f nodes/s, peak RSS: %5d MB, " + 
+                        "peak threads: %4d.",
+                        currentSearchEngineType + ":",
+                        nodesPerSecond,
+                        resourceMonitor.getPeakResidentSetSize() / 
+                                BYTES_PER_MEGABYTE,
+                        resourceMonitor.getPeakThreadCount());
+        
+        engineComparisonMap.put(currentSearchEngineType, summary);
+        
+        final StringBuilder sb = new StringBuilder();
+        
+        for (final String engineSummary : engineComparisonMap.values()) {
+            sb.append("[COMPARE] ").append(engineSummary).append('\n');
+        }
+        
+        sb.setLength(sb.length() - 1);
+        return sb.toString();
+    }
+    
     private void disableInputForm() {
         for (final TextField textField : textFieldList) {
             textField.setDisable(true);
         }
+        
+        cacheAdmissionComboBox.setDisable(true);
+        searchEngineComboBox.setDisable(true);
+        frontierComboBox.setDisable(true);
+        expansionOrderComboBox.setDisable(true);
+        offlineGraphTextField.setDisable(true);
+        offlineGraphButton.setDisable(true);
     }
     
     private void enableInputForm() {
         for (final TextField textField : textFieldList) {
             textField.setDisable(false);
         }
+        
+        cacheAdmissionComboBox.setDisable(false);
+        searchEngineComboBox.setDisable(false);
+        frontierComboBox.setDisable(false);
+        expansionOrderComboBox.setDisable(false);
+        offlineGraphTextField.setDisable(false);
+        offlineGraphButton.setDisable(false);
+        updateEngineParameterFields();
+    }
+    
+    /**
+     * Disables the text fields of the parameters the selected search engine
+     * does not use. The sleep durations and the trials tune the thread pool 
+     * engine only, and the adaptive engine chooses its concurrency itself.
+     * The thread pool engine always expands the smaller frontier in the
+     * discovery order and returns a single path.
+     */
+    private void updateEngineParameterFields() {
+        final SearchEngineType searchEngineType = 
+                searchEngineComboBox.getValue();
+        
+        if (searchEngineType == null) {
+            return;
+        }
+        
+        final boolean threadPool = 
+                searchEngineType == SearchEngineType.THREAD_POOL;
+        
+        threadsTextField.setDisable(
+                searchEngineType == SearchEngineType.ADAPTIVE);
+        
+        expansionoDurationTextField.setDisable(!threadPool);
+        waitTimeoutTextField       .setDisable(!threadPool);
+        masterTrialsTextField      .setDisable(!threadPool);
+        masterSleepTextField       .setDisable(!threadPool);
+        slaveSleepTextField        .setDisable(!threadPool);
+        frontierComboBox           .setDisable(threadPool);
+        expansionOrderComboBox     .setDisable(threadPool);
+        shortestPathsTextField     .setDisable(threadPool);
+        parentMemoryTextField      .setDisable(threadPool);
     }
     
     private void setDefaultSettings() {
@@ -621,6 +1484,27 @@ public final class WikiGameKillerFX extends Application {
                 Integer.toString(
                         ThreadPoolBidirectionalBFSPathFinder
                                 .DEFAULT_SLAVE_THREAD_SLEEP_DURATION_MILLIS));
+        
+        cacheMemoryTextField.setText("256");
+        
+        batchSizeTextField.setText(
+                Integer.toString(
+                        WikipediaApiClient.MAXIMUM_TITLES_PER_REQUEST));
+        
+        batchLingerTextField.setText("5");
+        
+        shortestPathsTextField.setText("1");
+        
+        // Zero keeps the parent maps on the heap:
+        parentMemoryTextField.setText("0");
+        
+        cacheAdmissionComboBox.setValue(CacheAdmissionPolicy.TINY_LFU);
+        
+        searchEngineComboBox.setValue(SearchEngineType.THREAD_POOL);
+        
+        frontierComboBox.setValue(FrontierSelectionPolicy.SMALLER_FRONTIER);
+        
+        expansionOrderComboBox.setValue(ExpansionOrder.DISCOVERY);
     }
     
     static String toTableRowHtml(final int lineNumber, 
@@ -675,7 +1559,12 @@ public final class WikiGameKillerFX extends Application {
                                            waitTimeoutTextField,
                                            masterTrialsTextField,
                                            masterSleepTextField,
-                                           slaveSleepTextField));
+                                           slaveSleepTextField,
+                                           cacheMemoryTextField,
+                                           batchSizeTextField,
+                                           batchLingerTextField,
+                                           shortestPathsTextField,
+                                           parentMemoryTextField));
     }
     
     private TextField getTopmostEmptyTextField() {
@@ -721,6 +1610,26 @@ public final class WikiGameKillerFX extends Application {
             return "Wait timeout";
         }
         
+        if (textField == cacheMemoryTextField) {
+            return "Cache memory";
+        }
+        
+        if (textField == batchSizeTextField) {
+            return "API batch size";
+        }
+        
+        if (textField == batchLingerTextField) {
+            return "Batch linger";
+        }
+        
+        if (textField == shortestPathsTextField) {
+            return "Shortest paths";
+        }
+        
+        if (textField == parentMemoryTextField) {
+            return "Parent memory";
+        }
+        
         throw new IllegalStateException("Should not get here.");
     }
     
@@ -806,22 +1715,18 @@ public final class WikiGameKillerFX extends Application {
             }
             
             if (!sourceUrlLanguageCode.equals(targetUrlLanguageCode)) {
-                setTextFieldWarning(sourceTextField);
-                setTextFieldWarning(targetTextField);
-                searchButton.setDisable(true);
-                haltButton.setDisable(true);
-                
+                // The path may cross the language border via the 
+                // interlanguage links:
                 statusBarLabel.setText(
                         String.format(
-                                "Language mismatch: \"%s\" vs \"%s\".", 
+                                "Cross-language search: %s → %s.", 
                                 sourceUrlLanguageCode, 
                                 targetUrlLanguageCode));
-                return false;
-            } else {
-                searchButton.setDisable(false);
-                haltButton.setDisable(true);
-                return true;
             }
+            
+            searchButton.setDisable(false);
+            haltButton.setDisable(true);
+            return true;
         }
         
         searchButton.setDisable(true);
@@ -839,7 +1744,8 @@ public final class WikiGameKillerFX extends Application {
         if (textField == expansionoDurationTextField ||
             textField == waitTimeoutTextField ||
             textField == masterSleepTextField ||
-            textField == slaveSleepTextField) {
+            textField == slaveSleepTextField ||
+            textField == batchLingerTextField) {
             
             textField.setPromptText("Milliseconds");
             textField.getParent().requestFocus();
@@ -849,6 +1755,16 @@ public final class WikiGameKillerFX extends Application {
         } else if (textField == masterTrialsTextField) {
             textField.setPromptText("Master trials");
             textField.getParent().requestFocus();
+        } else if (textField == cacheMemoryTextField ||
+                   textField == parentMemoryTextField) {
+            textField.setPromptText("Megabytes");
+            textField.getParent().requestFocus();
+        } else if (textField == batchSizeTextField) {
+            textField.setPromptText("Titles per request");
+            textField.getParent().requestFocus();
+        } else if (textField == shortestPathsTextField) {
+            textField.setPromptText("Number of paths");
+            textField.getParent().requestFocus();
         }
     }
     
@@ -987,24 +1903,6 @@ public final class WikiGameKillerFX extends Application {
         return languageCode;
     }
     
-    /**
-     * Strips the protocol, host name and {@code wiki} path from each URL in
-     * the {@code urlList}. For example, 
-     * {@code https://en.wikipedia.org/en/Hiisi} becomes simply {@code Hiisi}.
-     * 
-     * @param urlList the list of URLs.
-     * @return the list of article titles.
-     */
-    private static List<String> stripHostAddress(final List<String> urlList) {
-        List<String> result = new ArrayList<>(urlList.size());
-        
-        for (final String url : urlList) {
-            result.add(stripHostFromURL(url));
-        }
-        
-        return result;
-    }
-    
     /**
      * Strips the host from the input URL. For example, 
      * {@code en.wikipedia.org/wiki/Audi} becomes simply {@code Audi}.
@@ -1013,7 +1911,7 @@ public final class WikiGameKillerFX extends Application {
      * 
      * @return the title of the Wikipedia article. 
      */
-    private static String stripHostFromURL(final String url) {
+    static String stripHostFromURL(final String url) {
         return url.substring(url.lastIndexOf("/") + 1);
     }
     
@@ -1021,14 +1919,20 @@ public final class WikiGameKillerFX extends Application {
      * Reports the search results.
      * 
      * @param titles                the list of titles in the article path.
-     * @param languageCode          the language code of the search process.
+     * @param languageCode          the language code of the search process,
+     *                              or {@code null} for a cross-language
+     *                              search.
      * @param duration              the duration of search in milliseconds.
      * @param numberOfExpandedNodes the number of expanded nodes during search.
+     * @param numberOfFailedExpansions 
+     *                              the number of expansions that failed for
+     *                              good during search.
      */
     private void reportResults(final List<String> titles,
                                final String languageCode,
                                final int duration,
-                               final int numberOfExpandedNodes) {
+                               final int numberOfExpandedNodes,
+                               final int numberOfFailedExpansions) {
         
         // Get the path of full URLs:
         final List<String> urls = addHosts(titles, languageCode);
@@ -1036,8 +1940,11 @@ public final class WikiGameKillerFX extends Application {
         // Update the most recent search result:
         this.resultUrls.clear();
         this.resultUrls.addAll(urls);
+        this.otherResultUrls.clear();
+        this.resultsGeneration++;
         this.duration = duration;
         this.numberOfExpandedNodes = numberOfExpandedNodes;
+        this.numberOfFailedExpansions = numberOfFailedExpansions;
         
         // Convert the URLs to the instances of Hyperlink class:
         final List<Hyperlink> hyperlinks = getHyperlinks(urls);
@@ -1047,9 +1954,18 @@ public final class WikiGameKillerFX extends Application {
                 new Text(
                         String.format(
                                 "[STATISTICS] Duration: %d milliseconds.\n" +
-                                "[STATISTICS] Number of expanded nodes: %d.", 
+                                "[STATISTICS] Number of expanded nodes: %d.\n%s%s%s%s\n%s", 
                                 duration,
-                                numberOfExpandedNodes));
+                                numberOfExpandedNodes,
+                                getIncompleteSearchText(
+                                        titles, 
+                                        numberOfFailedExpansions),
+                                getCacheStatisticsText(),
+                                getBatchStatisticsText(),
+                                getConcurrencyLimitText(),
+                                getPerformanceStatisticsText(
+                                        duration, 
+                                        numberOfExpandedNodes)));
         
         statisticsText.setFont(FONT);
         
@@ -1081,8 +1997,10 @@ public final class WikiGameKillerFX extends Application {
             
             final VBox vbox = new VBox();
             vbox.getChildren().addAll(nodes);
+            resultsBox = vbox;
             
-            final StackPane resultsRoot = new StackPane(vbox);
+            // The other shortest paths may not fit the window:
+            final StackPane resultsRoot = new StackPane(new ScrollPane(vbox));
             final Scene resultsScene = new Scene(resultsRoot, 
                                                  400, 
                                                  primaryScene.getHeight());
@@ -1102,6 +2020,74 @@ public final class WikiGameKillerFX extends Application {
         });
     }
     
+    /**
+     * Enumerates the shortest paths after the first one in a background 
+     * thread and appends them to the results window as they come.
+     * 
+     * @param paths        the shortest paths, the one already reported 
+     *                     first.
+     * @param languageCode the language code of the search process, or 
+     *                     {@code null} for a cross-language search.
+     */
+    private void streamOtherShortestPaths(final Iterator<List<String>> paths,
+                                          final String languageCode) {
+        if (!paths.hasNext()) {
+            return;
+        }
+        
+        // The first path is already reported:
+        paths.next();
+        
+        final int generation = resultsGeneration;
+        
+        final Thread thread = new Thread(() -> {
+            int pathNumber = 2;
+            
+            while (paths.hasNext()) {
+                final List<String> urls = addHosts(paths.next(), languageCode);
+                final int number = pathNumber++;
+                
+                Platform.runLater(() -> {
+                    appendShortestPath(generation, number, urls);
+                });
+            }
+        });
+        
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Appends a shortest path to the results window unless a later search 
+     * has been reported in the meantime.
+     * 
+     * @param generation the results generation of the path.
+     * @param number     the ordinal of the path.
+     * @param urls       the URLs in the path.
+     */
+    private void appendShortestPath(final int generation,
+                                    final int number,
+                                    final List<String> urls) {
+        if (generation != resultsGeneration || resultsBox == null) {
+            return;
+        }
+        
+        otherResultUrls.add(urls);
+        
+        final Text headerText = 
+                new Text(String.format("\nShortest path %d:", number));
+        
+        headerText.setFont(FONT);
+        resultsBox.getChildren().add(headerText);
+        
+        for (final Hyperlink hyperlink : getHyperlinks(urls)) {
+            final Separator separator = new Separator(Orientation.VERTICAL);
+            separator.setPadding(new Insets(-5, 0, -5, 0));
+            hyperlink.setFont(FONT);
+            resultsBox.getChildren().addAll(separator, hyperlink);
+        }
+    }
+    
     /**
      * Downloads the JSON data with two random article titles.
      * 
@@ -1113,8 +2099,21 @@ public final class WikiGameKillerFX extends Application {
     private static String downloadPairOfRandomArticlesJson() 
             throws MalformedURLException, IOException {
         
-        return IOUtils.toString(new URL(RANDOM_PAGE_QUERY_URL),
-                                Charset.forName("UTF-8"));
+        final String url = 
+                WikipediaApiClient.getApiUri(RANDOM_PAGE_LANGUAGE_CODE) + 
+                "?" + 
+                RANDOM_PAGE_QUERY;
+        
+        final String json = IOUtils.toString(new URL(url),
+                                             Charset.forName("UTF-8"));
+        
+        final ApiRecorder recorder = ApiRecorder.getInstance();
+        
+        if (recorder != null) {
+            recorder.recordRandomArticles(RANDOM_PAGE_LANGUAGE_CODE, json);
+        }
+        
+        return json;
     }
      
     private static String[] extractRandomUrls(final String json) throws UnsupportedEncodingException {
@@ -1167,6 +2166,75 @@ public final class WikiGameKillerFX extends Application {
         }
     }
     
+    /**
+     * Returns the landmark bounds of the path length from {@code source} to
+     * {@code target} in the offline graph, or an empty string if unknown.
+     */
+    private static String describeLandmarkBounds(final CsrLinkGraph graph,
+                                                 final String source,
+                                                 final String target) {
+        if (graph == null || graph.getLandmarkTable() == null) {
+            return "";
+        }
+        
+        final int sourceId = graph.getId(source);
+        final int targetId = graph.getId(target);
+        
+        if (sourceId < 0 || targetId < 0) {
+            return "";
+        }
+        
+        return graph.getLandmarkTable().describeBounds(sourceId, targetId);
+    }
+    
+    /**
+     * Clears the telemetry and the throughput chart and starts sampling.
+     */
+    private void startTelemetry() {
+        telemetry.reset();
+        expansionRateSeries.getData().clear();
+        requestsInFlightSeries.getData().clear();
+        telemetryLabel.setText("");
+        telemetryTimeline.playFromStart();
+    }
+    
+    /**
+     * Stops sampling. The telemetry label keeps the final sample.
+     */
+    private void stopTelemetry() {
+        if (telemetryTimeline.getStatus() == Animation.Status.RUNNING) {
+            telemetryTimeline.stop();
+            sampleTelemetry();
+        }
+    }
+    
+    private void sampleTelemetry() {
+        final SearchTelemetry.Sample sample = telemetry.sample();
+        final double seconds = sample.getElapsedMillis() / 1000.0;
+        
+        telemetryLabel.setText(sample.toString());
+        
+        addChartPoint(expansionRateSeries, 
+                      seconds, 
+                      sample.getExpansionsPerSecond());
+        
+        addChartPoint(requestsInFlightSeries, 
+                      seconds, 
+                      sample.getRequestsInFlight());
+    }
+    
+    private static void addChartPoint(
+            final XYChart.Series<Number, Number> series,
+            final double x,
+            final double y) {
+        
+        series.getData().add(new XYChart.Data<>(x, y));
+        
+        if (series.getData().size() > MAXIMUM_CHART_SAMPLES) {
+            series.getData().remove(0);
+        }
+    }
+    
     /**
      * Returns a block of HTML code describing the actual contents of the result
      * table.
@@ -1175,7 +2243,7 @@ public final class WikiGameKillerFX extends Application {
      * 
      * @return HTML code for the result &lt;table&gt;.
      */
-    private static String getPathTableHtml(
+    static String getPathTableHtml(
             final List<String> urlList) {
         
         StringBuilder stringBuilder = new StringBuilder();
@@ -1202,6 +2270,30 @@ public final class WikiGameKillerFX extends Application {
         return stringBuilder.toString();
     }
     
+    /**
+     * Returns a block of HTML code with a table for each of the other 
+     * shortest paths of the most recent search.
+     * 
+     * @return HTML code for the other path &lt;div&gt;s.
+     */
+    private String getOtherPathsHtml() {
+        final StringBuilder stringBuilder = new StringBuilder();
+        int pathNumber = 2;
+        
+        for (final List<String> urls : otherResultUrls) {
+            stringBuilder.append("        <div>\n")
+                         .append("            <h3>Shortest path ")
+                         .append(pathNumber++)
+                         .append("</h3>\n")
+                         .append("            <table>\n")
+                         .append(getPathTableHtml(urls))
+                         .append("            </table>\n")
+                         .append("        </div>\n");
+        }
+        
+        return stringBuilder.toString();
+    }
+    
     /**
      * Attempts to save the most recent results into the file {@code file}.
      * 
@@ -1223,16 +2315,18 @@ public final class WikiGameKillerFX extends Application {
         final String html = String.format(
                     HTML_TEMPLATE,
                     String.format(
-                            "Duration: %d milliseconds, expanded %d nodes.", 
+                            "Duration: %d milliseconds, expanded %d nodes.%s", 
                             duration,
-                            numberOfExpandedNodes),
+                            numberOfExpandedNodes,
+                            numberOfFailedExpansions == 0 ?
+                                    "" :
+                                    String.format(
+                                            " Incomplete: %d expansions " + 
+                                            "failed.",
+                                            numberOfFailedExpansions)),
                     getPathTableHtml(resultUrls),
-                    finder.getNumberOfThreads(),
-                    finder.getExpansionJoinDurationMillis(),
-                    finder.getLockWaitDurationMillis(),
-                    finder.getMasterThreadTrials(),
-                    finder.getMasterThreadSleepDurationMillis(),
-                    finder.getSlaveThreadSleepDurationMillis());
+                    getOtherPathsHtml(),
+                    getSearchParametersHtml());
         
         // Attempt to save:
         try (BufferedWriter bufferedWriter =
@@ -1246,6 +2340,86 @@ public final class WikiGameKillerFX extends Application {
         }
     }
     
+    /**
+     * Returns a block of HTML code describing the rows of the search parameter
+     * table of the most recent search.
+     * 
+     * @return HTML code for the parameter &lt;table&gt;.
+     */
+    private String getSearchParametersHtml() {
+        if (intFinder != null) {
+            return getIntFinderParametersHtml() + String.format(
+                    "                <tr><td><b>Frontier selection:    </b></td><td>%s</td><tr>\n" +
+                    "                <tr><td><b>Expansion order:       </b></td><td>%s</td><tr>\n" +
+                    "                <tr><td><b>Shortest paths:        </b></td><td>%d</td><tr>\n" +
+                    "                <tr><td><b>Parent memory:         </b></td><td>%s</td><tr>\n",
+                    intFinder.getFrontierSelectionPolicy(),
+                    intFinder.getExpansionOrder(),
+                    intFinder.getMaximumNumberOfPaths(),
+                    intFinder.getParentMemoryLimit() == 0L ?
+                            "On the heap" :
+                            String.format(
+                                    "%d MB off the heap",
+                                    intFinder.getParentMemoryLimit() / 
+                                            BYTES_PER_MEGABYTE));
+        }
+        
+        return String.format(
+                "                <tr><td><b>Search engine:         </b></td><td>%s</td><tr>\n" +
+                "                <tr><td><b>Number of threads:     </b></td><td>%d</td><tr>\n" +
+                "                <tr><td><b>Expansion duration:    </b></td><td>%d milliseconds.</td><tr>\n" +
+                "                <tr><td><b>Wait timeout:          </b></td><td>%d milliseconds.</td><tr>\n" +
+                "                <tr><td><b>Master trials:         </b></td><td>%d</td><tr>\n" +
+                "                <tr><td><b>Master sleep duration: </b></td><td>%d milliseconds.</td><tr>\n" +
+                "                <tr><td><b>Slave sleep duration:  </b></td><td>%d milliseconds.</td><tr>\n",
+                SearchEngineType.THREAD_POOL,
+                finder.getNumberOfThreads(),
+                finder.getExpansionJoinDurationMillis(),
+                finder.getLockWaitDurationMillis(),
+                finder.getMasterThreadTrials(),
+                finder.getMasterThreadSleepDurationMillis(),
+                finder.getSlaveThreadSleepDurationMillis());
+    }
+    
+    /**
+     * Returns the engine rows of the search parameter table of the most 
+     * recent search made by the primitive path finder.
+     * 
+     * @return HTML code for the engine rows.
+     */
+    private String getIntFinderParametersHtml() {
+        if (intFinder.isAdaptive()) {
+            return String.format(
+                    "                <tr><td><b>Search engine:         </b></td><td>%s</td><tr>\n" +
+                    "                <tr><td><b>Concurrency limit:     </b></td><td>%d (peak %d)</td><tr>\n",
+                    SearchEngineType.ADAPTIVE,
+                    intFinder.getConcurrencyLimit().getLimit(),
+                    intFinder.getConcurrencyLimit().getPeakLimit());
+        }
+        
+        if (intFinder.isVirtual()) {
+            return String.format(
+                    "                <tr><td><b>Search engine:         </b></td><td>%s</td><tr>\n" +
+                    "                <tr><td><b>Max. concurrency:      </b></td><td>%d</td><tr>\n",
+                    SearchEngineType.VIRTUAL_THREADS,
+                    intFinder.getNumberOfThreads());
+        }
+        
+        if (intFinder.isAsynchronous()) {
+            return String.format(
+                    "                <tr><td><b>Search engine:         </b></td><td>%s</td><tr>\n" +
+                    "                <tr><td><b>Concurrent requests:   </b></td><td>%d</td><tr>\n",
+                    SearchEngineType.ASYNCHRONOUS,
+                    maximumConcurrentRequests);
+        }
+        
+        return String.format(
+                "                <tr><td><b>Search engine:         </b></td><td>%s</td><tr>\n" +
+                "                <tr><td><b>Number of threads:     </b></td><td>%d</td><tr>\n",
+                SearchEngineType.PRIMITIVE,
+                intFinder.getNumberOfThreads());
+    }
+    
     private static List<Hyperlink> getHyperlinks(final List<String> urls) {
         final List<Hyperlink> hyperlinkList = new ArrayList<>(urls.size());
         
@@ -1278,123 +2452,77 @@ public final class WikiGameKillerFX extends Application {
         return hyperlinkList;
     }
     
-    private static List<String> addHosts(final List<String> titles,
-                                         final String languageCode) {
+    /**
+     * Converts the titles to the article URLs.
+     * 
+     * @param titles       the titles.
+     * @param languageCode the language code of the titles, or {@code null} if
+     *                     the titles are cross-language nodes such as 
+     *                     {@code de:Turku}.
+     * 
+     * @return the URLs.
+     */
+    static List<String> addHosts(final List<String> titles,
+                                 final String languageCode) {
         final List<String> result = new ArrayList<>(titles.size());
         
         for (final String title : titles) {
             result.add(
                     String.format(
                             "https://%s.wikipedia.org/wiki/%s", 
-                            languageCode, 
-                            title));
+                            languageCode != null ? 
+                                    languageCode :
+                                    CrossLanguageNodeExpander
+                                            .getLanguageCode(title), 
+                            languageCode != null ? 
+                                    title :
+                                    CrossLanguageNodeExpander
+                                            .getTitle(title)));
         }
         
         return result;
     }
     
-    /**
-     * This class implements the forward link expander.
-     */
-    private static final class ForwardLinkExpander 
-            extends AbstractNodeExpander<String> {
-
-        private final ForwardWikipediaGraphNodeExpander expander;
-        
-        public ForwardLinkExpander(final String languageCode) {
-            this.expander = new ForwardWikipediaGraphNodeExpander(languageCode);
-        }
-        
-        /**
-         * Generate all the links that this article links to.
-         * 
-         * @param article the source article of each link.
-         * 
-         * @return all the article titles that {@code article} links to.
-         */
-        @Override
-        public List<String> generateSuccessors(final String article) {
-            try {
-                return stripHostAddress(expander.getNeighbors(article));
-            } catch (Exception ex) {
-                return Collections.<String>emptyList();
-            }
-        }
-
-        /**
-         * {@inheritDoc }
-         */
-        @Override
-        public boolean isValidNode(final String article) {
-            try {
-                return expander.isValidNode(article);
-            } catch (Exception ex) {
-                return false;
-            }
-        }
-    }
-    
-    /**
-     * This class implements the backward link expander. 
-     */
-    private static final class BackwardLinkExpander 
-            extends AbstractNodeExpander<String> {
-
-        private final BackwardWikipediaGraphNodeExpander expander;
-        
-        public BackwardLinkExpander(final String languageCode) {
-            this.expander = 
-                    new BackwardWikipediaGraphNodeExpander(languageCode);
-        }
-        
-        /**
-         * Generate all the links pointing to the article {@code article}.
-         * 
-         * @param article the target article of each link.
-         * 
-         * @return all the article titles linking to {@code article}.
-         * 
-         * @throws java.lang.Exception if something fails.
-         */
-        @Override
-        public List<String> generateSuccessors(final String article) {
-            try {
-                return stripHostAddress(expander.getNeighbors(article));
-            } catch (Exception ex) {
-                return Collections.<String>emptyList();
-            }
-        }
-        
-        /**
-         * {@inheritDoc }
-         */
-        @Override
-        public boolean isValidNode(final String article) {
-            try {
-                return expander.isValidNode(article);
-            } catch (Exception ex) {
-                return false;
-            }
-        }
-    }
-    
     private final class SearchTask extends Task<List<String>> {
 
         String source;
         String target;
+        CsrLinkGraph offlineGraph;
         AbstractDelayedGraphPathFinder<String> finder;
+        IntBidirectionalBFSPathFinder intFinder;
         AbstractNodeExpander<String> forwardExpander;
         AbstractNodeExpander<String> backwardExpander;
+        ShortPathProbe shortPathProbe;
+        private volatile PathSearch pathSearch;
         
         @Override
         protected List<String> call() throws Exception {
-            return ThreadPoolBidirectionalBFSPathFinderSearchBuilder
-                    .<String>withPathFinder(finder)
-                    .withSourceNode(source)
-                    .withTargetNode(target)
-                    .withForwardNodeExpander(forwardExpander)
-                    .withBackwardNodeExpander(backwardExpander)
-                    .search();
+            pathSearch = new PathSearch(source, 
+                                        target, 
+                                        offlineGraph, 
+                                        finder, 
+                                        intFinder, 
+                                        forwardExpander, 
+                                        backwardExpander);
+            
+            pathSearch.setShortPathProbe(shortPathProbe);
+            return pathSearch.run();
+        }
+        
+        Iterator<List<String>> getShortestPaths() {
+            return pathSearch.getShortestPaths();
+        }
+        
+        long getDuration() {
+            return pathSearch.getDuration();
+        }
+        
+        int getNumberOfExpandedNodes() {
+            return pathSearch.getNumberOfExpandedNodes();
+        }
+        
+        int getNumberOfFailedExpansions() {
+            return pathSearch.getNumberOfFailedExpansions();
         }
     }
 }
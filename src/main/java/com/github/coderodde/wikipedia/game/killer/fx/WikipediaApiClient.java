@@ -0,0 +1,1105 @@
+package com.github.coderodde.wikipedia.game.killer.fx;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a minimal client of the MediaWiki query API that
+ * fetches the links of up to {@link #MAXIMUM_TITLES_PER_REQUEST} articles in
+ * a single request. The forward links are queried via {@code prop=links} and
+ * the backward links via {@code prop=linkshere}; in both cases only the main
+ * namespace is considered. A client created by 
+ * {@link #createLanguageLinkClient(String)} fetches the interlanguage links
+ * via {@code prop=langlinks} instead, as cross-language nodes such as 
+ * {@code de:Turku}. Since the result limit of a request is shared by all 
+ * the titles in it, the continuation tokens returned by the API are followed
+ * until the result set is complete. The forward links may also be filtered
+ * by their targets via {@code pltitles}, which answers whether an article
+ * links to a given one without downloading all its links.
+ * <p>
+ * The requests are sent over an {@link HttpClient} preferring HTTP/2, either
+ * blocking or asynchronously. Each language edition has an HTTP client of 
+ * its own, so a multilingual search does not queue its requests behind the
+ * ones of a single-language search. The titles are accepted and returned in
+ * the URL form used throughout this application, for example,
+ * {@code Turun_linna}.
+ * <p>
+ * The requests to a host are scheduled by its {@link RequestScheduler}, 
+ * which keeps their rate under a ceiling. A request is retried after an
+ * exponential backoff if it fails on the way or with a server error, and
+ * after the {@code Retry-After} time, during which the whole host is 
+ * paused, if it is throttled. Every query carries 
+ * {@code maxlag=}{@value #MAXIMUM_LAG_SECONDS}, so a lagging database 
+ * throttles the requests too. Only the requests failing all the 
+ * {@value RequestScheduler#MAXIMUM_ATTEMPTS} attempts fail.
+ * <p>
+ * The API of a stand-in server, such as the {@link ReplayServer}, is used
+ * instead of Wikipedia if its base URL is given in the system property
+ * {@value #API_BASE_URL_PROPERTY}; the API of the language {@code fi} is
+ * then at {@code BASE_URL/fi/w/api.php}. The fetched links are recorded if
+ * the {@link ApiRecorder} is enabled.
+ */
+final class WikipediaApiClient {
+
+    /**
+     * The maximum number of titles the API accepts per request.
+     */
+    static final int MAXIMUM_TITLES_PER_REQUEST = 50;
+
+    /**
+     * The system property holding the base URL of a stand-in API server.
+     */
+    static final String API_BASE_URL_PROPERTY = "wikigamekiller.apiBaseUrl";
+
+    private static final String API_URL_FORMAT =
+            "https://%s.wikipedia.org/w/api.php";
+
+    private static final String STAND_IN_API_URL_FORMAT = "%s/%s/w/api.php";
+
+    private static final String USER_AGENT =
+            "WikiGameKillerFX (https://github.com/coderodde/WikiGameKillerFX)";
+
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+    private static final int STATUS_BAD_GATEWAY = 502;
+    private static final int STATUS_SERVICE_UNAVAILABLE = 503;
+    private static final int STATUS_GATEWAY_TIMEOUT = 504;
+
+    /**
+     * The maximum replication lag of the database in seconds, beyond which
+     * the API asks the clients to come back later.
+     */
+    static final int MAXIMUM_LAG_SECONDS = 5;
+
+    /**
+     * The pause after a lag error without a {@code Retry-After} time.
+     */
+    private static final long DEFAULT_LAG_PAUSE_MILLIS =
+            MAXIMUM_LAG_SECONDS * 1000L;
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Maps the language codes to the HTTP clients shared by all the API 
+     * clients of the language. With HTTP/2, all the concurrent requests to a
+     * host are multiplexed over a single connection.
+     */
+    private static final Map<String, HttpClient> HTTP_CLIENTS =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The number of HTTP requests of all the clients waiting for a response.
+     */
+    private static final AtomicInteger REQUESTS_IN_FLIGHT =
+            new AtomicInteger();
+
+    /**
+     * The number of requests of all the clients rejected with the status
+     * 429 Too Many Requests.
+     */
+    private static final AtomicLong THROTTLED_REQUESTS = new AtomicLong();
+
+    /**
+     * The number of failed requests of all the clients retried.
+     */
+    private static final AtomicLong RETRIED_REQUESTS = new AtomicLong();
+
+    private final URI apiUri;
+    private final HttpClient httpClient;
+    private final RequestScheduler scheduler;
+    private final String languageCode;
+    private final LinkDirection direction;
+
+    /**
+     * Set if this client fetches the interlanguage links.
+     */
+    private final boolean languageLinks;
+    private final ApiRecorder recorder = ApiRecorder.getInstance();
+    private final AtomicLong numberOfRequests = new AtomicLong();
+    private final AtomicLong numberOfTitles = new AtomicLong();
+
+    /**
+     * Notified of every failed HTTP request, or {@code null}.
+     */
+    private volatile Runnable failureListener;
+
+    /**
+     * Constructs a client for the given language edition.
+     *
+     * @param languageCode the language code of the Wikipedia edition.
+     * @param direction    the direction of the links to fetch.
+     */
+    WikipediaApiClient(final String languageCode,
+                       final LinkDirection direction) {
+        this(languageCode, direction, false);
+    }
+
+    private WikipediaApiClient(final String languageCode,
+                               final LinkDirection direction,
+                               final boolean languageLinks) {
+        this.apiUri = getApiUri(languageCode);
+        this.httpClient = getHttpClient(languageCode);
+        this.scheduler = RequestScheduler.getInstance(apiUri.getAuthority());
+        this.languageCode = languageCode;
+        this.direction = direction;
+        this.languageLinks = languageLinks;
+    }
+
+    /**
+     * Constructs a client fetching the interlanguage links of the articles
+     * in the given language edition. The links are not recorded, since they
+     * are not article links of the edition.
+     *
+     * @param languageCode the language code of the Wikipedia edition.
+     *
+     * @return the interlanguage link client.
+     */
+    static WikipediaApiClient createLanguageLinkClient(
+            final String languageCode) {
+        return new WikipediaApiClient(languageCode,
+                                      LinkDirection.FORWARD,
+                                      true);
+    }
+
+    private static HttpClient getHttpClient(final String languageCode) {
+        return HTTP_CLIENTS.computeIfAbsent(
+                languageCode,
+                (code) -> HttpClient.newBuilder()
+                                    .version(HttpClient.Version.HTTP_2)
+                                    .connectTimeout(CONNECT_TIMEOUT)
+                                    .followRedirects(
+                                            HttpClient.Redirect.NORMAL)
+                                    .build());
+    }
+
+    /**
+     * Returns the URI of the API of the given language edition, honoring the
+     * stand-in base URL.
+     *
+     * @param languageCode the language code of the Wikipedia edition.
+     *
+     * @return the URI of the {@code api.php} endpoint.
+     */
+    static URI getApiUri(final String languageCode) {
+        final String baseUrl = System.getProperty(API_BASE_URL_PROPERTY);
+
+        if (baseUrl == null || baseUrl.isBlank()) {
+            return URI.create(String.format(API_URL_FORMAT, languageCode));
+        }
+
+        return URI.create(
+                String.format(STAND_IN_API_URL_FORMAT,
+                              baseUrl.replaceAll("/+$", ""),
+                              languageCode));
+    }
+
+    /**
+     * Tells whether the API traffic is redirected to a stand-in server or
+     * recorded. The library expanders reach Wikipedia on their own, so all
+     * the requests must then go through this client.
+     *
+     * @return {@code true} if all the requests must use this client.
+     */
+    static boolean isInstrumented() {
+        final String baseUrl = System.getProperty(API_BASE_URL_PROPERTY);
+
+        return (baseUrl != null && !baseUrl.isBlank()) ||
+                ApiRecorder.getInstance() != null;
+    }
+
+    LinkDirection getDirection() {
+        return direction;
+    }
+
+    /**
+     * Sets the listener notified of every failed HTTP request, such as a
+     * throttled request or an unreachable API. The listener is run in a
+     * thread of the HTTP client and must not block.
+     *
+     * @param failureListener the failure listener, or {@code null}.
+     */
+    void setFailureListener(final Runnable failureListener) {
+        this.failureListener = failureListener;
+    }
+
+    /**
+     * Returns the number of HTTP requests of all the clients currently
+     * waiting for a response.
+     *
+     * @return the number of requests in flight.
+     */
+    static int getNumberOfRequestsInFlight() {
+        return REQUESTS_IN_FLIGHT.get();
+    }
+
+    /**
+     * Returns the number of requests of all the clients throttled by the API
+     * so far.
+     *
+     * @return the number of throttled requests.
+     */
+    static long getNumberOfThrottledRequests() {
+        return THROTTLED_REQUESTS.get();
+    }
+
+    /**
+     * Returns the number of failed requests of all the clients retried so
+     * far.
+     *
+     * @return the number of retried requests.
+     */
+    static long getNumberOfRetriedRequests() {
+        return RETRIED_REQUESTS.get();
+    }
+
+    /**
+     * Returns the number of HTTP requests made so far, continuations
+     * included.
+     *
+     * @return the number of HTTP requests.
+     */
+    long getNumberOfRequests() {
+        return numberOfRequests.get();
+    }
+
+    /**
+     * Returns the number of titles whose links have been fetched so far.
+     *
+     * @return the number of fetched titles.
+     */
+    long getNumberOfTitles() {
+        return numberOfTitles.get();
+    }
+
+    /**
+     * Fetches the links of all the {@code titles}, blocking until the
+     * result set is complete. Each requested title maps to the list of its
+     * neighbor titles; an article that does not exist maps to an empty list.
+     *
+     * @param titles the titles of the articles to expand.
+     *
+     * @return the map from the requested titles to their neighbor titles.
+     *
+     * @throws IOException if the API cannot be reached or responds with an
+     *                     error.
+     */
+    Map<String, List<String>> fetchLinks(final Collection<String> titles)
+            throws IOException {
+        return fetchLinks(titles, null);
+    }
+
+    /**
+     * Fetches the links of all the {@code titles} as
+     * {@link #fetchLinks(Collection)} does, passing them to
+     * {@code pageListener} page by page.
+     *
+     * @param titles       the titles of the articles to expand.
+     * @param pageListener the listener of the link pages, or {@code null}.
+     *
+     * @return the map from the requested titles to their neighbor titles.
+     *
+     * @throws IOException if the API cannot be reached or responds with an
+     *                     error, or if the listener stopped the fetch.
+     */
+    Map<String, List<String>> fetchLinks(
+            final Collection<String> titles,
+            final LinkPageListener pageListener) throws IOException {
+
+        try {
+            return fetchLinksAsync(titles, pageListener).get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching.");
+        } catch (final CancellationException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Starts fetching the links of all the {@code titles} without blocking.
+     * The returned future completes exceptionally with an
+     * {@link IOException} if the API cannot be reached or responds with an
+     * error.
+     *
+     * @param titles the titles of the articles to expand.
+     *
+     * @return the future map from the requested titles to their neighbor
+     *         titles.
+     */
+    CompletableFuture<Map<String, List<String>>> fetchLinksAsync(
+            final Collection<String> titles) {
+        return fetchLinksAsync(titles, null);
+    }
+
+    /**
+     * Starts fetching the links of all the {@code titles} as
+     * {@link #fetchLinksAsync(Collection)} does. After each result page,
+     * {@code pageListener} receives the links found in the page for every
+     * requested title. If every call on a page returns {@code false}, no
+     * further pages are requested and the returned future completes 
+     * exceptionally with a {@link CancellationException}.
+     *
+     * @param titles       the titles of the articles to expand.
+     * @param pageListener the listener of the link pages, or {@code null}.
+     *
+     * @return the future map from the requested titles to their neighbor
+     *         titles.
+     */
+    CompletableFuture<Map<String, List<String>>> fetchLinksAsync(
+            final Collection<String> titles,
+            final LinkPageListener pageListener) {
+
+        if (titles.size() > MAXIMUM_TITLES_PER_REQUEST) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Too many titles per request: %d.",
+                            titles.size()));
+        }
+
+        final List<String> titleList = new ArrayList<>(titles);
+        final String query = getQuery(joinTitles(titleList));
+        final Map<String, String> normalizedTitleMap = new HashMap<>();
+        final Map<String, List<String>> linkMap = new HashMap<>();
+
+        final PageDispatcher pageDispatcher =
+                pageListener == null ?
+                null :
+                new PageDispatcher(titleList, pageListener);
+
+        return fetchPages(query,
+                          Collections.<String, String>emptyMap(),
+                          normalizedTitleMap,
+                          linkMap,
+                          pageDispatcher)
+                .thenApply((v) -> {
+                    numberOfTitles.addAndGet(titleList.size());
+
+                    final Map<String, List<String>> resultMap =
+                            getResultMap(titleList,
+                                         normalizedTitleMap,
+                                         linkMap);
+
+                    if (recorder != null && !languageLinks) {
+                        record(resultMap);
+                    }
+
+                    return resultMap;
+                });
+    }
+
+    /**
+     * Starts checking which of the {@code linkTargets} each of the 
+     * {@code titles} links to, via {@code prop=links} filtered by 
+     * {@code pltitles}. As each title has at most one link per target, the
+     * answer for a few titles fits in a single response. The filtered links
+     * are not recorded, since they are not complete neighbor lists.
+     *
+     * @param titles      the titles of the articles to check.
+     * @param linkTargets the titles of the link targets.
+     *
+     * @return the future map from the requested titles to the link targets
+     *         they link to.
+     */
+    CompletableFuture<Map<String, List<String>>> fetchLinksToAsync(
+            final Collection<String> titles,
+            final Collection<String> linkTargets) {
+
+        checkLinkFilter(titles, linkTargets);
+
+        final List<String> titleList = new ArrayList<>(titles);
+        final String query =
+                getLinkFilterQuery(linkTargets) +
+                "&titles=" +
+                URLEncoder.encode(joinTitles(titleList),
+                                  StandardCharsets.UTF_8);
+
+        final Map<String, String> normalizedTitleMap = new HashMap<>();
+        final Map<String, List<String>> linkMap = new HashMap<>();
+
+        return fetchPages(query,
+                          Collections.<String, String>emptyMap(),
+                          normalizedTitleMap,
+                          linkMap,
+                          null)
+                .thenApply((v) -> getResultMap(titleList,
+                                               normalizedTitleMap,
+                                               linkMap));
+    }
+
+    /**
+     * Starts checking which of the neighbors of {@code title} link to any of
+     * the {@code linkTargets}, in a single request generating the neighbors
+     * via {@code generator=links}. Only the first result page is requested,
+     * so at most 500 neighbors are checked.
+     *
+     * @param title       the title of the article whose neighbors to check.
+     * @param linkTargets the titles of the link targets.
+     *
+     * @return the future map from the checked neighbors linking to any of 
+     *         the targets, in the URL form, to the targets they link to.
+     */
+    CompletableFuture<Map<String, List<String>>> fetchNeighborLinksToAsync(
+            final String title,
+            final Collection<String> linkTargets) {
+
+        checkLinkFilter(Collections.singletonList(title), linkTargets);
+
+        final String query =
+                getLinkFilterQuery(linkTargets) +
+                "&generator=links&gplnamespace=0&gpllimit=max&titles=" +
+                URLEncoder.encode(CsrLinkGraph.normalizeTitle(title),
+                                  StandardCharsets.UTF_8);
+
+        return postAsync(query, Collections.<String, String>emptyMap())
+                .thenApply((root) -> {
+                    final Map<String, List<String>> linkMap = new HashMap<>();
+                    final JsonObject queryObject =
+                            root.getAsJsonObject("query");
+
+                    if (queryObject != null) {
+                        readLinks(queryObject, linkMap);
+                    }
+
+                    final Map<String, List<String>> resultMap =
+                            new HashMap<>();
+
+                    for (final Map.Entry<String, List<String>> entry
+                            : linkMap.entrySet()) {
+                        if (!entry.getValue().isEmpty()) {
+                            resultMap.put(toUrlTitle(entry.getKey()),
+                                          entry.getValue());
+                        }
+                    }
+
+                    return resultMap;
+                });
+    }
+
+    private void checkLinkFilter(final Collection<String> titles,
+                                 final Collection<String> linkTargets) {
+        if (languageLinks || direction != LinkDirection.FORWARD) {
+            throw new IllegalStateException(
+                    "Only the forward links can be filtered.");
+        }
+
+        if (titles.size() > MAXIMUM_TITLES_PER_REQUEST ||
+            linkTargets.size() > MAXIMUM_TITLES_PER_REQUEST) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Too many titles per request: %d, %d.",
+                            titles.size(),
+                            linkTargets.size()));
+        }
+    }
+
+    /**
+     * This class hands the links read from each result page to a page 
+     * listener, title by title.
+     */
+    private static final class PageDispatcher {
+
+        private final List<String> titles;
+        private final LinkPageListener pageListener;
+
+        /**
+         * The number of links of each requested title handed out so far.
+         */
+        private final int[] numbersOfDispatchedLinks;
+
+        PageDispatcher(final List<String> titles,
+                       final LinkPageListener pageListener) {
+            this.titles = titles;
+            this.pageListener = pageListener;
+            this.numbersOfDispatchedLinks = new int[titles.size()];
+        }
+
+        /**
+         * Hands the links read since the previous page to the listener.
+         *
+         * @return {@code false} if no more pages are wanted for any title.
+         */
+        boolean dispatch(final Map<String, String> normalizedTitleMap,
+                         final Map<String, List<String>> linkMap) {
+            boolean wanted = false;
+
+            for (int i = 0; i < titles.size(); i++) {
+                final List<String> links =
+                        linkMap.get(getCanonicalTitle(titles.get(i),
+                                                      normalizedTitleMap));
+
+                final int size = links == null ? 0 : links.size();
+
+                // Copied, since the links of the next pages are appended:
+                final List<String> page =
+                        size == numbersOfDispatchedLinks[i] ?
+                        Collections.<String>emptyList() :
+                        new ArrayList<>(
+                                links.subList(numbersOfDispatchedLinks[i],
+                                              size));
+
+                numbersOfDispatchedLinks[i] = size;
+
+                if (pageListener.onLinks(titles.get(i), page)) {
+                    wanted = true;
+                }
+            }
+
+            return wanted;
+        }
+    }
+
+    /**
+     * Posts the query and follows the continuation tokens until the result
+     * set is complete or the page dispatcher wants no more pages. The 
+     * continuation requests are chained, so the maps are never accessed
+     * concurrently.
+     */
+    private CompletableFuture<Void> fetchPages(
+            final String query,
+            final Map<String, String> continueParameters,
+            final Map<String, String> normalizedTitleMap,
+            final Map<String, List<String>> linkMap,
+            final PageDispatcher pageDispatcher) {
+
+        return postAsync(query, continueParameters).thenCompose((root) -> {
+            final JsonObject queryObject = root.getAsJsonObject("query");
+
+            if (queryObject != null) {
+                readNormalizedTitles(queryObject, normalizedTitleMap);
+                readLinks(queryObject, linkMap);
+            }
+
+            final Map<String, String> nextContinueParameters =
+                    readContinueParameters(root);
+
+            final boolean wanted = 
+                    pageDispatcher == null ||
+                    pageDispatcher.dispatch(normalizedTitleMap, linkMap);
+
+            if (nextContinueParameters.isEmpty()) {
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+
+            if (!wanted) {
+                return CompletableFuture.<Void>failedFuture(
+                        new CancellationException(
+                                "No more link pages wanted."));
+            }
+
+            return fetchPages(query,
+                              nextContinueParameters,
+                              normalizedTitleMap,
+                              linkMap,
+                              pageDispatcher);
+        });
+    }
+
+    private void record(final Map<String, List<String>> resultMap) {
+        for (final Map.Entry<String, List<String>> entry
+                : resultMap.entrySet()) {
+            recorder.recordLinks(languageCode,
+                                 direction,
+                                 entry.getKey(),
+                                 entry.getValue());
+        }
+    }
+
+    private static Map<String, List<String>> getResultMap(
+            final List<String> titles,
+            final Map<String, String> normalizedTitleMap,
+            final Map<String, List<String>> linkMap) {
+
+        final Map<String, List<String>> resultMap =
+                new HashMap<>(titles.size() * 2);
+
+        for (final String title : titles) {
+            final List<String> links =
+                    linkMap.get(getCanonicalTitle(title, normalizedTitleMap));
+
+            resultMap.put(title,
+                          links == null ? new ArrayList<>() : links);
+        }
+
+        return resultMap;
+    }
+
+    /**
+     * Returns the title under which the API reports the links of the
+     * requested {@code title}.
+     */
+    private static String getCanonicalTitle(
+            final String title,
+            final Map<String, String> normalizedTitleMap) {
+
+        final String requestedTitle = CsrLinkGraph.normalizeTitle(title);
+
+        return normalizedTitleMap.getOrDefault(requestedTitle,
+                                               requestedTitle)
+                                 .replace(' ', '_');
+    }
+
+    /**
+     * Joins the titles into the value of a {@code titles} parameter.
+     */
+    private static String joinTitles(final Collection<String> titles) {
+        final StringBuilder sb = new StringBuilder();
+
+        for (final String title : titles) {
+            if (sb.length() > 0) {
+                sb.append('|');
+            }
+
+            sb.append(CsrLinkGraph.normalizeTitle(title));
+        }
+
+        return sb.toString();
+    }
+
+    private static String getLinkFilterQuery(
+            final Collection<String> linkTargets) {
+        return "action=query&format=json&formatversion=2" +
+               "&maxlag=" + MAXIMUM_LAG_SECONDS +
+               "&prop=links&plnamespace=0&pllimit=max&pltitles=" +
+               URLEncoder.encode(joinTitles(linkTargets),
+                                 StandardCharsets.UTF_8);
+    }
+
+    private String getQuery(final String titles) {
+        final StringBuilder sb =
+                new StringBuilder("action=query&format=json&formatversion=2")
+                        .append("&maxlag=")
+                        .append(MAXIMUM_LAG_SECONDS);
+
+        if (languageLinks) {
+            sb.append("&prop=langlinks&lllimit=max");
+        } else if (direction == LinkDirection.FORWARD) {
+            sb.append("&prop=links&plnamespace=0&pllimit=max");
+        } else {
+            sb.append("&prop=linkshere&lhnamespace=0&lhprop=title")
+              .append("&lhlimit=max");
+        }
+
+        return sb.append("&titles=")
+                 .append(URLEncoder.encode(titles, StandardCharsets.UTF_8))
+                 .toString();
+    }
+
+    /**
+     * Posts the query to the API. The titles are sent in the request body
+     * since 50 titles do not always fit in a URL.
+     */
+    private CompletableFuture<JsonObject> postAsync(
+            final String query,
+            final Map<String, String> continueParameters) {
+
+        final StringBuilder body = new StringBuilder(query);
+
+        for (final Map.Entry<String, String> entry
+                : continueParameters.entrySet()) {
+            body.append('&')
+                .append(URLEncoder.encode(entry.getKey(),
+                                          StandardCharsets.UTF_8))
+                .append('=')
+                .append(URLEncoder.encode(entry.getValue(),
+                                          StandardCharsets.UTF_8));
+        }
+
+        final HttpRequest request =
+                HttpRequest.newBuilder(apiUri)
+                           .timeout(REQUEST_TIMEOUT)
+                           .header("User-Agent", USER_AGENT)
+                           .header("Content-Type",
+                                   "application/x-www-form-urlencoded; " +
+                                   "charset=UTF-8")
+                           .POST(HttpRequest.BodyPublishers.ofString(
+                                   body.toString(),
+                                   StandardCharsets.UTF_8))
+                           .build();
+
+        return sendAsync(request, 0);
+    }
+
+    /**
+     * Sends the request once its token is free, and retries it if the 
+     * attempt fails for a reason worth retrying.
+     *
+     * @param request the request.
+     * @param retry   the number of the retries so far.
+     */
+    private CompletableFuture<JsonObject> sendAsync(final HttpRequest request,
+                                                    final int retry) {
+        return scheduler.acquire()
+                        .thenCompose((v) -> sendOnceAsync(request))
+                        .handle((root, throwable) -> {
+                            if (throwable == null) {
+                                return CompletableFuture
+                                        .completedFuture(root);
+                            }
+
+                            return retry(request, retry, throwable);
+                        })
+                        .thenCompose((future) -> future);
+    }
+
+    private CompletableFuture<JsonObject> retry(final HttpRequest request,
+                                                final int retry,
+                                                final Throwable throwable) {
+        final Throwable cause =
+                throwable instanceof CompletionException &&
+                throwable.getCause() != null ?
+                throwable.getCause() :
+                throwable;
+
+        if (!(cause instanceof RetryableIOException retryableException) ||
+                retry + 1 >= RequestScheduler.MAXIMUM_ATTEMPTS) {
+            return CompletableFuture.failedFuture(cause);
+        }
+
+        RETRIED_REQUESTS.incrementAndGet();
+
+        if (SearchMetrics.ENABLED) {
+            SearchMetrics.recordRetriedApiRequest();
+        }
+
+        final long backoffMillis = RequestScheduler.getBackoffMillis(retry);
+
+        if (retryableException.throttled) {
+            // The server throttles the client, not the request:
+            scheduler.pause(retryableException.retryAfterMillis >= 0L ?
+                            retryableException.retryAfterMillis :
+                            backoffMillis);
+
+            return sendAsync(request, retry + 1);
+        }
+
+        return CompletableFuture.runAsync(
+                        () -> {},
+                        CompletableFuture.delayedExecutor(
+                                backoffMillis,
+                                TimeUnit.MILLISECONDS))
+                .thenCompose((v) -> sendAsync(request, retry + 1));
+    }
+
+    private CompletableFuture<JsonObject> sendOnceAsync(
+            final HttpRequest request) {
+
+        numberOfRequests.incrementAndGet();
+        REQUESTS_IN_FLIGHT.incrementAndGet();
+
+        final long startTime = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+
+        return httpClient.sendAsync(
+                        request,
+                        HttpResponse.BodyHandlers.ofString(
+                                StandardCharsets.UTF_8))
+                          .handle((response, throwable) -> {
+                              if (throwable != null) {
+                                  // The request failed on the way:
+                                  throw new CompletionException(
+                                          new RetryableIOException(
+                                                  throwable,
+                                                  false,
+                                                  -1L));
+                              }
+
+                              return parseResponse(response);
+                          })
+                          .whenComplete((root, throwable) -> {
+                              REQUESTS_IN_FLIGHT.decrementAndGet();
+
+                              if (SearchMetrics.ENABLED) {
+                                  SearchMetrics.recordApiRequest(
+                                          throwable != null,
+                                          System.nanoTime() - startTime);
+                              }
+
+                              final Runnable listener = failureListener;
+
+                              if (throwable != null && listener != null) {
+                                  listener.run();
+                              }
+                          });
+    }
+
+    private static JsonObject parseResponse(
+            final HttpResponse<String> response) {
+
+        final int statusCode = response.statusCode();
+
+        if (statusCode == STATUS_TOO_MANY_REQUESTS) {
+            THROTTLED_REQUESTS.incrementAndGet();
+
+            if (SearchMetrics.ENABLED) {
+                SearchMetrics.recordThrottledApiRequest();
+            }
+
+            throw new CompletionException(
+                    new RetryableIOException(
+                            "Too many requests.",
+                            true,
+                            getRetryAfterMillis(response)));
+        }
+
+        if (statusCode == STATUS_BAD_GATEWAY ||
+            statusCode == STATUS_SERVICE_UNAVAILABLE ||
+            statusCode == STATUS_GATEWAY_TIMEOUT) {
+            throw new CompletionException(
+                    new RetryableIOException(
+                            String.format("Unexpected HTTP status: %d.",
+                                          statusCode),
+                            statusCode == STATUS_SERVICE_UNAVAILABLE,
+                            getRetryAfterMillis(response)));
+        }
+
+        if (statusCode != 200) {
+            throw new CompletionException(
+                    new IOException(
+                            String.format(
+                                    "Unexpected HTTP status: %d.",
+                                    response.statusCode())));
+        }
+
+        final JsonObject root;
+
+        try {
+            root = new Gson().fromJson(response.body(), JsonObject.class);
+        } catch (final JsonParseException ex) {
+            throw new CompletionException(new IOException(ex));
+        }
+
+        if (root == null) {
+            throw new CompletionException(
+                    new IOException("Empty API response."));
+        }
+
+        if (isLagError(root)) {
+            final long retryAfterMillis = getRetryAfterMillis(response);
+
+            throw new CompletionException(
+                    new RetryableIOException(
+                            "The database is lagging.",
+                            true,
+                            retryAfterMillis >= 0L ?
+                            retryAfterMillis :
+                            DEFAULT_LAG_PAUSE_MILLIS));
+        }
+
+        if (root.has("error")) {
+            throw new CompletionException(
+                    new IOException(
+                            String.format(
+                                    "API error: %s.",
+                                    root.get("error"))));
+        }
+
+        return root;
+    }
+
+    private static boolean isLagError(final JsonObject root) {
+        final JsonElement error = root.get("error");
+
+        if (error == null || !error.isJsonObject()) {
+            return false;
+        }
+
+        final JsonElement code = error.getAsJsonObject().get("code");
+        return code != null && "maxlag".equals(code.getAsString());
+    }
+
+    /**
+     * Returns the time given in the {@code Retry-After} header of the 
+     * response, either in seconds or as a date, or {@code -1} if there is
+     * none.
+     */
+    private static long getRetryAfterMillis(
+            final HttpResponse<String> response) {
+
+        final String retryAfter =
+                response.headers().firstValue("Retry-After").orElse(null);
+
+        if (retryAfter == null) {
+            return -1L;
+        }
+
+        try {
+            return Math.max(0L,
+                            Long.parseLong(retryAfter.trim()) * 1000L);
+        } catch (final NumberFormatException ex) {
+
+        }
+
+        try {
+            return Math.max(
+                    0L,
+                    ZonedDateTime.parse(retryAfter.trim(),
+                                        DateTimeFormatter.RFC_1123_DATE_TIME)
+                                 .toInstant()
+                                 .toEpochMilli() -
+                    System.currentTimeMillis());
+        } catch (final DateTimeParseException ex) {
+            return -1L;
+        }
+    }
+
+    /**
+     * This class marks the failures of the requests worth retrying: the
+     * transport failures, the server errors and the throttled requests.
+     */
+    private static final class RetryableIOException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Set if the server throttled the client.
+         */
+        final boolean throttled;
+
+        /**
+         * The time given by the server to wait before retrying, or 
+         * {@code -1}.
+         */
+        final long retryAfterMillis;
+
+        RetryableIOException(final String message,
+                             final boolean throttled,
+                             final long retryAfterMillis) {
+            super(message);
+            this.throttled = throttled;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        RetryableIOException(final Throwable cause,
+                             final boolean throttled,
+                             final long retryAfterMillis) {
+            super(cause instanceof CompletionException &&
+                  cause.getCause() != null ?
+                  cause.getCause() :
+                  cause);
+            this.throttled = throttled;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+    }
+
+    private static void readNormalizedTitles(
+            final JsonObject queryObject,
+            final Map<String, String> normalizedTitleMap) {
+
+        final JsonArray normalizedArray =
+                queryObject.getAsJsonArray("normalized");
+
+        if (normalizedArray == null) {
+            return;
+        }
+
+        for (final JsonElement element : normalizedArray) {
+            final JsonObject object = element.getAsJsonObject();
+
+            normalizedTitleMap.put(object.get("from").getAsString(),
+                                   object.get("to").getAsString());
+        }
+    }
+
+    private void readLinks(final JsonObject queryObject,
+                           final Map<String, List<String>> linkMap) {
+
+        final JsonArray pagesArray = queryObject.getAsJsonArray("pages");
+
+        if (pagesArray == null) {
+            return;
+        }
+
+        final String linksPropertyName =
+                languageLinks ? "langlinks" :
+                direction == LinkDirection.FORWARD ? "links" : "linkshere";
+
+        for (final JsonElement pageElement : pagesArray) {
+            final JsonObject page = pageElement.getAsJsonObject();
+            final String title = page.get("title")
+                                     .getAsString()
+                                     .replace(' ', '_');
+
+            final List<String> links =
+                    linkMap.computeIfAbsent(title, (t) -> new ArrayList<>());
+
+            final JsonArray linksArray =
+                    page.getAsJsonArray(linksPropertyName);
+
+            if (linksArray == null) {
+                continue;
+            }
+
+            for (final JsonElement linkElement : linksArray) {
+                final JsonObject link = linkElement.getAsJsonObject();
+                final String linkTitle =
+                        toUrlTitle(link.get("title").getAsString());
+
+                links.add(languageLinks ?
+                          CrossLanguageNodeExpander.toNode(
+                                  link.get("lang").getAsString(),
+                                  linkTitle) :
+                          linkTitle);
+            }
+        }
+    }
+
+    private static Map<String, String> readContinueParameters(
+            final JsonObject root) {
+
+        final Map<String, String> continueParameters = new HashMap<>();
+        final JsonObject continueObject = root.getAsJsonObject("continue");
+
+        if (continueObject != null) {
+            for (final Map.Entry<String, JsonElement> entry
+                    : continueObject.entrySet()) {
+                continueParameters.put(entry.getKey(),
+                                       entry.getValue().getAsString());
+            }
+        }
+
+        return continueParameters;
+    }
+
+    /**
+     * Converts an API title such as {@code Turun linna} to the URL form
+     * {@code Turun_linna}.
+     */
+    private static String toUrlTitle(final String title) {
+        return URLEncoder.encode(title, StandardCharsets.UTF_8)
+                         .replace("+", "_");
+    }
+}
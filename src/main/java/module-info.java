@@ -1,5 +1,9 @@
 module coderodde.WikiGameKillerFXJava {
     requires java.desktop;
+    requires java.management;
+    requires java.net.http;
+    requires jdk.jfr;
+    requires jdk.httpserver;
     requires javafx.base;
     requires javafx.controls;
     requires javafx.graphics;